@@ -17,6 +17,8 @@
  */
 package oasis.model.accounts;
 
+import java.util.Collection;
+
 import oasis.model.InvalidVersionException;
 
 public interface AccountRepository {
@@ -24,6 +26,13 @@ public interface AccountRepository {
 
   UserAccount getUserAccountById(String id);
 
+  /**
+   * Returns the (activated) accounts with the given IDs, in no particular order.
+   *
+   * <p>Only the ID, names and email address are loaded: this is meant for displaying lists of users.
+   */
+  Iterable<UserAccount> getUserAccountsByIds(Collection<String> ids);
+
   UserAccount getUserAccountByFranceConnectSub(String franceconnect_sub);
 
   UserAccount createUserAccount(UserAccount agent, boolean markAsActivated);
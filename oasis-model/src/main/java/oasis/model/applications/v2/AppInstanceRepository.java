@@ -32,10 +32,14 @@ public interface AppInstanceRepository {
 
   Iterable<AppInstance> findByOrganizationId(String organizationId);
 
+  Iterable<String> findIdsByOrganizationId(String organizationId);
+
   Iterable<AppInstance> findByOrganizationIdAndStatus(String organizationId, AppInstance.InstantiationStatus instantiationStatus);
 
   Iterable<AppInstance> findPersonalInstancesByUserId(String userId);
 
+  Iterable<String> findPersonalInstanceIdsByUserId(String userId);
+
   Iterable<AppInstance> findPersonalInstancesByUserIdAndStatus(String userId, AppInstance.InstantiationStatus instantiationStatus);
 
   long getNonStoppedCountByOrganizationId(String organizationId);
@@ -57,4 +61,6 @@ public interface AppInstanceRepository {
   boolean deleteInstance(String instanceId);
 
   Iterable<AppInstance> getInstancesForApplication(String applicationId);
+
+  Iterable<String> getInstanceIdsForApplication(String applicationId);
 }
@@ -22,6 +22,11 @@ import java.util.Collection;
 public interface ScopeRepository {
   Scope getScope(String scopeId);
 
+  /**
+   * Returns the scopes in the same order as the given IDs.
+   *
+   * @throws IllegalArgumentException if one of the scopes does not exist
+   */
   Iterable<Scope> getScopes(Collection<String> scopeIds);
 
   Iterable<Scope> getScopesOfAppInstance(String instanceId);
@@ -23,6 +23,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
@@ -36,6 +38,10 @@ public abstract class Token {
   private byte[] hash;
   @JsonProperty
   private byte[] salt;
+  /** Algorithm used to compute the {@link #hash}; {@code null} for legacy tokens, hashed with {@link HashAlgorithm#SCRYPT}. */
+  @JsonProperty
+  @Nullable
+  private HashAlgorithm hashAlgorithm;
   @JsonProperty
   private Instant creationTime = Instant.now();
   @JsonProperty
@@ -67,6 +73,14 @@ public abstract class Token {
     this.salt = salt;
   }
 
+  public HashAlgorithm getHashAlgorithm() {
+    return hashAlgorithm == null ? HashAlgorithm.SCRYPT : hashAlgorithm;
+  }
+
+  public void setHashAlgorithm(@Nullable HashAlgorithm hashAlgorithm) {
+    this.hashAlgorithm = hashAlgorithm;
+  }
+
   public Instant getCreationTime() {
     return creationTime;
   }
@@ -111,4 +125,9 @@ public abstract class Token {
   public void checkValidity() {
     // valid by default
   }
+
+  public enum HashAlgorithm {
+    SCRYPT,
+    HMAC_SHA256
+  }
 }
@@ -17,6 +17,7 @@
  */
 package oasis.model.authn;
 
+import java.time.Instant;
 import java.util.Collection;
 
 public interface TokenRepository {
@@ -28,6 +29,8 @@ public interface TokenRepository {
 
   SidToken renewSidToken(String tokenId, boolean usingClientCertificate);
 
+  int renewSidTokens(Collection<String> tokenIds, Instant expirationTime);
+
   boolean reAuthSidToken(String tokenId);
 
   boolean reAuthSidToken(String tokenId, String franceconnectIdToken, String franceconnectAccessToken);
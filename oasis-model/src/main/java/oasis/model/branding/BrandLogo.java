@@ -0,0 +1,41 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.model.branding;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * A brand logo, along with a hash of its content (used as its ETag), computed once when it's loaded.
+ */
+public class BrandLogo {
+  private final byte[] content;
+  private final String hash;
+
+  public BrandLogo(byte[] content) {
+    this.content = content;
+    this.hash = Hashing.murmur3_128().hashBytes(content).toString();
+  }
+
+  public byte[] getContent() {
+    return content;
+  }
+
+  public String getHash() {
+    return hash;
+  }
+}
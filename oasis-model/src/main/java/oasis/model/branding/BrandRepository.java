@@ -17,11 +17,15 @@
  */
 package oasis.model.branding;
 
+import javax.annotation.Nullable;
+
 public interface BrandRepository {
   /** Returns the {@link BrandInfo} corresponding to the {@code brandId}, or the default brand info as a fallback. */
   BrandInfo getBrandInfo(String brandId);
 
-  byte[] getSmallLogo(String brandId);
+  @Nullable
+  BrandLogo getSmallLogo(String brandId);
 
-  byte[] getLargeLogo(String brandId);
+  @Nullable
+  BrandLogo getLargeLogo(String brandId);
 }
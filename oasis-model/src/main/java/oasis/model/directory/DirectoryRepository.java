@@ -18,6 +18,7 @@
 package oasis.model.directory;
 
 import java.time.Instant;
+import java.util.Collection;
 
 import oasis.model.InvalidVersionException;
 
@@ -41,5 +42,12 @@ public interface DirectoryRepository {
 
   Iterable<Organization> getOrganizations();
 
+  /**
+   * Returns the organizations with the given IDs, in no particular order.
+   *
+   * <p>Only the ID, name, type and status are loaded: this is meant for displaying lists of organizations.
+   */
+  Iterable<Organization> getOrganizations(Collection<String> organizationIds);
+
   Iterable<Organization> findOrganizationsDeletedBefore(Instant deletedBefore);
 }
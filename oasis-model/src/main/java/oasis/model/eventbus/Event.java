@@ -0,0 +1,54 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.model.eventbus;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/** An event published to the event bus, as sent to the webhooks of the subscriptions to its type. */
+public class Event {
+
+  @JsonProperty String message;
+
+  @JsonProperty String data;
+
+  @JsonProperty String eventType; // Unique (gives the application for an organisation)
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  public String getData() {
+    return data;
+  }
+
+  public void setData(String data) {
+    this.data = data;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public void setEventType(String eventType) {
+    this.eventType = eventType;
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.model.eventbus;
+
+import java.time.Instant;
+
+import javax.annotation.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import oasis.model.annotations.Id;
+
+/**
+ * An {@link Event} waiting to be delivered to the webhook of a {@link Subscription}.
+ */
+public class EventDelivery {
+
+  @Id
+  private String id;
+
+  @JsonProperty String subscriptionId;
+
+  @JsonProperty String instance_id;
+
+  /** Copied from the subscription to cap the number of concurrent deliveries to each webhook. */
+  @JsonProperty String webHook;
+
+  @JsonProperty Event event;
+
+  @JsonProperty Status status = Status.PENDING;
+
+  @JsonProperty int attempts;
+
+  @JsonProperty Instant created;
+
+  /** The delivery won't be attempted before that instant; also used as a lease while a delivery is in progress. */
+  @JsonProperty Instant nextAttempt;
+
+  @JsonProperty @Nullable String lastError;
+
+  public String getId() {
+    return id;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public String getSubscriptionId() {
+    return subscriptionId;
+  }
+
+  public void setSubscriptionId(String subscriptionId) {
+    this.subscriptionId = subscriptionId;
+  }
+
+  public String getInstance_id() {
+    return instance_id;
+  }
+
+  public void setInstance_id(String instance_id) {
+    this.instance_id = instance_id;
+  }
+
+  public String getWebHook() {
+    return webHook;
+  }
+
+  public void setWebHook(String webHook) {
+    this.webHook = webHook;
+  }
+
+  public Event getEvent() {
+    return event;
+  }
+
+  public void setEvent(Event event) {
+    this.event = event;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void setAttempts(int attempts) {
+    this.attempts = attempts;
+  }
+
+  public Instant getCreated() {
+    return created;
+  }
+
+  public void setCreated(Instant created) {
+    this.created = created;
+  }
+
+  public Instant getNextAttempt() {
+    return nextAttempt;
+  }
+
+  public void setNextAttempt(Instant nextAttempt) {
+    this.nextAttempt = nextAttempt;
+  }
+
+  @Nullable
+  public String getLastError() {
+    return lastError;
+  }
+
+  public void setLastError(@Nullable String lastError) {
+    this.lastError = lastError;
+  }
+
+  public enum Status {
+    PENDING,
+    /** Gave up after too many failed attempts; kept for inspection. */
+    DEAD
+  }
+}
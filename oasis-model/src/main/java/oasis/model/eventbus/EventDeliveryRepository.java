@@ -0,0 +1,54 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.model.eventbus;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * The event bus outbox: {@link EventDelivery deliveries} are persisted when an event is published,
+ * and removed once successfully delivered.
+ */
+public interface EventDeliveryRepository {
+
+  void createDeliveries(List<EventDelivery> deliveries);
+
+  /**
+   * Atomically claims the pending delivery whose next attempt is the oldest one due at {@code now},
+   * skipping those to the given webhooks.
+   * <p>
+   * The claimed delivery has its attempts incremented and won't be claimed again before {@code leaseExpiration}
+   * (unless it's {@link #scheduleRetry rescheduled}), so that a delivery interrupted by a crash is eventually retried.
+   */
+  @Nullable EventDelivery claimDelivery(Instant now, Instant leaseExpiration, Collection<String> excludedWebHooks);
+
+  boolean deleteDelivery(String deliveryId);
+
+  boolean scheduleRetry(String deliveryId, Instant nextAttempt, String error);
+
+  boolean deadLetter(String deliveryId, String error);
+
+  long countPendingDeliveries();
+
+  long countDeadLetteredDeliveries();
+
+  int deleteDeliveriesForAppInstance(String instance_id);
+}
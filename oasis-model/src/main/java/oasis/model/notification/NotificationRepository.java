@@ -17,7 +17,13 @@
  */
 package oasis.model.notification;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
 
 public interface NotificationRepository {
 
@@ -26,20 +32,88 @@ public interface NotificationRepository {
    */
   Notification createNotification(Notification notification);
 
-  List<Notification> createNotifications(List<Notification> notifications);
+  /**
+   * Creates one notification per recipient, as copies of the given prototype.
+   *
+   * <p>Recipients are consumed lazily and notifications written by chunks, so that memory use doesn't depend
+   * on the number of recipients. A failure only affects the chunk it happened in, and is reported in the result.
+   */
+  FanOutResult createNotifications(Notification prototype, Stream<String> userIds);
 
   boolean deleteNotification(String notificationId);
 
   Notification getNotification(String notificationId);
 
-  Iterable<Notification> getNotifications(String userId);
+  /**
+   * Returns the user's notifications, most recent first (notifications with the same time are sorted by descending ID).
+   *
+   * @param since if not {@code null}, only notifications strictly after that cursor are returned
+   * @param before if not {@code null}, only notifications strictly before that cursor are returned
+   * @param limit the maximum number of notifications to return, or 0 for no limit
+   */
+  Iterable<Notification> getNotifications(String userId, @Nullable Cursor since, @Nullable Cursor before, int limit);
 
-  Iterable<Notification> getNotifications(String userId, String instanceId);
+  Iterable<Notification> getNotifications(String userId, String instanceId, @Nullable Cursor since, @Nullable Cursor before, int limit);
 
-  Iterable<Notification> getNotifications(String userId, Notification.Status status);
+  Iterable<Notification> getNotifications(String userId, Notification.Status status, @Nullable Cursor since, @Nullable Cursor before, int limit);
 
-  Iterable<Notification> getNotifications(String userId, String instanceId, Notification.Status status);
+  Iterable<Notification> getNotifications(String userId, String instanceId, Notification.Status status,
+      @Nullable Cursor since, @Nullable Cursor before, int limit);
 
   void markNotifications(String userId, List<String> notificationIds, Notification.Status status);
 
+  /**
+   * A position in the order notifications are returned in, i.e. by time then by ID.
+   *
+   * <p>Without an ID, the cursor only compares times: notifications with exactly that time are then excluded.
+   */
+  class Cursor {
+    public final Instant time;
+    public final @Nullable String id;
+
+    public Cursor(Instant time, @Nullable String id) {
+      this.time = Objects.requireNonNull(time);
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Cursor)) {
+        return false;
+      }
+      Cursor other = (Cursor) obj;
+      return time.equals(other.time) && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(time, id);
+    }
+
+    @Override
+    public String toString() {
+      return id == null ? time.toString() : time + "/" + id;
+    }
+  }
+
+  class FanOutResult {
+    public int created;
+    public final List<ChunkFailure> failures = new ArrayList<>();
+
+    public int getFailedCount() {
+      return failures.stream().mapToInt(failure -> failure.userIds.size()).sum();
+    }
+  }
+
+  class ChunkFailure {
+    /** The recipients in the chunk for which no notification has been created. */
+    public final List<String> userIds;
+    public final Exception cause;
+
+    public ChunkFailure(List<String> userIds, Exception cause) {
+      this.userIds = userIds;
+      this.cause = cause;
+    }
+  }
+
 }
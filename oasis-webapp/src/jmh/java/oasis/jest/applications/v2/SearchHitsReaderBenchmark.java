@@ -0,0 +1,89 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jest.applications.v2;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.io.Resources;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ibm.icu.util.ULocale;
+
+import oasis.model.applications.v2.CatalogEntry;
+import oasis.model.applications.v2.SimpleCatalogEntry;
+
+/**
+ * Compares reading a (recorded) catalog search response with {@link SearchHitsReader} to the previous implementation
+ * (Jest parsing the response with Gson, then each hit's {@code _source} being serialized back to a String and parsed
+ * again with Jackson).
+ *
+ * <p>Run with {@code ./gradlew :oasis-webapp:jmh -PjmhInclude=SearchHitsReaderBenchmark -PjmhProfiler=gc}
+ * and compare the {@code gc.alloc.rate.norm} (bytes allocated per search) of both benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class SearchHitsReaderBenchmark {
+  private byte[] response;
+  private SearchHitsReader searchHitsReader;
+
+  @Setup
+  public void setUp() throws IOException {
+    // 25 hits (the default page size) with names and descriptions in all supported locales
+    response = Resources.toByteArray(Resources.getResource(SearchHitsReaderBenchmark.class, "search-response.json"));
+    searchHitsReader = new SearchHitsReader(JestCatalogEntryRepository.OBJECT_MAPPER);
+  }
+
+  @Benchmark
+  public List<SimpleCatalogEntry> streaming() throws IOException {
+    return searchHitsReader.read(new ByteArrayInputStream(response), ULocale.FRANCE);
+  }
+
+  @Benchmark
+  public List<SimpleCatalogEntry> gsonThenJackson() throws IOException {
+    // Jest reads the whole response as a String, then parses it with Gson
+    JsonObject jsonObject = new JsonParser().parse(new String(response, StandardCharsets.UTF_8)).getAsJsonObject();
+    List<SimpleCatalogEntry> catalogEntries = new ArrayList<>();
+    for (JsonElement jsonElement : jsonObject.getAsJsonObject("hits").getAsJsonArray("hits")) {
+      JsonObject hit = jsonElement.getAsJsonObject();
+      SimpleCatalogEntry catalogEntry = JestCatalogEntryRepository.OBJECT_MAPPER.readValue(
+          hit.get("_source").toString(), SimpleCatalogEntry.class);
+      catalogEntry.setId(hit.get("_id").getAsString());
+      catalogEntry.setType(CatalogEntry.EntryType.valueOf(hit.get("_type").getAsString()));
+      catalogEntry.restrictLocale(ULocale.FRANCE);
+      catalogEntries.add(catalogEntry);
+    }
+    return catalogEntries;
+  }
+}
@@ -0,0 +1,180 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jongo.applications.v2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jongo.Jongo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.google.common.collect.Iterables;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.multibindings.Multibinder;
+import com.mongodb.MongoClientURI;
+
+import oasis.jongo.JongoBootstrapper;
+import oasis.jongo.JongoService;
+import oasis.jongo.guice.JongoModule;
+import oasis.model.applications.v2.AppInstance;
+
+/**
+ * Measures the latency of the {@link JongoAppInstanceRepository} lookups used by the portal dashboards
+ * and the purge tools, against 100k seeded app-instances, with and without the secondary indexes.
+ *
+ * <p>Needs a running MongoDB; the {@code app_instances} collection of the target database is dropped.
+ * Run with {@code ./gradlew :oasis-webapp:jmh -PjmhInclude=AppInstanceRepositoryBenchmark},
+ * and pass {@code -Doasis.bench.mongo-uri=...} to use another database than {@code mongodb://localhost:27017/oasis-bench}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class AppInstanceRepositoryBenchmark {
+  private static final int NUM_INSTANCES = 100_000;
+  private static final int NUM_ORGANIZATIONS = 1_000;
+  private static final int NUM_USERS = 10_000;
+  private static final int NUM_APPLICATIONS = 100;
+  private static final int BATCH_SIZE = 1_000;
+
+  private static final String ORGANIZATION_ID = "organization-42";
+  private static final String USER_ID = "user-42";
+  private static final String APPLICATION_ID = "application-42";
+
+  @Param({ "false", "true" })
+  public boolean indexed;
+
+  private JongoService jongoService;
+  private JongoAppInstanceRepository repository;
+  private Instant stoppedBefore;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    final MongoClientURI mongoUri = new MongoClientURI(
+        System.getProperty("oasis.bench.mongo-uri", "mongodb://localhost:27017/oasis-bench"));
+    Injector injector = Guice.createInjector(new AbstractModule() {
+      @Override
+      protected void configure() {
+        bind(JongoModule.Settings.class).toInstance(JongoModule.Settings.builder().setMongoUri(mongoUri).build());
+        bind(Jongo.class).toProvider(JongoService.class);
+        // Indexes are created (or not) by the benchmark itself.
+        Multibinder.newSetBinder(binder(), JongoBootstrapper.class);
+      }
+    });
+    jongoService = injector.getInstance(JongoService.class);
+    jongoService.start();
+    repository = injector.getInstance(JongoAppInstanceRepository.class);
+
+    Jongo jongo = jongoService.get();
+    jongo.getCollection(JongoAppInstanceRepository.COLLECTION_NAME).drop();
+    if (indexed) {
+      repository.bootstrap();
+    } else {
+      jongo.getCollection(JongoAppInstanceRepository.COLLECTION_NAME).ensureIndex("{ id: 1 }", "{ unique: 1 }");
+    }
+
+    Random random = new Random(42);
+    Instant now = Instant.now();
+    stoppedBefore = now.minus(Duration.ofDays(7));
+    AppInstance.InstantiationStatus[] statuses = AppInstance.InstantiationStatus.values();
+    List<Object> batch = new ArrayList<>(BATCH_SIZE);
+    for (int i = 0; i < NUM_INSTANCES; i++) {
+      AppInstance instance = new AppInstance();
+      instance.setId("instance-" + i);
+      instance.setApplication_id("application-" + random.nextInt(NUM_APPLICATIONS));
+      instance.setInstantiator_id("user-" + random.nextInt(NUM_USERS));
+      // 70% of instances are instantiated for an organization, the rest are personal instances.
+      if (random.nextInt(10) < 7) {
+        instance.setProvider_id("organization-" + random.nextInt(NUM_ORGANIZATIONS));
+      }
+      instance.setStatus(statuses[random.nextInt(statuses.length)]);
+      instance.setStatus_changed(now.minus(Duration.ofHours(random.nextInt(365 * 24))));
+      JongoAppInstance jongoAppInstance = new JongoAppInstance(instance);
+      jongoAppInstance.initCreated();
+      batch.add(jongoAppInstance);
+      if (batch.size() == BATCH_SIZE) {
+        jongo.getCollection(JongoAppInstanceRepository.COLLECTION_NAME).insert(batch.toArray());
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      jongo.getCollection(JongoAppInstanceRepository.COLLECTION_NAME).insert(batch.toArray());
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    jongoService.stop();
+  }
+
+  @Benchmark
+  public int findByOrganizationId() {
+    return Iterables.size(repository.findByOrganizationId(ORGANIZATION_ID));
+  }
+
+  @Benchmark
+  public int findIdsByOrganizationId() {
+    return Iterables.size(repository.findIdsByOrganizationId(ORGANIZATION_ID));
+  }
+
+  @Benchmark
+  public int findByOrganizationIdAndStatus() {
+    return Iterables.size(repository.findByOrganizationIdAndStatus(ORGANIZATION_ID, AppInstance.InstantiationStatus.RUNNING));
+  }
+
+  @Benchmark
+  public int findPersonalInstancesByUserId() {
+    return Iterables.size(repository.findPersonalInstancesByUserId(USER_ID));
+  }
+
+  @Benchmark
+  public long getNonStoppedCountByOrganizationId() {
+    return repository.getNonStoppedCountByOrganizationId(ORGANIZATION_ID);
+  }
+
+  @Benchmark
+  public int findStoppedBefore() {
+    return Iterables.size(repository.findStoppedBefore(stoppedBefore));
+  }
+
+  @Benchmark
+  public int getInstancesForApplication() {
+    return Iterables.size(repository.getInstancesForApplication(APPLICATION_ID));
+  }
+
+  @Benchmark
+  public int getInstanceIdsForApplication() {
+    return Iterables.size(repository.getInstanceIdsForApplication(APPLICATION_ID));
+  }
+}
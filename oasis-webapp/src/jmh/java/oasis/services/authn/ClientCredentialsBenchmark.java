@@ -0,0 +1,107 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.services.authn;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.google.inject.Guice;
+
+import oasis.auth.AuthModule;
+import oasis.model.authn.ClientType;
+import oasis.model.authn.Credentials;
+import oasis.model.authn.CredentialsRepository;
+
+/**
+ * Measures the throughput of client authentications (as done by {@code ClientAuthenticationFilter} on every call to
+ * the introspection endpoint), with and without the {@link ClientCredentialsCache}.
+ *
+ * <p>Run with {@code ./gradlew :oasis-webapp:jmh -PjmhInclude=ClientCredentialsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+@Fork(1)
+public class ClientCredentialsBenchmark {
+  private static final String CLIENT_ID = "datacore";
+  private static final String CLIENT_SECRET = "Zm9vYmFyYmF6cXV4cXV1eA";
+
+  /** Size of the client credentials cache; 0 disables it. */
+  @Param({ "0", "1000" })
+  public int cacheSize;
+
+  private CredentialsService credentialsService;
+
+  @Setup
+  public void setUp() {
+    AuthModule.Settings settings = AuthModule.Settings.builder()
+        .setClientCredentialsCacheSize(cacheSize)
+        .setClientCredentialsCacheMaxStaleness(Duration.ofMinutes(1))
+        .build();
+    credentialsService = Guice.createInjector(binder -> {
+      binder.bind(AuthModule.Settings.class).toInstance(settings);
+      binder.bind(CredentialsRepository.class).toInstance(new InMemoryCredentialsRepository());
+    }).getInstance(CredentialsService.class);
+
+    credentialsService.setPassword(ClientType.PROVIDER, CLIENT_ID, CLIENT_SECRET);
+  }
+
+  @Benchmark
+  public boolean authenticateClient() {
+    return credentialsService.checkPassword(ClientType.PROVIDER, CLIENT_ID, CLIENT_SECRET);
+  }
+
+  private static class InMemoryCredentialsRepository implements CredentialsRepository {
+    private final ConcurrentMap<String, Credentials> credentials = new ConcurrentHashMap<>();
+
+    @Override
+    public Credentials saveCredentials(ClientType type, String id, byte[] hash, byte[] salt) {
+      Credentials c = new Credentials();
+      c.setClientType(type);
+      c.setId(id);
+      c.setHash(hash);
+      c.setSalt(salt);
+      credentials.put(type + ":" + id, c);
+      return c;
+    }
+
+    @Override
+    public Credentials getCredentials(ClientType type, String id) {
+      return credentials.get(type + ":" + id);
+    }
+
+    @Override
+    public boolean deleteCredentials(ClientType type, String id) {
+      return credentials.remove(type + ":" + id) != null;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.services.authn.login;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the cost of checking a token pass with {@link SCryptPasswordHasher} and {@link HmacSha256PasswordHasher}.
+ *
+ * <p>Run with {@code ./gradlew :oasis-webapp:jmh -PjmhInclude=TokenHasherBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class TokenHasherBenchmark {
+  // Same length and alphabet as TokenHandler#generateRandom
+  private static final String PASS = "Zm9vYmFyYmF6cXV4cXV1eA";
+
+  private SCryptPasswordHasher scryptHasher;
+  private byte[] scryptHash;
+  private byte[] scryptSalt;
+
+  private HmacSha256PasswordHasher hmacHasher;
+  private byte[] hmacHash;
+  private byte[] hmacSalt;
+
+  @Setup
+  public void setUp() {
+    SecureRandom secureRandom = new SecureRandom();
+
+    scryptHasher = new SCryptPasswordHasher(secureRandom);
+    scryptSalt = scryptHasher.createSalt();
+    scryptHash = scryptHasher.hashPassword(PASS, scryptSalt);
+
+    hmacHasher = new HmacSha256PasswordHasher(secureRandom);
+    hmacSalt = hmacHasher.createSalt();
+    hmacHash = hmacHasher.hashPassword(PASS, hmacSalt);
+  }
+
+  @Benchmark
+  public boolean scrypt() {
+    return scryptHasher.checkPassword(PASS, scryptHash, scryptSalt);
+  }
+
+  @Benchmark
+  public boolean hmacSha256() {
+    return hmacHasher.checkPassword(PASS, hmacHash, hmacSalt);
+  }
+}
@@ -29,6 +29,20 @@ public abstract class AuditLogService {
    */
   protected abstract void log(AuditLogEvent auditLogEvent);
 
+  /**
+   * Starts any background processing the implementation needs.
+   * <p>
+   * Events logged before the service is started must not be lost.
+   */
+  public void start() {
+  }
+
+  /**
+   * Stops background processing, trying to deliver the events that are still pending.
+   */
+  public void stop() {
+  }
+
   /**
    * Create a AuditLogEvent from an implementation class.
    * <p>
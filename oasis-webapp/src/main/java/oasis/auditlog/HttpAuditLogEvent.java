@@ -38,6 +38,9 @@ public class HttpAuditLogEvent extends AuditLogEvent {
   private static final String AUTHENTICATION_SCHEME = "auth_scheme";
   private static final String REMOTE_USER = "remote_user";
   private static final String REMOTE_CLIENT = "remote_client";
+  private static final String REPOSITORY_QUERIES = "repository_queries";
+  private static final String REPOSITORY_MEMO_HITS = "repository_memo_hits";
+  private static final String DATABASE_ROUND_TRIPS = "database_round_trips";
 
   public HttpAuditLogEvent() {
     super(TYPE);
@@ -105,6 +108,17 @@ public class HttpAuditLogEvent extends AuditLogEvent {
     return this;
   }
 
+  public HttpAuditLogEvent setRepositoryQueries(int queries, int memoHits) {
+    this.addContextData(REPOSITORY_QUERIES, queries);
+    this.addContextData(REPOSITORY_MEMO_HITS, memoHits);
+    return this;
+  }
+
+  public HttpAuditLogEvent setDatabaseRoundTrips(int roundTrips) {
+    this.addContextData(DATABASE_ROUND_TRIPS, roundTrips);
+    return this;
+  }
+
   @Override
   protected boolean checkBeforeBuild() {
     for (String key : ImmutableList.of(URL, METHOD, HEADERS, STATUS)) {
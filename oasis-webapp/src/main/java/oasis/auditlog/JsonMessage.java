@@ -17,8 +17,7 @@
  */
 package oasis.auditlog;
 
-import java.text.DateFormat;
-import java.util.TimeZone;
+import javax.annotation.Nullable;
 
 import org.apache.logging.log4j.message.Message;
 import org.slf4j.Logger;
@@ -26,41 +25,50 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 public class JsonMessage implements Message {
   private static final Logger logger = LoggerFactory.getLogger(JsonMessage.class);
+
+  private static final ObjectWriter DEFAULT_WRITER = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .writer();
+
+  /**
+   * Returns the shared, preconfigured writer used by default.
+   * <p>
+   * Writers are immutable and thread-safe: callers needing a different configuration (e.g. a date format)
+   * should derive their own <em>once</em> from this one using its {@code with} methods, and reuse it.
+   */
+  public static ObjectWriter defaultWriter() {
+    return DEFAULT_WRITER;
+  }
+
   private final Object object;
-  private final DateFormat dateFormat;
-  private final TimeZone timeZone;
+  private final ObjectWriter writer;
+  private transient @Nullable String formattedMessage;
 
   public JsonMessage(Object object) {
-    this(object, null, null);
+    this(object, DEFAULT_WRITER);
   }
 
-  public JsonMessage(Object object, DateFormat dateFormat, TimeZone timeZone) {
+  public JsonMessage(Object object, ObjectWriter writer) {
     this.object = object;
-    this.dateFormat = dateFormat;
-    this.timeZone = timeZone;
+    this.writer = writer;
   }
 
   @Override
   public String getFormattedMessage() {
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.registerModule(new JavaTimeModule());
-    if (dateFormat != null) {
-      objectMapper.setDateFormat(dateFormat);
+    // Appenders can ask for the message more than once; only serialize it once.
+    if (formattedMessage == null) {
+      try {
+        formattedMessage = writer.writeValueAsString(object);
+      } catch (JsonProcessingException e) {
+        logger.error("Error during the transformation of the AuditLogEvent into a JSON string.", e);
+      }
     }
-    if (timeZone != null) {
-      objectMapper.setTimeZone(timeZone);
-    }
-
-    try {
-      return objectMapper.writeValueAsString(object);
-    } catch (JsonProcessingException e) {
-      logger.error("Error during the transformation of the AuditLogEvent into a JSON string.", e);
-    }
-    return null;
+    return formattedMessage;
   }
 
   @Override
@@ -17,14 +17,40 @@
  */
 package oasis.auditlog.log4j;
 
+import org.immutables.value.Value;
+
 import com.google.inject.AbstractModule;
+import com.typesafe.config.Config;
 
 import oasis.auditlog.AuditLogService;
 
+@Value.Enclosing
 public class Log4JAuditLogModule extends AbstractModule {
+  @Value.Immutable
+  public static interface Settings {
+    /** Maximum number of events waiting to be written; events logged while the queue is full are dropped. */
+    int queueSize();
+
+    /** Maximum number of events handed over to Log4J at once by the background writer. */
+    int batchSize();
+  }
+
+  public static Log4JAuditLogModule create(Config config) {
+    return new Log4JAuditLogModule(ImmutableLog4JAuditLogModule.Settings.builder()
+        .queueSize(config.getInt("queue-size"))
+        .batchSize(config.getInt("batch-size"))
+        .build());
+  }
+
+  private final Settings settings;
+
+  public Log4JAuditLogModule(Settings settings) {
+    this.settings = settings;
+  }
 
   @Override
   protected void configure() {
+    bind(Settings.class).toInstance(settings);
     bind(AuditLogService.class).to(Log4JAuditLogService.class);
   }
 }
@@ -18,34 +18,198 @@
 package oasis.auditlog.log4j;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.Queue;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.Message;
 
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import oasis.auditlog.AuditLogEvent;
 import oasis.auditlog.AuditLogService;
 import oasis.auditlog.JsonMessage;
 
+/**
+ * Writes audit events as JSON to the {@value #LOGGER_NAME} Log4J logger.
+ *
+ * <p>Once {@link #start() started}, events are only queued by the calling (request) thread: a background writer
+ * serializes them and hands them over to Log4J in batches. The queue is bounded and never blocks callers: events
+ * logged while it's full are dropped, and {@link #getDroppedCount() counted}.
+ */
+@Singleton
 public class Log4JAuditLogService extends AuditLogService {
+  private static final Logger logger = LogManager.getLogger(Log4JAuditLogService.class);
+
   private static final String LOGGER_NAME = "OASIS_AUDIT_LOGGER";
+  private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+  private static final long STOP_TIMEOUT_IN_SECONDS = 5;
+
+  private static final ObjectWriter WRITER = JsonMessage.defaultWriter()
+      .with(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.ROOT))
+      .with(TimeZone.getTimeZone("UTC"));
+
+  private final Logger auditLogger = LogManager.getLogger(LOGGER_NAME);
+
+  private final Log4JAuditLogModule.Settings settings;
 
-  private Logger auditLogger = LogManager.getLogger(LOGGER_NAME);
+  // ConcurrentLinkedQueue is lock-free but unbounded; the bound is enforced by reserving a slot in queueSize first.
+  private final Queue<AuditLogEvent> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queueSize = new AtomicInteger();
+  private final LongAdder writtenCount = new LongAdder();
+  private final LongAdder droppedCount = new LongAdder();
+  private long reportedDroppedCount;
+
+  private volatile boolean running;
+  private volatile boolean idle;
+  private volatile @Nullable Thread writerThread;
+  private @Nullable ExecutorService executor;
+
+  @Inject Log4JAuditLogService(Log4JAuditLogModule.Settings settings) {
+    this.settings = settings;
+  }
 
   @Override
   protected void log(AuditLogEvent auditLogEvent) {
-    ImmutableMap<String, Object> data = ImmutableMap.of(
-        "type", auditLogEvent.getEventType(),
-        "time", auditLogEvent.getDate(),
-        "data", auditLogEvent.getContextMap()
-    );
+    if (!running) {
+      // Not started (or already stopped): write synchronously rather than losing the event.
+      write(auditLogEvent);
+      return;
+    }
+    if (queueSize.incrementAndGet() > settings.queueSize()) {
+      queueSize.decrementAndGet();
+      droppedCount.increment();
+      return;
+    }
+    queue.offer(auditLogEvent);
+    if (idle) {
+      Thread thread = writerThread;
+      if (thread != null) {
+        LockSupport.unpark(thread);
+      }
+    }
+  }
 
-    Message message = new JsonMessage(data, new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.ROOT), TimeZone.getTimeZone("UTC"));
+  /** Returns the number of events currently waiting to be written. */
+  public int getQueueSize() {
+    return queueSize.get();
+  }
+
+  /** Returns the number of events written to Log4J since startup. */
+  public long getWrittenCount() {
+    return writtenCount.sum();
+  }
+
+  /** Returns the number of events dropped because the queue was full, since startup. */
+  public long getDroppedCount() {
+    return droppedCount.sum();
+  }
+
+  @Override
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("audit-log-writer")
+        .setDaemon(true)
+        .build());
+    executor.execute(this::drain);
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    Thread thread = writerThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(STOP_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+        logger.warn("Timed out writing pending audit log events; {} events lost", queueSize.get());
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    executor = null;
+  }
+
+  private void drain() {
+    writerThread = Thread.currentThread();
+    List<AuditLogEvent> batch = new ArrayList<>(settings.batchSize());
+    try {
+      // Keep going after stop() until the queue is empty, so that pending events are not lost.
+      while (running || !queue.isEmpty()) {
+        AuditLogEvent event;
+        while (batch.size() < settings.batchSize() && (event = queue.poll()) != null) {
+          batch.add(event);
+        }
+        if (batch.isEmpty()) {
+          idle = true;
+          // Re-check after publishing the idle flag, so that we don't miss an unpark() from log().
+          if (running && queue.isEmpty()) {
+            LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+          }
+          idle = false;
+          continue;
+        }
+        queueSize.addAndGet(-batch.size());
+        for (AuditLogEvent e : batch) {
+          write(e);
+        }
+        batch.clear();
+        reportDroppedEvents();
+      }
+    } finally {
+      writerThread = null;
+    }
+  }
+
+  private void write(AuditLogEvent auditLogEvent) {
+    try {
+      ImmutableMap<String, Object> data = ImmutableMap.of(
+          "type", auditLogEvent.getEventType(),
+          "time", auditLogEvent.getDate(),
+          "data", auditLogEvent.getContextMap()
+      );
+
+      Message message = new JsonMessage(data, WRITER);
+
+      auditLogger.info(message);
+      writtenCount.increment();
+    } catch (RuntimeException e) {
+      logger.error("Error writing audit log event {}", auditLogEvent.getEventType(), e);
+    }
+  }
 
-    auditLogger.info(message);
+  private void reportDroppedEvents() {
+    long dropped = droppedCount.sum();
+    if (dropped != reportedDroppedCount) {
+      logger.warn("Audit log queue is full; dropped {} events", dropped - reportedDroppedCount);
+      reportedDroppedCount = dropped;
+    }
   }
 }
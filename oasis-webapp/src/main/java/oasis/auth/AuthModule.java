@@ -59,11 +59,19 @@ public class AuthModule extends AbstractModule {
           .setRefreshTokenDuration(config.getDuration("refresh-token-duration"))
           .setIdTokenDuration(config.getDuration("id-token-duration"))
           .setSidTokenDuration(config.getDuration("sid-token-duration"))
+          .setSidTokenRenewalInterval(config.getDuration("sid-token-renewal-interval"))
           .setAccountActivationTokenDuration(config.getDuration("account-activation-token-duration"))
           .setChangePasswordTokenDuration(config.getDuration("change-password-token-duration"))
           .setJwtBearerDuration(config.getDuration("jwt-bearer-duration"))
           .setPasswordMinimumLength(config.getInt("password-minimum-length"))
           .setEnableClientCertificates(config.getBoolean("enable-client-certificates"))
+          .setTokenCacheSize(config.getLong("token-cache.size"))
+          .setTokenCacheMaxStaleness(config.getDuration("token-cache.max-staleness"))
+          .setClientCredentialsCacheSize(config.getLong("client-credentials-cache.size"))
+          .setClientCredentialsCacheMaxStaleness(config.getDuration("client-credentials-cache.max-staleness"))
+          .setKdfThreads(config.getInt("kdf.threads"))
+          .setKdfQueueSize(config.getInt("kdf.queue-size"))
+          .setKdfMaxPerCaller(config.getInt("kdf.max-per-caller"))
           .build();
     }
 
@@ -76,11 +84,19 @@ public class AuthModule extends AbstractModule {
       private Duration refreshTokenDuration;
       private Duration idTokenDuration;
       private Duration sidTokenDuration;
+      private Duration sidTokenRenewalInterval = Duration.ZERO;
       private Duration accountActivationTokenDuration;
       private Duration changePasswordTokenDuration;
       private Duration jwtBearerDuration;
       private int passwordMinimumLength;
       private boolean enableClientCertificates;
+      private long tokenCacheSize;
+      private Duration tokenCacheMaxStaleness = Duration.ZERO;
+      private long clientCredentialsCacheSize;
+      private Duration clientCredentialsCacheMaxStaleness = Duration.ZERO;
+      private int kdfThreads;
+      private int kdfQueueSize;
+      private int kdfMaxPerCaller;
 
       public Settings build() {
         return new Settings(this);
@@ -121,6 +137,11 @@ public class AuthModule extends AbstractModule {
         return this;
       }
 
+      public Builder setSidTokenRenewalInterval(Duration sidTokenRenewalInterval) {
+        this.sidTokenRenewalInterval = sidTokenRenewalInterval;
+        return this;
+      }
+
       public Builder setAccountActivationTokenDuration(Duration accountActivationTokenDuration) {
         this.accountActivationTokenDuration = accountActivationTokenDuration;
         return this;
@@ -145,6 +166,41 @@ public class AuthModule extends AbstractModule {
         this.enableClientCertificates = enableClientCertificates;
         return this;
       }
+
+      public Builder setTokenCacheSize(long tokenCacheSize) {
+        this.tokenCacheSize = tokenCacheSize;
+        return this;
+      }
+
+      public Builder setTokenCacheMaxStaleness(Duration tokenCacheMaxStaleness) {
+        this.tokenCacheMaxStaleness = tokenCacheMaxStaleness;
+        return this;
+      }
+
+      public Builder setClientCredentialsCacheSize(long clientCredentialsCacheSize) {
+        this.clientCredentialsCacheSize = clientCredentialsCacheSize;
+        return this;
+      }
+
+      public Builder setClientCredentialsCacheMaxStaleness(Duration clientCredentialsCacheMaxStaleness) {
+        this.clientCredentialsCacheMaxStaleness = clientCredentialsCacheMaxStaleness;
+        return this;
+      }
+
+      public Builder setKdfThreads(int kdfThreads) {
+        this.kdfThreads = kdfThreads;
+        return this;
+      }
+
+      public Builder setKdfQueueSize(int kdfQueueSize) {
+        this.kdfQueueSize = kdfQueueSize;
+        return this;
+      }
+
+      public Builder setKdfMaxPerCaller(int kdfMaxPerCaller) {
+        this.kdfMaxPerCaller = kdfMaxPerCaller;
+        return this;
+      }
     }
 
     public @Nullable String portalOrigin;
@@ -154,11 +210,19 @@ public class AuthModule extends AbstractModule {
     public final Duration refreshTokenDuration;
     public final Duration idTokenDuration;
     public final Duration sidTokenDuration;
+    public final Duration sidTokenRenewalInterval;
     public final Duration accountActivationTokenDuration;
     public final Duration changePasswordTokenDuration;
     public final Duration jwtBearerDuration;
     public final int passwordMinimumLength;
     public final boolean enableClientCertificates;
+    public final long tokenCacheSize;
+    public final Duration tokenCacheMaxStaleness;
+    public final long clientCredentialsCacheSize;
+    public final Duration clientCredentialsCacheMaxStaleness;
+    public final int kdfThreads;
+    public final int kdfQueueSize;
+    public final int kdfMaxPerCaller;
 
     private Settings(Builder builder) {
       this.portalOrigin = builder.portalOrigin;
@@ -168,11 +232,19 @@ public class AuthModule extends AbstractModule {
       this.refreshTokenDuration = builder.refreshTokenDuration;
       this.idTokenDuration = builder.idTokenDuration;
       this.sidTokenDuration = builder.sidTokenDuration;
+      this.sidTokenRenewalInterval = builder.sidTokenRenewalInterval;
       this.accountActivationTokenDuration = builder.accountActivationTokenDuration;
       this.changePasswordTokenDuration = builder.changePasswordTokenDuration;
       this.jwtBearerDuration = builder.jwtBearerDuration;
       this.passwordMinimumLength = builder.passwordMinimumLength;
       this.enableClientCertificates = builder.enableClientCertificates;
+      this.tokenCacheSize = builder.tokenCacheSize;
+      this.tokenCacheMaxStaleness = builder.tokenCacheMaxStaleness;
+      this.clientCredentialsCacheSize = builder.clientCredentialsCacheSize;
+      this.clientCredentialsCacheMaxStaleness = builder.clientCredentialsCacheMaxStaleness;
+      this.kdfThreads = builder.kdfThreads;
+      this.kdfQueueSize = builder.kdfQueueSize;
+      this.kdfMaxPerCaller = builder.kdfMaxPerCaller;
     }
   }
 
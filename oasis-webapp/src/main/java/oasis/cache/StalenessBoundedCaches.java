@@ -0,0 +1,45 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.cache;
+
+import java.time.Duration;
+
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Builds the in-memory caches of data that can be changed on other nodes, or directly in the database.
+ *
+ * <p>Those changes cannot evict the entries cached on this node, so entries are only kept for a bounded time: a
+ * cache's {@code max-staleness} is how long a change made elsewhere can go unnoticed on this node. A cache whose
+ * {@code size} is 0 (or negative) is disabled. All caches record their stats, for the metrics endpoint.
+ */
+public class StalenessBoundedCaches {
+  /** Returns a builder for a cache of at most {@code size} entries, each kept at most {@code maxStaleness}. */
+  public static CacheBuilder<Object, Object> newBuilder(long size, Duration maxStaleness) {
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+        .maximumSize(Math.max(0, size))
+        .recordStats();
+    if (size > 0) {
+      builder.expireAfterWrite(maxStaleness);
+    }
+    return builder;
+  }
+
+  private StalenessBoundedCaches() {
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.catalog;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.BaseEncoding;
+import com.ibm.icu.text.Collator;
+import com.ibm.icu.util.ULocale;
+
+import oasis.model.i18n.LocalizableString;
+import oasis.model.i18n.LocalizableValue;
+import oasis.web.i18n.LocaleHelper;
+
+/**
+ * Precomputed collation keys for catalog entry names, so the catalog can be sorted (and paginated) by Elasticsearch.
+ *
+ * <p>Elasticsearch sorts {@code not_analyzed} strings by their binary value; we thus index, for each supported locale,
+ * the hex-encoded ICU collation key of the entry's name (which preserves the collation order when compared as binary)
+ * in a {@code name_sort} sub-document, keyed by language tag.
+ */
+public class CatalogEntrySortKeys {
+  public static final String FIELD = "name_sort";
+
+  private static final ImmutableList<ULocale> SORT_LOCALES = ImmutableList.<ULocale>builder()
+      .add(ULocale.ROOT)
+      .addAll(LocaleHelper.SUPPORTED_LOCALES)
+      .build();
+
+  private static final ImmutableMap<ULocale, Collator> COLLATORS;
+  static {
+    ImmutableMap.Builder<ULocale, Collator> collators = ImmutableMap.builder();
+    for (ULocale locale : SORT_LOCALES) {
+      // Frozen collators are thread-safe
+      collators.put(locale, Collator.getInstance(locale).freeze());
+    }
+    COLLATORS = collators.build();
+  }
+
+  private static final LocalizableValue<ULocale> SORT_LOCALES_MAP;
+  static {
+    final LocalizableValue<ULocale> sortLocalesMap = new LocalizableValue<>(ULocale.ROOT);
+
+    // Iterate in reverse order so that the first locales take precedence (overwrite)
+    for (ULocale sortLocale : SORT_LOCALES.reverse()) {
+      for (ULocale candidateLocale = sortLocale; candidateLocale != null; candidateLocale = candidateLocale.getFallback()) {
+        if (!candidateLocale.equals(ULocale.ROOT)) {
+          sortLocalesMap.set(candidateLocale, sortLocale);
+        }
+      }
+    }
+
+    SORT_LOCALES_MAP = sortLocalesMap.unmodifiable();
+  }
+
+  /** Returns the (dotted) path of the sort key to use for the given display locale. */
+  public static String getSortField(@Nullable ULocale displayLocale) {
+    ULocale sortLocale = displayLocale == null ? ULocale.ROOT : SORT_LOCALES_MAP.get(displayLocale);
+    return FIELD + "." + sortLocale.toLanguageTag();
+  }
+
+  /** Computes the sort keys for the given name, keyed by language tag (i.e. the content of the {@code name_sort} field). */
+  public static Map<String, String> computeSortKeysByLocale(@Nullable LocalizableString name) {
+    Map<String, String> sortKeys = new LinkedHashMap<>();
+    for (Map.Entry<ULocale, Collator> entry : COLLATORS.entrySet()) {
+      String localizedName = name == null ? null : name.get(entry.getKey());
+      byte[] key = entry.getValue().getCollationKey(Strings.nullToEmpty(localizedName)).toByteArray();
+      sortKeys.put(entry.getKey().toLanguageTag(), BaseEncoding.base16().lowerCase().encode(key));
+    }
+    return sortKeys;
+  }
+}
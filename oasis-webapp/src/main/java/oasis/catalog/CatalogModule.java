@@ -19,13 +19,16 @@ package oasis.catalog;
 
 import com.google.inject.AbstractModule;
 
+import oasis.jest.applications.v2.JestCatalogEntryRepository;
+import oasis.model.applications.v2.ApplicationRepository;
 import oasis.model.applications.v2.CatalogEntryRepository;
 import oasis.model.applications.v2.ServiceRepository;
 
 public class CatalogModule extends AbstractModule {
   @Override
   protected void configure() {
+    bind(ApplicationRepository.class).to(IndexingApplicationRepository.class);
     bind(ServiceRepository.class).to(IndexingServiceRepository.class);
-    bind(CatalogEntryRepository.class).to(RoutingCatalogEntryRepository.class);
+    bind(CatalogEntryRepository.class).to(JestCatalogEntryRepository.class);
   }
 }
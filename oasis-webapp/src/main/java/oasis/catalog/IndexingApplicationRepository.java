@@ -0,0 +1,97 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.catalog;
+
+import java.util.function.BiConsumer;
+
+import javax.inject.Inject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import oasis.jest.applications.v2.JestCatalogEntryRepository;
+import oasis.jongo.applications.v2.JongoApplicationRepository;
+import oasis.model.InvalidVersionException;
+import oasis.model.applications.v2.Application;
+import oasis.model.applications.v2.ApplicationRepository;
+import oasis.model.applications.v2.CatalogEntry;
+
+public class IndexingApplicationRepository implements ApplicationRepository {
+  private static final Logger logger = LoggerFactory.getLogger(IndexingApplicationRepository.class);
+
+  private final JongoApplicationRepository jongoApplicationRepository;
+  private final JestCatalogEntryRepository jestCatalogEntryRepository;
+
+  @Inject IndexingApplicationRepository(JongoApplicationRepository jongoApplicationRepository,
+      JestCatalogEntryRepository jestCatalogEntryRepository) {
+    this.jongoApplicationRepository = jongoApplicationRepository;
+    this.jestCatalogEntryRepository = jestCatalogEntryRepository;
+  }
+
+  @Override
+  public Application getApplication(String applicationId) {
+    return jongoApplicationRepository.getApplication(applicationId);
+  }
+
+  @Override
+  public Application createApplication(Application application) {
+    Application createdApplication = jongoApplicationRepository.createApplication(application);
+    if (createdApplication != null && createdApplication.isVisible()) {
+      index(createdApplication);
+    }
+    return createdApplication;
+  }
+
+  @Override
+  public long getCountByProvider(String providerId) {
+    return jongoApplicationRepository.getCountByProvider(providerId);
+  }
+
+  @Override
+  public Application addPortal(String applicationId, String portalId, long[] versions) throws InvalidVersionException {
+    Application application = jongoApplicationRepository.addPortal(applicationId, portalId, versions);
+    if (application != null && application.isVisible()) {
+      index(application);
+    }
+    return application;
+  }
+
+  @Override
+  public Application removePortal(String applicationId, String portalId, long[] versions) throws InvalidVersionException {
+    Application application = jongoApplicationRepository.removePortal(applicationId, portalId, versions);
+    if (application != null && application.isVisible()) {
+      index(application);
+    }
+    return application;
+  }
+
+  private void index(Application application) {
+    jestCatalogEntryRepository.asyncIndex(application)
+        .whenComplete(indexedFutureCallback(application.getId()));
+  }
+
+  private BiConsumer<Void, Throwable> indexedFutureCallback(final String id) {
+    return (result, throwable) -> {
+      if (throwable == null) {
+        logger.trace("Successfully indexed {} {}", CatalogEntry.EntryType.APPLICATION.name(), id);
+      } else {
+        logger.error("Error when indexing {} {}", CatalogEntry.EntryType.APPLICATION.name(), id, throwable);
+      }
+    };
+  }
+}
@@ -18,12 +18,20 @@
 package oasis.elasticsearch;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
 
 import org.immutables.value.Value;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.typesafe.config.Config;
 
+import okhttp3.OkHttpClient;
+
 @Value.Enclosing
 public class ElasticsearchModule extends AbstractModule {
 
@@ -32,11 +40,18 @@ public class ElasticsearchModule extends AbstractModule {
   @Value.Immutable
   public interface Settings {
     URI url();
+
+    /**
+     * How long to wait for Elasticsearch to respond to a search; used as the HTTP client's connect, write and read
+     * timeouts.
+     */
+    Duration timeout();
   }
 
   public static ElasticsearchModule create(Config config) {
     return new ElasticsearchModule(ImmutableElasticsearchModule.Settings.builder()
         .url(URI.create(config.getString("url")))
+        .timeout(config.getDuration("timeout"))
         .build());
   }
 
@@ -50,4 +65,18 @@ public class ElasticsearchModule extends AbstractModule {
   protected void configure() {
     bind(Settings.class).toInstance(settings);
   }
+
+  /**
+   * Returns an HTTP client for Elasticsearch requests bypassing Jest.
+   *
+   * <p>It shares the connection pool and dispatcher of the webhooks' client, but not its timeouts or logging.
+   */
+  @Provides @Singleton @Named(ELASTICSEARCH) OkHttpClient provideOkHttpClient(OkHttpClient okHttpClient) {
+    OkHttpClient.Builder builder = okHttpClient.newBuilder()
+        .readTimeout(settings.timeout().toMillis(), TimeUnit.MILLISECONDS)
+        .writeTimeout(settings.timeout().toMillis(), TimeUnit.MILLISECONDS)
+        .connectTimeout(settings.timeout().toMillis(), TimeUnit.MILLISECONDS);
+    builder.networkInterceptors().clear();
+    return builder.build();
+  }
 }
@@ -0,0 +1,74 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.eventbus;
+
+import java.time.Duration;
+
+import org.immutables.value.Value;
+
+import com.google.inject.AbstractModule;
+import com.typesafe.config.Config;
+
+@Value.Enclosing
+public class EventBusModule extends AbstractModule {
+  @Value.Immutable
+  public static interface Settings {
+    /** Number of deliveries attempted concurrently by this node. */
+    int workers();
+
+    /** Number of deliveries attempted concurrently by this node to a given webhook. */
+    int maxConcurrentDeliveriesPerWebHook();
+
+    /** Number of attempts after which a delivery is dead-lettered. */
+    int maxAttempts();
+
+    /** Delay before the first retry; doubled for each subsequent retry. */
+    Duration initialBackoff();
+
+    Duration maxBackoff();
+
+    /** How long before a delivery claimed by a node that crashed (or hung) can be claimed again. */
+    Duration deliveryLease();
+
+    /** How often the outbox is polled for due deliveries (new events are dispatched immediately). */
+    Duration pollInterval();
+  }
+
+  public static EventBusModule create(Config config) {
+    return new EventBusModule(ImmutableEventBusModule.Settings.builder()
+        .workers(config.getInt("workers"))
+        .maxConcurrentDeliveriesPerWebHook(config.getInt("max-concurrent-deliveries-per-webhook"))
+        .maxAttempts(config.getInt("max-attempts"))
+        .initialBackoff(config.getDuration("initial-backoff"))
+        .maxBackoff(config.getDuration("max-backoff"))
+        .deliveryLease(config.getDuration("delivery-lease"))
+        .pollInterval(config.getDuration("poll-interval"))
+        .build());
+  }
+
+  private final Settings settings;
+
+  public EventBusModule(Settings settings) {
+    this.settings = settings;
+  }
+
+  @Override
+  protected void configure() {
+    bind(Settings.class).toInstance(settings);
+  }
+}
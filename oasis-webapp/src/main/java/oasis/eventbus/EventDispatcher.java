@@ -0,0 +1,319 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.eventbus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import oasis.http.WebhookSignatures;
+import oasis.model.eventbus.Event;
+import oasis.model.eventbus.EventDelivery;
+import oasis.model.eventbus.EventDeliveryRepository;
+import oasis.model.eventbus.Subscription;
+import oasis.model.eventbus.SubscriptionRepository;
+
+/**
+ * Delivers the events published to the event bus to the webhooks of their subscriptions.
+ *
+ * <p>Deliveries are first persisted to the {@link EventDeliveryRepository outbox}, then claimed (once
+ * {@link #start() started}) by a dispatcher thread and attempted by a bounded pool of workers, with a cap on the
+ * number of concurrent deliveries to each webhook so that a slow subscriber cannot hold all the workers.
+ * Failed deliveries are retried with exponential backoff, and dead-lettered after too many attempts.
+ */
+@Singleton
+public class EventDispatcher {
+  private static final Logger logger = LoggerFactory.getLogger(EventDispatcher.class);
+
+  private static final long STOP_TIMEOUT_IN_SECONDS = 10;
+  // Outbox depths are counted in MongoDB: don't count them again on every metrics scrape.
+  private static final long DEPTH_CACHE_DURATION_IN_SECONDS = 30;
+
+  // This is a singleton that can be created before the JongoService is started
+  private final Provider<EventDeliveryRepository> eventDeliveryRepository;
+  private final Provider<SubscriptionRepository> subscriptionRepository;
+  private final Client client;
+  private final EventBusModule.Settings settings;
+  private final Clock clock;
+
+  private final Semaphore workerPermits;
+  private final Semaphore wakeUps = new Semaphore(0);
+  private final Multiset<String> inFlightWebHooks = ConcurrentHashMultiset.create();
+
+  private final LongAdder deliveredCount = new LongAdder();
+  private final LongAdder deliveryLatencyMillis = new LongAdder();
+  private final LongAdder failedAttemptCount = new LongAdder();
+  private final LongAdder deadLetteredCount = new LongAdder();
+
+  private final Supplier<Long> queueDepth;
+  private final Supplier<Long> deadLetteredDepth;
+
+  private volatile boolean running;
+  private @Nullable ExecutorService dispatcher;
+  private @Nullable ExecutorService workers;
+
+  @Inject EventDispatcher(Provider<EventDeliveryRepository> eventDeliveryRepository,
+      Provider<SubscriptionRepository> subscriptionRepository, Client client, EventBusModule.Settings settings,
+      Clock clock) {
+    this.eventDeliveryRepository = eventDeliveryRepository;
+    this.subscriptionRepository = subscriptionRepository;
+    this.client = client;
+    this.settings = settings;
+    this.clock = clock;
+    this.workerPermits = new Semaphore(settings.workers());
+    this.queueDepth = Suppliers.memoizeWithExpiration(
+        () -> eventDeliveryRepository.get().countPendingDeliveries(), DEPTH_CACHE_DURATION_IN_SECONDS, TimeUnit.SECONDS);
+    this.deadLetteredDepth = Suppliers.memoizeWithExpiration(
+        () -> eventDeliveryRepository.get().countDeadLetteredDeliveries(), DEPTH_CACHE_DURATION_IN_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Persists the deliveries of the event to the given subscriptions.
+   * <p>
+   * Once this method returns, the deliveries will be attempted, even if this node crashes.
+   */
+  public void publish(Event event, Iterable<Subscription> subscriptions) {
+    Instant now = clock.instant();
+    List<EventDelivery> deliveries = new ArrayList<>();
+    for (Subscription subscription : subscriptions) {
+      EventDelivery delivery = new EventDelivery();
+      delivery.setSubscriptionId(subscription.getId());
+      delivery.setInstance_id(subscription.getInstance_id());
+      delivery.setWebHook(subscription.getWebHook());
+      delivery.setEvent(event);
+      delivery.setCreated(now);
+      delivery.setNextAttempt(now);
+      deliveries.add(delivery);
+    }
+    if (deliveries.isEmpty()) {
+      return;
+    }
+    eventDeliveryRepository.get().createDeliveries(deliveries);
+    wakeUp();
+  }
+
+  /** Returns the number of deliveries waiting to be (re)attempted, cluster-wide, as counted at most 30 seconds ago. */
+  public long getQueueDepth() {
+    return queueDepth.get();
+  }
+
+  /** Returns the number of deliveries that have been dead-lettered, cluster-wide, as counted at most 30 seconds ago. */
+  public long getDeadLetteredDepth() {
+    return deadLetteredDepth.get();
+  }
+
+  /** Returns the number of deliveries currently being attempted by this node. */
+  public int getInFlightCount() {
+    return inFlightWebHooks.size();
+  }
+
+  /** Returns the number of events successfully delivered by this node since startup. */
+  public long getDeliveredCount() {
+    return deliveredCount.sum();
+  }
+
+  /** Returns the sum, for all the events delivered by this node since startup, of their publication-to-delivery latency. */
+  public Duration getDeliveryLatencySum() {
+    return Duration.ofMillis(deliveryLatencyMillis.sum());
+  }
+
+  /** Returns the number of failed delivery attempts by this node since startup. */
+  public long getFailedAttemptCount() {
+    return failedAttemptCount.sum();
+  }
+
+  /** Returns the number of deliveries dead-lettered by this node since startup. */
+  public long getDeadLetteredCount() {
+    return deadLetteredCount.sum();
+  }
+
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    workers = Executors.newFixedThreadPool(settings.workers(), new ThreadFactoryBuilder()
+        .setNameFormat("event-delivery-%d")
+        .setDaemon(true)
+        .build());
+    dispatcher = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("event-dispatcher")
+        .setDaemon(true)
+        .build());
+    dispatcher.execute(this::dispatch);
+  }
+
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    wakeUp();
+    dispatcher.shutdown();
+    try {
+      dispatcher.awaitTermination(STOP_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+      // Let in-flight deliveries complete; those that don't will be retried once their lease expires.
+      workers.shutdown();
+      workers.awaitTermination(STOP_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    dispatcher = null;
+    workers = null;
+  }
+
+  private void wakeUp() {
+    if (wakeUps.availablePermits() == 0) {
+      wakeUps.release();
+    }
+  }
+
+  private void dispatch() {
+    while (running) {
+      try {
+        if (!workerPermits.tryAcquire(settings.pollInterval().toMillis(), TimeUnit.MILLISECONDS)) {
+          continue;
+        }
+        EventDelivery delivery;
+        try {
+          Instant now = clock.instant();
+          delivery = eventDeliveryRepository.get().claimDelivery(now, now.plus(settings.deliveryLease()), getSaturatedWebHooks());
+        } catch (RuntimeException e) {
+          workerPermits.release();
+          throw e;
+        }
+        if (delivery == null) {
+          workerPermits.release();
+          // Nothing due: wait for new events to be published, or for retries to become due.
+          wakeUps.tryAcquire(settings.pollInterval().toMillis(), TimeUnit.MILLISECONDS);
+          wakeUps.drainPermits();
+          continue;
+        }
+        inFlightWebHooks.add(delivery.getWebHook());
+        workers.execute(() -> {
+          try {
+            deliver(delivery);
+          } finally {
+            inFlightWebHooks.remove(delivery.getWebHook());
+            workerPermits.release();
+            wakeUp();
+          }
+        });
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        logger.error("Error dispatching event deliveries; will retry", e);
+        try {
+          TimeUnit.MILLISECONDS.sleep(settings.pollInterval().toMillis());
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private Set<String> getSaturatedWebHooks() {
+    ImmutableSet.Builder<String> saturated = ImmutableSet.builder();
+    for (Multiset.Entry<String> entry : inFlightWebHooks.entrySet()) {
+      if (entry.getCount() >= settings.maxConcurrentDeliveriesPerWebHook()) {
+        saturated.add(entry.getElement());
+      }
+    }
+    return saturated.build();
+  }
+
+  void deliver(EventDelivery delivery) {
+    try {
+      Subscription subscription = subscriptionRepository.get().getSubscription(delivery.getSubscriptionId());
+      if (subscription == null) {
+        // Unsubscribed since the event was published
+        eventDeliveryRepository.get().deleteDelivery(delivery.getId());
+        return;
+      }
+
+      String error;
+      try (Response response = WebhookSignatures.sign(client.target(subscription.getWebHook())
+          .request(), subscription.getSecret())
+          .post(Entity.json(delivery.getEvent()))) {
+        if (response.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL) {
+          eventDeliveryRepository.get().deleteDelivery(delivery.getId());
+          deliveredCount.increment();
+          deliveryLatencyMillis.add(Duration.between(delivery.getCreated(), clock.instant()).toMillis());
+          logger.trace("Webhook {} called for eventType {}.", subscription.getWebHook(), delivery.getEvent().getEventType());
+          return;
+        }
+        error = "HTTP " + response.getStatus();
+      } catch (ProcessingException e) {
+        error = String.valueOf(e.getCause() != null ? e.getCause() : e);
+      }
+      failed(delivery, subscription.getWebHook(), error);
+    } catch (Exception e) {
+      // The delivery will be retried once its lease expires
+      logger.error("Error delivering event {} to subscription {}", delivery.getId(), delivery.getSubscriptionId(), e);
+    }
+  }
+
+  private void failed(EventDelivery delivery, String webHook, String error) {
+    failedAttemptCount.increment();
+    if (delivery.getAttempts() >= settings.maxAttempts()) {
+      logger.error("Giving up calling webhook {} for eventType {} after {} attempts: {}.",
+          webHook, delivery.getEvent().getEventType(), delivery.getAttempts(), error);
+      eventDeliveryRepository.get().deadLetter(delivery.getId(), error);
+      deadLetteredCount.increment();
+      return;
+    }
+    logger.warn("Error calling webhook {} for eventType {} (attempt {}): {}.",
+        webHook, delivery.getEvent().getEventType(), delivery.getAttempts(), error);
+    eventDeliveryRepository.get().scheduleRetry(delivery.getId(), clock.instant().plus(getBackoff(delivery.getAttempts())), error);
+  }
+
+  Duration getBackoff(int attempts) {
+    // Cap the shift to avoid overflowing; maxBackoff will be reached way before anyway.
+    Duration backoff = settings.initialBackoff().multipliedBy(1L << Math.min(Math.max(attempts - 1, 0), 20));
+    return backoff.compareTo(settings.maxBackoff()) > 0 ? settings.maxBackoff() : backoff;
+  }
+}
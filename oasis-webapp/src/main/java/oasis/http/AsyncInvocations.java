@@ -0,0 +1,52 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.http;
+
+import java.util.concurrent.CompletableFuture;
+
+import javax.ws.rs.client.AsyncInvoker;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.Response;
+
+/**
+ * Adapts JAX-RS asynchronous invocations to {@link CompletableFuture}s, completed from the HTTP client callback
+ * rather than by blocking a thread on a {@link java.util.concurrent.Future}.
+ */
+public class AsyncInvocations {
+  public static CompletableFuture<Response> post(AsyncInvoker invoker, Entity<?> entity) {
+    CompletableFuture<Response> future = new CompletableFuture<>();
+    invoker.post(entity, new InvocationCallback<Response>() {
+      @Override
+      public void completed(Response response) {
+        if (!future.complete(response)) {
+          response.close();
+        }
+      }
+
+      @Override
+      public void failed(Throwable throwable) {
+        future.completeExceptionally(throwable);
+      }
+    });
+    return future;
+  }
+
+  private AsyncInvocations() {
+  }
+}
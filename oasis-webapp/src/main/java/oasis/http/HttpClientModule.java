@@ -17,6 +17,7 @@
  */
 package oasis.http;
 
+import java.time.Duration;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
@@ -41,14 +42,35 @@ import okhttp3.logging.HttpLoggingInterceptor;
 public class HttpClientModule extends AbstractModule {
   private static final Logger logger = LoggerFactory.getLogger(HttpClientModule.class);
 
+  /** Leaves time for the work done once the webhook has responded. */
+  private static final Duration SUSPEND_TIMEOUT_MARGIN = Duration.ofSeconds(10);
+
   @Value.Immutable
   public interface Settings {
     HttpLoggingInterceptor.Level loggingLevel();
+
+    /**
+     * How long to wait for a webhook (application factory, provider, event subscriber) to respond; used as the HTTP
+     * client's connect, write and read timeouts.
+     */
+    Duration webhookTimeout();
+
+    /**
+     * How long a client request is kept suspended while waiting for a webhook to respond.
+     *
+     * <p>This is longer than the HTTP client can wait (connecting, sending the request, then reading the response),
+     * so that the webhook call always completes or times out first, and endpoints can handle that timeout themselves
+     * (e.g. deleting an instance anyway).
+     */
+    default Duration suspendTimeout() {
+      return webhookTimeout().multipliedBy(3).plus(SUSPEND_TIMEOUT_MARGIN);
+    }
   }
 
   public static HttpClientModule create(Config config) {
     return new HttpClientModule(ImmutableHttpClientModule.Settings.builder()
         .loggingLevel(HttpLoggingInterceptor.Level.valueOf(config.getString("logging-level").toUpperCase(Locale.ROOT)))
+        .webhookTimeout(config.getDuration("webhook-timeout"))
         .build());
   }
 
@@ -59,20 +81,23 @@ public class HttpClientModule extends AbstractModule {
   }
 
   @Override
-  protected void configure() { }
+  protected void configure() {
+    bind(Settings.class).toInstance(settings);
+  }
 
   @Provides @Singleton Client provideClient(OkHttpClient okHttpClient) {
     return new ResteasyClientBuilder()
         .httpEngine(new OkHttpClientEngine(okHttpClient))
         .register(JacksonJsonProvider.class)
+        .register(WebhookSignatures.class)
         .build();
   }
 
   @Provides @Singleton OkHttpClient provideOkHttpClient() {
     return new OkHttpClient.Builder()
-        .readTimeout(1, TimeUnit.MINUTES)
-        .writeTimeout(1, TimeUnit.MINUTES)
-        .connectTimeout(1, TimeUnit.MINUTES)
+        .readTimeout(settings.webhookTimeout().toMillis(), TimeUnit.MILLISECONDS)
+        .writeTimeout(settings.webhookTimeout().toMillis(), TimeUnit.MILLISECONDS)
+        .connectTimeout(settings.webhookTimeout().toMillis(), TimeUnit.MILLISECONDS)
         .followRedirects(false)
         .addNetworkInterceptor(
             new HttpLoggingInterceptor(logger::info)
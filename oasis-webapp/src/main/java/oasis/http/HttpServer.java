@@ -17,6 +17,9 @@
  */
 package oasis.http;
 
+import java.util.Collections;
+
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.ws.rs.core.NewCookie;
 
@@ -25,8 +28,13 @@ import org.jboss.resteasy.spi.ResteasyProviderFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.primitives.Ints;
 import com.google.inject.Injector;
 
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
 import oasis.web.Application;
 import oasis.web.guice.GuiceInjectorFactory;
 import oasis.http.fixes.NewCookieHeaderDelegate;
@@ -46,18 +54,33 @@ public class HttpServer {
 
   private final HttpServerModule.Settings settings;
 
-  private NettyJaxrsServer server;
+  private final InFlightRequests inFlightRequests;
+
+  private DrainableNettyJaxrsServer server;
 
   @Inject
-  HttpServer(Injector injector, HttpServerModule.Settings settings) {
+  HttpServer(Injector injector, HttpServerModule.Settings settings, InFlightRequests inFlightRequests) {
     this.injector = injector;
     this.settings = settings;
+    this.inFlightRequests = inFlightRequests;
   }
 
   public void start() {
-    server = new NettyJaxrsServer();
+    server = new DrainableNettyJaxrsServer();
     server.getDeployment().setApplication(new Application());
     server.setPort(settings.nettyPort);
+    if (settings.ioThreads > 0) {
+      server.setIoWorkerCount(settings.ioThreads);
+    }
+    server.setExecutorThreadCount(settings.executorThreads);
+    server.setBacklog(settings.backlog);
+    server.setMaxRequestSize(settings.maxRequestSize);
+    server.setMaxInitialLineLength(settings.maxInitialLineLength);
+    server.setMaxHeaderSize(settings.maxHeaderSize);
+    if (!settings.idleTimeout.isZero()) {
+      server.setIdleTimeout(Ints.checkedCast(settings.idleTimeout.getSeconds()));
+    }
+    server.setHttpChannelHandlers(Collections.singletonList(new InFlightRequestsHandler(inFlightRequests)));
 
     ResteasyProviderFactory providerFactory = createResteasyProviderFactory(injector);
     server.getDeployment().setProviderFactory(providerFactory);
@@ -66,8 +89,51 @@ public class HttpServer {
     logger.info("Oasis server started on port {};", server.getPort());
   }
 
+  /**
+   * Stops the server, gracefully.
+   *
+   * <p>The server first stops accepting connections, and rejects new requests on already opened connections; it
+   * then waits for in-flight requests to complete, for at most {@code shutdown-timeout}, before closing all
+   * connections.
+   */
   public void stop() {
+    if (server == null) {
+      return;
+    }
+    server.stopAccepting();
+    logger.info("Oasis server stopped accepting connections; waiting for {} in-flight requests.", inFlightRequests.getCount());
+    try {
+      if (!inFlightRequests.drain(settings.shutdownTimeout)) {
+        logger.warn("{} requests still in flight after {}; stopping anyway.", inFlightRequests.getCount(), settings.shutdownTimeout);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
     server.stop();
+    server = null;
     logger.info("Oasis server stopped.");
   }
+
+  private static class DrainableNettyJaxrsServer extends NettyJaxrsServer {
+    private volatile @Nullable Channel serverChannel;
+
+    @Override
+    public void start() {
+      // Keep a handle on the listening channel, so we can stop accepting connections without closing the others.
+      bootstrap.handler(new ChannelInboundHandlerAdapter() {
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+          serverChannel = ctx.channel();
+        }
+      });
+      super.start();
+    }
+
+    void stopAccepting() {
+      Channel channel = serverChannel;
+      if (channel != null) {
+        channel.close().syncUninterruptibly();
+      }
+    }
+  }
 }
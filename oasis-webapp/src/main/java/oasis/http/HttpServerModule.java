@@ -17,6 +17,11 @@
  */
 package oasis.http;
 
+import java.time.Duration;
+
+import javax.annotation.Nullable;
+
+import com.google.common.primitives.Ints;
 import com.google.inject.AbstractModule;
 import com.typesafe.config.Config;
 
@@ -31,12 +36,32 @@ public class HttpServerModule extends AbstractModule {
     public static Settings fromConfig(Config config) {
       return Settings.builder()
           .setPort(config.getInt("port"))
+          .setIoThreads(config.getInt("io-threads"))
+          .setExecutorThreads(config.getInt("executor-threads"))
+          .setBacklog(config.getInt("backlog"))
+          .setMaxRequestSize(Ints.checkedCast(config.getBytes("max-request-size")))
+          .setMaxInitialLineLength(Ints.checkedCast(config.getBytes("max-initial-line-length")))
+          .setMaxHeaderSize(Ints.checkedCast(config.getBytes("max-header-size")))
+          .setIdleTimeout(config.getDuration("idle-timeout"))
+          .setShutdownTimeout(config.getDuration("shutdown-timeout"))
+          .setMetricsToken(config.hasPath("metrics-token")
+              ? config.getString("metrics-token")
+              : null)
           .build();
     }
 
     public static class Builder {
 
       private int port;
+      private int ioThreads;
+      private int executorThreads = 16;
+      private int backlog = 128;
+      private int maxRequestSize = 10 * 1024 * 1024;
+      private int maxInitialLineLength = 4096;
+      private int maxHeaderSize = 8192;
+      private Duration idleTimeout = Duration.ZERO;
+      private Duration shutdownTimeout = Duration.ZERO;
+      private @Nullable String metricsToken;
 
       public Settings build() {
         return new Settings(this);
@@ -46,12 +71,80 @@ public class HttpServerModule extends AbstractModule {
         this.port = port;
         return this;
       }
+
+      public Builder setIoThreads(int ioThreads) {
+        this.ioThreads = ioThreads;
+        return this;
+      }
+
+      public Builder setExecutorThreads(int executorThreads) {
+        this.executorThreads = executorThreads;
+        return this;
+      }
+
+      public Builder setBacklog(int backlog) {
+        this.backlog = backlog;
+        return this;
+      }
+
+      public Builder setMaxRequestSize(int maxRequestSize) {
+        this.maxRequestSize = maxRequestSize;
+        return this;
+      }
+
+      public Builder setMaxInitialLineLength(int maxInitialLineLength) {
+        this.maxInitialLineLength = maxInitialLineLength;
+        return this;
+      }
+
+      public Builder setMaxHeaderSize(int maxHeaderSize) {
+        this.maxHeaderSize = maxHeaderSize;
+        return this;
+      }
+
+      public Builder setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+      }
+
+      public Builder setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+        return this;
+      }
+
+      public Builder setMetricsToken(@Nullable String metricsToken) {
+        this.metricsToken = metricsToken;
+        return this;
+      }
     }
 
     public final int nettyPort;
+    /** Number of threads handling network I/O; 0 to use RESTEasy's default. */
+    public final int ioThreads;
+    /** Number of threads running the (blocking) resource methods. */
+    public final int executorThreads;
+    public final int backlog;
+    public final int maxRequestSize;
+    public final int maxInitialLineLength;
+    public final int maxHeaderSize;
+    /** Connections idle for that long are closed; {@link Duration#ZERO} to keep them open. */
+    public final Duration idleTimeout;
+    /** How long to wait for in-flight requests to complete when stopping the server. */
+    public final Duration shutdownTimeout;
+    /** Bearer token expected from the metrics scraper; {@code null} to disable the metrics endpoint. */
+    public final @Nullable String metricsToken;
 
     private Settings(Builder builder) {
       this.nettyPort = builder.port;
+      this.ioThreads = builder.ioThreads;
+      this.executorThreads = builder.executorThreads;
+      this.backlog = builder.backlog;
+      this.maxRequestSize = builder.maxRequestSize;
+      this.maxInitialLineLength = builder.maxInitialLineLength;
+      this.maxHeaderSize = builder.maxHeaderSize;
+      this.idleTimeout = builder.idleTimeout;
+      this.shutdownTimeout = builder.shutdownTimeout;
+      this.metricsToken = builder.metricsToken;
     }
   }
 
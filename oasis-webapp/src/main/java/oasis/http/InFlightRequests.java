@@ -0,0 +1,91 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.http;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Singleton;
+
+/**
+ * Keeps track of the requests being processed, so the server can be stopped without dropping them.
+ *
+ * @see InFlightRequestsHandler
+ * @see HttpServer#stop()
+ */
+@Singleton
+public class InFlightRequests {
+  private final AtomicInteger count = new AtomicInteger();
+  private volatile boolean draining;
+
+  /**
+   * Records the start of a request.
+   *
+   * @return {@code false} if the server is being stopped and the request should be rejected.
+   */
+  boolean tryEnter() {
+    if (draining) {
+      return false;
+    }
+    count.incrementAndGet();
+    if (draining) {
+      exit();
+      return false;
+    }
+    return true;
+  }
+
+  /** Records the end of a request that was {@link #tryEnter() entered}. */
+  void exit() {
+    if (count.decrementAndGet() == 0) {
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+  }
+
+  /** Returns the number of requests currently being processed. */
+  public int getCount() {
+    return count.get();
+  }
+
+  public boolean isDraining() {
+    return draining;
+  }
+
+  /**
+   * Rejects new requests, and waits for the in-flight ones to complete.
+   *
+   * @return {@code false} if requests were still in flight when the timeout elapsed.
+   */
+  boolean drain(Duration timeout) throws InterruptedException {
+    draining = true;
+    long deadline = System.nanoTime() + timeout.toNanos();
+    synchronized (this) {
+      while (count.get() > 0) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      }
+    }
+    return true;
+  }
+}
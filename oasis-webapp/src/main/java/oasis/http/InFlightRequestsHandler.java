@@ -0,0 +1,94 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.http;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Counts {@link InFlightRequests in-flight requests}, and rejects new ones with a {@code 503 Service Unavailable}
+ * while the server is being stopped.
+ *
+ * <p>This is a Netty handler rather than a JAX-RS filter so that a request leaves the count when the end of its
+ * response is written, whatever the way it's produced: response filters are skipped for unmapped exceptions, and
+ * asynchronous responses complete after the resource method returns.
+ *
+ * <p>The handler is installed after the HTTP codec and aggregator, so it sees whole requests and the response parts.
+ */
+@ChannelHandler.Sharable
+class InFlightRequestsHandler extends ChannelDuplexHandler {
+  private static final int RETRY_AFTER_IN_SECONDS = 1;
+
+  private final InFlightRequests inFlightRequests;
+
+  InFlightRequestsHandler(InFlightRequests inFlightRequests) {
+    this.inFlightRequests = inFlightRequests;
+  }
+
+  @Override
+  public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    if (!(msg instanceof HttpRequest) || inFlightRequests.tryEnter()) {
+      super.channelRead(ctx, msg);
+      return;
+    }
+    ReferenceCountUtil.release(msg);
+    FullHttpResponse response = new DefaultFullHttpResponse(((HttpRequest) msg).protocolVersion(),
+        HttpResponseStatus.SERVICE_UNAVAILABLE);
+    response.headers()
+        .setInt(HttpHeaderNames.RETRY_AFTER, RETRY_AFTER_IN_SECONDS)
+        .setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+    HttpUtil.setKeepAlive(response, false);
+    ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+    if (msg instanceof HttpResponse && inFlightRequests.isDraining()) {
+      // Have keep-alive clients reconnect, to another node.
+      HttpUtil.setKeepAlive((HttpResponse) msg, false);
+    }
+    if (msg instanceof LastHttpContent && !isInformational(msg)) {
+      // Whether the write succeeds or not (e.g. the client went away), the request is over.
+      promise = promise.unvoid();
+      promise.addListener(future -> inFlightRequests.exit());
+      if (inFlightRequests.isDraining()) {
+        promise.addListener(ChannelFutureListener.CLOSE);
+      }
+    }
+    super.write(ctx, msg, promise);
+  }
+
+  /** Returns whether the message is an interim response (e.g. {@code 100 Continue}), not the end of the response. */
+  private static boolean isInformational(Object msg) {
+    return msg instanceof HttpResponse
+        && ((HttpResponse) msg).status().codeClass() == HttpStatusClass.INFORMATIONAL;
+  }
+}
@@ -0,0 +1,69 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Signs webhook requests: computes an HMAC-SHA1 of the request body and sends it in the {@code X-Hub-Signature} header.
+ *
+ * <p>This interceptor is registered once on the shared {@link javax.ws.rs.client.Client}, and only signs the requests
+ * {@link #sign(Invocation.Builder, String) given a secret}, rather than registering a new filter (with its secret)
+ * for each request, which would copy the client configuration each time.
+ */
+public class WebhookSignatures implements WriterInterceptor {
+  static final String SECRET_PROPERTY = WebhookSignatures.class.getName() + ".secret";
+  static final String SIGNATURE_HEADER = "X-Hub-Signature";
+
+  /** Signs the request with the given secret. */
+  public static Invocation.Builder sign(Invocation.Builder request, String secret) {
+    return request.property(SECRET_PROPERTY, secret);
+  }
+
+  static String computeSignature(String secret, byte[] body) {
+    return "sha1=" + Hashing.hmacSha1(secret.getBytes(StandardCharsets.UTF_8)).hashBytes(body);
+  }
+
+  @Override
+  public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+    String secret = (String) context.getProperty(SECRET_PROPERTY);
+    if (secret == null) {
+      context.proceed();
+      return;
+    }
+    // The body needs to be buffered to compute the signature before the headers are sent.
+    OutputStream out = context.getOutputStream();
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    context.setOutputStream(buffer);
+    context.proceed();
+    byte[] body = buffer.toByteArray();
+    context.getHeaders().putSingle(SIGNATURE_HEADER, computeSignature(secret, body));
+    out.write(body);
+    context.setOutputStream(out);
+  }
+}
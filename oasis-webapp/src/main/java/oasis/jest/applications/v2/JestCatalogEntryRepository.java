@@ -24,13 +24,15 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
-import javax.annotation.Nullable;
 import javax.inject.Inject;
+import javax.inject.Named;
 
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.index.query.BoolFilterBuilder;
@@ -40,21 +42,22 @@ import org.elasticsearch.index.query.FilteredQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
 import com.google.common.io.Resources;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.ibm.icu.util.ULocale;
 
 import io.searchbox.action.Action;
@@ -64,9 +67,10 @@ import io.searchbox.client.JestResultHandler;
 import io.searchbox.core.Delete;
 import io.searchbox.core.DeleteByQuery;
 import io.searchbox.core.Index;
-import io.searchbox.core.Search;
-import io.searchbox.core.SearchResult;
 import io.searchbox.indices.CreateIndex;
+import io.searchbox.indices.DeleteIndex;
+import oasis.catalog.CatalogEntrySortKeys;
+import oasis.elasticsearch.ElasticsearchModule;
 import oasis.jest.JestBootstrapper;
 import oasis.model.applications.v2.CatalogEntry;
 import oasis.model.applications.v2.CatalogEntryRepository;
@@ -74,10 +78,17 @@ import oasis.model.applications.v2.SimpleCatalogEntry;
 import oasis.model.i18n.LocalizableModule;
 import oasis.model.i18n.LocalizableStringHelper;
 import oasis.web.i18n.LocaleHelper;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 public class JestCatalogEntryRepository implements CatalogEntryRepository, JestBootstrapper {
   private static final Logger logger = LoggerFactory.getLogger(JestCatalogEntryRepository.class);
-  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+  static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
       .registerModule(new Jdk8Module())
       .registerModule(new GuavaModule())
       .registerModule(new JavaTimeModule())
@@ -87,11 +98,23 @@ public class JestCatalogEntryRepository implements CatalogEntryRepository, JestB
       .setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
   private static final String INDEX_NAME = "catalog-entry";
+  private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
 
   private final JestClient jestClient;
+  private final OkHttpClient httpClient;
+  private final HttpUrl searchUrl;
+  private final SearchHitsReader searchHitsReader = new SearchHitsReader(OBJECT_MAPPER);
 
-  @Inject JestCatalogEntryRepository(JestClient jestClient) {
+  @Inject JestCatalogEntryRepository(JestClient jestClient,
+      @Named(ElasticsearchModule.ELASTICSEARCH) OkHttpClient httpClient,
+      ElasticsearchModule.Settings elasticsearchSettings) {
     this.jestClient = jestClient;
+    this.httpClient = httpClient;
+    this.searchUrl = checkNotNull(HttpUrl.get(elasticsearchSettings.url()), "Invalid Elasticsearch URL")
+        .newBuilder()
+        .addPathSegment(INDEX_NAME)
+        .addPathSegment("_search")
+        .build();
   }
 
   @Override
@@ -101,19 +124,26 @@ public class JestCatalogEntryRepository implements CatalogEntryRepository, JestB
     FilteredQueryBuilder filteredQueryBuilder = QueryBuilders.filteredQuery(generateQuery(request), generateFilter(request));
     SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
         .query(filteredQueryBuilder)
-        // TODO: Sort on the name if there isn't any query term
+        // Sort keys are only used for sorting, don't send them back
+        .fetchSource(null, CatalogEntrySortKeys.FIELD)
         .from(request.start())
         .size(request.limit());
-    Search searchAction = new Search.Builder(searchSourceBuilder.toString())
-        .addIndex(INDEX_NAME)
+    if (request.query() == null) {
+      // Without a full text query there's no scoring, sort on the name instead (using precomputed collation keys).
+      searchSourceBuilder.sort(generateSort(request));
+    }
+    // Bypass Jest (and its Gson parsing of the whole response) to stream the hits directly into catalog entries.
+    Request searchRequest = new Request.Builder()
+        .url(searchUrl)
+        .post(RequestBody.create(JSON, searchSourceBuilder.toString()))
         .build();
-    try {
-      SearchResult searchResult = jestClient.execute(searchAction);
-      if (!searchResult.isSucceeded()) {
-        logger.error("Error while searching in elasticsearch: {}", searchResult.getErrorMessage());
+    try (Response response = httpClient.newCall(searchRequest).execute()) {
+      ResponseBody body = checkNotNull(response.body());
+      if (!response.isSuccessful()) {
+        logger.error("Error while searching in elasticsearch: {}", body.string());
         return Collections.emptyList();
       }
-      return transformSearchResultToCatalogEntries(searchResult, request.displayLocale());
+      return searchHitsReader.read(body.byteStream(), request.displayLocale());
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
@@ -138,6 +168,15 @@ public class JestCatalogEntryRepository implements CatalogEntryRepository, JestB
         .should(QueryBuilders.multiMatchQuery(request.query(), descriptionFields));
   }
 
+  private static SortBuilder generateSort(SearchRequest request) {
+    return SortBuilders.fieldSort(CatalogEntrySortKeys.getSortField(request.displayLocale()))
+        .order(SortOrder.ASC)
+        // Entries indexed before sort keys were introduced come first, as in MongoDB (until they're reindexed)
+        .missing("_first")
+        // Don't fail if no entry has been indexed with sort keys yet
+        .unmappedType("string");
+  }
+
   private FilterBuilder generateFilter(SearchRequest request) {
     BoolFilterBuilder mustFiltersBuilder = FilterBuilders.boolFilter();
     if (!request.payment_option().isEmpty()) {
@@ -165,12 +204,17 @@ public class JestCatalogEntryRepository implements CatalogEntryRepository, JestB
     }
 
     if (!request.supported_locale().isEmpty()) {
-      BoolFilterBuilder shouldFiltersBuilder = FilterBuilders.boolFilter();
-      // TODO: Do not just filter on supported locales but also on fallbacks
+      // Also list entries supporting a fallback of a requested locale (e.g. "fr" when asking for "fr-FR"),
+      // as the MongoDB listing did with a LocaleMatcher.
+      Set<String> supportedLocales = new LinkedHashSet<>();
       for (ULocale locale : request.supported_locale()) {
-        shouldFiltersBuilder.should(FilterBuilders.termFilter("supported_locales", locale.toLanguageTag()));
+        for (ULocale fallbackLocale : getFallbackLocales(locale)) {
+          if (!ULocale.ROOT.equals(fallbackLocale)) {
+            supportedLocales.add(fallbackLocale.toLanguageTag());
+          }
+        }
       }
-      mustFiltersBuilder.must(shouldFiltersBuilder);
+      mustFiltersBuilder.must(FilterBuilders.termsFilter("supported_locales", supportedLocales));
     }
 
     if (!request.restricted_area().isEmpty()) {
@@ -199,26 +243,6 @@ public class JestCatalogEntryRepository implements CatalogEntryRepository, JestB
     return mustFiltersBuilder;
   }
 
-  private Iterable<SimpleCatalogEntry> transformSearchResultToCatalogEntries(SearchResult searchResult, @Nullable ULocale displayLocale)
-      throws IOException {
-    JsonArray results = searchResult.getJsonObject()
-        .getAsJsonObject("hits")
-        .getAsJsonArray("hits");
-    List<SimpleCatalogEntry> catalogEntries = new ArrayList<>();
-    for (JsonElement jsonElement : results) {
-      JsonObject jsonObject = jsonElement.getAsJsonObject();
-      JsonElement source = jsonObject.get("_source");
-      SimpleCatalogEntry catalogEntry = OBJECT_MAPPER.readValue(source.toString(), SimpleCatalogEntry.class);
-      catalogEntry.setId(jsonObject.get("_id").getAsString());
-      catalogEntry.setType(CatalogEntry.EntryType.valueOf(jsonObject.get("_type").getAsString()));
-      if (displayLocale != null) {
-        catalogEntry.restrictLocale(displayLocale);
-      }
-      catalogEntries.add(catalogEntry);
-    }
-    return catalogEntries;
-  }
-
   public CompletionStage<Void> asyncIndex(CatalogEntry catalogEntry) {
     checkArgument(catalogEntry.isVisible());
     checkNotNull(catalogEntry.getId());
@@ -226,7 +250,10 @@ public class JestCatalogEntryRepository implements CatalogEntryRepository, JestB
     // Note: we don't copy the ID, we set it as the ES document ID, and we'll inject it back into the result on search.
     SimpleCatalogEntry indexableCatalogEntry = new SimpleCatalogEntry(catalogEntry);
     try {
-      Index indexAction = new Index.Builder(OBJECT_MAPPER.writeValueAsString(indexableCatalogEntry))
+      ObjectNode document = OBJECT_MAPPER.valueToTree(indexableCatalogEntry);
+      document.set(CatalogEntrySortKeys.FIELD,
+          OBJECT_MAPPER.valueToTree(CatalogEntrySortKeys.computeSortKeysByLocale(catalogEntry.getName())));
+      Index indexAction = new Index.Builder(OBJECT_MAPPER.writeValueAsString(document))
           .index(INDEX_NAME)
           .type(catalogEntry.getType().name())
           .id(catalogEntry.getId())
@@ -302,6 +329,24 @@ public class JestCatalogEntryRepository implements CatalogEntryRepository, JestB
     return error;
   }
 
+  /**
+   * Deletes the index and creates it again with the current settings and mappings.
+   *
+   * <p>The index is then empty, and all catalog entries need to be indexed again.
+   */
+  public void recreateIndex() {
+    try {
+      JestResult jestResult = jestClient.execute(new DeleteIndex.Builder(INDEX_NAME).build());
+      if (!jestResult.isSucceeded()) {
+        // The error message is probably indicating that the index doesn't exist
+        logger.info(jestResult.getErrorMessage());
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    bootstrap();
+  }
+
   @Override
   public void bootstrap() {
     try {
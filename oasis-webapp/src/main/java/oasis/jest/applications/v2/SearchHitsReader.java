@@ -0,0 +1,120 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jest.applications.v2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ibm.icu.util.ULocale;
+
+import oasis.model.applications.v2.CatalogEntry;
+import oasis.model.applications.v2.SimpleCatalogEntry;
+
+/**
+ * Reads catalog entries out of an Elasticsearch search response.
+ *
+ * <p>The response is read in a streaming fashion: each hit's {@code _source} is directly deserialized into a
+ * {@link SimpleCatalogEntry} (and restricted to the display locale), other fields are skipped without being parsed
+ * into a tree.
+ */
+class SearchHitsReader {
+  private final ObjectMapper objectMapper;
+
+  SearchHitsReader(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  List<SimpleCatalogEntry> read(InputStream in, @Nullable ULocale displayLocale) throws IOException {
+    try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+      expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.getCurrentName();
+        parser.nextToken();
+        if ("hits".equals(fieldName)) {
+          return readHits(parser, displayLocale);
+        }
+        parser.skipChildren();
+      }
+      throw JsonMappingException.from(parser, "Missing hits in search response");
+    }
+  }
+
+  private List<SimpleCatalogEntry> readHits(JsonParser parser, @Nullable ULocale displayLocale) throws IOException {
+    expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+    List<SimpleCatalogEntry> catalogEntries = new ArrayList<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.getCurrentName();
+      parser.nextToken();
+      if (!"hits".equals(fieldName)) {
+        parser.skipChildren();
+        continue;
+      }
+      expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        catalogEntries.add(readHit(parser, displayLocale));
+      }
+    }
+    return catalogEntries;
+  }
+
+  private SimpleCatalogEntry readHit(JsonParser parser, @Nullable ULocale displayLocale) throws IOException {
+    SimpleCatalogEntry catalogEntry = null;
+    String id = null;
+    String type = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.getCurrentName();
+      parser.nextToken();
+      switch (fieldName) {
+        case "_id":
+          id = parser.getText();
+          break;
+        case "_type":
+          type = parser.getText();
+          break;
+        case "_source":
+          catalogEntry = objectMapper.readValue(parser, SimpleCatalogEntry.class);
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    if (catalogEntry == null || id == null || type == null) {
+      throw JsonMappingException.from(parser, "Incomplete search hit");
+    }
+    catalogEntry.setId(id);
+    catalogEntry.setType(CatalogEntry.EntryType.valueOf(type));
+    if (displayLocale != null) {
+      catalogEntry.restrictLocale(displayLocale);
+    }
+    return catalogEntry;
+  }
+
+  private static void expect(JsonParser parser, @Nullable JsonToken actual, JsonToken expected) throws IOException {
+    if (actual != expected) {
+      throw JsonMappingException.from(parser, "Unexpected token " + actual + ", expected " + expected);
+    }
+  }
+}
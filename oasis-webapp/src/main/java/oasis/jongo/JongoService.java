@@ -27,6 +27,7 @@ import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.jongo.Jongo;
+import org.jongo.Mapper;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -42,8 +43,11 @@ import com.fasterxml.jackson.datatype.guava.GuavaModule;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.google.common.base.Preconditions;
+import com.google.common.primitives.Ints;
 import com.mongodb.Mongo;
 import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoClientURI;
 
 import de.undercouch.bson4jackson.BsonGenerator;
 import de.undercouch.bson4jackson.BsonParser;
@@ -58,11 +62,14 @@ public class JongoService implements Provider<Jongo> {
 
   private final JongoModule.Settings settings;
   private final Provider<Set<JongoBootstrapper>> bootstrappers;
+  private final MongoCommandMetrics commandMetrics;
 
   @Inject
-  JongoService(JongoModule.Settings settings, Provider<Set<JongoBootstrapper>> bootstrappers) {
+  JongoService(JongoModule.Settings settings, Provider<Set<JongoBootstrapper>> bootstrappers,
+      MongoCommandMetrics commandMetrics) {
     this.settings = settings;
     this.bootstrappers = bootstrappers;
+    this.commandMetrics = commandMetrics;
   }
 
   @Override
@@ -73,8 +80,24 @@ public class JongoService implements Provider<Jongo> {
 
   @SuppressWarnings("deprecation")
   public void start() throws Exception {
-    mongoConnection = new MongoClient(settings.mongoURI);
-    jongoConnection = new Jongo(mongoConnection.getDB(settings.mongoURI.getDatabase()), new OasisMapper.Builder()
+    // Options from the URI take precedence over those set in the builder
+    MongoClientOptions.Builder options = MongoClientOptions.builder()
+        .connectionsPerHost(settings.connectionPoolMaxSize)
+        .minConnectionsPerHost(settings.connectionPoolMinSize)
+        .threadsAllowedToBlockForConnectionMultiplier(settings.connectionPoolWaitQueueMultiple)
+        .maxWaitTime(Ints.checkedCast(settings.connectionPoolMaxWaitTime.toMillis()))
+        .addCommandListener(commandMetrics);
+    mongoConnection = new MongoClient(new MongoClientURI(settings.mongoURI.getURI(), options));
+    jongoConnection = new Jongo(mongoConnection.getDB(settings.mongoURI.getDatabase()), createMapper());
+
+    for (JongoBootstrapper bootstrapper : bootstrappers.get()) {
+      bootstrapper.bootstrap();
+    }
+  }
+
+  /** Creates the {@link Mapper} used to (un)marshall documents; exposed for tests. */
+  public static Mapper createMapper() {
+    return new OasisMapper.Builder()
         .registerModule(new Jdk8Module())
         .registerModule(new JavaTimeModule())
         .registerModule(new CustomJavaTimeInstantModule())
@@ -86,11 +109,7 @@ public class JongoService implements Provider<Jongo> {
         .enable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
         .disable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
         .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
-        .build());
-
-    for (JongoBootstrapper bootstrapper : bootstrappers.get()) {
-      bootstrapper.bootstrap();
-    }
+        .build();
   }
 
   public void stop() {
@@ -0,0 +1,385 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jongo;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import oasis.jongo.guice.JongoModule;
+import oasis.metrics.LatencyHistogram;
+import oasis.metrics.RoundTripCounter;
+
+/**
+ * Instruments the commands sent to MongoDB.
+ *
+ * <p>The latency of each command is recorded per collection and command name, and each command is counted as a round
+ * trip of the current {@link RoundTripCounter}, to end up in the audit log. Commands slower than
+ * {@code slow-command-threshold} are tagged with the repository method that sent them and logged along with the
+ * shape of their filter (values replaced by {@code ?}); their count and time are also recorded per caller. This
+ * excludes the getMores of tailable cursors awaiting data (e.g. {@link oasis.jongo.authn.JongoTokenRevocationFeed}),
+ * which block on purpose until new documents arrive.
+ *
+ * <p>The synchronous driver calls listeners on the thread that sends the command, which is what makes tagging and
+ * per-request counting possible. The caller and filter shape are only computed for slow commands, as walking the
+ * stack on each command would cost more than most commands themselves.
+ */
+@Singleton
+public class MongoCommandMetrics implements CommandListener {
+  private static final Logger logger = LoggerFactory.getLogger(MongoCommandMetrics.class);
+
+  private static final String UNKNOWN = "unknown";
+
+  private final Duration slowCommandThreshold;
+
+  private final ConcurrentMap<Integer, Started> started = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, CommandStats> commands = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, CallerStats> callers = new ConcurrentHashMap<>();
+  /** IDs of the live tailable cursors awaiting data, whose getMores are expected to be slow. */
+  private final Set<Long> awaitDataCursors = ConcurrentHashMap.newKeySet();
+  private final LongAdder failedCount = new LongAdder();
+  private final LongAdder slowCount = new LongAdder();
+
+  @Inject MongoCommandMetrics(JongoModule.Settings settings) {
+    this.slowCommandThreshold = settings.slowCommandThreshold;
+  }
+
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    BsonDocument command = event.getCommand();
+    // The command document cannot be accessed once this method returns, so keep the filter (its shape will only be
+    // computed if the command turns out to be slow).
+    BsonValue filter = slowCommandThreshold.isZero() ? null : detach(getFilter(event.getCommandName(), command));
+    started.put(event.getRequestId(), new Started(getCollection(event.getCommandName(), command), filter,
+        isAwaitData(event.getCommandName(), command), getMoreCursorId(event.getCommandName(), command)));
+    if (event.getCommandName().equals("killCursors")) {
+      BsonValue cursors = command.get("cursors");
+      if (cursors != null && cursors.isArray()) {
+        for (BsonValue cursor : cursors.asArray()) {
+          if (cursor.isInt64()) {
+            awaitDataCursors.remove(cursor.asInt64().getValue());
+          }
+        }
+      }
+    }
+
+    RoundTripCounter.record();
+  }
+
+  @Override
+  public void commandSucceeded(CommandSucceededEvent event) {
+    Started start = started.remove(event.getRequestId());
+    if (start == null) {
+      return;
+    }
+    if (start.awaitData) {
+      // Track the cursor while it's alive, to recognize its getMores
+      long cursorId = getResponseCursorId(event.getResponse());
+      if (cursorId != 0) {
+        awaitDataCursors.add(cursorId);
+      } else if (start.getMoreCursorId != 0) {
+        awaitDataCursors.remove(start.getMoreCursorId);
+      }
+    }
+    completed(start, event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), null);
+  }
+
+  @Override
+  public void commandFailed(CommandFailedEvent event) {
+    failedCount.increment();
+    Started start = started.remove(event.getRequestId());
+    if (start == null) {
+      return;
+    }
+    if (start.getMoreCursorId != 0) {
+      awaitDataCursors.remove(start.getMoreCursorId);
+    }
+    completed(start, event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), event.getThrowable());
+  }
+
+  private void completed(Started start, String commandName, long elapsedNanos, @Nullable Throwable failure) {
+    String key = start.collection + ' ' + commandName;
+    CommandStats commandStats = commands.get(key);
+    if (commandStats == null) {
+      commandStats = commands.computeIfAbsent(key, k -> new CommandStats(start.collection, commandName));
+    }
+    commandStats.latency.record(elapsedNanos);
+
+    // Tailing a capped collection blocks the getMores on purpose, until new documents arrive (or some timeout)
+    if (slowCommandThreshold.isZero() || elapsedNanos < slowCommandThreshold.toNanos()
+        || (start.awaitData && commandName.equals("getMore"))) {
+      return;
+    }
+    slowCount.increment();
+    // still on the thread that sent the command
+    String caller = getCaller();
+    CallerStats callerStats = callers.get(caller);
+    if (callerStats == null) {
+      callerStats = callers.computeIfAbsent(caller, CallerStats::new);
+    }
+    callerStats.count.increment();
+    callerStats.nanos.add(elapsedNanos);
+
+    logger.warn("Slow MongoDB command: {} on {} from {} took {} ms{}; filter: {}", commandName, start.collection,
+        caller, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), failure == null ? "" : " and failed",
+        start.filter == null ? null : getShape(start.filter));
+  }
+
+  public Collection<CommandStats> getCommands() {
+    return Collections.unmodifiableCollection(commands.values());
+  }
+
+  /** Returns the stats of slow commands, per caller. */
+  public Collection<CallerStats> getCallers() {
+    return Collections.unmodifiableCollection(callers.values());
+  }
+
+  public long getFailedCount() {
+    return failedCount.sum();
+  }
+
+  public long getSlowCount() {
+    return slowCount.sum();
+  }
+
+  private static String getCollection(String commandName, BsonDocument command) {
+    BsonValue collection = command.get(commandName);
+    if (collection != null && collection.isString()) {
+      return collection.asString().getValue();
+    }
+    // getMore
+    collection = command.get("collection");
+    if (collection != null && collection.isString()) {
+      return collection.asString().getValue();
+    }
+    return UNKNOWN;
+  }
+
+  /** Returns the first method of ours in the call stack, that is, most likely, the repository method. */
+  private static String getCaller() {
+    for (StackTraceElement element : new Throwable().getStackTrace()) {
+      String className = element.getClassName();
+      if (className.startsWith("oasis.") && !className.equals(MongoCommandMetrics.class.getName())) {
+        return className.substring(className.lastIndexOf('.') + 1) + '.' + element.getMethodName();
+      }
+    }
+    return UNKNOWN;
+  }
+
+  /** Whether the command creates, or reads from, a tailable cursor that awaits data. */
+  private boolean isAwaitData(String commandName, BsonDocument command) {
+    switch (commandName) {
+      case "find":
+        BsonValue awaitData = command.get("awaitData");
+        return awaitData != null && awaitData.isBoolean() && awaitData.asBoolean().getValue();
+      case "getMore":
+        long cursorId = getMoreCursorId(commandName, command);
+        return cursorId != 0 && awaitDataCursors.contains(cursorId);
+      default:
+        return false;
+    }
+  }
+
+  private static long getMoreCursorId(String commandName, BsonDocument command) {
+    if (!commandName.equals("getMore")) {
+      return 0;
+    }
+    BsonValue cursorId = command.get("getMore");
+    return cursorId != null && cursorId.isInt64() ? cursorId.asInt64().getValue() : 0;
+  }
+
+  private static long getResponseCursorId(BsonDocument response) {
+    BsonValue cursor = response.get("cursor");
+    if (cursor == null || !cursor.isDocument()) {
+      return 0;
+    }
+    BsonValue cursorId = cursor.asDocument().get("id");
+    return cursorId != null && cursorId.isInt64() ? cursorId.asInt64().getValue() : 0;
+  }
+
+  @Nullable
+  static String getFilterShape(String commandName, BsonDocument command) {
+    BsonValue filter = getFilter(commandName, command);
+    return filter == null ? null : getShape(filter);
+  }
+
+  @Nullable
+  private static BsonValue getFilter(String commandName, BsonDocument command) {
+    switch (commandName) {
+      case "find":
+        return command.get("filter");
+      case "count":
+      case "distinct":
+      case "findAndModify":
+      case "findandmodify":
+        return command.get("query");
+      case "aggregate":
+        return command.get("pipeline");
+      case "update":
+        return getFirstStatementQuery(command.get("updates"));
+      case "delete":
+        return getFirstStatementQuery(command.get("deletes"));
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Makes sure the value doesn't read from the command's buffers, that are released once the command has been sent.
+   *
+   * <p>The driver decodes the values it reads from its buffers, so this is generally a no-op.
+   */
+  @Nullable
+  private static BsonValue detach(@Nullable BsonValue value) {
+    if (value != null && value.isDocument() && value.getClass() != BsonDocument.class) {
+      return value.asDocument().clone();
+    }
+    return value;
+  }
+
+  private static String getShape(BsonValue filter) {
+    StringBuilder sb = new StringBuilder();
+    appendShape(sb, filter);
+    return sb.toString();
+  }
+
+  @Nullable
+  private static BsonValue getFirstStatementQuery(@Nullable BsonValue statements) {
+    if (statements == null || !statements.isArray() || statements.asArray().isEmpty()) {
+      return null;
+    }
+    BsonValue statement = statements.asArray().get(0);
+    return statement.isDocument() ? statement.asDocument().get("q") : null;
+  }
+
+  private static void appendShape(StringBuilder sb, BsonValue value) {
+    if (value.isDocument()) {
+      sb.append('{');
+      boolean first = true;
+      for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+        if (!first) {
+          sb.append(", ");
+        }
+        first = false;
+        sb.append(entry.getKey()).append(": ");
+        appendShape(sb, entry.getValue());
+      }
+      sb.append('}');
+    } else if (value.isArray()) {
+      List<BsonValue> values = value.asArray().getValues();
+      if (values.stream().noneMatch(v -> v.isDocument() || v.isArray())) {
+        // e.g. the values of an $in: only their presence matters
+        sb.append(values.isEmpty() ? "[]" : "[?]");
+        return;
+      }
+      sb.append('[');
+      boolean first = true;
+      for (BsonValue v : values) {
+        if (!first) {
+          sb.append(", ");
+        }
+        first = false;
+        appendShape(sb, v);
+      }
+      sb.append(']');
+    } else {
+      sb.append('?');
+    }
+  }
+
+  private static class Started {
+    final String collection;
+    @Nullable final BsonValue filter;
+    final boolean awaitData;
+    /** The cursor of a getMore command on an await-data cursor; 0 otherwise. */
+    final long getMoreCursorId;
+
+    Started(String collection, @Nullable BsonValue filter, boolean awaitData, long getMoreCursorId) {
+      this.collection = collection;
+      this.filter = filter;
+      this.awaitData = awaitData;
+      this.getMoreCursorId = awaitData ? getMoreCursorId : 0;
+    }
+  }
+
+  public static class CommandStats {
+    private final String collection;
+    private final String command;
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    CommandStats(String collection, String command) {
+      this.collection = collection;
+      this.command = command;
+    }
+
+    public String getCollection() {
+      return collection;
+    }
+
+    public String getCommand() {
+      return command;
+    }
+
+    public LatencyHistogram getLatency() {
+      return latency;
+    }
+  }
+
+  public static class CallerStats {
+    private final String caller;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    CallerStats(String caller) {
+      this.caller = caller;
+    }
+
+    public String getCaller() {
+      return caller;
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    public Duration getTotalTime() {
+      return Duration.ofNanos(nanos.sum());
+    }
+  }
+}
@@ -17,6 +17,8 @@
  */
 package oasis.jongo.accounts;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -27,6 +29,7 @@ import org.jongo.MongoCollection;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.Longs;
 import com.mongodb.DuplicateKeyException;
 import com.mongodb.ErrorCategory;
@@ -38,6 +41,9 @@ import oasis.model.accounts.AccountRepository;
 import oasis.model.accounts.UserAccount;
 
 public class JongoAccountRepository implements AccountRepository, JongoBootstrapper {
+  private static final String DISPLAY_PROJECTION =
+      "{ id: 1, email_address: 1, given_name: 1, middle_name: 1, family_name: 1, nickname: 1, _id: 0 }";
+
   private final Jongo jongo;
 
   @Inject
@@ -65,6 +71,20 @@ public class JongoAccountRepository implements AccountRepository, JongoBootstrap
         .as(JongoUserAccount.class);
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public Iterable<UserAccount> getUserAccountsByIds(Collection<String> ids) {
+    if (ids.isEmpty()) {
+      return Collections.emptyList();
+    }
+    // XXX: accounts aren't activated until you verify the e-mail address, unless you signed up with FranceConnect
+    return (Iterable<UserAccount>) (Iterable<?>) this.getAccountCollection()
+        .find("{ id: { $in: # }, $or: [ { email_verified: true }, { franceconnect_sub: { $exists: true } } ] }",
+            ImmutableSet.copyOf(ids))
+        .projection(DISPLAY_PROJECTION)
+        .as(JongoUserAccount.class);
+  }
+
   @Override
   public UserAccount getUserAccountByFranceConnectSub(String franceconnect_sub) {
     // XXX: accounts aren't activated until you verify the e-mail address, unless you signed up with FranceConnect
@@ -210,5 +210,7 @@ public class JongoAccessControlRepository implements AccessControlRepository, Jo
       // ignore
     }
     getAccessControlEntriesCollection().ensureIndex("{ instance_id: 1 }");
+    // Pending entries, looked up when a user accepts an organization invitation
+    getAccessControlEntriesCollection().ensureIndex("{ email: 1, organization_id: 1 }");
   }
 }
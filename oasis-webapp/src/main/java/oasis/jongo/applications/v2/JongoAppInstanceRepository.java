@@ -30,6 +30,7 @@ import javax.inject.Inject;
 
 import org.jongo.Jongo;
 import org.jongo.MongoCollection;
+import org.jongo.ResultHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +48,9 @@ public class JongoAppInstanceRepository implements AppInstanceRepository, JongoB
   private static final Logger logger = LoggerFactory.getLogger(AppInstanceRepository.class);
   public static final String COLLECTION_NAME = "app_instances";
 
+  private static final String ID_ONLY_PROJECTION = "{ id: 1, _id: 0 }";
+  private static final ResultHandler<String> ID_RESULT_HANDLER = result -> (String) result.get("id");
+
   private final Jongo jongo;
 
   @Inject
@@ -92,6 +96,15 @@ public class JongoAppInstanceRepository implements AppInstanceRepository, JongoB
         .as(JongoAppInstance.class);
   }
 
+  @Override
+  public Iterable<String> findIdsByOrganizationId(String organizationId) {
+    // covered by the { provider_id: 1, status: 1, id: 1 } index
+    return getAppInstancesCollection()
+        .find("{ provider_id: # }", organizationId)
+        .projection(ID_ONLY_PROJECTION)
+        .map(ID_RESULT_HANDLER);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public Iterable<AppInstance> findByOrganizationIdAndStatus(String organizationId, AppInstance.InstantiationStatus instantiationStatus) {
@@ -108,6 +121,15 @@ public class JongoAppInstanceRepository implements AppInstanceRepository, JongoB
         .as(JongoAppInstance.class);
   }
 
+  @Override
+  public Iterable<String> findPersonalInstanceIdsByUserId(String userId) {
+    // Not a covered query, due to the $exists on provider_id, but avoids loading the whole documents.
+    return getAppInstancesCollection()
+        .find("{ instantiator_id: #, provider_id: { $exists: 0 } }", userId)
+        .projection(ID_ONLY_PROJECTION)
+        .map(ID_RESULT_HANDLER);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public Iterable<AppInstance> findPersonalInstancesByUserIdAndStatus(String userId, AppInstance.InstantiationStatus instantiationStatus) {
@@ -219,9 +241,26 @@ public class JongoAppInstanceRepository implements AppInstanceRepository, JongoB
         .as(JongoAppInstance.class);
   }
 
+  @Override
+  public Iterable<String> getInstanceIdsForApplication(String applicationId) {
+    // covered by the { application_id: 1, id: 1 } index
+    return getAppInstancesCollection()
+        .find("{ application_id: # }", applicationId)
+        .projection(ID_ONLY_PROJECTION)
+        .map(ID_RESULT_HANDLER);
+  }
+
   @Override
   public void bootstrap() {
     getAppInstancesCollection().ensureIndex("{ id: 1 }", "{ unique: 1 }");
+    // findByOrganizationId, findByOrganizationIdAndStatus, getNonStoppedCountByOrganizationId, findIdsByOrganizationId
+    getAppInstancesCollection().ensureIndex("{ provider_id: 1, status: 1, id: 1 }", "{ background: 1 }");
+    // findPersonalInstancesByUserId, findPersonalInstancesByUserIdAndStatus, findPersonalInstanceIdsByUserId
+    getAppInstancesCollection().ensureIndex("{ instantiator_id: 1, provider_id: 1, status: 1 }", "{ background: 1 }");
+    // findStoppedBefore
+    getAppInstancesCollection().ensureIndex("{ status: 1, status_changed: 1 }", "{ background: 1 }");
+    // getInstancesForApplication, getInstanceIdsForApplication
+    getAppInstancesCollection().ensureIndex("{ application_id: 1, id: 1 }", "{ background: 1 }");
   }
 
   private MongoCollection getAppInstancesCollection() {
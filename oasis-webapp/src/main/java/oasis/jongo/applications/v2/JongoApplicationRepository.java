@@ -85,6 +85,7 @@ public class JongoApplicationRepository implements ApplicationRepository, JongoB
   @Override
   public void bootstrap() {
     getApplicationsCollection().ensureIndex("{ id : 1 }", "{ unique: 1 }");
+    getApplicationsCollection().ensureIndex("{ provider_id : 1 }");
   }
 
   private MongoCollection getApplicationsCollection() {
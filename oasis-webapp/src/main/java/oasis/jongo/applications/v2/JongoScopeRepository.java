@@ -18,6 +18,9 @@
 package oasis.jongo.applications.v2;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 
@@ -25,6 +28,8 @@ import org.jongo.Jongo;
 import org.jongo.MongoCollection;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 
 import oasis.jongo.JongoBootstrapper;
 import oasis.model.applications.v2.Scope;
@@ -32,9 +37,11 @@ import oasis.model.applications.v2.ScopeRepository;
 
 public class JongoScopeRepository implements ScopeRepository, JongoBootstrapper {
   private final Jongo jongo;
+  private final ScopeCache scopeCache;
 
-  @Inject JongoScopeRepository(Jongo jongo) {
+  @Inject JongoScopeRepository(Jongo jongo, ScopeCache scopeCache) {
     this.jongo = jongo;
+    this.scopeCache = scopeCache;
   }
 
   private MongoCollection getScopesCollection() {
@@ -43,19 +50,36 @@ public class JongoScopeRepository implements ScopeRepository, JongoBootstrapper
 
   @Override
   public Scope getScope(String scopeId) {
-    return getScopesCollection()
+    Scope scope = scopeCache.getIfPresent(scopeId);
+    if (scope != null) {
+      return scope;
+    }
+    scope = getScopesCollection()
         .findOne("{ id: # }", scopeId)
         .as(Scope.class);
+    if (scope != null) {
+      scopeCache.put(scope);
+    }
+    return scope;
   }
 
   @Override
   public Iterable<Scope> getScopes(Collection<String> scopeIds) {
-    // TODO: Improve performance by merging all requests into one request
-    // XXX: What should be the behavior of this request if one of the scope id is not present in the database ?
-    // XXX: Should we throw an error, return an empty iterable or just ignore it and return all found scopes ?
-    ImmutableList.Builder<Scope> builder = ImmutableList.builder();
+    Set<String> ids = ImmutableSet.copyOf(scopeIds);
+    Map<String, Scope> scopes = new HashMap<>(scopeCache.getAllPresent(ids));
+    Set<String> missingIds = Sets.difference(ids, scopes.keySet()).immutableCopy();
+    if (!missingIds.isEmpty()) {
+      Map<String, Scope> loadedScopes = new HashMap<>(missingIds.size());
+      for (Scope scope : getScopesCollection().find("{ id: { $in: # } }", missingIds).as(Scope.class)) {
+        loadedScopes.put(scope.getId(), scope);
+      }
+      scopeCache.putAll(loadedScopes);
+      scopes.putAll(loadedScopes);
+    }
+
+    ImmutableList.Builder<Scope> builder = ImmutableList.builderWithExpectedSize(scopeIds.size());
     for (String scopeId : scopeIds) {
-      Scope scope = getScope(scopeId);
+      Scope scope = scopes.get(scopeId);
       if (scope == null) {
         throw new IllegalArgumentException("The scope " + scopeId + " does not exist.");
       }
@@ -77,24 +101,31 @@ public class JongoScopeRepository implements ScopeRepository, JongoBootstrapper
         .update("{ id: # }", scope.getId())
         .upsert()
         .with(scope);
+    scopeCache.invalidate(scope.getId());
     return scope;
   }
 
   @Override
   public int deleteScopesOfAppInstances(Iterable<String> instanceIds) {
-    return getScopesCollection().remove("{ instance_id: { $in: # } }", instanceIds).getN();
+    int n = getScopesCollection().remove("{ instance_id: { $in: # } }", instanceIds).getN();
+    scopeCache.invalidateScopesOfAppInstances(instanceIds);
+    return n;
   }
 
   @Override
   public int deleteScopesOfAppInstance(String instanceId) {
-    return getScopesCollection().remove("{ instance_id: # }", instanceId).getN();
+    int n = getScopesCollection().remove("{ instance_id: # }", instanceId).getN();
+    scopeCache.invalidateScopesOfAppInstances(ImmutableSet.of(instanceId));
+    return n;
   }
 
   @Override
   public int deleteOtherScopesOfAppInstance(String instanceId, Iterable<String> localScopeIdsToKeep) {
-    return getScopesCollection()
+    int n = getScopesCollection()
         .remove("{ instance_id: #, local_id: { $nin: # } }", instanceId, localScopeIdsToKeep)
         .getN();
+    scopeCache.invalidateScopesOfAppInstances(ImmutableSet.of(instanceId));
+    return n;
   }
 
   @Override
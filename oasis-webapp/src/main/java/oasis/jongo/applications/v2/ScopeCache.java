@@ -0,0 +1,85 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jongo.applications.v2;
+
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import oasis.cache.StalenessBoundedCaches;
+import oasis.jongo.guice.JongoModule;
+import oasis.model.applications.v2.Scope;
+
+/**
+ * In-memory cache of scopes, keyed by their ID.
+ *
+ * <p>Entries are kept at most {@code mongo.scope-cache.max-staleness} (see {@link StalenessBoundedCaches}). Missing
+ * scopes are never cached.
+ *
+ * <p>Cached scopes are shared between callers and must not be modified.
+ */
+@Singleton
+public class ScopeCache {
+  private final Cache<String, Scope> cache;
+
+  @Inject ScopeCache(JongoModule.Settings settings) {
+    this.cache = StalenessBoundedCaches.newBuilder(settings.scopeCacheSize, settings.scopeCacheMaxStaleness).build();
+  }
+
+  @Nullable
+  Scope getIfPresent(String scopeId) {
+    return cache.getIfPresent(scopeId);
+  }
+
+  ImmutableMap<String, Scope> getAllPresent(Set<String> scopeIds) {
+    return cache.getAllPresent(scopeIds);
+  }
+
+  void put(Scope scope) {
+    cache.put(scope.getId(), scope);
+  }
+
+  void putAll(Map<String, Scope> scopes) {
+    cache.putAll(scopes);
+  }
+
+  void invalidate(String scopeId) {
+    cache.invalidate(scopeId);
+  }
+
+  void invalidateScopesOfAppInstances(Iterable<String> instanceIds) {
+    Set<String> ids = ImmutableSet.copyOf(instanceIds);
+    cache.asMap().values().removeIf(scope -> scope.getInstance_id() != null && ids.contains(scope.getInstance_id()));
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+}
@@ -71,5 +71,6 @@ public class JongoClientCertificateRepository implements ClientCertificateReposi
   @Override
   public void bootstrap() {
     getClientCertificateCollection().ensureIndex("{ subject_dn: 1, issuer_dn: 1 }", "{ unique: 1 }");
+    getClientCertificateCollection().ensureIndex("{ client_type: 1, client_id: 1 }");
   }
 }
@@ -38,14 +38,20 @@ import oasis.jongo.JongoBootstrapper;
 import oasis.model.authn.SidToken;
 import oasis.model.authn.Token;
 import oasis.model.authn.TokenRepository;
+import oasis.services.authn.TokenCache;
 
 public class JongoTokenRepository implements TokenRepository, JongoBootstrapper {
   private final Jongo jongo;
   private final AuthModule.Settings settings;
+  private final TokenCache tokenCache;
+  private final JongoTokenRevocationFeed revocationFeed;
 
-  @Inject JongoTokenRepository(Jongo jongo, AuthModule.Settings settings) {
+  @Inject JongoTokenRepository(Jongo jongo, AuthModule.Settings settings, TokenCache tokenCache,
+      JongoTokenRevocationFeed revocationFeed) {
     this.jongo = jongo;
     this.settings = settings;
+    this.tokenCache = tokenCache;
+    this.revocationFeed = revocationFeed;
   }
 
   protected MongoCollection getTokensCollection() {
@@ -77,21 +83,41 @@ public class JongoTokenRepository implements TokenRepository, JongoBootstrapper
   public boolean revokeToken(String tokenId) {
     checkArgument(!Strings.isNullOrEmpty(tokenId));
 
-    return this.getTokensCollection()
+    int n = this.getTokensCollection()
         .remove("{ $or: [ { id: # }, { ancestorIds: # } ] }", tokenId, tokenId)
-        .getN() > 0;
+        .getN();
+    tokenCache.invalidateTokenAndDescendants(tokenId);
+    revocationFeed.publish(JongoTokenRevocationFeed.TokenRevocation.forToken(tokenId));
+    return n > 0;
   }
 
   @Override
   public SidToken renewSidToken(String tokenId, boolean usingClientCertificate) {
     Instant expirationTime = Instant.now().plus(settings.sidTokenDuration);
 
-    return this.getTokensCollection().findAndModify("{ id: # }", tokenId)
+    SidToken sidToken = this.getTokensCollection().findAndModify("{ id: # }", tokenId)
         .returnNew()
         // TODO: Pass directly the instance of Instant
         .with(usingClientCertificate ? "{ $set: { expirationTime: #, usingClientCertificate:# } }"        : "{ $set: { expirationTime: # }, $unset: { usingClientCertificate: 1 } }",
               usingClientCertificate ? new Object[]{ Date.from(expirationTime), usingClientCertificate }  : new Object[]{ Date.from(expirationTime) })
         .as(SidToken.class);
+    tokenCache.invalidateToken(tokenId);
+    return sidToken;
+  }
+
+  @Override
+  public int renewSidTokens(Collection<String> tokenIds, Instant expirationTime) {
+    if (tokenIds.isEmpty()) {
+      return 0;
+    }
+    int n = this.getTokensCollection()
+        .update("{ id: { $in: # } }", ImmutableSet.copyOf(tokenIds))
+        .multi()
+        // TODO: Pass directly the instance of Instant
+        .with("{ $set: { expirationTime: # } }", Date.from(expirationTime))
+        .getN();
+    tokenCache.invalidateTokens(tokenIds);
+    return n;
   }
 
   @Override
@@ -102,6 +128,7 @@ public class JongoTokenRepository implements TokenRepository, JongoBootstrapper
         .update("{ id: # }", tokenId)
         // TODO: Pass directly the instance of Instant
         .with("{ $set: { authenticationTime: # } }", Date.from(authenticationTime));
+    tokenCache.invalidateToken(tokenId);
 
     return writeResult.getN() > 0;
   }
@@ -124,6 +151,7 @@ public class JongoTokenRepository implements TokenRepository, JongoBootstrapper
           .with("{ $set: { authenticationTime: # }, $unset: { franceconnectIdToken: 1, franceconnectAccessToken: 1 } }",
               Date.from(authenticationTime));
     }
+    tokenCache.invalidateToken(tokenId);
 
     return writeResult.getN() > 0;
   }
@@ -132,9 +160,12 @@ public class JongoTokenRepository implements TokenRepository, JongoBootstrapper
   public int revokeTokensForAccount(String accountId) {
     checkArgument(!Strings.isNullOrEmpty(accountId));
 
-    return this.getTokensCollection()
+    int n = this.getTokensCollection()
         .remove("{ accountId: # }", accountId)
         .getN();
+    tokenCache.invalidateTokensForAccount(accountId);
+    revocationFeed.publish(JongoTokenRevocationFeed.TokenRevocation.forAccount(accountId));
+    return n;
   }
 
   @Override
@@ -142,20 +173,27 @@ public class JongoTokenRepository implements TokenRepository, JongoBootstrapper
     checkArgument(!Strings.isNullOrEmpty(accountId));
     checkNotNull(tokenType);
 
-    return this.getTokensCollection()
+    int n = this.getTokensCollection()
         .remove("{ accountId: #, _type: # }", accountId,
             // FIXME: this only works because all our token classes are in the same package
             "." + tokenType.getSimpleName())
         .getN();
+    // XXX: this could be more selective, but such revocations are rare enough
+    tokenCache.invalidateTokensForAccount(accountId);
+    revocationFeed.publish(JongoTokenRevocationFeed.TokenRevocation.forAccount(accountId));
+    return n;
   }
 
   @Override
   public int revokeTokensForClient(String clientId) {
     checkArgument(!Strings.isNullOrEmpty(clientId));
 
-    return this.getTokensCollection()
+    int n = this.getTokensCollection()
         .remove("{ serviceProviderId: # }", clientId)
         .getN();
+    tokenCache.invalidateTokensForClient(clientId);
+    revocationFeed.publish(JongoTokenRevocationFeed.TokenRevocation.forClient(clientId));
+    return n;
   }
 
   @Override
@@ -163,9 +201,12 @@ public class JongoTokenRepository implements TokenRepository, JongoBootstrapper
     if (scopeIds.isEmpty()) {
       return 0;
     }
-    return this.getTokensCollection()
+    int n = this.getTokensCollection()
         .remove("{ scopeIds: { $in: # } }", ImmutableSet.copyOf(scopeIds))
         .getN();
+    tokenCache.invalidateTokensForScopes(scopeIds);
+    revocationFeed.publish(JongoTokenRevocationFeed.TokenRevocation.forScopes(scopeIds));
+    return n;
   }
 
   @Override
@@ -200,6 +241,10 @@ public class JongoTokenRepository implements TokenRepository, JongoBootstrapper
     getTokensCollection().ensureIndex("{ id: 1 }", "{ unique: 1 }");
     getTokensCollection().ensureIndex("{ ancestorIds: 1 }");
     getTokensCollection().ensureIndex("{ accountId: 1 }");
+    getTokensCollection().ensureIndex("{ serviceProviderId: 1 }", "{ sparse: 1 }");
+    getTokensCollection().ensureIndex("{ scopeIds: 1 }", "{ sparse: 1 }");
+    getTokensCollection().ensureIndex("{ organizationMembershipId: 1 }", "{ sparse: 1 }");
+    getTokensCollection().ensureIndex("{ aceId: 1 }", "{ sparse: 1 }");
     getTokensCollection().ensureIndex("{ expirationTime: 1 }", "{ background: 1, expireAfterSeconds: 0 }");
   }
 }
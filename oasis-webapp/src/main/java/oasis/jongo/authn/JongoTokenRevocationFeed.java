@@ -0,0 +1,223 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jongo.authn;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.jongo.Jongo;
+import org.jongo.MongoCollection;
+import org.jongo.MongoCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.CursorType;
+import com.mongodb.DB;
+
+import oasis.jongo.JongoBootstrapper;
+import oasis.services.authn.TokenCache;
+
+/**
+ * Propagates token revocations to the {@link TokenCache} of all the nodes of the cluster.
+ *
+ * <p>Revocations are published to a capped collection, which every node tails (once {@link #start() started}).
+ */
+@Singleton
+public class JongoTokenRevocationFeed implements JongoBootstrapper {
+  private static final Logger logger = LoggerFactory.getLogger(JongoTokenRevocationFeed.class);
+
+  static final String COLLECTION_NAME = "token_revocations";
+  // Revocations only need to live long enough for every node to see them
+  private static final long CAPPED_SIZE_IN_BYTES = 4 * 1024 * 1024;
+  private static final long CAPPED_MAX_DOCUMENTS = 10_000;
+  private static final long RETRY_DELAY_IN_MILLIS = 1000;
+
+  // This is a singleton that can be created before the JongoService is started
+  private final Provider<Jongo> jongo;
+  private final TokenCache tokenCache;
+
+  private volatile boolean running;
+  private volatile @Nullable MongoCursor<TokenRevocation> cursor;
+  private volatile Duration lag = Duration.ZERO;
+  @VisibleForTesting long retryDelayInMillis = RETRY_DELAY_IN_MILLIS;
+  private @Nullable ExecutorService executor;
+
+  @Inject JongoTokenRevocationFeed(Provider<Jongo> jongo, TokenCache tokenCache) {
+    this.jongo = jongo;
+    this.tokenCache = tokenCache;
+  }
+
+  private MongoCollection getRevocationsCollection() {
+    return jongo.get().getCollection(COLLECTION_NAME);
+  }
+
+  void publish(TokenRevocation revocation) {
+    revocation.time = Instant.now();
+    try {
+      getRevocationsCollection().insert(revocation);
+    } catch (Exception e) {
+      // Don't fail the revocation itself: other nodes will expire their caches anyway, only a bit later.
+      logger.error("Error publishing token revocation", e);
+    }
+  }
+
+  /** Returns the delay between the publication and the local application of the last received revocation. */
+  public Duration getLag() {
+    return lag;
+  }
+
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("token-revocation-feed")
+        .setDaemon(true)
+        .build());
+    // There's nothing in the cache yet, so we can ignore past revocations
+    Instant since = Instant.now();
+    executor.execute(() -> tail(since));
+  }
+
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    MongoCursor<TokenRevocation> currentCursor = this.cursor;
+    if (currentCursor != null) {
+      try {
+        currentCursor.close();
+      } catch (Exception e) {
+        // ignore
+      }
+    }
+    executor.shutdownNow();
+    executor = null;
+  }
+
+  private void tail(Instant since) {
+    while (running) {
+      try (MongoCursor<TokenRevocation> cursor = getRevocationsCollection()
+          .find("{ time: { $gte: # } }", Date.from(since))
+          .with(c -> c.cursorType(CursorType.TailableAwait))
+          .as(TokenRevocation.class)) {
+        this.cursor = cursor;
+        while (running && cursor.hasNext()) {
+          TokenRevocation revocation = cursor.next();
+          apply(revocation);
+          // Re-applying a revocation is harmless, so we can resume from the same instant
+          // rather than risking missing another revocation published during the same millisecond.
+          since = revocation.time;
+        }
+      } catch (Exception e) {
+        if (running) {
+          logger.warn("Error tailing token revocations; will retry", e);
+        }
+      } finally {
+        this.cursor = null;
+      }
+      // The cursor is dead (e.g. the collection is still empty): wait a bit before retrying
+      try {
+        TimeUnit.MILLISECONDS.sleep(retryDelayInMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  void apply(TokenRevocation revocation) {
+    if (revocation.tokenId != null) {
+      tokenCache.invalidateTokenAndDescendants(revocation.tokenId);
+    }
+    if (revocation.accountId != null) {
+      tokenCache.invalidateTokensForAccount(revocation.accountId);
+    }
+    if (revocation.clientId != null) {
+      tokenCache.invalidateTokensForClient(revocation.clientId);
+    }
+    if (revocation.scopeIds != null && !revocation.scopeIds.isEmpty()) {
+      tokenCache.invalidateTokensForScopes(revocation.scopeIds);
+    }
+    if (revocation.time != null) {
+      lag = Duration.between(revocation.time, Instant.now());
+    }
+  }
+
+  @Override
+  public void bootstrap() {
+    DB db = jongo.get().getDatabase();
+    if (!db.collectionExists(COLLECTION_NAME)) {
+      db.createCollection(COLLECTION_NAME, new BasicDBObject()
+          .append("capped", true)
+          .append("size", CAPPED_SIZE_IN_BYTES)
+          .append("max", CAPPED_MAX_DOCUMENTS));
+    }
+  }
+
+  static class TokenRevocation {
+    /** Revokes the token with that ID, and all its descendants. */
+    @JsonProperty @Nullable String tokenId;
+    @JsonProperty @Nullable String accountId;
+    @JsonProperty @Nullable String clientId;
+    @JsonProperty @Nullable Set<String> scopeIds;
+    @JsonProperty Instant time;
+
+    static TokenRevocation forToken(String tokenId) {
+      TokenRevocation revocation = new TokenRevocation();
+      revocation.tokenId = tokenId;
+      return revocation;
+    }
+
+    static TokenRevocation forAccount(String accountId) {
+      TokenRevocation revocation = new TokenRevocation();
+      revocation.accountId = accountId;
+      return revocation;
+    }
+
+    static TokenRevocation forClient(String clientId) {
+      TokenRevocation revocation = new TokenRevocation();
+      revocation.clientId = clientId;
+      return revocation;
+    }
+
+    static TokenRevocation forScopes(Collection<String> scopeIds) {
+      TokenRevocation revocation = new TokenRevocation();
+      revocation.scopeIds = ImmutableSet.copyOf(scopeIds);
+      return revocation;
+    }
+  }
+}
@@ -99,5 +99,7 @@ public class JongoAuthorizationRepository implements AuthorizationRepository, Jo
   public void bootstrap() {
     getAuthorizedScopesCollection().ensureIndex("{ id: 1 }", "{ unique: 1 }");
     getAuthorizedScopesCollection().ensureIndex("{ account_id: 1, client_id: 1 }", "{ unique: 1 }");
+    getAuthorizedScopesCollection().ensureIndex("{ client_id: 1 }");
+    getAuthorizedScopesCollection().ensureIndex("{ scope_ids: 1 }");
   }
 }
@@ -0,0 +1,95 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jongo.branding;
+
+import java.util.Optional;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+
+import oasis.cache.StalenessBoundedCaches;
+import oasis.jongo.guice.JongoModule;
+import oasis.model.branding.BrandInfo;
+import oasis.model.branding.BrandLogo;
+
+/**
+ * In-memory cache of brand info and logos, keyed by brand ID.
+ *
+ * <p>Brands are read on every login, logout and consent page, and their logos on every page view, but they are only
+ * ever changed directly in the database. Entries are thus kept at most {@code mongo.brand-cache.max-staleness} (see
+ * {@link StalenessBoundedCaches}). Missing logos are cached too, and logos are cached along with their hash.
+ */
+@Singleton
+public class BrandCache {
+  private final Cache<String, BrandInfo> brandInfos;
+  private final Cache<String, Optional<BrandLogo>> smallLogos;
+  private final Cache<String, Optional<BrandLogo>> largeLogos;
+
+  @Inject BrandCache(JongoModule.Settings settings) {
+    this.brandInfos = newCache(settings);
+    this.smallLogos = newCache(settings);
+    this.largeLogos = newCache(settings);
+  }
+
+  private static <V> Cache<String, V> newCache(JongoModule.Settings settings) {
+    return StalenessBoundedCaches.newBuilder(settings.brandCacheSize, settings.brandCacheMaxStaleness).build();
+  }
+
+  @Nullable
+  BrandInfo getBrandInfo(String brandId) {
+    return brandInfos.getIfPresent(brandId);
+  }
+
+  void putBrandInfo(String brandId, BrandInfo brandInfo) {
+    brandInfos.put(brandId, brandInfo);
+  }
+
+  @Nullable
+  Optional<BrandLogo> getSmallLogo(String brandId) {
+    return smallLogos.getIfPresent(brandId);
+  }
+
+  void putSmallLogo(String brandId, @Nullable BrandLogo logo) {
+    smallLogos.put(brandId, Optional.ofNullable(logo));
+  }
+
+  @Nullable
+  Optional<BrandLogo> getLargeLogo(String brandId) {
+    return largeLogos.getIfPresent(brandId);
+  }
+
+  void putLargeLogo(String brandId, @Nullable BrandLogo logo) {
+    largeLogos.put(brandId, Optional.ofNullable(logo));
+  }
+
+  public void invalidateAll() {
+    brandInfos.invalidateAll();
+    smallLogos.invalidateAll();
+    largeLogos.invalidateAll();
+  }
+
+  public CacheStats stats() {
+    return brandInfos.stats()
+        .plus(smallLogos.stats())
+        .plus(largeLogos.stats());
+  }
+}
@@ -17,6 +17,9 @@
  */
 package oasis.jongo.branding;
 
+import java.util.Optional;
+
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 import org.jongo.Jongo;
@@ -24,14 +27,17 @@ import org.jongo.MongoCollection;
 
 import oasis.jongo.JongoBootstrapper;
 import oasis.model.branding.BrandInfo;
+import oasis.model.branding.BrandLogo;
 import oasis.model.branding.BrandRepository;
 
 public class JongoBrandRepository implements BrandRepository, JongoBootstrapper {
   private final Jongo jongo;
+  private final BrandCache brandCache;
 
   @Inject
-  JongoBrandRepository(Jongo jongo) {
+  JongoBrandRepository(Jongo jongo, BrandCache brandCache) {
     this.jongo = jongo;
+    this.brandCache = brandCache;
   }
 
   protected MongoCollection getBrandCollection() {
@@ -43,28 +49,50 @@ public class JongoBrandRepository implements BrandRepository, JongoBootstrapper
     if (BrandInfo.DEFAULT_BRAND.equals(brandId)) {
       return new BrandInfo();
     }
-    BrandInfo res = this.getBrandCollection()
+    BrandInfo res = brandCache.getBrandInfo(brandId);
+    if (res != null) {
+      return res;
+    }
+    res = this.getBrandCollection()
         .findOne("{ brand_id : #}", brandId)
         .projection("{small_logo: 0, large_logo: 0}")
         .as(BrandInfo.class);
-
-    return res != null ? res : new BrandInfo();
+    if (res == null) {
+      res = new BrandInfo();
+    }
+    brandCache.putBrandInfo(brandId, res);
+    return res;
   }
 
   @Override
-  public byte[] getSmallLogo(String brandId) {
-    return getBrandCollection()
-        .findOne("{ brand_id: #}", brandId)
-        .projection("{small_logo: 1}")
-        .map(result -> (byte[]) result.get("small_logo"));
+  public BrandLogo getSmallLogo(String brandId) {
+    Optional<BrandLogo> cached = brandCache.getSmallLogo(brandId);
+    if (cached != null) {
+      return cached.orElse(null);
+    }
+    BrandLogo logo = getLogo(brandId, "small_logo");
+    brandCache.putSmallLogo(brandId, logo);
+    return logo;
   }
 
   @Override
-  public byte[] getLargeLogo(String brandId) {
-    return getBrandCollection()
+  public BrandLogo getLargeLogo(String brandId) {
+    Optional<BrandLogo> cached = brandCache.getLargeLogo(brandId);
+    if (cached != null) {
+      return cached.orElse(null);
+    }
+    BrandLogo logo = getLogo(brandId, "large_logo");
+    brandCache.putLargeLogo(brandId, logo);
+    return logo;
+  }
+
+  @Nullable
+  private BrandLogo getLogo(String brandId, String field) {
+    byte[] logo = getBrandCollection()
         .findOne("{ brand_id: #}", brandId)
-        .projection("{large_logo: 1}")
-        .map(result -> (byte[]) result.get("large_logo"));
+        .projection("{" + field + ": 1}")
+        .map(result -> (byte[]) result.get(field));
+    return logo == null ? null : new BrandLogo(logo);
   }
 
   @Override
@@ -18,6 +18,8 @@
 package oasis.jongo.directory;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -29,6 +31,7 @@ import org.jongo.MongoCollection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.Longs;
 import com.mongodb.DuplicateKeyException;
 import com.mongodb.WriteResult;
@@ -41,6 +44,8 @@ import oasis.model.directory.Organization;
 public class JongoDirectoryRepository implements DirectoryRepository, JongoBootstrapper {
   private static final Logger logger = LoggerFactory.getLogger(DirectoryRepository.class);
 
+  private static final String DISPLAY_PROJECTION = "{ id: 1, name: 1, type: 1, status: 1, _id: 0 }";
+
   private final Jongo jongo;
 
   @Inject
@@ -69,6 +74,18 @@ public class JongoDirectoryRepository implements DirectoryRepository, JongoBoots
         .as(JongoOrganization.class);
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public Iterable<Organization> getOrganizations(Collection<String> organizationIds) {
+    if (organizationIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return (Iterable<Organization>) (Iterable<?>) getOrganizationCollection()
+        .find("{ id: { $in: # } }", ImmutableSet.copyOf(organizationIds))
+        .projection(DISPLAY_PROJECTION)
+        .as(JongoOrganization.class);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public Iterable<Organization> findOrganizationsDeletedBefore(Instant deletedBefore) {
@@ -174,5 +191,7 @@ public class JongoDirectoryRepository implements DirectoryRepository, JongoBoots
   public void bootstrap() {
     getOrganizationCollection().ensureIndex("{ id: 1 }", "{ unique: 1 }");
     getOrganizationCollection().ensureIndex("{ dc_id: 1 }", "{ unique: 1, sparse: 1 }");
+    // Used by PurgeDeletedOrganization
+    getOrganizationCollection().ensureIndex("{ status: 1, status_changed: 1 }");
   }
 }
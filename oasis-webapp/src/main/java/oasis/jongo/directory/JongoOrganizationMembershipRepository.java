@@ -59,6 +59,7 @@ public class JongoOrganizationMembershipRepository implements OrganizationMember
   public void bootstrap() {
     getOrganizationMembershipsCollection().ensureIndex("{ id: 1 }", "{ unique: 1 }");
     getOrganizationMembershipsCollection().ensureIndex("{ organizationId: 1, email: 1, accountId: 1 }", "{ unique: 1 }");
+    getOrganizationMembershipsCollection().ensureIndex("{ accountId: 1 }");
   }
 
   @Override
@@ -0,0 +1,115 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jongo.eventbus;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+import org.jongo.Jongo;
+import org.jongo.MongoCollection;
+
+import oasis.jongo.JongoBootstrapper;
+import oasis.model.eventbus.EventDelivery;
+import oasis.model.eventbus.EventDeliveryRepository;
+
+public class JongoEventDeliveryRepository implements EventDeliveryRepository, JongoBootstrapper {
+  static final String COLLECTION_NAME = "event_deliveries";
+
+  private final Jongo jongo;
+
+  @Inject
+  JongoEventDeliveryRepository(Jongo jongo) {
+    this.jongo = jongo;
+  }
+
+  @Override
+  public void createDeliveries(List<EventDelivery> deliveries) {
+    if (deliveries.isEmpty()) {
+      return;
+    }
+    getDeliveriesCollection().insert(deliveries.toArray());
+  }
+
+  @Nullable
+  @Override
+  public EventDelivery claimDelivery(Instant now, Instant leaseExpiration, Collection<String> excludedWebHooks) {
+    return getDeliveriesCollection()
+        .findAndModify("{ status: #, nextAttempt: { $lte: # }, webHook: { $nin: # } }",
+            EventDelivery.Status.PENDING, Date.from(now), excludedWebHooks)
+        .sort("{ nextAttempt: 1 }")
+        .returnNew()
+        .with("{ $set: { nextAttempt: # }, $inc: { attempts: 1 } }", Date.from(leaseExpiration))
+        .as(EventDelivery.class);
+  }
+
+  @Override
+  public boolean deleteDelivery(String deliveryId) {
+    return getDeliveriesCollection()
+        .remove("{ id: # }", deliveryId)
+        .getN() > 0;
+  }
+
+  @Override
+  public boolean scheduleRetry(String deliveryId, Instant nextAttempt, String error) {
+    return getDeliveriesCollection()
+        .update("{ id: #, status: # }", deliveryId, EventDelivery.Status.PENDING)
+        .with("{ $set: { nextAttempt: #, lastError: # } }", Date.from(nextAttempt), error)
+        .getN() > 0;
+  }
+
+  @Override
+  public boolean deadLetter(String deliveryId, String error) {
+    return getDeliveriesCollection()
+        .update("{ id: # }", deliveryId)
+        .with("{ $set: { status: #, lastError: # } }", EventDelivery.Status.DEAD, error)
+        .getN() > 0;
+  }
+
+  @Override
+  public long countPendingDeliveries() {
+    return getDeliveriesCollection().count("{ status: # }", EventDelivery.Status.PENDING);
+  }
+
+  @Override
+  public long countDeadLetteredDeliveries() {
+    return getDeliveriesCollection().count("{ status: # }", EventDelivery.Status.DEAD);
+  }
+
+  @Override
+  public int deleteDeliveriesForAppInstance(String instance_id) {
+    return getDeliveriesCollection()
+        .remove("{ instance_id: # }", instance_id)
+        .getN();
+  }
+
+  @Override
+  public void bootstrap() {
+    getDeliveriesCollection().ensureIndex("{ id: 1 }", "{ unique: 1 }");
+    getDeliveriesCollection().ensureIndex("{ status: 1, nextAttempt: 1 }");
+    getDeliveriesCollection().ensureIndex("{ instance_id: 1 }");
+  }
+
+  private MongoCollection getDeliveriesCollection() {
+    return jongo.getCollection(COLLECTION_NAME);
+  }
+}
@@ -19,6 +19,8 @@ package oasis.jongo.guice;
 
 import static com.google.inject.multibindings.Multibinder.*;
 
+import java.time.Duration;
+
 import org.jongo.Jongo;
 
 import com.google.inject.AbstractModule;
@@ -40,17 +42,18 @@ import oasis.jongo.authn.JongoClientCertificateRepository;
 import oasis.jongo.authn.JongoCredentialsRepository;
 import oasis.jongo.authn.JongoJtiRepository;
 import oasis.jongo.authn.JongoTokenRepository;
+import oasis.jongo.authn.JongoTokenRevocationFeed;
 import oasis.jongo.authz.JongoAuthorizationRepository;
 import oasis.jongo.branding.JongoBrandRepository;
 import oasis.jongo.directory.JongoDirectoryRepository;
 import oasis.jongo.directory.JongoOrganizationMembershipRepository;
 import oasis.jongo.etag.JongoEtagService;
+import oasis.jongo.eventbus.JongoEventDeliveryRepository;
 import oasis.jongo.eventbus.JongoSubscriptionRepository;
 import oasis.jongo.notification.JongoNotificationRepository;
 import oasis.model.accounts.AccountRepository;
 import oasis.model.applications.v2.AccessControlRepository;
 import oasis.model.applications.v2.AppInstanceRepository;
-import oasis.model.applications.v2.ApplicationRepository;
 import oasis.model.applications.v2.ScopeRepository;
 import oasis.model.applications.v2.UserSubscriptionRepository;
 import oasis.model.authn.ClientCertificateRepository;
@@ -61,6 +64,7 @@ import oasis.model.authz.AuthorizationRepository;
 import oasis.model.branding.BrandRepository;
 import oasis.model.directory.DirectoryRepository;
 import oasis.model.directory.OrganizationMembershipRepository;
+import oasis.model.eventbus.EventDeliveryRepository;
 import oasis.model.eventbus.SubscriptionRepository;
 import oasis.model.notification.NotificationRepository;
 import oasis.services.etag.EtagService;
@@ -76,12 +80,32 @@ public class JongoModule extends AbstractModule {
     public static Settings fromConfig(Config config) {
       return Settings.builder()
           .setMongoUri(new MongoClientURI(config.getString("uri")))
+          .setNotificationReadRetention(config.getDuration("notification-read-retention"))
+          .setScopeCacheSize(config.getLong("scope-cache.size"))
+          .setScopeCacheMaxStaleness(config.getDuration("scope-cache.max-staleness"))
+          .setBrandCacheSize(config.getLong("brand-cache.size"))
+          .setBrandCacheMaxStaleness(config.getDuration("brand-cache.max-staleness"))
+          .setConnectionPoolMaxSize(config.getInt("connection-pool.max-size"))
+          .setConnectionPoolMinSize(config.getInt("connection-pool.min-size"))
+          .setConnectionPoolWaitQueueMultiple(config.getInt("connection-pool.wait-queue-multiple"))
+          .setConnectionPoolMaxWaitTime(config.getDuration("connection-pool.max-wait-time"))
+          .setSlowCommandThreshold(config.getDuration("slow-command-threshold"))
           .build();
     }
 
     public static class Builder {
 
       private MongoClientURI mongoURI;
+      private Duration notificationReadRetention = Duration.ZERO;
+      private long scopeCacheSize;
+      private Duration scopeCacheMaxStaleness = Duration.ZERO;
+      private long brandCacheSize;
+      private Duration brandCacheMaxStaleness = Duration.ZERO;
+      private int connectionPoolMaxSize = 100;
+      private int connectionPoolMinSize;
+      private int connectionPoolWaitQueueMultiple = 5;
+      private Duration connectionPoolMaxWaitTime = Duration.ofMinutes(2);
+      private Duration slowCommandThreshold = Duration.ZERO;
 
       public Settings build() {
         return new Settings(this);
@@ -91,12 +115,88 @@ public class JongoModule extends AbstractModule {
         this.mongoURI = mongoURI;
         return this;
       }
+
+      public Builder setNotificationReadRetention(Duration notificationReadRetention) {
+        this.notificationReadRetention = notificationReadRetention;
+        return this;
+      }
+
+      public Builder setScopeCacheSize(long scopeCacheSize) {
+        this.scopeCacheSize = scopeCacheSize;
+        return this;
+      }
+
+      public Builder setScopeCacheMaxStaleness(Duration scopeCacheMaxStaleness) {
+        this.scopeCacheMaxStaleness = scopeCacheMaxStaleness;
+        return this;
+      }
+
+      public Builder setBrandCacheSize(long brandCacheSize) {
+        this.brandCacheSize = brandCacheSize;
+        return this;
+      }
+
+      public Builder setBrandCacheMaxStaleness(Duration brandCacheMaxStaleness) {
+        this.brandCacheMaxStaleness = brandCacheMaxStaleness;
+        return this;
+      }
+
+      public Builder setConnectionPoolMaxSize(int connectionPoolMaxSize) {
+        this.connectionPoolMaxSize = connectionPoolMaxSize;
+        return this;
+      }
+
+      public Builder setConnectionPoolMinSize(int connectionPoolMinSize) {
+        this.connectionPoolMinSize = connectionPoolMinSize;
+        return this;
+      }
+
+      public Builder setConnectionPoolWaitQueueMultiple(int connectionPoolWaitQueueMultiple) {
+        this.connectionPoolWaitQueueMultiple = connectionPoolWaitQueueMultiple;
+        return this;
+      }
+
+      public Builder setConnectionPoolMaxWaitTime(Duration connectionPoolMaxWaitTime) {
+        this.connectionPoolMaxWaitTime = connectionPoolMaxWaitTime;
+        return this;
+      }
+
+      public Builder setSlowCommandThreshold(Duration slowCommandThreshold) {
+        this.slowCommandThreshold = slowCommandThreshold;
+        return this;
+      }
     }
 
     public final MongoClientURI mongoURI;
+    /** How long notifications are kept once read; {@link Duration#ZERO} keeps them forever. */
+    public final Duration notificationReadRetention;
+    /** Maximum number of scopes kept in memory; 0 disables the cache. */
+    public final long scopeCacheSize;
+    public final Duration scopeCacheMaxStaleness;
+    /** Maximum number of brands (info and logos) kept in memory; 0 disables the cache. */
+    public final long brandCacheSize;
+    public final Duration brandCacheMaxStaleness;
+    /** Maximum number of connections per server; can be overridden by the URI's {@code maxPoolSize}. */
+    public final int connectionPoolMaxSize;
+    public final int connectionPoolMinSize;
+    /** Maximum number of threads waiting for a connection, as a multiple of {@link #connectionPoolMaxSize}. */
+    public final int connectionPoolWaitQueueMultiple;
+    public final Duration connectionPoolMaxWaitTime;
+    /** Commands slower than this are logged; {@link Duration#ZERO} disables the slow command log. */
+    public final Duration slowCommandThreshold;
 
     private Settings(Builder builder) {
       this.mongoURI = builder.mongoURI;
+      this.notificationReadRetention = builder.notificationReadRetention;
+      this.scopeCacheSize = builder.scopeCacheSize;
+      this.scopeCacheMaxStaleness = builder.scopeCacheMaxStaleness;
+      this.brandCacheSize = builder.brandCacheSize;
+      this.brandCacheMaxStaleness = builder.brandCacheMaxStaleness;
+      this.connectionPoolMaxSize = builder.connectionPoolMaxSize;
+      this.connectionPoolMinSize = builder.connectionPoolMinSize;
+      this.connectionPoolWaitQueueMultiple = builder.connectionPoolWaitQueueMultiple;
+      this.connectionPoolMaxWaitTime = builder.connectionPoolMaxWaitTime;
+      this.slowCommandThreshold = builder.slowCommandThreshold;
     }
   }
 
@@ -119,8 +219,7 @@ public class JongoModule extends AbstractModule {
     bind(DirectoryRepository.class).to(JongoDirectoryRepository.class);
     bind(OrganizationMembershipRepository.class).to(JongoOrganizationMembershipRepository.class);
     bind(NotificationRepository.class).to(JongoNotificationRepository.class);
-    // CatalogEntryRepository is bound in CatalogModule
-    bind(ApplicationRepository.class).to(JongoApplicationRepository.class);
+    // CatalogEntryRepository and ApplicationRepository are bound in CatalogModule
     bind(AppInstanceRepository.class).to(JongoAppInstanceRepository.class);
     // ServiceRepository is bound in CatalogModule
     bind(ScopeRepository.class).to(JongoScopeRepository.class);
@@ -130,6 +229,7 @@ public class JongoModule extends AbstractModule {
     bind(TokenRepository.class).to(JongoTokenRepository.class);
     bind(JtiRepository.class).to(JongoJtiRepository.class);
     bind(SubscriptionRepository.class).to(JongoSubscriptionRepository.class);
+    bind(EventDeliveryRepository.class).to(JongoEventDeliveryRepository.class);
     bind(CredentialsRepository.class).to(JongoCredentialsRepository.class);
     bind(EtagService.class).to(JongoEtagService.class);
     bind(ClientCertificateRepository.class).to(JongoClientCertificateRepository.class);
@@ -142,8 +242,10 @@ public class JongoModule extends AbstractModule {
     bootstrappers.addBinding().to(JongoNotificationRepository.class);
     bootstrappers.addBinding().to(JongoAuthorizationRepository.class);
     bootstrappers.addBinding().to(JongoTokenRepository.class);
+    bootstrappers.addBinding().to(JongoTokenRevocationFeed.class);
     bootstrappers.addBinding().to(JongoJtiRepository.class);
     bootstrappers.addBinding().to(JongoSubscriptionRepository.class);
+    bootstrappers.addBinding().to(JongoEventDeliveryRepository.class);
     bootstrappers.addBinding().to(JongoCredentialsRepository.class);
     bootstrappers.addBinding().to(JongoApplicationRepository.class);
     bootstrappers.addBinding().to(JongoAppInstanceRepository.class);
@@ -19,20 +19,34 @@ package oasis.jongo.notification;
 
 import static com.google.common.base.Preconditions.*;
 
-import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 
 import org.jongo.Jongo;
 import org.jongo.MongoCollection;
+import org.jongo.marshall.Marshaller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.ObjectArrays;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
 import com.mongodb.DuplicateKeyException;
+import com.mongodb.MongoException;
 import com.mongodb.WriteResult;
 
 import oasis.jongo.JongoBootstrapper;
+import oasis.jongo.OasisIdHelper;
+import oasis.jongo.guice.JongoModule;
 import oasis.model.notification.Notification;
 import oasis.model.notification.NotificationRepository;
 
@@ -40,15 +54,34 @@ public class JongoNotificationRepository implements NotificationRepository, Jong
 
   private static final Logger logger = LoggerFactory.getLogger(NotificationRepository.class);
 
+  private static final String COLLECTION_NAME = "notification";
+  private static final String READ_TIME_INDEX_NAME = "read_time_1";
+  private static final int FAN_OUT_CHUNK_SIZE = 1000;
+
+  /**
+   * Selects notifications between the since and before cursors, i.e. by time, then by id for notifications at the
+   * cursor's time.
+   * <p>
+   * Always querying on a range (rather than only when a cursor is given) keeps a single query shape per filter.
+   */
+  private static final String CURSOR_RANGE = "time: { $gte: #, $lte: # }, "
+      + "$and: [ { $or: [ { time: { $gt: # } }, { id: { $gt: # } } ] }, { $or: [ { time: { $lt: # } }, { id: { $lt: # } } ] } ]";
+  /** Compares lower than any id, so a before cursor without id excludes all notifications at its time. */
+  private static final String MIN_ID = "";
+  /** Compares greater than any (ASCII) id, so a since cursor without id excludes all notifications at its time. */
+  private static final String MAX_ID = "\uffff";
+
   private final Jongo jongo;
+  private final JongoModule.Settings settings;
 
   @Inject
-  JongoNotificationRepository(Jongo jongo) {
+  JongoNotificationRepository(Jongo jongo, JongoModule.Settings settings) {
     this.jongo = jongo;
+    this.settings = settings;
   }
 
   private MongoCollection getNotificationCollection() {
-    return jongo.getCollection("notification");
+    return jongo.getCollection(COLLECTION_NAME);
   }
 
   @Override
@@ -66,20 +99,40 @@ public class JongoNotificationRepository implements NotificationRepository, Jong
   }
 
   @Override
-  public List<Notification> createNotifications(List<Notification> notifications) {
-    List<Notification> jongoNotifications = new ArrayList<>(notifications.size());
-    for (Notification notification : notifications) {
-      checkNotNull(notification.getMessage());
-      checkNotNull(notification.getStatus());
-      checkNotNull(notification.getTime());
-      jongoNotifications.add(new JongoNotification(notification));
-    }
-    try {
-      getNotificationCollection().insert(jongoNotifications.toArray());
-    } catch (DuplicateKeyException e) {
-      return null;
+  public FanOutResult createNotifications(Notification prototype, Stream<String> userIds) {
+    checkNotNull(prototype.getMessage());
+    checkNotNull(prototype.getStatus());
+    checkNotNull(prototype.getTime());
+    checkArgument(prototype.getId() == null, "prototype must not have an ID");
+
+    FanOutResult result = new FanOutResult();
+    DBCollection collection = jongo.getDatabase().getCollection(COLLECTION_NAME);
+    Marshaller marshaller = jongo.getMapper().getMarshaller();
+    Iterator<List<String>> chunks = Iterators.partition(userIds.iterator(), FAN_OUT_CHUNK_SIZE);
+    while (chunks.hasNext()) {
+      List<String> chunk = chunks.next();
+      // unordered: a failing insert (e.g. duplicate key) doesn't prevent the others in the chunk
+      BulkWriteOperation bulk = collection.initializeUnorderedBulkOperation();
+      for (String userId : chunk) {
+        JongoNotification notification = new JongoNotification(prototype);
+        notification.setUser_id(userId);
+        // Going straight to the DBCollection bypasses OasisIdUpdater
+        OasisIdHelper.updateOasisIdField(notification);
+        bulk.insert(marshaller.marshall(notification).toDBObject());
+      }
+      try {
+        result.created += bulk.execute().getInsertedCount();
+      } catch (BulkWriteException bwe) {
+        result.created += bwe.getWriteResult().getInsertedCount();
+        List<String> failedUserIds = bwe.getWriteErrors().stream()
+            .map(error -> chunk.get(error.getIndex()))
+            .collect(Collectors.toList());
+        result.failures.add(new ChunkFailure(failedUserIds, bwe));
+      } catch (MongoException me) {
+        result.failures.add(new ChunkFailure(chunk, me));
+      }
     }
-    return jongoNotifications;
+    return result;
   }
 
   @Override
@@ -100,48 +153,94 @@ public class JongoNotificationRepository implements NotificationRepository, Jong
   }
 
   @Override
-  @SuppressWarnings("unchecked")
-  public Iterable<Notification> getNotifications(String userId) {
-    return (Iterable<Notification>) (Iterable<?>) getNotificationCollection()
-        .find("{ user_id: # }", userId)
-        .as(JongoNotification.class);
+  public Iterable<Notification> getNotifications(String userId, @Nullable Cursor since, @Nullable Cursor before, int limit) {
+    return findNotifications("user_id: #", new Object[] { userId }, since, before, limit);
   }
 
   @Override
-  @SuppressWarnings("unchecked")
-  public Iterable<Notification> getNotifications(String userId, String instanceId) {
-    return (Iterable<Notification>) (Iterable<?>) getNotificationCollection()
-        .find("{ user_id: #, instance_id: # }", userId, instanceId)
-        .as(JongoNotification.class);
+  public Iterable<Notification> getNotifications(String userId, String instanceId, @Nullable Cursor since, @Nullable Cursor before, int limit) {
+    return findNotifications("user_id: #, instance_id: #", new Object[] { userId, instanceId }, since, before, limit);
   }
 
   @Override
-  @SuppressWarnings("unchecked")
-  public Iterable<Notification> getNotifications(String userId, Notification.Status status) {
-    return (Iterable<Notification>) (Iterable<?>) getNotificationCollection()
-        .find("{ user_id: #, status: # }", userId, status)
-        .as(JongoNotification.class);
+  public Iterable<Notification> getNotifications(String userId, Notification.Status status, @Nullable Cursor since, @Nullable Cursor before,
+      int limit) {
+    return findNotifications("user_id: #, status: #", new Object[] { userId, status }, since, before, limit);
   }
 
   @Override
+  public Iterable<Notification> getNotifications(String userId, String instanceId, Notification.Status status,
+      @Nullable Cursor since, @Nullable Cursor before, int limit) {
+    return findNotifications("user_id: #, instance_id: #, status: #", new Object[] { userId, instanceId, status }, since, before, limit);
+  }
+
   @SuppressWarnings("unchecked")
-  public Iterable<Notification> getNotifications(String userId, String instanceId, Notification.Status status) {
+  private Iterable<Notification> findNotifications(String filter, Object[] filterParams, @Nullable Cursor since, @Nullable Cursor before,
+      int limit) {
     return (Iterable<Notification>) (Iterable<?>) getNotificationCollection()
-        .find("{ user_id: #, instance_id: #, status: # }", userId, instanceId, status)
+        .find("{ " + filter + ", " + CURSOR_RANGE + " }", ObjectArrays.concat(filterParams, cursorRangeParams(since, before), Object.class))
+        .sort("{ time: -1, id: -1 }")
+        .limit(limit)
         .as(JongoNotification.class);
   }
 
+  private static Object[] cursorRangeParams(@Nullable Cursor since, @Nullable Cursor before) {
+    Date sinceTime = since == null ? new Date(Long.MIN_VALUE) : Date.from(since.time);
+    String sinceId = since == null || since.id == null ? MAX_ID : since.id;
+    Date beforeTime = before == null ? new Date(Long.MAX_VALUE) : Date.from(before.time);
+    String beforeId = before == null || before.id == null ? MIN_ID : before.id;
+    return new Object[] { sinceTime, beforeTime, sinceTime, sinceId, beforeTime, beforeId };
+  }
+
   @Override
   public void markNotifications(String userId, List<String> notificationIds, Notification.Status status) {
-    getNotificationCollection()
-        .update("{ id: {$in: # }, user_id: # }", notificationIds, userId)
-        .multi()
-        .with("{ $set: { status: # } }", status);
+    // read_time is only set on READ notifications, and drives their expiration (see bootstrap())
+    if (status == Notification.Status.READ) {
+      getNotificationCollection()
+          .update("{ id: {$in: # }, user_id: #, status: { $ne: # } }", notificationIds, userId, status)
+          .multi()
+          .with("{ $set: { status: #, read_time: # } }", status, new Date());
+    } else {
+      getNotificationCollection()
+          .update("{ id: {$in: # }, user_id: # }", notificationIds, userId)
+          .multi()
+          .with("{ $set: { status: # }, $unset: { read_time: 1 } }", status);
+    }
   }
 
   @Override
   public void bootstrap() {
     getNotificationCollection().ensureIndex("{ id: 1 }", "{ unique: 1 }");
-    // TODO: add indexes for all other accesses
+    getNotificationCollection().ensureIndex("{ user_id: 1, time: -1, id: -1 }", "{ background: 1 }");
+    getNotificationCollection().ensureIndex("{ user_id: 1, instance_id: 1, time: -1, id: -1 }", "{ background: 1 }");
+    getNotificationCollection().ensureIndex("{ user_id: 1, status: 1, time: -1, id: -1 }", "{ background: 1 }");
+    getNotificationCollection().ensureIndex("{ user_id: 1, instance_id: 1, status: 1, time: -1, id: -1 }", "{ background: 1 }");
+
+    boolean hasReadTimeIndex = jongo.getDatabase().getCollection(COLLECTION_NAME).getIndexInfo().stream()
+        .anyMatch(index -> READ_TIME_INDEX_NAME.equals(index.get("name")));
+    if (settings.notificationReadRetention.isZero()) {
+      if (hasReadTimeIndex) {
+        getNotificationCollection().dropIndex("{ read_time: 1 }");
+        logger.info("Deleted TTL index on read_time; read notifications will now be kept forever");
+      }
+      return;
+    }
+    long expireAfterSeconds = settings.notificationReadRetention.getSeconds();
+    if (hasReadTimeIndex) {
+      // no-op if the retention didn't change
+      jongo.getDatabase()
+          .command(new BasicDBObject("collMod", COLLECTION_NAME)
+              .append("index", new BasicDBObject("keyPattern", new BasicDBObject("read_time", 1))
+                  .append("expireAfterSeconds", expireAfterSeconds)))
+          .throwOnError();
+    } else {
+      // Notifications read before read_time was introduced (or while retention was disabled): start counting their retention from now.
+      getNotificationCollection()
+          .update("{ status: #, read_time: { $exists: 0 } }", Notification.Status.READ)
+          .multi()
+          .with("{ $set: { read_time: # } }", new Date());
+      getNotificationCollection().ensureIndex("{ read_time: 1 }",
+          "{ name: '" + READ_TIME_INDEX_NAME + "', background: 1, expireAfterSeconds: " + expireAfterSeconds + " }");
+    }
   }
 }
@@ -0,0 +1,89 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies, with fixed buckets.
+ *
+ * <p>Recording a value only increments a {@link LongAdder}, so it's cheap enough to be done for every request.
+ */
+public class LatencyHistogram {
+  /** Upper bounds (inclusive) of the buckets, in nanoseconds; there's an additional, unbounded, bucket. */
+  private static final long[] BUCKET_BOUNDS = {
+      TimeUnit.MICROSECONDS.toNanos(500),
+      TimeUnit.MILLISECONDS.toNanos(1),
+      TimeUnit.MICROSECONDS.toNanos(2500),
+      TimeUnit.MILLISECONDS.toNanos(5),
+      TimeUnit.MILLISECONDS.toNanos(10),
+      TimeUnit.MILLISECONDS.toNanos(25),
+      TimeUnit.MILLISECONDS.toNanos(50),
+      TimeUnit.MILLISECONDS.toNanos(100),
+      TimeUnit.MILLISECONDS.toNanos(250),
+      TimeUnit.MILLISECONDS.toNanos(500),
+      TimeUnit.SECONDS.toNanos(1),
+      TimeUnit.MILLISECONDS.toNanos(2500),
+      TimeUnit.SECONDS.toNanos(5),
+      TimeUnit.SECONDS.toNanos(10),
+  };
+
+  private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+  private final LongAdder sumNanos = new LongAdder();
+
+  public LatencyHistogram() {
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  public void record(long nanos) {
+    int bucket = Arrays.binarySearch(BUCKET_BOUNDS, nanos);
+    if (bucket < 0) {
+      bucket = -bucket - 1;
+    }
+    buckets[bucket].increment();
+    sumNanos.add(nanos);
+  }
+
+  /**
+   * Writes the histogram in the Prometheus format, with the given labels.
+   *
+   * <p>The {@link PrometheusTextWriter#header header} has to be written first.
+   */
+  public void writeTo(PrometheusTextWriter writer, String name, String... labels) {
+    String[] bucketLabels = Arrays.copyOf(labels, labels.length + 2);
+    bucketLabels[labels.length] = "le";
+    long count = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      count += buckets[i].sum();
+      bucketLabels[labels.length + 1] = i < BUCKET_BOUNDS.length
+          ? PrometheusTextWriter.format(toSeconds(BUCKET_BOUNDS[i]))
+          : "+Inf";
+      writer.sample(name + "_bucket", count, bucketLabels);
+    }
+    writer.sample(name + "_sum", toSeconds(sumNanos.sum()), labels);
+    writer.sample(name + "_count", count, labels);
+  }
+
+  private static double toSeconds(long nanos) {
+    return nanos / 1e9;
+  }
+}
@@ -0,0 +1,100 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.metrics;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Singleton;
+
+/**
+ * Registry of the per-endpoint request metrics.
+ *
+ * <p>Endpoints are registered the first time they're hit; the registry is thus bounded by the number of resource
+ * methods.
+ */
+@Singleton
+public class MetricsRegistry {
+  private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+  public Endpoint endpoint(String method, String resource) {
+    String key = method + ' ' + resource;
+    // Avoid locking in computeIfAbsent for the common case
+    Endpoint endpoint = endpoints.get(key);
+    if (endpoint != null) {
+      return endpoint;
+    }
+    return endpoints.computeIfAbsent(key, k -> new Endpoint(method, resource));
+  }
+
+  public Collection<Endpoint> getEndpoints() {
+    return Collections.unmodifiableCollection(endpoints.values());
+  }
+
+  public static class Endpoint {
+    private final String method;
+    private final String resource;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final ConcurrentMap<Integer, LongAdder> responses = new ConcurrentHashMap<>();
+    private final LongAdder inFlight = new LongAdder();
+
+    Endpoint(String method, String resource) {
+      this.method = method;
+      this.resource = resource;
+    }
+
+    public String getMethod() {
+      return method;
+    }
+
+    public String getResource() {
+      return resource;
+    }
+
+    public LatencyHistogram getLatency() {
+      return latency;
+    }
+
+    /** Returns the number of responses per status code. */
+    public Map<Integer, LongAdder> getResponses() {
+      return Collections.unmodifiableMap(responses);
+    }
+
+    public long getInFlight() {
+      return inFlight.sum();
+    }
+
+    public void started() {
+      inFlight.increment();
+    }
+
+    public void completed(int status, long elapsedNanos) {
+      inFlight.decrement();
+      latency.record(elapsedNanos);
+      LongAdder counter = responses.get(status);
+      if (counter == null) {
+        counter = responses.computeIfAbsent(status, s -> new LongAdder());
+      }
+      counter.increment();
+    }
+  }
+}
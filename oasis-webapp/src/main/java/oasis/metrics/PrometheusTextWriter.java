@@ -0,0 +1,126 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.metrics;
+
+import java.time.Duration;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Writes metrics in the <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus text
+ * format</a>.
+ */
+public class PrometheusTextWriter {
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final StringBuilder sb = new StringBuilder();
+
+  public PrometheusTextWriter header(String name, String type, String help) {
+    sb.append("# HELP ").append(name).append(' ');
+    escape(help, false);
+    sb.append('\n');
+    sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    return this;
+  }
+
+  public PrometheusTextWriter gauge(String name, String help, long value) {
+    return header(name, "gauge", help).sample(name, value);
+  }
+
+  public PrometheusTextWriter gauge(String name, String help, double value) {
+    return header(name, "gauge", help).sample(name, value);
+  }
+
+  public PrometheusTextWriter counter(String name, String help, long value) {
+    return header(name, "counter", help).sample(name, value);
+  }
+
+  public PrometheusTextWriter counter(String name, String help, double value) {
+    return header(name, "counter", help).sample(name, value);
+  }
+
+  public PrometheusTextWriter sample(String name, double value, String... labels) {
+    return appendSample(name, format(value), labels);
+  }
+
+  public PrometheusTextWriter sample(String name, long value, String... labels) {
+    return appendSample(name, Long.toString(value), labels);
+  }
+
+  /**
+   * Appends a sample.
+   *
+   * @param labels label names and values, alternatively.
+   */
+  private PrometheusTextWriter appendSample(String name, String value, String... labels) {
+    Preconditions.checkArgument(labels.length % 2 == 0, "labels must be name/value pairs");
+    sb.append(name);
+    if (labels.length > 0) {
+      sb.append('{');
+      for (int i = 0; i < labels.length; i += 2) {
+        if (i > 0) {
+          sb.append(',');
+        }
+        sb.append(labels[i]).append("=\"");
+        escape(labels[i + 1], true);
+        sb.append('"');
+      }
+      sb.append('}');
+    }
+    sb.append(' ').append(value).append('\n');
+    return this;
+  }
+
+  private void escape(String s, boolean quotes) {
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '"':
+          sb.append(quotes ? "\\\"" : "\"");
+          break;
+        default:
+          sb.append(c);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return sb.toString();
+  }
+
+  static String format(double value) {
+    if (Double.isNaN(value)) {
+      return "NaN";
+    }
+    if (Double.isInfinite(value)) {
+      return value > 0 ? "+Inf" : "-Inf";
+    }
+    return Double.toString(value);
+  }
+
+  public static double toSeconds(Duration duration) {
+    return duration.getSeconds() + duration.getNano() / 1e9;
+  }
+}
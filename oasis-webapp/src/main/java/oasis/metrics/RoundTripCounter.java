@@ -0,0 +1,69 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Counts the database round trips made on behalf of a unit of work, such as an HTTP request.
+ *
+ * <p>A counter is bound to the thread processing the unit of work between {@link #start()} and {@link #stop}; round
+ * trips recorded on other threads (or when no counter is bound) are not counted.
+ */
+@ThreadSafe
+public class RoundTripCounter {
+  private static final ThreadLocal<RoundTripCounter> current = new ThreadLocal<>();
+
+  /** Binds a new counter to the current thread, replacing any counter left over by a previous unit of work. */
+  public static RoundTripCounter start() {
+    RoundTripCounter counter = new RoundTripCounter();
+    current.set(counter);
+    return counter;
+  }
+
+  /**
+   * Unbinds the counter from the current thread, if still bound to it.
+   *
+   * <p>The unit of work might finish on another thread (e.g. for asynchronous requests), in which case the counter
+   * will be replaced by the next call to {@link #start()} on its original thread.
+   */
+  public static void stop(RoundTripCounter counter) {
+    if (current.get() == counter) {
+      current.remove();
+    }
+  }
+
+  /** Records a round trip for the counter bound to the current thread, if any. */
+  public static void record() {
+    RoundTripCounter counter = current.get();
+    if (counter != null) {
+      counter.count.incrementAndGet();
+    }
+  }
+
+  private final AtomicInteger count = new AtomicInteger();
+
+  private RoundTripCounter() {
+  }
+
+  public int get() {
+    return count.get();
+  }
+}
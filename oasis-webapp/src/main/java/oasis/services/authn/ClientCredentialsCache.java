@@ -0,0 +1,82 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.services.authn;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import oasis.auth.AuthModule;
+import oasis.cache.StalenessBoundedCaches;
+
+/**
+ * In-memory cache of successful client authentications, keyed by client ID, and holding a keyed digest of the
+ * verified secret, so that a client presenting the same secret again doesn't go through a full password hash.
+ *
+ * <p>The digest key is random and never leaves the process: cached digests can't be used to verify guessed secrets
+ * offline. Entries are kept at most {@code client-credentials-cache.max-staleness} (see
+ * {@link StalenessBoundedCaches}).
+ */
+@Singleton
+public class ClientCredentialsCache {
+  private final HashFunction digest;
+  private final Cache<String, HashCode> cache;
+
+  @Inject ClientCredentialsCache(AuthModule.Settings settings, SecureRandom secureRandom) {
+    byte[] key = new byte[32];
+    secureRandom.nextBytes(key);
+    this.digest = Hashing.hmacSha256(key);
+
+    this.cache = StalenessBoundedCaches.newBuilder(settings.clientCredentialsCacheSize,
+        settings.clientCredentialsCacheMaxStaleness).build();
+  }
+
+  boolean isVerified(String clientId, String secret) {
+    HashCode verified = cache.getIfPresent(clientId);
+    return verified != null && MessageDigest.isEqual(verified.asBytes(), digest(secret).asBytes());
+  }
+
+  void put(String clientId, String secret) {
+    cache.put(clientId, digest(secret));
+  }
+
+  public void invalidate(String clientId) {
+    cache.invalidate(clientId);
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private HashCode digest(String secret) {
+    return digest.hashString(secret, StandardCharsets.UTF_8);
+  }
+}
@@ -22,30 +22,63 @@ import javax.inject.Inject;
 import oasis.model.authn.ClientType;
 import oasis.model.authn.Credentials;
 import oasis.model.authn.CredentialsRepository;
+import oasis.services.authn.login.KdfExecutor;
 import oasis.services.authn.login.PasswordHasher;
 import oasis.services.authn.login.SCryptPasswordHasher;
 
 public class CredentialsService {
   private final CredentialsRepository credentialsRepository;
   private final PasswordHasher passwordHasher;
+  private final ClientCredentialsCache clientCredentialsCache;
+  private final KdfExecutor kdfExecutor;
 
   @Inject
-  CredentialsService(CredentialsRepository credentialsRepository, SCryptPasswordHasher passwordHasher) {
+  CredentialsService(CredentialsRepository credentialsRepository, SCryptPasswordHasher passwordHasher,
+      ClientCredentialsCache clientCredentialsCache, KdfExecutor kdfExecutor) {
     this.credentialsRepository = credentialsRepository;
     this.passwordHasher = passwordHasher;
+    this.clientCredentialsCache = clientCredentialsCache;
+    this.kdfExecutor = kdfExecutor;
   }
 
   public void setPassword(ClientType type, String id, String password) {
     byte[] salt = passwordHasher.createSalt();
-    byte[] hash = passwordHasher.hashPassword(password, salt);
+    byte[] hash = kdfExecutor.execute(KdfExecutor.caller(type, id), () -> passwordHasher.hashPassword(password, salt));
     credentialsRepository.saveCredentials(type, id, hash, salt);
+    if (type == ClientType.PROVIDER) {
+      clientCredentialsCache.invalidate(id);
+    }
+  }
+
+  public boolean deleteCredentials(ClientType type, String id) {
+    boolean deleted = credentialsRepository.deleteCredentials(type, id);
+    if (type == ClientType.PROVIDER) {
+      clientCredentialsCache.invalidate(id);
+    }
+    return deleted;
   }
 
+  /**
+   * Checks the password (or secret) of a user (or client).
+   * <p>
+   * Successful client authentications are cached for a short time (see {@link ClientCredentialsCache}); user
+   * passwords are always checked against the stored hash.
+   *
+   * @throws KdfExecutor.SaturatedException if too many passwords are already being checked.
+   */
   public boolean checkPassword(ClientType type, String id, String password) {
+    if (type == ClientType.PROVIDER && clientCredentialsCache.isVerified(id, password)) {
+      return true;
+    }
     Credentials credentials = credentialsRepository.getCredentials(type, id);
     if (credentials == null) {
       return false;
     }
-    return passwordHasher.checkPassword(password, credentials.getHash(), credentials.getSalt());
+    boolean verified = kdfExecutor.execute(KdfExecutor.caller(type, id),
+        () -> passwordHasher.checkPassword(password, credentials.getHash(), credentials.getSalt()));
+    if (verified && type == ClientType.PROVIDER) {
+      clientCredentialsCache.put(id, password);
+    }
+    return verified;
   }
 }
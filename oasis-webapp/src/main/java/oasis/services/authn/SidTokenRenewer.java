@@ -0,0 +1,130 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.services.authn;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import oasis.auth.AuthModule;
+import oasis.model.authn.SidToken;
+import oasis.model.authn.TokenRepository;
+
+/**
+ * Renews SID tokens in background batches, and only once per {@code sid-token-renewal-interval}.
+ *
+ * <p>Renewed tokens expire {@code sid-token-duration} plus {@code sid-token-renewal-interval} after their renewal,
+ * so that sessions never expire earlier than {@code sid-token-duration} after their last use.
+ */
+@Singleton
+public class SidTokenRenewer {
+  private static final Logger logger = LoggerFactory.getLogger(SidTokenRenewer.class);
+
+  private static final long FLUSH_DELAY_IN_SECONDS = 5;
+  private static final int BATCH_SIZE = 1000;
+
+  // This is a singleton that can be created before the JongoService is started
+  private final Provider<TokenRepository> tokenRepository;
+  private final AuthModule.Settings settings;
+  private final Clock clock;
+
+  private final Set<String> pendingTokenIds = ConcurrentHashMap.newKeySet();
+  private @Nullable ScheduledExecutorService executor;
+
+  @Inject SidTokenRenewer(Provider<TokenRepository> tokenRepository, AuthModule.Settings settings, Clock clock) {
+    this.tokenRepository = tokenRepository;
+    this.settings = settings;
+    this.clock = clock;
+  }
+
+  /** Schedules the renewal of the given token, if it hasn't been renewed recently. */
+  public void renew(SidToken sidToken) {
+    Instant now = clock.instant();
+    if (sidToken.getExpirationTime().isAfter(now.plus(settings.sidTokenDuration))) {
+      // renewed less than sid-token-renewal-interval ago
+      return;
+    }
+    pendingTokenIds.add(sidToken.getId());
+  }
+
+  public synchronized void start() {
+    if (executor != null) {
+      return;
+    }
+    executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("sid-token-renewer")
+        .setDaemon(true)
+        .build());
+    executor.scheduleWithFixedDelay(this::flush, FLUSH_DELAY_IN_SECONDS, FLUSH_DELAY_IN_SECONDS, TimeUnit.SECONDS);
+  }
+
+  public synchronized void stop() {
+    if (executor == null) {
+      return;
+    }
+    executor.shutdown();
+    try {
+      executor.awaitTermination(FLUSH_DELAY_IN_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    executor = null;
+    // Don't lose pending renewals
+    flush();
+  }
+
+  void flush() {
+    List<String> tokenIds = new ArrayList<>();
+    for (Iterator<String> it = pendingTokenIds.iterator(); it.hasNext(); ) {
+      tokenIds.add(it.next());
+      it.remove();
+    }
+    if (tokenIds.isEmpty()) {
+      return;
+    }
+    Instant expirationTime = clock.instant()
+        .plus(settings.sidTokenDuration)
+        .plus(settings.sidTokenRenewalInterval);
+    for (List<String> batch : Lists.partition(tokenIds, BATCH_SIZE)) {
+      try {
+        tokenRepository.get().renewSidTokens(batch, expirationTime);
+      } catch (Exception e) {
+        // The sessions will be renewed again on their next use
+        logger.error("Error renewing {} SID tokens", batch.size(), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,193 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.services.authn;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import oasis.auth.AuthModule;
+import oasis.cache.StalenessBoundedCaches;
+import oasis.model.authn.AbstractAccountToken;
+import oasis.model.authn.AbstractOAuthToken;
+import oasis.model.authn.Token;
+
+/**
+ * In-memory cache of verified tokens, keyed by a digest of their serialized form (which includes the pass).
+ *
+ * <p>Entries are kept at most {@code token-cache.max-staleness} (see {@link StalenessBoundedCaches}). Callers are
+ * responsible for checking the expiration time of the returned tokens.
+ *
+ * <p>Cached tokens are also indexed by ID, ancestor IDs, account, client and scopes, so that revocations only
+ * invalidate the matching entries rather than scanning the whole cache.
+ */
+@Singleton
+public class TokenCache {
+  private static final String ID_TAG = "id:";
+  private static final String ANCESTOR_TAG = "ancestor:";
+  private static final String ACCOUNT_TAG = "account:";
+  private static final String CLIENT_TAG = "client:";
+  private static final String SCOPE_TAG = "scope:";
+
+  private final Cache<HashCode, Token> cache;
+  /** Keys of the cached tokens, per {@link #tags(Token) tag}; maintained by {@link #put} and {@link #onRemoval}. */
+  private final ConcurrentMap<String, Set<HashCode>> index = new ConcurrentHashMap<>();
+
+  @Inject TokenCache(AuthModule.Settings settings) {
+    RemovalListener<HashCode, Token> removalListener = this::onRemoval;
+    this.cache = StalenessBoundedCaches.newBuilder(settings.tokenCacheSize, settings.tokenCacheMaxStaleness)
+        .removalListener(removalListener)
+        .build();
+  }
+
+  @Nullable
+  Token getIfPresent(String tokenSerial) {
+    return cache.getIfPresent(key(tokenSerial));
+  }
+
+  void put(String tokenSerial, Token token) {
+    HashCode key = key(tokenSerial);
+    cache.put(key, token);
+    for (String tag : tags(token)) {
+      // Add within compute(), so it cannot race with unindex() removing the (then empty) set
+      index.compute(tag, (t, keys) -> {
+        Set<HashCode> newKeys = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+        newKeys.add(key);
+        return newKeys;
+      });
+    }
+    if (!cache.asMap().containsKey(key)) {
+      // Evicted (or invalidated) in the meantime, before it could be indexed
+      unindex(key, token);
+    }
+  }
+
+  void invalidate(String tokenSerial) {
+    cache.invalidate(key(tokenSerial));
+  }
+
+  public void invalidateToken(String tokenId) {
+    invalidateTagged(ID_TAG + tokenId);
+  }
+
+  public void invalidateTokens(Collection<String> tokenIds) {
+    for (String tokenId : tokenIds) {
+      invalidateTagged(ID_TAG + tokenId);
+    }
+  }
+
+  public void invalidateTokenAndDescendants(String tokenId) {
+    invalidateTagged(ID_TAG + tokenId);
+    invalidateTagged(ANCESTOR_TAG + tokenId);
+  }
+
+  public void invalidateTokensForAccount(String accountId) {
+    invalidateTagged(ACCOUNT_TAG + accountId);
+  }
+
+  public void invalidateTokensForClient(String clientId) {
+    invalidateTagged(CLIENT_TAG + clientId);
+  }
+
+  public void invalidateTokensForScopes(Collection<String> scopeIds) {
+    for (String scopeId : scopeIds) {
+      invalidateTagged(SCOPE_TAG + scopeId);
+    }
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** Returns the number of tags in the index, for tests to check that it doesn't outlive the cache entries. */
+  int indexSize() {
+    return index.size();
+  }
+
+  private void invalidateTagged(String tag) {
+    Set<HashCode> keys = index.get(tag);
+    if (keys != null) {
+      // Copy the keys, as invalidating them modifies the set
+      cache.invalidateAll(ImmutableList.copyOf(keys));
+    }
+  }
+
+  private void onRemoval(RemovalNotification<HashCode, Token> notification) {
+    // A replaced token has the same serial, hence the same tags
+    if (notification.getCause() == RemovalCause.REPLACED
+        || notification.getKey() == null || notification.getValue() == null) {
+      return;
+    }
+    unindex(notification.getKey(), notification.getValue());
+  }
+
+  private void unindex(HashCode key, Token token) {
+    for (String tag : tags(token)) {
+      index.computeIfPresent(tag, (t, keys) -> {
+        keys.remove(key);
+        return keys.isEmpty() ? null : keys;
+      });
+    }
+  }
+
+  private static List<String> tags(Token token) {
+    List<String> tags = new ArrayList<>();
+    tags.add(ID_TAG + token.getId());
+    for (String ancestorId : token.getAncestorIds()) {
+      tags.add(ANCESTOR_TAG + ancestorId);
+    }
+    if (token instanceof AbstractAccountToken && ((AbstractAccountToken) token).getAccountId() != null) {
+      tags.add(ACCOUNT_TAG + ((AbstractAccountToken) token).getAccountId());
+    }
+    if (token instanceof AbstractOAuthToken) {
+      AbstractOAuthToken oauthToken = (AbstractOAuthToken) token;
+      if (oauthToken.getServiceProviderId() != null) {
+        tags.add(CLIENT_TAG + oauthToken.getServiceProviderId());
+      }
+      for (String scopeId : oauthToken.getScopeIds()) {
+        tags.add(SCOPE_TAG + scopeId);
+      }
+    }
+    return tags;
+  }
+
+  private static HashCode key(String tokenSerial) {
+    return Hashing.sha256().hashString(tokenSerial, StandardCharsets.UTF_8);
+  }
+}
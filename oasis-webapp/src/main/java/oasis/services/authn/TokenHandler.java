@@ -32,17 +32,22 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.io.BaseEncoding;
 
 import oasis.auth.AuthModule;
+import oasis.model.authn.AbstractAccountToken;
+import oasis.model.authn.AbstractOAuthToken;
 import oasis.model.authn.AccessToken;
 import oasis.model.authn.AccountActivationToken;
 import oasis.model.authn.AppInstanceInvitationToken;
 import oasis.model.authn.AuthorizationCode;
 import oasis.model.authn.ChangePasswordToken;
+import oasis.model.authn.ClientType;
 import oasis.model.authn.MembershipInvitationToken;
 import oasis.model.authn.RefreshToken;
 import oasis.model.authn.SetPasswordToken;
 import oasis.model.authn.SidToken;
 import oasis.model.authn.Token;
 import oasis.model.authn.TokenRepository;
+import oasis.services.authn.login.HmacSha256PasswordHasher;
+import oasis.services.authn.login.KdfExecutor;
 import oasis.services.authn.login.PasswordHasher;
 import oasis.userdirectory.UserDirectoryModule;
 
@@ -52,19 +57,25 @@ public class TokenHandler {
   private static final String SEPARATOR = "/";
 
   private final TokenRepository tokenRepository;
+  private final TokenCache tokenCache;
   private final AuthModule.Settings authSettings;
   private final UserDirectoryModule.Settings userDirectorySettings;
   private final PasswordHasher passwordHasher;
+  private final HmacSha256PasswordHasher tokenHasher;
+  private final KdfExecutor kdfExecutor;
   private final SecureRandom secureRandom;
   private final Clock clock;
 
-  @Inject TokenHandler(TokenRepository tokenRepository, AuthModule.Settings oidcSettings,
+  @Inject TokenHandler(TokenRepository tokenRepository, TokenCache tokenCache, AuthModule.Settings oidcSettings,
       UserDirectoryModule.Settings userDirectorySettings, PasswordHasher passwordHasher,
-      SecureRandom secureRandom, Clock clock) {
+      HmacSha256PasswordHasher tokenHasher, KdfExecutor kdfExecutor, SecureRandom secureRandom, Clock clock) {
     this.tokenRepository = tokenRepository;
+    this.tokenCache = tokenCache;
     this.authSettings = oidcSettings;
     this.userDirectorySettings = userDirectorySettings;
     this.passwordHasher = passwordHasher;
+    this.tokenHasher = tokenHasher;
+    this.kdfExecutor = kdfExecutor;
     this.secureRandom = secureRandom;
     this.clock = clock;
   }
@@ -108,7 +119,7 @@ public class TokenHandler {
 
   public SetPasswordToken createSetPasswordToken(String accountId, String pwd, String pass) {
     byte[] salt = passwordHasher.createSalt();
-    byte[] hash = passwordHasher.hashPassword(pwd, salt);
+    byte[] hash = kdfExecutor.execute(KdfExecutor.caller(ClientType.USER, accountId), () -> passwordHasher.hashPassword(pwd, salt));
 
     SetPasswordToken setPasswordToken =new SetPasswordToken();
     setPasswordToken.setAccountId(accountId);
@@ -302,7 +313,7 @@ public class TokenHandler {
     return invitationToken;
   }
 
-  private <T extends Token> T getCheckedToken(TokenInfo tokenInfo, Class<T> tokenClass) {
+  private Token getCheckedToken(TokenInfo tokenInfo) {
     if (tokenInfo == null) {
       return null;
     }
@@ -322,24 +333,60 @@ public class TokenHandler {
       // token does not exist, has expired, or is otherwise invalid
       return null;
     }
+    return realToken;
+  }
 
-    if (!tokenClass.isInstance(realToken)) {
+  public <T extends Token> T getCheckedToken(String tokenSerial, Class<T> tokenClass) {
+    Token token = tokenCache.getIfPresent(tokenSerial);
+    if (token != null && token.getExpirationTime().isBefore(clock.instant())) {
+      tokenCache.invalidate(tokenSerial);
       return null;
     }
+    if (token == null) {
+      token = this.getCheckedToken(TokenSerializer.deserialize(tokenSerial));
+      if (token == null) {
+        return null;
+      }
+      // Only cache the tokens that are checked on each and every request
+      if (token instanceof AccessToken || token instanceof SidToken) {
+        tokenCache.put(tokenSerial, token);
+      }
+    }
 
-    return tokenClass.cast(realToken);
-  }
+    if (!tokenClass.isInstance(token)) {
+      return null;
+    }
 
-  public <T extends Token> T getCheckedToken(String tokenSerial, Class<T> tokenClass) {
-    return this.getCheckedToken(TokenSerializer.deserialize(tokenSerial), tokenClass);
+    return tokenClass.cast(token);
   }
 
   private void secureToken(Token token, String pass) {
-    byte[] salt = passwordHasher.createSalt();
-    byte[] hash = passwordHasher.hashPassword(pass, salt);
+    // Access tokens are checked on each and every API call, so use a cheap hash for them.
+    // This is safe because passes are randomly generated and short-lived; see generateRandom.
+    Token.HashAlgorithm hashAlgorithm = token instanceof AccessToken
+        ? Token.HashAlgorithm.HMAC_SHA256
+        : Token.HashAlgorithm.SCRYPT;
+    PasswordHasher hasher = getHasher(hashAlgorithm);
+
+    byte[] salt = hasher.createSalt();
+    byte[] hash = hashAlgorithm == Token.HashAlgorithm.SCRYPT
+        ? kdfExecutor.execute(getCaller(token), () -> hasher.hashPassword(pass, salt))
+        : hasher.hashPassword(pass, salt);
 
     token.setHash(hash);
     token.setSalt(salt);
+    token.setHashAlgorithm(hashAlgorithm);
+  }
+
+  private PasswordHasher getHasher(Token.HashAlgorithm hashAlgorithm) {
+    switch (hashAlgorithm) {
+      case HMAC_SHA256:
+        return tokenHasher;
+      case SCRYPT:
+        return passwordHasher;
+      default:
+        throw new AssertionError("Unexpected hash algorithm: " + hashAlgorithm);
+    }
   }
 
   // Used by TokenInfo
@@ -373,6 +420,20 @@ public class TokenHandler {
       return false;
     }
 
-    return passwordHasher.checkPassword(pass, token.getHash(), token.getSalt());
+    PasswordHasher hasher = getHasher(token.getHashAlgorithm());
+    if (token.getHashAlgorithm() == Token.HashAlgorithm.SCRYPT) {
+      return kdfExecutor.execute(getCaller(token), () -> hasher.checkPassword(pass, token.getHash(), token.getSalt()));
+    }
+    return hasher.checkPassword(pass, token.getHash(), token.getSalt());
+  }
+
+  /** Returns the key used to share the {@link KdfExecutor} fairly between clients (or users) hashing tokens. */
+  private static String getCaller(Token token) {
+    if (token instanceof AbstractOAuthToken && ((AbstractOAuthToken) token).getServiceProviderId() != null) {
+      return KdfExecutor.caller(ClientType.PROVIDER, ((AbstractOAuthToken) token).getServiceProviderId());
+    } else if (token instanceof AbstractAccountToken && ((AbstractAccountToken) token).getAccountId() != null) {
+      return KdfExecutor.caller(ClientType.USER, ((AbstractAccountToken) token).getAccountId());
+    }
+    return token.getClass().getSimpleName();
   }
 }
@@ -0,0 +1,58 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.services.authn.login;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import javax.inject.Inject;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Cheap alternative to {@link SCryptPasswordHasher} for high-entropy secrets.
+ *
+ * <p>This must only be used for secrets that cannot be brute-forced, such as the randomly generated
+ * passes of short-lived tokens (128 bits); never for user-chosen passwords. The salt is used as the HMAC key.
+ */
+public class HmacSha256PasswordHasher implements PasswordHasher {
+  private final SecureRandom secureRandom;
+
+  @Inject
+  HmacSha256PasswordHasher(SecureRandom secureRandom) {
+    this.secureRandom = secureRandom;
+  }
+
+  @Override
+  public byte[] createSalt() {
+    byte[] salt = new byte[32];
+    secureRandom.nextBytes(salt);
+    return salt;
+  }
+
+  @Override
+  public byte[] hashPassword(String password, byte[] salt) {
+    return Hashing.hmacSha256(salt).hashString(password, StandardCharsets.UTF_8).asBytes();
+  }
+
+  @Override
+  public boolean checkPassword(String password, byte[] hash, byte[] salt) {
+    return MessageDigest.isEqual(hash, hashPassword(password, salt));
+  }
+}
@@ -0,0 +1,196 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.services.authn.login;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.ws.rs.ServiceUnavailableException;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import oasis.auth.AuthModule;
+import oasis.model.authn.ClientType;
+
+/**
+ * Runs expensive key derivations (i.e. {@link SCryptPasswordHasher scrypt}) on a dedicated, bounded pool of threads.
+ *
+ * <p>At most {@code kdf.threads} derivations run concurrently, and at most {@code kdf.queue-size} more wait for their
+ * turn; and a given caller (e.g. a client or account ID) can have at most {@code kdf.max-per-caller} derivations
+ * running or waiting. Derivations beyond those limits are rejected right away with a {@link SaturatedException}
+ * (503 Service Unavailable), rather than tying up request threads, so that a burst of logins or brute-force attempts
+ * cannot stall the rest of the server.
+ *
+ * <p>When {@code kdf.threads} is 0, derivations run directly on the calling thread, without admission control.
+ */
+@Singleton
+public class KdfExecutor {
+  private static final long RETRY_AFTER_IN_SECONDS = 1;
+
+  private final @Nullable ThreadPoolExecutor executor;
+  private final int maxPerCaller;
+  private final int maxWaiting;
+  private final ConcurrentMap<String, Integer> callers = new ConcurrentHashMap<>();
+
+  private final LongAdder completedCount = new LongAdder();
+  private final LongAdder rejectedCount = new LongAdder();
+  private final LongAdder waitTimeNanos = new LongAdder();
+
+  @Inject public KdfExecutor(AuthModule.Settings settings) {
+    this.maxPerCaller = settings.kdfMaxPerCaller;
+    if (settings.kdfThreads <= 0) {
+      this.executor = null;
+      this.maxWaiting = 0;
+      return;
+    }
+    this.maxWaiting = settings.kdfThreads + settings.kdfQueueSize;
+    BlockingQueue<Runnable> queue = settings.kdfQueueSize > 0
+        ? new ArrayBlockingQueue<>(settings.kdfQueueSize)
+        : new SynchronousQueue<>();
+    this.executor = new ThreadPoolExecutor(settings.kdfThreads, settings.kdfThreads, 0, TimeUnit.MILLISECONDS, queue,
+        new ThreadFactoryBuilder()
+            .setNameFormat("kdf-%d")
+            .setDaemon(true)
+            .build());
+  }
+
+  /**
+   * Checks that a saturated pool cannot hold all the request threads, as each derivation blocks the request thread
+   * that submitted it.
+   *
+   * @throws IllegalStateException if {@code kdf.threads + kdf.queue-size} is not lower than {@code requestThreads}.
+   */
+  public void checkCapacity(int requestThreads) {
+    checkState(maxWaiting < requestThreads,
+        "kdf.threads + kdf.queue-size (%s) must be lower than the number of request threads (%s)", maxWaiting, requestThreads);
+  }
+
+  /**
+   * Returns the caller key for the given client or user, so a given account is counted as the same caller whether
+   * it's checking its password or hashing a token.
+   */
+  public static String caller(ClientType type, String id) {
+    return type + ":" + id;
+  }
+
+  /**
+   * Runs the given derivation on behalf of the given caller, and returns its result.
+   *
+   * @throws SaturatedException if the pool, or the caller's share of it, is full.
+   */
+  public <T> T execute(String caller, Supplier<T> derivation) {
+    if (executor == null) {
+      return derivation.get();
+    }
+    if (!acquire(caller)) {
+      rejectedCount.increment();
+      throw new SaturatedException();
+    }
+    try {
+      long submitted = System.nanoTime();
+      Future<T> future;
+      try {
+        future = executor.submit(() -> {
+          waitTimeNanos.add(System.nanoTime() - submitted);
+          return derivation.get();
+        });
+      } catch (RejectedExecutionException e) {
+        rejectedCount.increment();
+        throw new SaturatedException();
+      }
+      try {
+        return Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new UncheckedExecutionException(e.getCause());
+      } finally {
+        completedCount.increment();
+      }
+    } finally {
+      release(caller);
+    }
+  }
+
+  private boolean acquire(String caller) {
+    boolean[] acquired = { false };
+    callers.compute(caller, (k, count) -> {
+      int c = count == null ? 0 : count;
+      if (c >= maxPerCaller) {
+        return count;
+      }
+      acquired[0] = true;
+      return c + 1;
+    });
+    return acquired[0];
+  }
+
+  private void release(String caller) {
+    callers.computeIfPresent(caller, (k, count) -> count <= 1 ? null : count - 1);
+  }
+
+  /** Returns the number of derivations waiting for a thread. */
+  public int getQueueDepth() {
+    return executor == null ? 0 : executor.getQueue().size();
+  }
+
+  /** Returns the number of derivations currently running. */
+  public int getActiveCount() {
+    return executor == null ? 0 : executor.getActiveCount();
+  }
+
+  /** Returns the number of derivations run since startup. */
+  public long getCompletedCount() {
+    return completedCount.sum();
+  }
+
+  /** Returns the number of derivations rejected since startup. */
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+
+  /** Returns the sum of the time spent by derivations waiting for a thread, since startup. */
+  public Duration getWaitTimeSum() {
+    return Duration.ofNanos(waitTimeNanos.sum());
+  }
+
+  /** Signals that a key derivation was rejected because the {@link KdfExecutor} is saturated. */
+  public static class SaturatedException extends ServiceUnavailableException {
+    SaturatedException() {
+      super(RETRY_AFTER_IN_SECONDS);
+    }
+  }
+}
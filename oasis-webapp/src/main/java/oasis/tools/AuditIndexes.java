@@ -0,0 +1,288 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.tools;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import org.jongo.Jongo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.mongodb.DBObject;
+import com.typesafe.config.Config;
+
+import oasis.auth.AuthModule;
+import oasis.jongo.JongoService;
+import oasis.jongo.guice.JongoModule;
+
+/**
+ * Runs {@code explain()} on every query shape used by the {@code oasis.jongo.*} repositories
+ * and exits with a non-zero status if any of them resolves to a collection scan.
+ * <p>
+ * Keep {@link #QUERY_SHAPES} in sync with the repositories when adding or changing queries;
+ * {@link #findUnindexedShapes} checks them against the indexes created by the bootstrappers without a database.
+ */
+public class AuditIndexes extends CommandLineTool {
+
+  private static final String ID = "audit";
+  private static final ImmutableList<String> IDS = ImmutableList.of(ID);
+  private static final Date DATE = new Date(0);
+  /** Cursor range from JongoNotificationRepository, parameterized with since time, before time, then (time, id) for each. */
+  private static final String NOTIFICATION_RANGE = "time: { $gte: #, $lte: # }, "
+      + "$and: [ { $or: [ { time: { $gt: # } }, { id: { $gt: # } } ] }, { $or: [ { time: { $lt: # } }, { id: { $lt: # } } ] } ]";
+
+  // Queries that intentionally scan a whole collection (e.g. catalog reindexing, migrations) are not listed.
+  private static final ImmutableList<QueryShape> QUERY_SHAPES = ImmutableList.of(
+      // JongoAccountRepository
+      new QueryShape("account", "{ id: # }", ID),
+      new QueryShape("account", "{ id: { $in: # }, $or: [ { email_verified: true }, { franceconnect_sub: { $exists: true } } ] }", IDS),
+      new QueryShape("account", "{ email_address: #, $or: [ { email_verified: true }, { franceconnect_sub: { $exists: true } } ] }", ID),
+      new QueryShape("account", "{ franceconnect_sub: #, $or: [ { email_verified: true }, { franceconnect_sub: { $exists: true } } ] }", ID),
+      // JongoAccessControlRepository
+      new QueryShape("app_instance_aces", "{ id: #, $or: [ { status: { $exists: 0 } }, { status: # } ] }", ID, "ACCEPTED"),
+      new QueryShape("app_instance_aces", "{ instance_id: #, user_id: #, $or: [ { status: { $exists: 0 } }, { status: # } ] }", ID, ID, "ACCEPTED"),
+      new QueryShape("app_instance_aces", "{ instance_id: #, status: # }", ID, "PENDING"),
+      new QueryShape("app_instance_aces", "{ email: #, organization_id: #, status: # }", ID, ID, "PENDING"),
+      // JongoAppInstanceRepository
+      new QueryShape("app_instances", "{ id: # }", ID),
+      new QueryShape("app_instances", "{ id: { $in: # } }", IDS),
+      new QueryShape("app_instances", "{ provider_id: # }", ID),
+      new QueryShape("app_instances", "{ provider_id: #, status: # }", ID, "RUNNING"),
+      new QueryShape("app_instances", "{ instantiator_id: #, provider_id: { $exists: 0 } }", ID),
+      new QueryShape("app_instances", "{ instantiator_id: #, status: #, provider_id: { $exists: 0 } }", ID, "RUNNING"),
+      new QueryShape("app_instances", "{ provider_id: #, status: { $ne: # } }", ID, "STOPPED"),
+      new QueryShape("app_instances", "{ status: #, status_changed: { $lt: # } }", "STOPPED", DATE),
+      new QueryShape("app_instances", "{ application_id: # }", ID),
+      // JongoApplicationRepository
+      new QueryShape("applications", "{ id: # }", ID),
+      new QueryShape("applications", "{ provider_id: # }", ID),
+      // JongoAuthorizationRepository
+      new QueryShape("authorized_scopes", "{ account_id: #, client_id: # }", ID, ID),
+      new QueryShape("authorized_scopes", "{ client_id: # }", ID),
+      new QueryShape("authorized_scopes", "{ scope_ids: { $in: # } }", IDS),
+      // JongoBrandRepository
+      new QueryShape("brand_info", "{ brand_id: # }", ID),
+      // JongoClientCertificateRepository
+      new QueryShape("client_certificate", "{ subject_dn: #, issuer_dn: # }", ID, ID),
+      new QueryShape("client_certificate", "{ client_type: #, client_id: # }", "PROVIDER", ID),
+      // JongoCredentialsRepository
+      new QueryShape("credentials", "{ clientType: #, id: # }", "PROVIDER", ID),
+      // JongoEventDeliveryRepository
+      new QueryShape("event_deliveries", "{ id: # }", ID),
+      new QueryShape("event_deliveries", "{ status: #, nextAttempt: { $lte: # }, webHook: { $nin: # } }", "PENDING", DATE, IDS),
+      new QueryShape("event_deliveries", "{ id: #, status: # }", ID, "PENDING"),
+      new QueryShape("event_deliveries", "{ status: # }", "DEAD"),
+      new QueryShape("event_deliveries", "{ instance_id: # }", ID),
+      // JongoNotificationRepository
+      new QueryShape("notification", "{ id: # }", ID),
+      new QueryShape("notification", "{ user_id: #, " + NOTIFICATION_RANGE + " }", ID, DATE, DATE, DATE, ID, DATE, ID),
+      new QueryShape("notification", "{ user_id: #, instance_id: #, " + NOTIFICATION_RANGE + " }", ID, ID, DATE, DATE, DATE, ID, DATE, ID),
+      new QueryShape("notification", "{ user_id: #, status: #, " + NOTIFICATION_RANGE + " }", ID, "UNREAD", DATE, DATE, DATE, ID, DATE, ID),
+      new QueryShape("notification", "{ user_id: #, instance_id: #, status: #, " + NOTIFICATION_RANGE + " }", ID, ID, "UNREAD", DATE, DATE, DATE, ID, DATE, ID),
+      // JongoDirectoryRepository
+      new QueryShape("organization", "{ id: # }", ID),
+      new QueryShape("organization", "{ id: { $in: # } }", IDS),
+      new QueryShape("organization", "{ dc_id: # }", ID),
+      new QueryShape("organization", "{ status: #, status_changed: { $lt: # } }", "DELETED", DATE),
+      // JongoOrganizationMembershipRepository
+      new QueryShape("organization_memberships", "{ id: #, $or: [ { status: { $exists: 0 } }, { status: # } ] }", ID, "ACCEPTED"),
+      new QueryShape("organization_memberships", "{ accountId: #, organizationId: #, $or: [ { status: { $exists: 0 } }, { status: # } ] }", ID, ID, "ACCEPTED"),
+      new QueryShape("organization_memberships", "{ organizationId: #, status: # }", ID, "PENDING"),
+      new QueryShape("organization_memberships", "{ organizationId: #, admin: true, $or: [ { status: { $exists: 0 } }, { status: # } ] }", ID, "ACCEPTED"),
+      new QueryShape("organization_memberships", "{ accountId: #, $or: [ { status: { $exists: 0 } }, { status: # } ] }", ID, "ACCEPTED"),
+      new QueryShape("organization_memberships", "{ accountId: #, admin: true, $or: [ { status: { $exists: 0 } }, { status: # } ] }", ID, "ACCEPTED"),
+      new QueryShape("organization_memberships", "{ email: #, organizationId: #, status: # }", ID, ID, "PENDING"),
+      // JongoScopeRepository
+      new QueryShape("scopes", "{ id: # }", ID),
+      new QueryShape("scopes", "{ id: { $in: # } }", IDS),
+      new QueryShape("scopes", "{ instance_id: # }", ID),
+      new QueryShape("scopes", "{ instance_id: { $in: # } }", IDS),
+      new QueryShape("scopes", "{ instance_id: #, local_id: { $nin: # } }", ID, IDS),
+      // JongoServiceRepository
+      new QueryShape("services", "{ id: # }", ID),
+      new QueryShape("services", "{ instance_id: # }", ID),
+      new QueryShape("services", "{ instance_id: #, redirect_uris: # }", ID, ID),
+      new QueryShape("services", "{ instance_id: #, post_logout_redirect_uris: # }", ID, ID),
+      // JongoSubscriptionRepository
+      new QueryShape("subscriptions", "{ id: # }", ID),
+      new QueryShape("subscriptions", "{ eventType: # }", ID),
+      new QueryShape("subscriptions", "{ instance_id: # }", ID),
+      // JongoTokenRepository
+      new QueryShape("tokens", "{ id: # }", ID),
+      new QueryShape("tokens", "{ id: { $in: # } }", IDS),
+      new QueryShape("tokens", "{ $or: [ { id: # }, { ancestorIds: # } ] }", ID, ID),
+      new QueryShape("tokens", "{ ancestorIds: # }", ID),
+      new QueryShape("tokens", "{ accountId: # }", ID),
+      new QueryShape("tokens", "{ accountId: #, _type: # }", ID, ID),
+      new QueryShape("tokens", "{ serviceProviderId: # }", ID),
+      new QueryShape("tokens", "{ scopeIds: { $in: # } }", IDS),
+      new QueryShape("tokens", "{ organizationMembershipId: # }", ID),
+      new QueryShape("tokens", "{ aceId: # }", ID),
+      // JongoUserSubscriptionRepository
+      new QueryShape("user_subscriptions", "{ id: # }", ID),
+      new QueryShape("user_subscriptions", "{ user_id: # }", ID),
+      new QueryShape("user_subscriptions", "{ service_id: # }", ID),
+      new QueryShape("user_subscriptions", "{ service_id: { $in: # } }", IDS),
+      // JongoJtiRepository only ever inserts, relying on the unique index on id.
+      new QueryShape("used_jtis", "{ id: # }", ID)
+  );
+
+  public static void main(String[] args) throws Throwable {
+    new AuditIndexes().run(args);
+  }
+
+  @Inject JongoService jongoService;
+
+  @Override
+  protected Logger logger() {
+    return LoggerFactory.getLogger(AuditIndexes.class);
+  }
+
+  public void run(String[] args) throws Throwable {
+    final Config config = init(args);
+
+    final Injector injector = Guice.createInjector(
+        JongoModule.create(config.getConfig("oasis.mongo")),
+        // TODO: store PKIs in DB to use a single subtree of the config
+        AuthModule.create(config.getConfig("oasis.auth")
+            .withFallback(config.withOnlyPath("oasis.conf-dir")))
+    );
+
+    injector.injectMembers(this);
+
+    final List<QueryShape> collectionScans = new ArrayList<>();
+    // Starting the service runs all the JongoBootstrappers, so indexes are up-to-date.
+    jongoService.start();
+    try {
+      Jongo jongo = jongoService.get();
+      for (QueryShape shape : QUERY_SHAPES) {
+        DBObject query = jongo.createQuery(shape.query, shape.parameters).toDBObject();
+        DBObject explain = jongo.getDatabase().getCollection(shape.collection).find(query).explain();
+        Object winningPlan = explain.containsField("queryPlanner")
+            ? ((DBObject) explain.get("queryPlanner")).get("winningPlan")
+            : null;
+        if (winningPlan == null) {
+          logger().warn("No query plan for {} on {}: {}", shape.query, shape.collection, explain);
+        } else if (isCollectionScan(winningPlan)) {
+          logger().error("COLLSCAN: {} on {}", shape.query, shape.collection);
+          collectionScans.add(shape);
+        } else {
+          logger().debug("OK: {} on {}", shape.query, shape.collection);
+        }
+      }
+    } finally {
+      jongoService.stop();
+    }
+
+    if (!collectionScans.isEmpty()) {
+      logger().error("{} query shape(s) out of {} resolve to a collection scan", collectionScans.size(), QUERY_SHAPES.size());
+      System.exit(1);
+    }
+    logger().info("All {} query shapes use an index", QUERY_SHAPES.size());
+  }
+
+  /**
+   * Returns the query shapes that cannot use any of the given indexes.
+   * <p>
+   * This approximates the query planner: a query can use an index if it constrains the index's first field,
+   * and a top-level {@code $or} can use indexes if each of its clauses can.
+   *
+   * @param indexes the key patterns of each collection's indexes, as passed to {@code ensureIndex}
+   */
+  static List<QueryShape> findUnindexedShapes(Jongo jongo, Multimap<String, String> indexes) {
+    final List<QueryShape> unindexed = new ArrayList<>();
+    for (QueryShape shape : QUERY_SHAPES) {
+      List<String> leadingFields = new ArrayList<>();
+      for (String keys : indexes.get(shape.collection)) {
+        leadingFields.add(Iterables.getFirst(jongo.createQuery(keys).toDBObject().keySet(), null));
+      }
+      if (!canUseIndex(jongo.createQuery(shape.query, shape.parameters).toDBObject(), leadingFields)) {
+        unindexed.add(shape);
+      }
+    }
+    return unindexed;
+  }
+
+  private static boolean canUseIndex(DBObject query, Collection<String> leadingFields) {
+    boolean hasFields = false;
+    for (String field : query.keySet()) {
+      if (field.startsWith("$")) {
+        continue;
+      }
+      if (leadingFields.contains(field)) {
+        return true;
+      }
+      hasFields = true;
+    }
+    Object or = query.get("$or");
+    if (hasFields || !(or instanceof List)) {
+      return false;
+    }
+    for (Object clause : (List<?>) or) {
+      if (!(clause instanceof DBObject) || !canUseIndex((DBObject) clause, leadingFields)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isCollectionScan(Object plan) {
+    if (plan instanceof List) {
+      for (Object subPlan : (List<?>) plan) {
+        if (isCollectionScan(subPlan)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if (!(plan instanceof DBObject)) {
+      return false;
+    }
+    DBObject stage = (DBObject) plan;
+    return "COLLSCAN".equals(stage.get("stage"))
+        || isCollectionScan(stage.get("inputStage"))
+        || isCollectionScan(stage.get("inputStages"));
+  }
+
+  static class QueryShape {
+    final String collection;
+    final String query;
+    final Object[] parameters;
+
+    QueryShape(String collection, String query, Object... parameters) {
+      this.collection = collection;
+      this.query = query;
+      this.parameters = parameters;
+    }
+
+    @Override
+    public String toString() {
+      return query + " on " + collection;
+    }
+  }
+}
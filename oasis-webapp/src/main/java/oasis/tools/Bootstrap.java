@@ -36,6 +36,7 @@ import oasis.auth.AuthModule;
 import oasis.jongo.JongoService;
 import oasis.jongo.applications.v2.JongoAppInstance;
 import oasis.jongo.applications.v2.JongoAppInstanceRepository;
+import oasis.jongo.applications.v2.JongoApplicationRepository;
 import oasis.jongo.applications.v2.JongoServiceRepository;
 import oasis.jongo.guice.JongoModule;
 import oasis.model.accounts.AccountRepository;
@@ -110,7 +111,8 @@ public class Bootstrap extends CommandLineTool {
         new AbstractModule() {
           @Override
           protected void configure() {
-            // ServiceRepository is generally bound through CatalogModule
+            // ApplicationRepository and ServiceRepository are generally bound through CatalogModule
+            bind(ApplicationRepository.class).to(JongoApplicationRepository.class);
             bind(ServiceRepository.class).to(JongoServiceRepository.class);
           }
         },
@@ -37,7 +37,6 @@ import oasis.jest.JestService;
 import oasis.jest.guice.JestModule;
 import oasis.jongo.JongoService;
 import oasis.jongo.guice.JongoModule;
-import oasis.model.applications.v2.AppInstance;
 import oasis.model.applications.v2.AppInstanceRepository;
 import oasis.soy.SoyGuiceModule;
 import oasis.urls.UrlsModule;
@@ -172,6 +171,7 @@ public class DeleteAppInstance extends CommandLineTool {
       logger().info("    Deleted {} subscriptions for all services", stats.subscriptionsDeleted);
       logger().info("    Deleted {} services", stats.servicesDeleted);
       logger().info("    Deleted {} eventbus hooks", stats.eventBusHooksDeleted);
+      logger().info("    Deleted {} pending eventbus deliveries", stats.eventDeliveriesDeleted);
     }
 
     logger().info("    Instance {} deleted.", instance_id);
@@ -179,8 +179,8 @@ public class DeleteAppInstance extends CommandLineTool {
 
   private int deleteByCreatorId() {
     int n = 0;
-    for (AppInstance instance : appInstanceRepositoryProvider.get().findPersonalInstancesByUserId(creator_id)) {
-      deleteInstance(instance.getId());
+    for (String instanceId : appInstanceRepositoryProvider.get().findPersonalInstanceIdsByUserId(creator_id)) {
+      deleteInstance(instanceId);
       n++;
     }
     return n;
@@ -188,8 +188,8 @@ public class DeleteAppInstance extends CommandLineTool {
 
   private int deleteByOrganizationId() {
     int n = 0;
-    for (AppInstance instance : appInstanceRepositoryProvider.get().findByOrganizationId(organization_id)) {
-      deleteInstance(instance.getId());
+    for (String instanceId : appInstanceRepositoryProvider.get().findIdsByOrganizationId(organization_id)) {
+      deleteInstance(instanceId);
       n++;
     }
     return n;
@@ -197,8 +197,8 @@ public class DeleteAppInstance extends CommandLineTool {
 
   private int deleteByApplicationId() {
     int n = 0;
-    for (AppInstance instance : appInstanceRepositoryProvider.get().getInstancesForApplication(application_id)) {
-      deleteInstance(instance.getId());
+    for (String instanceId : appInstanceRepositoryProvider.get().getInstanceIdsForApplication(application_id)) {
+      deleteInstance(instanceId);
       n++;
     }
     return n;
@@ -30,6 +30,7 @@ import com.google.inject.Injector;
 import com.typesafe.config.Config;
 
 import oasis.auth.AuthModule;
+import oasis.catalog.CatalogModule;
 import oasis.elasticsearch.ElasticsearchModule;
 import oasis.http.HttpClientModule;
 import oasis.jest.JestService;
@@ -72,6 +73,7 @@ public class IndexApplication extends CommandLineTool {
         JongoModule.create(config.getConfig("oasis.mongo")),
         ElasticsearchModule.create(config.getConfig("oasis.elasticsearch")),
         new JestModule(),
+        new CatalogModule(),
         HttpClientModule.create(config.getConfig("oasis.http.client")),
         // TODO: store PKIs in DB to use a single subtree of the config
         AuthModule.create(config.getConfig("oasis.auth")
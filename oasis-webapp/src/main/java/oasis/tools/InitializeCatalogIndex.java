@@ -52,6 +52,9 @@ public class InitializeCatalogIndex extends CommandLineTool {
   @Option(name = "-n", aliases = "--dry-run")
   private boolean dryRun;
 
+  @Option(name = "--recreate", usage = "Delete and recreate the index (e.g. after its mappings changed) before indexing")
+  private boolean recreate;
+
   @Inject JestService jestService;
   @Inject JongoService jongoService;
   @Inject Provider<JestCatalogEntryRepository> jestCatalogEntryRepositoryProvider;
@@ -84,6 +87,13 @@ public class InitializeCatalogIndex extends CommandLineTool {
     jestService.start();
 
     try {
+      if (recreate) {
+        logger().info("Recreating the catalog index ...");
+        if (!dryRun) {
+          jestCatalogEntryRepositoryProvider.get().recreateIndex();
+        }
+      }
+
       Iterable<? extends CatalogEntry> applications = jongoApplicationRepositoryProvider.get().getAllInCatalog();
       Iterable<? extends CatalogEntry> services = jongoServiceRepositoryProvider.get().getAllInCatalog();
 
@@ -158,6 +158,7 @@ public class PurgeDeletedAppInstance extends CommandLineTool {
       logger().info("    Deleted {} subscriptions for all services", stats.subscriptionsDeleted);
       logger().info("    Deleted {} services", stats.servicesDeleted);
       logger().info("    Deleted {} eventbus hooks", stats.eventBusHooksDeleted);
+      logger().info("    Deleted {} pending eventbus deliveries", stats.eventDeliveriesDeleted);
     }
   }
 
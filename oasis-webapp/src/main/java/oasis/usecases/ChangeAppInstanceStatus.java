@@ -38,7 +38,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.template.soy.data.SanitizedContent;
 import com.ibm.icu.util.ULocale;
 
-import net.ltgt.jaxrs.webhook.client.WebhookSignatureFilter;
+import oasis.http.WebhookSignatures;
 import oasis.model.InvalidVersionException;
 import oasis.model.accounts.AccountRepository;
 import oasis.model.applications.v2.AppInstance;
@@ -130,10 +130,9 @@ public class ChangeAppInstanceStatus {
           .build();
       // It doesn't matter if this request has failed or not, the provider is just notified
       // He is the only one who should care about the final result
-      clientProvider.get()
+      WebhookSignatures.sign(clientProvider.get()
           .target(instance.getStatus_changed_uri())
-          .register(new WebhookSignatureFilter(instance.getStatus_changed_secret()))
-          .request()
+          .request(), instance.getStatus_changed_secret())
           .async()
           .post(Entity.json(providerRequest), new InvocationCallback<javax.ws.rs.core.Response>() {
             @Override
@@ -179,29 +178,30 @@ public class ChangeAppInstanceStatus {
     notificationPrototype.setTime(Instant.now());
     notificationPrototype.setStatus(Notification.Status.UNREAD);
 
-    appAdminHelper.getAdmins(instance).forEach(adminId -> {
-      try {
-        Notification notification = new Notification(notificationPrototype);
-        for (ULocale locale : LocaleHelper.SUPPORTED_LOCALES) {
-
-          ULocale messageLocale = locale;
-          if (LocaleHelper.DEFAULT_LOCALE.equals(locale)) {
-            messageLocale = ULocale.ROOT;
-          }
-          notification.getMessage().set(messageLocale, templateRenderer.renderAsString(new SoyTemplate(
-              ChangedAppInstanceStatusSoyInfo.RESTORED_APP_INSTANCE_MESSAGE, locale, SanitizedContent.ContentKind.TEXT,
-              ImmutableMap.of(
-                  RestoredAppInstanceMessageSoyTemplateInfo.APP_INSTANCE_NAME, instance.getName().get(locale)
-              ))));
+    try {
+      for (ULocale locale : LocaleHelper.SUPPORTED_LOCALES) {
+        ULocale messageLocale = locale;
+        if (LocaleHelper.DEFAULT_LOCALE.equals(locale)) {
+          messageLocale = ULocale.ROOT;
         }
-        notification.setUser_id(adminId);
-        notificationRepository.createNotification(notification);
-      } catch (Exception e) {
+        notificationPrototype.getMessage().set(messageLocale, templateRenderer.renderAsString(new SoyTemplate(
+            ChangedAppInstanceStatusSoyInfo.RESTORED_APP_INSTANCE_MESSAGE, locale, SanitizedContent.ContentKind.TEXT,
+            ImmutableMap.of(
+                RestoredAppInstanceMessageSoyTemplateInfo.APP_INSTANCE_NAME, instance.getName().get(locale)
+            ))));
+      }
+      NotificationRepository.FanOutResult result = notificationRepository.createNotifications(notificationPrototype,
+          appAdminHelper.getAdmins(instance));
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
         // Don't fail if we can't notify
-        logger.error("Error notifying app admin {} after the user {} has stopped the instance {}", adminId, requesterId,
-            instance.getName().get(ULocale.ROOT), e);
+        logger.error("Error notifying app admins {} after the user {} has restored the instance {}", failure.userIds, requesterId,
+            instance.getName().get(ULocale.ROOT), failure.cause);
       }
-    });
+    } catch (Exception e) {
+      // Don't fail if we can't notify
+      logger.error("Error notifying app admins after the user {} has restored the instance {}", requesterId,
+          instance.getName().get(ULocale.ROOT), e);
+    }
   }
 
   private void notifyAdminsForStoppedInstance(String requesterId, AppInstance instance, Urls urls) {
@@ -238,19 +238,19 @@ public class ChangeAppInstanceStatus {
       notificationPrototype.getAction_uri().set(ULocale.ROOT, urls.myApps().map(URI::toString).orElse(null));
     }
 
-    appAdminHelper.getAdmins(instance)
-        .filter(Predicate.isEqual(requesterId).negate())
-        .forEach(adminId -> {
-          try {
-            Notification notification = new Notification(notificationPrototype);
-            notification.setUser_id(adminId);
-            notificationRepository.createNotification(notification);
-          } catch (Exception e) {
-            // Don't fail if we can't notify
-            logger.error("Error notifying app admin {} after the user {} has stopped the instance {}", adminId, requesterId,
-                instance.getName().get(ULocale.ROOT), e);
-          }
-        });
+    try {
+      NotificationRepository.FanOutResult result = notificationRepository.createNotifications(notificationPrototype,
+          appAdminHelper.getAdmins(instance).filter(Predicate.isEqual(requesterId).negate()));
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
+        // Don't fail if we can't notify
+        logger.error("Error notifying app admins {} after the user {} has stopped the instance {}", failure.userIds, requesterId,
+            instance.getName().get(ULocale.ROOT), failure.cause);
+      }
+    } catch (Exception e) {
+      // Don't fail if we can't notify
+      logger.error("Error notifying app admins after the user {} has stopped the instance {}", requesterId,
+          instance.getName().get(ULocale.ROOT), e);
+    }
   }
 
   private void notifyRequesterForStoppedInstance(String requesterId, AppInstance instance, Urls urls) {
@@ -19,6 +19,7 @@ package oasis.usecases;
 
 import java.net.URI;
 import java.time.Instant;
+import java.util.function.Predicate;
 
 import javax.inject.Inject;
 import javax.ws.rs.core.Context;
@@ -29,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Streams;
 import com.google.template.soy.data.SanitizedContent;
 import com.ibm.icu.util.ULocale;
 
@@ -161,19 +163,18 @@ public class ChangeOrganizationStatus {
     }
 
     Iterable<OrganizationMembership> admins = organizationMembershipRepository.getAdminsOfOrganization(organization.getId());
-    for (OrganizationMembership admin : admins) {
-      if (admin.getAccountId().equals(requesterId)) {
-        continue;
-      }
-
-      try {
-        Notification notification = new Notification(notificationPrototype);
-        notification.setUser_id(admin.getAccountId());
-        notificationRepository.createNotification(notification);
-      } catch (Exception e) {
+    try {
+      NotificationRepository.FanOutResult result = notificationRepository.createNotifications(notificationPrototype,
+          Streams.stream(admins)
+              .map(OrganizationMembership::getAccountId)
+              .filter(Predicate.isEqual(requesterId).negate()));
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
         // Don't fail if we can't notify
-        logger.error("Error notifying app admin {} after the requester {} has stopped the instance {}", admin.getAccountId(), requesterId, organization.getName(), e);
+        logger.error("Error notifying admins {} after the requester {} has stopped the organization {}", failure.userIds, requesterId, organization.getName(), failure.cause);
       }
+    } catch (Exception e) {
+      // Don't fail if we can't notify
+      logger.error("Error notifying admins after the requester {} has stopped the organization {}", requesterId, organization.getName(), e);
     }
   }
 
@@ -226,15 +227,16 @@ public class ChangeOrganizationStatus {
     }
 
     Iterable<OrganizationMembership> admins = organizationMembershipRepository.getAdminsOfOrganization(organization.getId());
-    for (OrganizationMembership admin : admins) {
-      try {
-        Notification notification = new Notification(notificationPrototype);
-        notification.setUser_id(admin.getAccountId());
-        notificationRepository.createNotification(notification);
-      } catch (Exception e) {
+    try {
+      NotificationRepository.FanOutResult result = notificationRepository.createNotifications(notificationPrototype,
+          Streams.stream(admins).map(OrganizationMembership::getAccountId));
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
         // Don't fail if we can't notify
-        logger.error("Error notifying app user {} after restoring the instance {}", admin.getAccountId(), organization.getName(), e);
+        logger.error("Error notifying admins {} after restoring the organization {}", failure.userIds, organization.getName(), failure.cause);
       }
+    } catch (Exception e) {
+      // Don't fail if we can't notify
+      logger.error("Error notifying admins after restoring the organization {}", organization.getName(), e);
     }
   }
 
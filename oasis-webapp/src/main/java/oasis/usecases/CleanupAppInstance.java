@@ -30,6 +30,7 @@ import oasis.model.applications.v2.ServiceRepository;
 import oasis.model.applications.v2.UserSubscriptionRepository;
 import oasis.model.authn.TokenRepository;
 import oasis.model.authz.AuthorizationRepository;
+import oasis.model.eventbus.EventDeliveryRepository;
 import oasis.model.eventbus.SubscriptionRepository;
 
 public class CleanupAppInstance {
@@ -40,6 +41,7 @@ public class CleanupAppInstance {
   @Inject ServiceRepository serviceRepository;
   @Inject UserSubscriptionRepository userSubscriptionRepository;
   @Inject SubscriptionRepository subscriptionRepository;
+  @Inject EventDeliveryRepository eventDeliveryRepository;
 
   public void cleanupInstance(String instance_id, Stats stats) {
     stats.tokensRevokedForInstance = tokenRepository.revokeTokensForClient(instance_id);
@@ -63,6 +65,7 @@ public class CleanupAppInstance {
     stats.servicesDeleted = serviceRepository.deleteServicesOfInstance(instance_id);
 
     stats.eventBusHooksDeleted = subscriptionRepository.deleteSubscriptionsForAppInstance(instance_id);
+    stats.eventDeliveriesDeleted = eventDeliveryRepository.deleteDeliveriesForAppInstance(instance_id);
   }
 
   @NotThreadSafe
@@ -76,6 +79,7 @@ public class CleanupAppInstance {
     public int subscriptionsDeleted;
     public int servicesDeleted;
     public int eventBusHooksDeleted;
+    public int eventDeliveriesDeleted;
 
     public boolean isEmpty() {
       return tokensRevokedForInstance == 0
@@ -86,7 +90,8 @@ public class CleanupAppInstance {
           && appUsersDeleted == 0
           && subscriptionsDeleted == 0
           && servicesDeleted == 0
-          && eventBusHooksDeleted == 0;
+          && eventBusHooksDeleted == 0
+          && eventDeliveriesDeleted == 0;
     }
   }
 }
@@ -19,11 +19,11 @@ package oasis.usecases;
 
 import static java.util.Objects.requireNonNull;
 
+import java.net.SocketTimeoutException;
 import java.time.Instant;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
@@ -40,20 +40,22 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.template.soy.data.SanitizedContent;
 import com.ibm.icu.util.ULocale;
 
-import net.ltgt.jaxrs.webhook.client.WebhookSignatureFilter;
+import oasis.http.AsyncInvocations;
+import oasis.http.WebhookSignatures;
 import oasis.model.InvalidVersionException;
 import oasis.model.applications.v2.AppInstance;
 import oasis.model.applications.v2.AppInstanceRepository;
 import oasis.model.applications.v2.Application;
 import oasis.model.applications.v2.ApplicationRepository;
 import oasis.model.authn.ClientType;
-import oasis.model.authn.CredentialsRepository;
 import oasis.model.notification.Notification;
 import oasis.model.notification.NotificationRepository;
+import oasis.services.authn.CredentialsService;
 import oasis.services.authz.AppAdminHelper;
 import oasis.services.etag.EtagService;
 import oasis.soy.SoyTemplate;
@@ -69,43 +71,64 @@ public class DeleteAppInstance {
   @Inject Provider<Client> clientProvider;
   @Inject AppInstanceRepository appInstanceRepository;
   @Inject ApplicationRepository applicationRepository;
-  @Inject CredentialsRepository credentialsRepository;
+  @Inject CredentialsService credentialsService;
   @Inject NotificationRepository notificationRepository;
   @Inject AppAdminHelper appAdminHelper;
   @Inject CleanupAppInstance cleanupAppInstance;
   @Inject EtagService etagService;
   @Inject SoyTemplateRenderer templateRenderer;
 
+  /**
+   * Deletes the instance, waiting for the provider to respond if {@link Request#callProvider} is {@code true}.
+   *
+   * @see #deleteInstanceAsync
+   */
   public Status deleteInstance(Request request, Stats stats) {
+    try {
+      return deleteInstanceAsync(request, stats).toCompletableFuture().join();
+    } catch (CompletionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  /**
+   * Deletes the instance without blocking on the provider: if {@link Request#callProvider} is {@code true}, the
+   * deletion proceeds from the HTTP client callback once the provider has responded.
+   */
+  public CompletionStage<Status> deleteInstanceAsync(Request request, Stats stats) {
     requireNonNull(request);
     requireNonNull(stats);
 
-    AppInstance appInstance = null;
-    Stream<String> adminIds = null;
-    if (request.callProvider() || request.checkStatus() != null || request.notifyAdmins()) {
-      appInstance = appInstanceRepository.getAppInstance(request.instanceId());
-      if (appInstance != null) {
-        if (request.checkVersions() != null && !etagService.hasEtag(appInstance, request.checkVersions())) {
-          return Status.BAD_INSTANCE_VERSION;
-        }
-        if (request.checkStatus() != null) {
-          @Nullable Status status = checkStatus(appInstance, request.checkStatus());
-          if (status != null) {
-            return status;
-          }
-        }
-        if (request.callProvider()) {
-          @Nullable Status status = callProvider(appInstance);
-          if (status != null) {
-            return status;
-          }
-        }
-        if (request.notifyAdmins()) {
-          adminIds = appAdminHelper.getAdmins(appInstance);
-        }
+    if (!(request.callProvider() || request.checkStatus() != null || request.notifyAdmins())) {
+      return CompletableFuture.completedFuture(doDeleteInstance(request, stats, null, null));
+    }
+    AppInstance appInstance = appInstanceRepository.getAppInstance(request.instanceId());
+    if (appInstance == null) {
+      return CompletableFuture.completedFuture(doDeleteInstance(request, stats, null, null));
+    }
+    if (request.checkVersions() != null && !etagService.hasEtag(appInstance, request.checkVersions())) {
+      return CompletableFuture.completedFuture(Status.BAD_INSTANCE_VERSION);
+    }
+    if (request.checkStatus() != null) {
+      @Nullable Status status = checkStatus(appInstance, request.checkStatus());
+      if (status != null) {
+        return CompletableFuture.completedFuture(status);
       }
     }
+    CompletionStage<Status> providerStatus = request.callProvider()
+        ? callProvider(appInstance)
+        : CompletableFuture.completedFuture(null);
+    return providerStatus.thenApply(status -> {
+      if (status != null) {
+        return status;
+      }
+      Stream<String> adminIds = request.notifyAdmins() ? appAdminHelper.getAdmins(appInstance) : null;
+      return doDeleteInstance(request, stats, appInstance, adminIds);
+    });
+  }
 
+  private Status doDeleteInstance(Request request, Stats stats, @Nullable AppInstance appInstance, @Nullable Stream<String> adminIds) {
     // XXX: we first delete the instance, then all the orphan data: ACL, services, scopes, etc.
     // Only use checkVersions if we haven't issued a request to the provider yet!
     if (request.checkVersions() != null && !request.callProvider() && request.checkStatus() == null) {
@@ -118,7 +141,7 @@ public class DeleteAppInstance {
     } else {
       stats.appInstanceDeleted = appInstanceRepository.deleteInstance(request.instanceId());
     }
-    stats.credentialsDeleted = credentialsRepository.deleteCredentials(ClientType.PROVIDER, request.instanceId());
+    stats.credentialsDeleted = credentialsService.deleteCredentials(ClientType.PROVIDER, request.instanceId());
 
     cleanupAppInstance.cleanupInstance(request.instanceId(), stats);
 
@@ -134,7 +157,8 @@ public class DeleteAppInstance {
     return Status.DELETED_LEFTOVERS;
   }
 
-  private @Nullable Status callProvider(AppInstance appInstance) {
+  /** Completes with {@code null} if the instance can be deleted, or the error status otherwise. */
+  private CompletionStage<Status> callProvider(AppInstance appInstance) {
     String endpoint, secret;
     switch (appInstance.getStatus()) {
       case RUNNING:
@@ -147,7 +171,7 @@ public class DeleteAppInstance {
         Application app = applicationRepository.getApplication(appInstance.getApplication_id());
         if (app == null) {
           // XXX: what should we do here? For now fall through and delete the instance, so it will be impossible to provision it.
-          return null;
+          return CompletableFuture.completedFuture(null);
         }
         endpoint = app.getCancellation_uri();
         secret = app.getCancellation_secret();
@@ -155,31 +179,33 @@ public class DeleteAppInstance {
       }
     }
     // FIXME: temporarily allow empty destruction_uri
-    if (!Strings.isNullOrEmpty(endpoint)) {
-      Future<Response> future = clientProvider.get()
-          .target(endpoint)
-          .register(new WebhookSignatureFilter(secret))
-          .request()
-          .async()
-          .post(Entity.json(new ProviderRequest(appInstance.getId())));
-      try {
-        // TODO: make timeout configurable
-        Response response = future.get(1, TimeUnit.MINUTES);
-        try {
-          if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
-            return Status.PROVIDER_STATUS_ERROR;
-          }
-        } finally {
-          response.close();
-        }
-      } catch (InterruptedException | ExecutionException e) {
-        // FIXME: check that wrapped exception is not a ResponseProcessingException
-        return Status.PROVIDER_CALL_ERROR;
-      } catch (TimeoutException e) {
-        // Ignore timeouts and fall through (delete the instance)
-      }
+    if (Strings.isNullOrEmpty(endpoint)) {
+      return CompletableFuture.completedFuture(null);
     }
-    return null;
+    return AsyncInvocations.post(
+        WebhookSignatures.sign(clientProvider.get()
+            .target(endpoint)
+            .request(), secret)
+            .async(),
+        Entity.json(new ProviderRequest(appInstance.getId())))
+        .handle((response, e) -> {
+          if (e != null) {
+            if (Throwables.getCausalChain(e).stream().anyMatch(SocketTimeoutException.class::isInstance)) {
+              // Ignore timeouts and fall through (delete the instance)
+              return null;
+            }
+            // FIXME: check that wrapped exception is not a ResponseProcessingException
+            return Status.PROVIDER_CALL_ERROR;
+          }
+          try {
+            if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+              return Status.PROVIDER_STATUS_ERROR;
+            }
+          } finally {
+            response.close();
+          }
+          return null;
+        });
   }
 
   private void notifyAdmins(AppInstance appInstance, Stream<String> adminIds) {
@@ -199,16 +225,17 @@ public class DeleteAppInstance {
           DeletedAppInstanceSoyInfo.DELETED_APP_INSTANCE_MESSAGE, locale, SanitizedContent.ContentKind.TEXT, data)));
     }
 
-    adminIds.forEach(adminId -> {
-      try {
-        Notification notification = new Notification(notificationPrototype);
-        notification.setUser_id(adminId);
-        notificationRepository.createNotification(notification);
-      } catch (Exception e) {
+    try {
+      NotificationRepository.FanOutResult result = notificationRepository.createNotifications(notificationPrototype, adminIds);
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
         // Don't fail if we can't notify
-        logger.error("Error notifying admin {} after deleting the instance {}", adminId, appInstance.getName().get(ULocale.ROOT), e);
+        logger.error("Error notifying admins {} after deleting the instance {}", failure.userIds, appInstance.getName().get(ULocale.ROOT),
+            failure.cause);
       }
-    });
+    } catch (Exception e) {
+      // Don't fail if we can't notify
+      logger.error("Error notifying admins after deleting the instance {}", appInstance.getName().get(ULocale.ROOT), e);
+    }
   }
 
   private @Nullable Status checkStatus(AppInstance appInstance, AppInstance.InstantiationStatus checkStatus) {
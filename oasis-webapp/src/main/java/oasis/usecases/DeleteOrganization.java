@@ -33,7 +33,6 @@ import com.google.common.collect.ImmutableMap;
 import com.google.template.soy.data.SanitizedContent;
 import com.ibm.icu.util.ULocale;
 
-import oasis.model.applications.v2.AppInstance;
 import oasis.model.applications.v2.AppInstanceRepository;
 import oasis.model.directory.DirectoryRepository;
 import oasis.model.directory.Organization;
@@ -80,10 +79,10 @@ public class DeleteOrganization {
 
     ResponseStatus responseStatus = ResponseStatus.SUCCESS;
 
-    Iterable<AppInstance> appInstances = appInstanceRepository.findByOrganizationId(request.organizationId());
-    for (AppInstance appInstance : appInstances) {
+    Iterable<String> appInstanceIds = appInstanceRepository.findIdsByOrganizationId(request.organizationId());
+    for (String appInstanceId : appInstanceIds) {
       ImmutableDeleteAppInstance.Request deleteAppInstanceRequest = ImmutableDeleteAppInstance.Request.builder()
-          .instanceId(appInstance.getId())
+          .instanceId(appInstanceId)
           .callProvider(true)
           .checkStatus(null)
           .checkVersions(null)
@@ -134,15 +133,16 @@ public class DeleteOrganization {
           DeletedOrganizationSoyInfo.DELETED_ORGANIZATION_MESSAGE, locale, SanitizedContent.ContentKind.TEXT, data)));
     }
 
-    for (OrganizationMembership admin : admins) {
-      try {
-        Notification notification = new Notification(notificationPrototype);
-        notification.setUser_id(admin.getAccountId());
-        notificationRepository.createNotification(notification);
-      } catch (Exception e) {
+    try {
+      NotificationRepository.FanOutResult result = notificationRepository.createNotifications(notificationPrototype,
+          admins.stream().map(OrganizationMembership::getAccountId));
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
         // Don't fail if we can't notify
-        logger.error("Error notifying admin {} after deleting the organization {}", admin.getAccountId(), organizationName, e);
+        logger.error("Error notifying admins {} after deleting the organization {}", failure.userIds, organizationName, failure.cause);
       }
+    } catch (Exception e) {
+      // Don't fail if we can't notify
+      logger.error("Error notifying admins after deleting the organization {}", organizationName, e);
     }
   }
 
@@ -71,6 +71,7 @@ import oasis.web.authz.RevokeEndpoint;
 import oasis.web.authz.TokenEndpoint;
 import oasis.web.branding.Logo;
 import oasis.web.eventbus.EventBusEndpoint;
+import oasis.web.memo.RequestMemoFilter;
 import oasis.web.notifications.NotificationEndpoint;
 import oasis.web.openidconnect.OpenIdProviderConfigurationEndpoint;
 import oasis.web.providers.JacksonJsonProvider;
@@ -78,6 +79,9 @@ import oasis.web.providers.LocaleParamConverterProvider;
 import oasis.web.providers.UriParamConverterProvider;
 import oasis.web.security.SecureFilter;
 import oasis.web.security.StrictRefererFeature;
+import oasis.web.status.MetricsAuthenticationFilter;
+import oasis.web.status.MetricsEndpoint;
+import oasis.web.status.MetricsFilter;
 import oasis.web.status.StatusEndpoint;
 import oasis.web.userdirectory.MembershipEndpoint;
 import oasis.web.userdirectory.MembershipInvitationPage;
@@ -105,6 +109,9 @@ public class Application extends javax.ws.rs.core.Application {
         SoyTemplateBodyWriter.class,
         // Status
         StatusEndpoint.class,
+        MetricsEndpoint.class,
+        MetricsAuthenticationFilter.class,
+        MetricsFilter.class,
         // Authentication
         UserCanonicalBaseUriFilter.class,
         UserFilter.class,
@@ -146,6 +153,8 @@ public class Application extends javax.ws.rs.core.Application {
         // AuditLog
         AuditLogEndpoint.class,
         HttpInterceptor.class,
+        // Request-scoped repository reads
+        RequestMemoFilter.class,
         // Notification
         NotificationEndpoint.class,
         // EventBus
@@ -0,0 +1,194 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+import oasis.web.utils.ResponseFactory;
+
+/**
+ * Registry of the static resources served from the classpath.
+ *
+ * <p>Each resource is read once, along with its gzipped variant (for text-based formats) and the content hashes
+ * used as ETags; it's then served from memory, answering conditional requests with {@code 304 Not Modified}.
+ */
+@Singleton
+public class StaticAssets {
+  // Static resources are served at stable URLs, so they're revalidated (using the ETag) once a day.
+  private static final CacheControl CACHE_CONTROL = CacheControl.valueOf("public, max-age=" + TimeUnit.DAYS.toSeconds(1));
+  private static final ImmutableSet<String> COMPRESSIBLE_EXTENSIONS = ImmutableSet.of(
+      "css", "html", "ico", "js", "json", "svg", "ttf", "xml");
+  private static final String GZIP = "gzip";
+  private static final Splitter COMMA_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+  private static final Splitter SEMICOLON_SPLITTER = Splitter.on(';').trimResults();
+
+  private final ConcurrentMap<String, Asset> assets = new ConcurrentHashMap<>();
+
+  public Response getResource(Request request, HttpHeaders headers, String resourceName) throws IOException {
+    Asset asset = getAsset(resourceName);
+    if (asset == null) {
+      return ResponseFactory.NOT_FOUND;
+    }
+
+    boolean gzip = asset.gzipped != null && acceptsGzip(headers.getRequestHeader(HttpHeaders.ACCEPT_ENCODING));
+    EntityTag etag = gzip ? asset.gzippedEtag : asset.etag;
+    Response.ResponseBuilder response = asset.lastModified == null
+        ? request.evaluatePreconditions(etag)
+        : request.evaluatePreconditions(asset.lastModified, etag);
+    if (response == null) {
+      response = Response.ok().entity(gzip ? asset.gzipped : asset.bytes);
+      if (asset.lastModified != null) {
+        response = response.lastModified(asset.lastModified);
+      }
+      if (gzip) {
+        response = response.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+      }
+    }
+    if (asset.gzipped != null) {
+      response = response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+    return response
+        .tag(etag)
+        .cacheControl(CACHE_CONTROL)
+        .build();
+  }
+
+  @Nullable
+  private Asset getAsset(String resourceName) throws IOException {
+    Asset asset = assets.get(resourceName);
+    if (asset != null) {
+      return asset;
+    }
+    // Only cache resources that actually exist, and guard against unbounded growth through equivalent names.
+    if (resourceName.contains("..") || resourceName.contains("//")) {
+      return null;
+    }
+    final URL resource;
+    try {
+      resource = Resources.getResource(resourceName);
+    } catch (IllegalArgumentException iae) {
+      return null;
+    }
+    asset = Asset.load(resourceName, resource);
+    Asset previous = assets.putIfAbsent(resourceName, asset);
+    return previous != null ? previous : asset;
+  }
+
+  static boolean acceptsGzip(@Nullable List<String> acceptEncodings) {
+    if (acceptEncodings == null) {
+      return false;
+    }
+    // An explicit gzip entry takes precedence over the * wildcard, whatever their order (RFC 7231, section 5.3.4)
+    Boolean gzipAccepted = null;
+    Boolean wildcardAccepted = null;
+    for (String acceptEncoding : acceptEncodings) {
+      for (String coding : COMMA_SPLITTER.split(acceptEncoding)) {
+        List<String> parts = SEMICOLON_SPLITTER.splitToList(coding);
+        String name = parts.get(0).toLowerCase(Locale.ROOT);
+        if (!name.equals(GZIP) && !name.equals("*")) {
+          continue;
+        }
+        boolean refused = false;
+        for (String param : parts.subList(1, parts.size())) {
+          if (param.startsWith("q=")) {
+            try {
+              refused = Float.parseFloat(param.substring(2)) == 0;
+            } catch (NumberFormatException nfe) {
+              refused = true;
+            }
+          }
+        }
+        if (name.equals(GZIP)) {
+          gzipAccepted = !refused;
+        } else {
+          wildcardAccepted = !refused;
+        }
+      }
+    }
+    if (gzipAccepted != null) {
+      return gzipAccepted;
+    }
+    return wildcardAccepted != null && wildcardAccepted;
+  }
+
+  private static class Asset {
+    static Asset load(String resourceName, URL resource) throws IOException {
+      URLConnection conn = resource.openConnection();
+      byte[] bytes;
+      try (InputStream is = conn.getInputStream()) {
+        bytes = ByteStreams.toByteArray(is);
+      }
+      long lastModified = conn.getLastModified();
+
+      byte[] gzipped = null;
+      if (COMPRESSIBLE_EXTENSIONS.contains(Files.getFileExtension(resourceName).toLowerCase(Locale.ROOT))) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(bytes.length);
+        try (OutputStream os = new GZIPOutputStream(baos)) {
+          os.write(bytes);
+        }
+        if (baos.size() < bytes.length) {
+          gzipped = baos.toByteArray();
+        }
+      }
+      return new Asset(bytes, gzipped, lastModified == 0 ? null : new Date(lastModified));
+    }
+
+    final byte[] bytes;
+    final EntityTag etag;
+    @Nullable final byte[] gzipped;
+    @Nullable final EntityTag gzippedEtag;
+    @Nullable final Date lastModified;
+
+    Asset(byte[] bytes, @Nullable byte[] gzipped, @Nullable Date lastModified) {
+      this.bytes = bytes;
+      HashCode hash = Hashing.murmur3_128().hashBytes(bytes);
+      this.etag = new EntityTag(hash.toString());
+      this.gzipped = gzipped;
+      this.gzippedEtag = gzipped == null ? null : new EntityTag(hash + "-" + GZIP);
+      this.lastModified = lastModified;
+    }
+  }
+}
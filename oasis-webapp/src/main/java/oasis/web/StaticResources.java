@@ -18,20 +18,18 @@
 package oasis.web;
 
 import java.io.IOException;
-import java.net.URL;
-import java.net.URLConnection;
-import java.util.Date;
 
 import javax.inject.Inject;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
-import com.google.common.io.Resources;
-
 import oasis.urls.BaseUrls;
 import oasis.web.utils.ResponseFactory;
 
@@ -39,6 +37,10 @@ import oasis.web.utils.ResponseFactory;
 public class StaticResources {
 
   @Inject BaseUrls baseUrls;
+  @Inject StaticAssets staticAssets;
+
+  @Context Request request;
+  @Context HttpHeaders headers;
 
   @GET
   @Path("")
@@ -54,89 +56,69 @@ public class StaticResources {
   @Path("/favicon.ico")
   @Produces("image/vnd.microsoft.icon")
   public Response favicon() throws IOException {
-    return getResource("oasis-ui/favicon.ico");
+    return staticAssets.getResource(request, headers, "oasis-ui/favicon.ico");
   }
 
   @GET
   @Path("/manifest.json")
   @Produces(MediaType.APPLICATION_JSON)
   public Response manifest() throws IOException {
-    return getResource("oasis-ui/manifest.json");
+    return staticAssets.getResource(request, headers, "oasis-ui/manifest.json");
   }
 
   @GET
   @Path("/browserconfig.xml")
   @Produces(MediaType.APPLICATION_XML)
   public Response browserconfig() throws IOException {
-    return getResource("oasis-ui/browserconfig.xml");
+    return staticAssets.getResource(request, headers, "oasis-ui/browserconfig.xml");
   }
 
   @GET
   @Path("{resource: .+\\.css}")
   @Produces("text/css")
   public Response css(@PathParam("resource") String resourceName) throws IOException {
-    return getResource("oasis-ui/" + resourceName);
+    return staticAssets.getResource(request, headers, "oasis-ui/" + resourceName);
   }
 
   @GET
   @Path("{resource: .+\\.jpg}")
   @Produces("image/jpg")
   public Response jpg(@PathParam("resource") String resourceName) throws IOException {
-    return getResource("oasis-ui/" + resourceName);
+    return staticAssets.getResource(request, headers, "oasis-ui/" + resourceName);
   }
 
   @GET
   @Path("{resource: .+\\.png}")
   @Produces("image/png")
   public Response png(@PathParam("resource") String resourceName) throws IOException {
-    return getResource("oasis-ui/" + resourceName);
+    return staticAssets.getResource(request, headers, "oasis-ui/" + resourceName);
   }
 
   @GET
   @Path("{resource: .+\\.svg}")
   @Produces("image/svg+xml")
   public Response svg(@PathParam("resource") String resourceName) throws IOException {
-    return getResource("oasis-ui/" + resourceName);
+    return staticAssets.getResource(request, headers, "oasis-ui/" + resourceName);
   }
 
   @GET
   @Path("{resource: .+\\.woff}")
   @Produces("application/font-woff")
   public Response woff(@PathParam("resource") String resourceName) throws IOException {
-    return getResource("oasis-ui/" + resourceName);
+    return staticAssets.getResource(request, headers, "oasis-ui/" + resourceName);
   }
 
   @GET
   @Path("{resource: .+\\.ttf}")
   @Produces("application/x-font-ttf")
   public Response ttf(@PathParam("resource") String resourceName) throws IOException {
-    return getResource("oasis-ui/" + resourceName);
+    return staticAssets.getResource(request, headers, "oasis-ui/" + resourceName);
   }
 
   @GET
   @Path("/js/sha256.js") // XXX: keep in sync with check_session_iframe.html
   @Produces("application/javascript")
   public Response sha256js() throws IOException {
-    return getResource("META-INF/resources/webjars/jsSHA/2.0.2/src/sha256.js");
-  }
-
-  public static Response getResource(String resourceName) throws IOException {
-    final URL resource;
-    try {
-      resource = Resources.getResource(resourceName);
-    } catch (IllegalArgumentException iae) {
-      return ResponseFactory.NOT_FOUND;
-    }
-
-    URLConnection conn = resource.openConnection();
-    Response.ResponseBuilder response = Response.ok()
-        .entity(conn.getInputStream());
-
-    long lastModified = conn.getLastModified();
-    if (lastModified != 0) {
-      response.lastModified(new Date(lastModified));
-    }
-
-    return response.build();
+    return staticAssets.getResource(request, headers, "META-INF/resources/webjars/jsSHA/2.0.2/src/sha256.js");
   }
 }
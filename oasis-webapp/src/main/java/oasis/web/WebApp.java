@@ -26,25 +26,32 @@ import com.google.inject.Injector;
 import com.google.inject.util.Modules;
 import com.typesafe.config.Config;
 
+import oasis.auditlog.AuditLogService;
 import oasis.auditlog.log4j.Log4JAuditLogModule;
 import oasis.auditlog.noop.NoopAuditLogModule;
 import oasis.auth.AuthModule;
 import oasis.auth.FranceConnectModule;
 import oasis.catalog.CatalogModule;
 import oasis.elasticsearch.ElasticsearchModule;
+import oasis.eventbus.EventBusModule;
+import oasis.eventbus.EventDispatcher;
 import oasis.http.HttpClientModule;
 import oasis.http.HttpServer;
 import oasis.http.HttpServerModule;
 import oasis.jest.JestService;
 import oasis.jest.guice.JestModule;
 import oasis.jongo.JongoService;
+import oasis.jongo.authn.JongoTokenRevocationFeed;
 import oasis.jongo.guice.JongoModule;
 import oasis.mail.MailModule;
+import oasis.services.authn.SidTokenRenewer;
+import oasis.services.authn.login.KdfExecutor;
 import oasis.soy.SoyGuiceModule;
 import oasis.tools.CommandLineTool;
 import oasis.urls.UrlsModule;
 import oasis.userdirectory.UserDirectoryModule;
 import oasis.web.guice.OasisGuiceModule;
+import oasis.web.memo.RequestMemoModule;
 
 public class WebApp extends CommandLineTool {
   // logger is not a static field to be initialized once log4j is configured
@@ -58,11 +65,11 @@ public class WebApp extends CommandLineTool {
 
     AbstractModule auditModule = (config.getBoolean("oasis.auditlog.disabled")) ?
         new NoopAuditLogModule() :
-        new Log4JAuditLogModule();
+        Log4JAuditLogModule.create(config.getConfig("oasis.auditlog"));
 
     final Injector injector = Guice.createInjector(
         new OasisGuiceModule(),
-        JongoModule.create(config.getConfig("oasis.mongo")),
+        Modules.override(JongoModule.create(config.getConfig("oasis.mongo"))).with(new RequestMemoModule()),
         auditModule,
         HttpClientModule.create(config.getConfig("oasis.http.client")),
         HttpServerModule.create(config.getConfig("oasis.http")),
@@ -78,21 +85,38 @@ public class WebApp extends CommandLineTool {
             : Modules.EMPTY_MODULE,
         UrlsModule.create(config.getConfig("oasis.urls")),
         MailModule.create(config.getConfig("oasis.mail")),
-        UserDirectoryModule.create(config.getConfig("oasis.userdirectory"))
+        UserDirectoryModule.create(config.getConfig("oasis.userdirectory")),
+        EventBusModule.create(config.getConfig("oasis.eventbus"))
     );
 
+    // Fail fast, rather than when a burst of logins blocks all the request threads.
+    injector.getInstance(KdfExecutor.class).checkCapacity(injector.getInstance(HttpServerModule.Settings.class).executorThreads);
+
     final HttpServer server = injector.getInstance(HttpServer.class);
     final JongoService jongo = injector.getInstance(JongoService.class);
     final JestService jest = injector.getInstance(JestService.class);
+    final JongoTokenRevocationFeed tokenRevocationFeed = injector.getInstance(JongoTokenRevocationFeed.class);
+    final SidTokenRenewer sidTokenRenewer = injector.getInstance(SidTokenRenewer.class);
+    final AuditLogService auditLogService = injector.getInstance(AuditLogService.class);
+    final EventDispatcher eventDispatcher = injector.getInstance(EventDispatcher.class);
 
     Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      // Drain in-flight requests first, while the services they use are still available.
       server.stop();
+      eventDispatcher.stop();
+      sidTokenRenewer.stop();
+      tokenRevocationFeed.stop();
       jest.stop();
       jongo.stop();
+      auditLogService.stop();
     }));
 
+    auditLogService.start();
     jongo.start();
+    tokenRevocationFeed.start();
+    sidTokenRenewer.start();
     jest.start();
+    eventDispatcher.start();
     server.start();
   }
 
@@ -21,7 +21,11 @@ import java.net.URI;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -46,6 +50,7 @@ import org.slf4j.LoggerFactory;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Streams;
 import com.google.template.soy.data.SanitizedContent;
 import com.ibm.icu.util.ULocale;
 
@@ -156,24 +161,19 @@ public class AppInstanceAccessControlEndpoint {
       }
       ace.app_admin = true;
     });
-    // Finally, compute the *_name fields for all entries
-    // Use a cache as we're likely to see the same user several times
-    Map<String, UserAccount> accountsById = new HashMap<>();
-    final UserAccount sentinel = new UserAccount();
+    // Finally, compute the *_name fields for all entries, loading all users and creators at once
+    Map<String, UserAccount> accountsById = Streams.stream(accountRepository.getUserAccountsByIds(
+        acesByUser.values().stream()
+            .flatMap(ace -> Stream.of(ace.user_id, ace.creator_id))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet())))
+        .collect(Collectors.toMap(UserAccount::getId, Function.identity()));
     for (ACE ace : acesByUser.values()) {
       UserAccount user = accountsById.get(ace.user_id);
-      if (user == null) {
-        user = accountRepository.getUserAccountById(ace.user_id);
-        accountsById.put(ace.user_id, user == null ? sentinel : user);
-      }
       ace.user_name = user == null ? null : user.getDisplayName();
       ace.user_email_address = user == null ? null : user.getEmail_address();
 
       UserAccount creator = accountsById.get(ace.creator_id);
-      if (creator == null) {
-        creator = accountRepository.getUserAccountById(ace.creator_id);
-        accountsById.put(ace.user_id, creator == null ? sentinel : creator);
-      }
       ace.creator_name = creator == null ? null : creator.getDisplayName();
     }
 
@@ -312,18 +312,17 @@ public class AppInstanceAccessControlEndpoint {
           ))));
     }
 
-    appAdminHelper.getAdmins(appInstance)
-        .filter(Predicate.isEqual(requester.getId()).negate())
-        .forEach(admin -> {
-          try {
-            Notification notification = new Notification(notificationPrototype);
-            notification.setUser_id(admin);
-            notificationRepository.createNotification(notification);
-          } catch (Exception e) {
-            // Don't fail if we can't notify
-            logger.error("Error notifying admin {} for accepted or refused app-instance invitation.", admin, e);
-          }
-        });
+    try {
+      NotificationRepository.FanOutResult result = notificationRepository.createNotifications(notificationPrototype,
+          appAdminHelper.getAdmins(appInstance).filter(Predicate.isEqual(requester.getId()).negate()));
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
+        // Don't fail if we can't notify
+        logger.error("Error notifying admins {} for accepted or refused app-instance invitation.", failure.userIds, failure.cause);
+      }
+    } catch (Exception e) {
+      // Don't fail if we can't notify
+      logger.error("Error notifying admins for accepted or refused app-instance invitation.", e);
+    }
   }
 
   static class ACE {
@@ -19,6 +19,8 @@ package oasis.web.applications;
 
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
@@ -32,6 +34,8 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.GenericEntity;
@@ -41,11 +45,15 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.UriInfo;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Strings;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
 
+import oasis.http.HttpClientModule;
 import oasis.model.applications.v2.AppInstance;
 import oasis.model.applications.v2.AppInstanceRepository;
 import oasis.model.applications.v2.Service;
@@ -71,6 +79,8 @@ import oasis.web.utils.ResponseFactory;
 @Produces(MediaType.APPLICATION_JSON)
 @Authenticated @OAuth
 public class AppInstanceEndpoint {
+  private static final Logger logger = LoggerFactory.getLogger(AppInstanceEndpoint.class);
+
   @Inject AppInstanceRepository appInstanceRepository;
   @Inject DirectoryRepository directoryRepository;
   @Inject ServiceRepository serviceRepository;
@@ -79,6 +89,7 @@ public class AppInstanceEndpoint {
   @Inject Provider<ServiceValidator> serviceValidatorProvider;
   @Inject Provider<ChangeAppInstanceStatus> changeAppInstanceStatus;
   @Inject Provider<DeleteAppInstance> deleteAppInstance;
+  @Inject HttpClientModule.Settings httpClientSettings;
 
   @Context SecurityContext securityContext;
 
@@ -247,13 +258,23 @@ public class AppInstanceEndpoint {
 
   @DELETE
   @Portal
-  public Response deleteInstance(
+  public void deleteInstance(
+      @Suspended AsyncResponse asyncResponse,
       @HeaderParam(HttpHeaders.IF_MATCH) List<EntityTag> ifMatch
   ) {
     if (ifMatch == null || ifMatch.isEmpty()) {
-      return ResponseFactory.preconditionRequiredIfMatch();
+      asyncResponse.resume(ResponseFactory.preconditionRequiredIfMatch());
+      return;
     }
 
+    asyncResponse.setTimeout(httpClientSettings.suspendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    asyncResponse.setTimeoutHandler(ar -> {
+      // The provider call has its own (shorter) timeout, after which the instance is deleted anyway;
+      // this is only reached if something else hangs.
+      logger.error("Timeout deleting instance={}", instanceId);
+      ar.resume(ResponseFactory.build(Response.Status.GATEWAY_TIMEOUT, "Application factory timed-out"));
+    });
+
     DeleteAppInstance.Request request = ImmutableDeleteAppInstance.Request.builder()
         .instanceId(instanceId)
         .callProvider(true)
@@ -261,7 +282,17 @@ public class AppInstanceEndpoint {
         .checkVersions(etagService.parseEtag(ifMatch))
         .notifyAdmins(false)
         .build();
-    DeleteAppInstance.Status status = deleteAppInstance.get().deleteInstance(request, new DeleteAppInstance.Stats());
+    deleteAppInstance.get().deleteInstanceAsync(request, new DeleteAppInstance.Stats())
+        .whenComplete((status, e) -> {
+          if (e != null) {
+            asyncResponse.resume(e instanceof CompletionException ? e.getCause() : e);
+          } else {
+            asyncResponse.resume(toResponse(status));
+          }
+        });
+  }
+
+  private Response toResponse(DeleteAppInstance.Status status) {
     switch (status) {
       case BAD_INSTANCE_VERSION:
         return ResponseFactory.preconditionFailed("Invalid version for app-instance " + instanceId);
@@ -354,18 +354,17 @@ public class AppInstanceInvitationPage {
           SanitizedContent.ContentKind.TEXT, dataProvider.apply(locale))));
     }
 
-    appAdminHelper.getAdmins(appInstance)
-        .filter(Predicate.isEqual(requester.getId()).negate())
-        .forEach(admin -> {
-          try {
-            Notification notification = new Notification(notificationPrototype);
-            notification.setUser_id(admin);
-            notificationRepository.createNotification(notification);
-          } catch (Exception e) {
-            // Don't fail if we can't notify
-            logger.error("Error notifying admin {} for accepted or refused app-instance invitation.", admin, e);
-          }
-        });
+    try {
+      NotificationRepository.FanOutResult result = notificationRepository.createNotifications(notificationPrototype,
+          appAdminHelper.getAdmins(appInstance).filter(Predicate.isEqual(requester.getId()).negate()));
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
+        // Don't fail if we can't notify
+        logger.error("Error notifying admins {} for accepted or refused app-instance invitation.", failure.userIds, failure.cause);
+      }
+    } catch (Exception e) {
+      // Don't fail if we can't notify
+      logger.error("Error notifying admins for accepted or refused app-instance invitation.", e);
+    }
   }
 
   private void notifyRequester(AppInstance appInstance, String invitedUserEmail, String requesterId, boolean acceptedInvitation) {
@@ -17,13 +17,14 @@
  */
 package oasis.web.applications;
 
+import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.time.Clock;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -35,6 +36,8 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -52,10 +55,13 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 
-import net.ltgt.jaxrs.webhook.client.WebhookSignatureFilter;
 import oasis.auth.AuthModule;
+import oasis.http.AsyncInvocations;
+import oasis.http.HttpClientModule;
+import oasis.http.WebhookSignatures;
 import oasis.jongo.OasisIdHelper;
 import oasis.model.accounts.AccountRepository;
 import oasis.model.accounts.UserAccount;
@@ -96,6 +102,7 @@ public class MarketBuyEndpoint {
   @Inject DeleteAppInstance deleteAppInstance;
   @Inject Client client;
   @Inject AuthModule.Settings settings;
+  @Inject HttpClientModule.Settings httpClientSettings;
   @Inject BaseUrls baseUrls;
   @Inject Clock clock;
 
@@ -106,10 +113,25 @@ public class MarketBuyEndpoint {
 
   @POST
   @Portal
-  public Response instantiate(AppInstance instance) {
+  public void instantiate(@Suspended AsyncResponse asyncResponse, AppInstance instance) {
+    asyncResponse.setTimeout(httpClientSettings.suspendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    asyncResponse.setTimeoutHandler(ar -> {
+      logger.error("Timeout calling App Factory for app={}", applicationId);
+      ar.resume(ResponseFactory.build(Response.Status.GATEWAY_TIMEOUT, "Application factory timed-out"));
+    });
+    instantiateAsync(instance).whenComplete((response, e) -> {
+      if (e != null) {
+        asyncResponse.resume(e instanceof CompletionException ? e.getCause() : e);
+      } else {
+        asyncResponse.resume(response);
+      }
+    });
+  }
+
+  private CompletionStage<Response> instantiateAsync(AppInstance instance) {
     Application application = applicationRepository.getApplication(applicationId);
     if (application == null) {
-      return ResponseFactory.notFound("Application doesn't exist");
+      return CompletableFuture.completedFuture(ResponseFactory.notFound("Application doesn't exist"));
     }
     // XXX: some legacy applications don't have a target audience
     List<CatalogEntry.TargetAudience> targetAudiences = application.getTarget_audience();
@@ -121,7 +143,7 @@ public class MarketBuyEndpoint {
     if (!Strings.isNullOrEmpty(instance.getProvider_id())) {
       organization = directoryRepository.getOrganization(instance.getProvider_id());
       if (organization == null) {
-        return ResponseFactory.unprocessableEntity("Organization doesn't exist");
+        return CompletableFuture.completedFuture(ResponseFactory.unprocessableEntity("Organization doesn't exist"));
       }
       // TODO: refactor application target_audience check
       // XXX: some legacy organizations don't have a type
@@ -129,30 +151,30 @@ public class MarketBuyEndpoint {
         switch (organization.getType()) {
           case PUBLIC_BODY:
             if (!targetAudiences.contains(CatalogEntry.TargetAudience.PUBLIC_BODIES)) {
-              return ResponseFactory.conflict("Application is not targeted at public bodies");
+              return CompletableFuture.completedFuture(ResponseFactory.conflict("Application is not targeted at public bodies"));
             }
             break;
           case COMPANY:
             if (!targetAudiences.contains(CatalogEntry.TargetAudience.COMPANIES)) {
-              return ResponseFactory.conflict("Application is not targeted at companies");
+              return CompletableFuture.completedFuture(ResponseFactory.conflict("Application is not targeted at companies"));
             }
             break;
           default:
             // That shouldn't happen, but let's handle the degenerate case
             if (targetAudiences.equals(ImmutableList.of(CatalogEntry.TargetAudience.CITIZENS))) {
-              return ResponseFactory.conflict("Application is not targeted at organizations");
+              return CompletableFuture.completedFuture(ResponseFactory.conflict("Application is not targeted at organizations"));
             }
             break;
         }
       } else {
         if (targetAudiences.equals(ImmutableList.of(CatalogEntry.TargetAudience.CITIZENS))) {
-          return ResponseFactory.conflict("Application is not targeted at organizations");
+          return CompletableFuture.completedFuture(ResponseFactory.conflict("Application is not targeted at organizations"));
         }
       }
     } else {
       organization = null;
       if (!targetAudiences.contains(CatalogEntry.TargetAudience.CITIZENS)) {
-        return ResponseFactory.conflict("Application is not targeted at citizens");
+        return CompletableFuture.completedFuture(ResponseFactory.conflict("Application is not targeted at citizens"));
       }
     }
 
@@ -168,12 +190,14 @@ public class MarketBuyEndpoint {
     String pwd = passwordGenerator.generate();
     credentialsService.setPassword(ClientType.PROVIDER, instance.getId(), pwd);
 
-    Future<Response> future = client
-        .target(application.getInstantiation_uri())
-        .register(new WebhookSignatureFilter(application.getInstantiation_secret()))
-        .request()
-        .async()
-        .post(Entity.json(new CreateInstanceRequest()
+    String instanceId = instance.getId();
+    String instantiationUri = application.getInstantiation_uri();
+    return AsyncInvocations.post(
+        WebhookSignatures.sign(client
+            .target(instantiationUri)
+            .request(), application.getInstantiation_secret())
+            .async(),
+        Entity.json(new CreateInstanceRequest()
             .setInstance_id(instance.getId())
             .setClient_id(instance.getId())
             .setClient_secret(pwd)
@@ -181,40 +205,39 @@ public class MarketBuyEndpoint {
             .setOrganization(organization)
             .setInstance_registration_uri(uriInfo.getBaseUriBuilder().path(InstanceRegistrationEndpoint.class).build(instance.getId()))
             .setAuthorization_grant(new AuthorizationGrant(createJwtBearer(instance)))
-            .setPortal(instance.getPortal_id())));
-    Response response;
-    try {
-      response = future.get(1, TimeUnit.MINUTES);
-    } catch (InterruptedException | ExecutionException e) {
-      logger.error("Error calling App Factory for app={} and user={}", applicationId, userId, e);
-      return ResponseFactory.build(Response.Status.BAD_GATEWAY, "Application factory failed");
-    } catch (TimeoutException e) {
-      logger.error("Timeout calling App Factory for app={} and user={}", applicationId, userId, e);
-      return ResponseFactory.build(Response.Status.GATEWAY_TIMEOUT, "Application factory timed-out");
-    }
-    try {
-      if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
-        ImmutableDeleteAppInstance.Request request = ImmutableDeleteAppInstance.Request.builder()
-            .instanceId(instance.getId())
-            .callProvider(false)
-            .checkStatus(AppInstance.InstantiationStatus.PENDING)
-            .checkVersions(null)
-            .notifyAdmins(false)
-            .build();
-        DeleteAppInstance.Status status = deleteAppInstance.deleteInstance(request, new DeleteAppInstance.Stats());
-        if (status != DeleteAppInstance.Status.BAD_INSTANCE_STATUS) {
-          logger.error("Error calling App Factory for app={} and user={}: uri={}, status={}", applicationId, userId, application.getInstantiation_uri(), response.getStatusInfo());
-          return ResponseFactory.build(Response.Status.BAD_GATEWAY, "Application factory failed");
-        }
-        // instance has been provisioned despite unsuccessful response from the App Factory; fall through.
-        logger.info("Error calling App Factory for app={} and user={} but app was provisioned successfully: status={}", applicationId, userId, application.getInstantiation_uri(), response.getStatusInfo());
-      }
-    } finally {
-      response.close();
-    }
-    // Get the possibly-updated instance
-    instance = appInstanceRepository.getAppInstance(instance.getId());
-    return Response.ok(instance).build();
+            .setPortal(instance.getPortal_id())))
+        .handle((response, e) -> {
+          if (e != null) {
+            if (Throwables.getCausalChain(e).stream().anyMatch(SocketTimeoutException.class::isInstance)) {
+              logger.error("Timeout calling App Factory for app={} and user={}", applicationId, userId, e);
+              return ResponseFactory.build(Response.Status.GATEWAY_TIMEOUT, "Application factory timed-out");
+            }
+            logger.error("Error calling App Factory for app={} and user={}", applicationId, userId, e);
+            return ResponseFactory.build(Response.Status.BAD_GATEWAY, "Application factory failed");
+          }
+          try {
+            if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+              ImmutableDeleteAppInstance.Request request = ImmutableDeleteAppInstance.Request.builder()
+                  .instanceId(instanceId)
+                  .callProvider(false)
+                  .checkStatus(AppInstance.InstantiationStatus.PENDING)
+                  .checkVersions(null)
+                  .notifyAdmins(false)
+                  .build();
+              DeleteAppInstance.Status status = deleteAppInstance.deleteInstance(request, new DeleteAppInstance.Stats());
+              if (status != DeleteAppInstance.Status.BAD_INSTANCE_STATUS) {
+                logger.error("Error calling App Factory for app={} and user={}: uri={}, status={}", applicationId, userId, instantiationUri, response.getStatusInfo());
+                return ResponseFactory.build(Response.Status.BAD_GATEWAY, "Application factory failed");
+              }
+              // instance has been provisioned despite unsuccessful response from the App Factory; fall through.
+              logger.info("Error calling App Factory for app={} and user={} but app was provisioned successfully: uri={}, status={}", applicationId, userId, instantiationUri, response.getStatusInfo());
+            }
+          } finally {
+            response.close();
+          }
+          // Get the possibly-updated instance
+          return Response.ok(appInstanceRepository.getAppInstance(instanceId)).build();
+        });
   }
 
   private String createJwtBearer(AppInstance appInstance) {
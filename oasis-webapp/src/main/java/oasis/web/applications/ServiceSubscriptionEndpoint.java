@@ -17,6 +17,11 @@
  */
 package oasis.web.applications;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -94,24 +99,32 @@ public class ServiceSubscriptionEndpoint {
             .map(AccessControlEntry::getUser_id),
         appAdminHelper.getAdmins(instance)
     ).collect(ImmutableSet.toImmutableSet());
-    subscriptions = subscriptions
-        .filter(input -> app_users_and_admins.contains(input.getUser_id()));
+    List<UserSubscription> subscriptionsList = subscriptions
+        .filter(input -> app_users_and_admins.contains(input.getUser_id()))
+        .collect(Collectors.toList());
+
+    // Load all users and creators at once
+    Map<String, UserAccount> accountsById = Streams.stream(accountRepository.getUserAccountsByIds(
+        subscriptionsList.stream()
+            .flatMap(input -> Stream.of(input.getUser_id(), input.getCreator_id()))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet())))
+        .collect(Collectors.toMap(UserAccount::getId, Function.identity()));
 
     return Response.ok()
-        .entity(new GenericEntity<Stream<ServiceSub>>(subscriptions.map(
+        .entity(new GenericEntity<Stream<ServiceSub>>(subscriptionsList.stream().map(
             input -> {
               ServiceSub sub = new ServiceSub();
               sub.id = input.getId();
               sub.subscription_uri = uriInfo.getBaseUriBuilder().path(SubscriptionEndpoint.class).build(input.getId()).toString();
               sub.subscription_etag = etagService.getEtag(input).toString();
               sub.user_id = input.getUser_id();
-              final UserAccount user = accountRepository.getUserAccountById(input.getUser_id());
+              final UserAccount user = accountsById.get(input.getUser_id());
               sub.user_name = user == null ? null : user.getDisplayName();
               sub.subscription_type = input.getSubscription_type();
               sub.creator_id = MoreObjects.firstNonNull(input.getCreator_id(), input.getUser_id());
               // TODO: check access rights to the user name
-              // TODO: introduce some caching (it's not unlikely many subscriptions will have the same creator)
-              final UserAccount creator = accountRepository.getUserAccountById(sub.creator_id);
+              final UserAccount creator = accountsById.get(sub.creator_id);
               sub.creator_name = creator == null ? null : creator.getDisplayName();
               return sub;
             })) {})
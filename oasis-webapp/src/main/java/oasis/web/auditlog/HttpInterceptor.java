@@ -36,17 +36,21 @@ import com.google.common.collect.ImmutableSet;
 
 import oasis.auditlog.AuditLogService;
 import oasis.auditlog.HttpAuditLogEvent;
+import oasis.metrics.RoundTripCounter;
 import oasis.model.authn.AccessToken;
 import oasis.model.authn.SidToken;
 import oasis.web.authn.ClientPrincipal;
 import oasis.web.authn.OAuthPrincipal;
 import oasis.web.authn.UserSessionPrincipal;
+import oasis.web.memo.RequestMemo;
+import oasis.web.memo.RequestMemoFilter;
 
 @Provider
 @Priority(Integer.MIN_VALUE)
 public class HttpInterceptor implements ContainerRequestFilter, ContainerResponseFilter {
 
   private static final String START_TIME_PROP = HttpInterceptor.class.getName() + ".startTime";
+  private static final String ROUND_TRIPS_PROP = HttpInterceptor.class.getName() + ".roundTrips";
 
   private static final ImmutableSet<String> HTTP_HEADERS_TO_LOG = ImmutableSet.of(
       HttpHeaders.ACCEPT,
@@ -65,6 +69,7 @@ public class HttpInterceptor implements ContainerRequestFilter, ContainerRespons
   @Override
   public void filter(ContainerRequestContext requestContext) throws IOException {
     requestContext.setProperty(START_TIME_PROP, System.nanoTime());
+    requestContext.setProperty(ROUND_TRIPS_PROP, RoundTripCounter.start());
   }
 
   @Override
@@ -106,6 +111,15 @@ public class HttpInterceptor implements ContainerRequestFilter, ContainerRespons
       event.setRemoteUser(principal.getName());
     }
 
+    RequestMemo memo = (RequestMemo) requestContext.getProperty(RequestMemoFilter.PROPERTY);
+    if (memo != null) {
+      event.setRepositoryQueries(memo.getQueries(), memo.getHits());
+    }
+    RoundTripCounter roundTrips = (RoundTripCounter) requestContext.getProperty(ROUND_TRIPS_PROP);
+    if (roundTrips != null) {
+      RoundTripCounter.stop(roundTrips);
+      event.setDatabaseRoundTrips(roundTrips.get());
+    }
 
     event.log();
   }
@@ -24,18 +24,23 @@ import javax.inject.Inject;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import oasis.urls.BaseUrls;
-import oasis.web.StaticResources;
+import oasis.web.StaticAssets;
 
 @Path("/a/check_session_iframe")
 public class CheckSessionIframePage {
 
   @Inject BaseUrls baseUrls;
+  @Inject StaticAssets staticAssets;
 
   @Context UriInfo uriInfo;
+  @Context Request request;
+  @Context HttpHeaders headers;
 
   @GET
   public Response get() throws IOException {
@@ -44,6 +49,6 @@ public class CheckSessionIframePage {
       return redirectResponse;
     }
 
-    return StaticResources.getResource("oasis-ui/check_session_iframe.html");
+    return staticAssets.getResource(request, headers, "oasis-ui/check_session_iframe.html");
   }
 }
@@ -114,6 +114,7 @@ public class ClientAuthenticationFilter implements ContainerRequestFilter {
 
     if (!credentialsService.checkPassword(ClientType.PROVIDER, clientId, clientSecret)) {
       challenge(requestContext);
+      return;
     }
 
     final ClientPrincipal clientPrincipal = new ClientPrincipal(clientId);
@@ -39,6 +39,7 @@ import oasis.model.authn.ClientCertificate;
 import oasis.model.authn.ClientType;
 import oasis.model.authn.SidToken;
 import oasis.model.authn.TokenRepository;
+import oasis.services.authn.SidTokenRenewer;
 import oasis.services.authn.TokenHandler;
 import oasis.services.cookies.CookieFactory;
 import oasis.web.utils.UserAgentFingerprinter;
@@ -55,6 +56,7 @@ public class UserFilter implements ContainerRequestFilter, ContainerResponseFilt
 
   @Inject TokenRepository tokenRepository;
   @Inject TokenHandler tokenHandler;
+  @Inject SidTokenRenewer sidTokenRenewer;
   @Inject ClientCertificateHelper clientCertificateHelper;
   @Inject UserAgentFingerprinter fingerprinter;
   @Inject javax.inject.Provider<SessionManagementHelper> sessionManagementHelper;
@@ -87,11 +89,17 @@ public class UserFilter implements ContainerRequestFilter, ContainerResponseFilt
         sidToken.isUsingClientCertificate() != usingClientCertificate);
 
     // Renew the token each time the user tries to access a resource
-    sidToken = tokenRepository.renewSidToken(sidToken.getId(), usingClientCertificate);
-    if (sidToken == null) {
-      // SidToken must have expired while we looked at it.
-      requestContext.removeProperty(SID_PROP);
-      return;
+    if (sidToken.isUsingClientCertificate() != usingClientCertificate) {
+      // Record the change right away
+      sidToken = tokenRepository.renewSidToken(sidToken.getId(), usingClientCertificate);
+      if (sidToken == null) {
+        // SidToken must have expired while we looked at it.
+        requestContext.removeProperty(SID_PROP);
+        return;
+      }
+    } else {
+      // Only update the expiration time, which can be deferred and batched.
+      sidTokenRenewer.renew(sidToken);
     }
 
     final UserSessionPrincipal userSessionPrincipal = new UserSessionPrincipal(sidToken);
@@ -18,38 +18,47 @@
 package oasis.web.branding;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import oasis.model.branding.BrandInfo;
+import oasis.model.branding.BrandLogo;
 import oasis.model.branding.BrandRepository;
-import oasis.web.StaticResources;
+import oasis.web.StaticAssets;
 import oasis.web.utils.ResponseFactory;
 
 @Path("/")
 public class Logo {
+  // Logos are served at stable URLs and can change, so they're revalidated (using the ETag) once a day.
+  private static final CacheControl CACHE_CONTROL = CacheControl.valueOf("public, max-age=" + TimeUnit.DAYS.toSeconds(1));
 
   @Inject BrandRepository brandRepository;
+  @Inject StaticAssets staticAssets;
+
+  @Context Request request;
+  @Context HttpHeaders headers;
 
   @GET
   @Path("/images/logo/small_{brandId}.png")
   @Produces("image/png")
   public Response small(@PathParam("brandId") String brandId) throws IOException {
     if (BrandInfo.DEFAULT_BRAND.equals(brandId)) {
-      return StaticResources.getResource("oasis-ui/images/logo/small_ozwillo.png");
-    }
-
-    byte[] logo = brandRepository.getSmallLogo(brandId);
-    if (logo == null) {
-      return ResponseFactory.NOT_FOUND;
+      return staticAssets.getResource(request, headers, "oasis-ui/images/logo/small_ozwillo.png");
     }
 
-    return Response.ok().entity(logo).build();
+    return toResponse(brandRepository.getSmallLogo(brandId));
   }
 
   @GET
@@ -57,14 +66,25 @@ public class Logo {
   @Produces("image/png")
   public Response large(@PathParam("brandId") String brandId) throws IOException {
     if (BrandInfo.DEFAULT_BRAND.equals(brandId)) {
-      return StaticResources.getResource("oasis-ui/images/logo/large_ozwillo.png");
+      return staticAssets.getResource(request, headers, "oasis-ui/images/logo/large_ozwillo.png");
     }
 
-    byte[] logo = brandRepository.getLargeLogo(brandId);
+    return toResponse(brandRepository.getLargeLogo(brandId));
+  }
+
+  private Response toResponse(@Nullable BrandLogo logo) {
     if (logo == null) {
       return ResponseFactory.NOT_FOUND;
     }
 
-    return Response.ok().entity(logo).build();
+    EntityTag etag = new EntityTag(logo.getHash());
+    Response.ResponseBuilder builder = request.evaluatePreconditions(etag);
+    if (builder == null) {
+      builder = Response.ok().entity(logo.getContent());
+    }
+    return builder
+        .tag(etag)
+        .cacheControl(CACHE_CONTROL)
+        .build();
   }
 }
@@ -18,6 +18,7 @@
 package oasis.web.eventbus;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -27,8 +28,6 @@ import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
-import javax.ws.rs.client.Entity;
-import javax.ws.rs.client.InvocationCallback;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
@@ -37,16 +36,13 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.UriBuilder;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Strings;
 
-import net.ltgt.jaxrs.webhook.client.WebhookSignatureFilter;
+import oasis.eventbus.EventDispatcher;
 import oasis.model.InvalidVersionException;
 import oasis.model.applications.v2.AppInstance;
 import oasis.model.applications.v2.AppInstanceRepository;
+import oasis.model.eventbus.Event;
 import oasis.model.eventbus.Subscription;
 import oasis.model.eventbus.SubscriptionRepository;
 import oasis.services.etag.EtagService;
@@ -59,56 +55,31 @@ import oasis.web.utils.ResponseFactory;
 @Client
 @Path("/e")
 public class EventBusEndpoint {
-  private static final Logger logger = LoggerFactory.getLogger(EventBusEndpoint.class);
-
   @Inject SubscriptionRepository subscriptionRepository;
   @Inject AppInstanceRepository appInstanceRepository;
   @Inject EtagService etagService;
-  @Inject javax.ws.rs.client.Client client;
+  @Inject EventDispatcher eventDispatcher;
 
   @Context SecurityContext securityContext;
 
   @POST
   @Path("/publish")
   @Consumes(MediaType.APPLICATION_JSON)
-  @SuppressWarnings("FutureReturnValueIgnored")
   public Response publish(
       final Event event
   ) {
     final String providerId = getProviderId(((ClientPrincipal) securityContext.getUserPrincipal()).getClientId());
-    for (Subscription subscription : subscriptionRepository.getSubscriptionsForEventType(event.eventType)) {
+    List<Subscription> subscriptions = new ArrayList<>();
+    for (Subscription subscription : subscriptionRepository.getSubscriptionsForEventType(event.getEventType())) {
       if (!providerId.equals(getProviderId(subscription.getInstance_id()))) {
         // Don't send events to instances from other providers
         continue;
       }
-
-      final String webhook = subscription.getWebHook();
-
-      // TODO: better eventbus system
-      try {
-        client
-            .register(new WebhookSignatureFilter(subscription.getSecret()))
-            .target(webhook).request()
-            .async().post(Entity.json(event), new InvocationCallback<Response>() {
-              @Override
-              public void completed(Response response) {
-                try {
-                  logger.trace("Webhook {} called for eventType {}.", webhook, event.eventType);
-                } finally {
-                  response.close();
-                }
-              }
-
-              @Override
-              public void failed(Throwable throwable) {
-                logger.error("Error calling webhook {} for eventType {}: {}.", webhook, event.eventType, throwable.getMessage(), throwable);
-              }
-            });
-      } catch (Throwable t) {
-        logger.error("Error calling webhook {} for eventType {}: {}", webhook, event.eventType, t.getMessage(), t);
-      }
+      subscriptions.add(subscription);
     }
 
+    eventDispatcher.publish(event, subscriptions);
+
     return ResponseFactory.NO_CONTENT;
   }
 
@@ -197,13 +168,4 @@ public class EventBusEndpoint {
 
     return ResponseFactory.NO_CONTENT;
   }
-
-  static class Event {
-
-    @JsonProperty String message;
-
-    @JsonProperty String data;
-
-    @JsonProperty String eventType; // Unique (gives the application for an organisation)
-  }
 }
@@ -0,0 +1,100 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.memo;
+
+import java.util.Collection;
+
+import javax.inject.Inject;
+
+import oasis.jongo.accounts.JongoAccountRepository;
+import oasis.model.InvalidVersionException;
+import oasis.model.accounts.AccountRepository;
+import oasis.model.accounts.UserAccount;
+
+public class MemoizingAccountRepository implements AccountRepository {
+  private static final String REPOSITORY = "account";
+
+  private final JongoAccountRepository delegate;
+
+  @Inject MemoizingAccountRepository(JongoAccountRepository delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public UserAccount getUserAccountByEmail(String email) {
+    return RequestMemo.memoize(REPOSITORY, () -> delegate.getUserAccountByEmail(email), "email", email);
+  }
+
+  @Override
+  public UserAccount getUserAccountById(String id) {
+    return RequestMemo.memoize(REPOSITORY, () -> delegate.getUserAccountById(id), "id", id);
+  }
+
+  @Override
+  public Iterable<UserAccount> getUserAccountsByIds(Collection<String> ids) {
+    return delegate.getUserAccountsByIds(ids);
+  }
+
+  @Override
+  public UserAccount getUserAccountByFranceConnectSub(String franceconnect_sub) {
+    return RequestMemo.memoize(REPOSITORY, () -> delegate.getUserAccountByFranceConnectSub(franceconnect_sub),
+        "franceconnect_sub", franceconnect_sub);
+  }
+
+  @Override
+  public UserAccount createUserAccount(UserAccount agent, boolean markAsActivated) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.createUserAccount(agent, markAsActivated);
+  }
+
+  @Override
+  public UserAccount updateAccount(UserAccount account, long[] versions) throws InvalidVersionException {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.updateAccount(account, versions);
+  }
+
+  @Override
+  public UserAccount verifyEmailAddress(String id, boolean markAsActivated) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.verifyEmailAddress(id, markAsActivated);
+  }
+
+  @Override
+  public UserAccount setEmailAddress(String id, String email) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.setEmailAddress(id, email);
+  }
+
+  @Override
+  public boolean linkToFranceConnect(String id, String franceconnect_sub) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.linkToFranceConnect(id, franceconnect_sub);
+  }
+
+  @Override
+  public boolean unlinkFranceConnect(String id) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.unlinkFranceConnect(id);
+  }
+
+  @Override
+  public boolean deleteUserAccount(String id) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.deleteUserAccount(id);
+  }
+}
@@ -0,0 +1,144 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.memo;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import javax.inject.Inject;
+
+import oasis.jongo.applications.v2.JongoAppInstanceRepository;
+import oasis.model.InvalidVersionException;
+import oasis.model.applications.v2.AppInstance;
+import oasis.model.applications.v2.AppInstanceRepository;
+
+public class MemoizingAppInstanceRepository implements AppInstanceRepository {
+  private static final String REPOSITORY = "app_instances";
+
+  private final JongoAppInstanceRepository delegate;
+
+  @Inject MemoizingAppInstanceRepository(JongoAppInstanceRepository delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public AppInstance createAppInstance(AppInstance appInstance) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.createAppInstance(appInstance);
+  }
+
+  @Override
+  public AppInstance getAppInstance(String instanceId) {
+    return RequestMemo.memoize(REPOSITORY, () -> delegate.getAppInstance(instanceId), "id", instanceId);
+  }
+
+  @Override
+  public Iterable<AppInstance> getAppInstances(Collection<String> instanceIds) {
+    return delegate.getAppInstances(instanceIds);
+  }
+
+  @Override
+  public Iterable<AppInstance> findByOrganizationId(String organizationId) {
+    return delegate.findByOrganizationId(organizationId);
+  }
+
+  @Override
+  public Iterable<String> findIdsByOrganizationId(String organizationId) {
+    return delegate.findIdsByOrganizationId(organizationId);
+  }
+
+  @Override
+  public Iterable<AppInstance> findByOrganizationIdAndStatus(String organizationId, AppInstance.InstantiationStatus instantiationStatus) {
+    return delegate.findByOrganizationIdAndStatus(organizationId, instantiationStatus);
+  }
+
+  @Override
+  public Iterable<AppInstance> findPersonalInstancesByUserId(String userId) {
+    return delegate.findPersonalInstancesByUserId(userId);
+  }
+
+  @Override
+  public Iterable<String> findPersonalInstanceIdsByUserId(String userId) {
+    return delegate.findPersonalInstanceIdsByUserId(userId);
+  }
+
+  @Override
+  public Iterable<AppInstance> findPersonalInstancesByUserIdAndStatus(String userId, AppInstance.InstantiationStatus instantiationStatus) {
+    return delegate.findPersonalInstancesByUserIdAndStatus(userId, instantiationStatus);
+  }
+
+  @Override
+  public long getNonStoppedCountByOrganizationId(String organizationId) {
+    return delegate.getNonStoppedCountByOrganizationId(organizationId);
+  }
+
+  @Override
+  public Iterable<AppInstance> findStoppedBefore(Instant stoppedBefore) {
+    return delegate.findStoppedBefore(stoppedBefore);
+  }
+
+  @Override
+  public AppInstance updateStatus(String instanceId, AppInstance.InstantiationStatus newStatus, String statusChangeRequesterId) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.updateStatus(instanceId, newStatus, statusChangeRequesterId);
+  }
+
+  @Override
+  public AppInstance updateStatus(String instanceId, AppInstance.InstantiationStatus newStatus, String statusChangeRequesterId,
+      long[] versions) throws InvalidVersionException {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.updateStatus(instanceId, newStatus, statusChangeRequesterId, versions);
+  }
+
+  @Override
+  public AppInstance instantiated(String instanceId, List<AppInstance.NeededScope> neededScopes, String destruction_uri,
+      String destruction_secret, String status_changed_uri, String status_changed_secret, AppInstance.InstantiationStatus status) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.instantiated(instanceId, neededScopes, destruction_uri, destruction_secret, status_changed_uri,
+        status_changed_secret, status);
+  }
+
+  @Override
+  public AppInstance backToPending(String instanceId) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.backToPending(instanceId);
+  }
+
+  @Override
+  public boolean deleteInstance(String instanceId, long[] versions) throws InvalidVersionException {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.deleteInstance(instanceId, versions);
+  }
+
+  @Override
+  public boolean deleteInstance(String instanceId) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.deleteInstance(instanceId);
+  }
+
+  @Override
+  public Iterable<AppInstance> getInstancesForApplication(String applicationId) {
+    return delegate.getInstancesForApplication(applicationId);
+  }
+
+  @Override
+  public Iterable<String> getInstanceIdsForApplication(String applicationId) {
+    return delegate.getInstanceIdsForApplication(applicationId);
+  }
+}
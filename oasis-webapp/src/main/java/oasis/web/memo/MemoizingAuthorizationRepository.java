@@ -0,0 +1,65 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.memo;
+
+import java.util.Collection;
+
+import javax.inject.Inject;
+
+import oasis.jongo.authz.JongoAuthorizationRepository;
+import oasis.model.authz.AuthorizationRepository;
+import oasis.model.authz.AuthorizedScopes;
+
+public class MemoizingAuthorizationRepository implements AuthorizationRepository {
+  private static final String REPOSITORY = "authorized_scopes";
+
+  private final JongoAuthorizationRepository delegate;
+
+  @Inject MemoizingAuthorizationRepository(JongoAuthorizationRepository delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public AuthorizedScopes getAuthorizedScopes(String accountId, String clientId) {
+    return RequestMemo.memoize(REPOSITORY, () -> delegate.getAuthorizedScopes(accountId, clientId), accountId, clientId);
+  }
+
+  @Override
+  public AuthorizedScopes authorize(String accountId, String clientId, Collection<String> scopeIds, Collection<String> claimNames) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.authorize(accountId, clientId, scopeIds, claimNames);
+  }
+
+  @Override
+  public boolean revoke(String accountId, String clientId) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.revoke(accountId, clientId);
+  }
+
+  @Override
+  public int revokeAllForClient(String clientId) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.revokeAllForClient(clientId);
+  }
+
+  @Override
+  public int revokeForAllUsers(Collection<String> scopeIds) {
+    RequestMemo.invalidate(REPOSITORY);
+    return delegate.revokeForAllUsers(scopeIds);
+  }
+}
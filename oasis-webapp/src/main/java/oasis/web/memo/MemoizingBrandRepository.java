@@ -0,0 +1,50 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.memo;
+
+import javax.inject.Inject;
+
+import oasis.jongo.branding.JongoBrandRepository;
+import oasis.model.branding.BrandInfo;
+import oasis.model.branding.BrandLogo;
+import oasis.model.branding.BrandRepository;
+
+public class MemoizingBrandRepository implements BrandRepository {
+  private static final String REPOSITORY = "brand_info";
+
+  private final JongoBrandRepository delegate;
+
+  @Inject MemoizingBrandRepository(JongoBrandRepository delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public BrandInfo getBrandInfo(String brandId) {
+    return RequestMemo.memoize(REPOSITORY, () -> delegate.getBrandInfo(brandId), "brand_id", brandId);
+  }
+
+  @Override
+  public BrandLogo getSmallLogo(String brandId) {
+    return delegate.getSmallLogo(brandId);
+  }
+
+  @Override
+  public BrandLogo getLargeLogo(String brandId) {
+    return delegate.getLargeLogo(brandId);
+  }
+}
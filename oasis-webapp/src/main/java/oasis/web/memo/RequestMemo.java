@@ -0,0 +1,95 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.memo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+
+/**
+ * Identity map of repository reads for a single HTTP exchange.
+ *
+ * <p>The memo is pushed to the Resteasy context by {@link RequestMemoFilter}; outside a request (command-line tools,
+ * HTTP client callbacks) reads go straight to the repositories. Memoized objects are shared by every caller within
+ * the request, the same way an ORM session shares its entities.
+ */
+@ThreadSafe
+public class RequestMemo {
+  @Nullable
+  public static RequestMemo current() {
+    return ResteasyProviderFactory.getContextData(RequestMemo.class);
+  }
+
+  static <T> T memoize(String repository, Supplier<T> loader, Object... key) {
+    RequestMemo memo = current();
+    if (memo == null) {
+      return loader.get();
+    }
+    return memo.get(repository, loader, key);
+  }
+
+  static void invalidate(String repository) {
+    RequestMemo memo = current();
+    if (memo != null) {
+      memo.invalidateAll(repository);
+    }
+  }
+
+  private final Map<List<Object>, Optional<Object>> values = new HashMap<>();
+  private int queries;
+  private int hits;
+
+  @SuppressWarnings("unchecked")
+  synchronized <T> T get(String repository, Supplier<T> loader, Object... key) {
+    List<Object> fullKey = new ArrayList<>(key.length + 1);
+    fullKey.add(repository);
+    fullKey.addAll(Arrays.asList(key));
+    Optional<Object> value = values.get(fullKey);
+    if (value != null) {
+      hits++;
+      return (T) value.orElse(null);
+    }
+    queries++;
+    T loaded = loader.get();
+    values.put(fullKey, Optional.ofNullable(loaded));
+    return loaded;
+  }
+
+  synchronized void invalidateAll(String repository) {
+    values.keySet().removeIf(key -> repository.equals(key.get(0)));
+  }
+
+  /** Number of memoized reads that went to the database. */
+  public synchronized int getQueries() {
+    return queries;
+  }
+
+  /** Number of memoized reads that have been served from this memo. */
+  public synchronized int getHits() {
+    return hits;
+  }
+}
@@ -0,0 +1,43 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.memo;
+
+import java.io.IOException;
+
+import javax.annotation.Priority;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.ext.Provider;
+
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+
+/**
+ * Starts a {@link RequestMemo} for each request, before any authentication filter runs.
+ */
+@Provider
+@Priority(Integer.MIN_VALUE)
+public class RequestMemoFilter implements ContainerRequestFilter {
+  public static final String PROPERTY = RequestMemo.class.getName();
+
+  @Override
+  public void filter(ContainerRequestContext requestContext) throws IOException {
+    RequestMemo memo = new RequestMemo();
+    ResteasyProviderFactory.pushContext(RequestMemo.class, memo);
+    requestContext.setProperty(PROPERTY, memo);
+  }
+}
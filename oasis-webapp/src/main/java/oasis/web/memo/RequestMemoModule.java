@@ -0,0 +1,39 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.memo;
+
+import com.google.inject.AbstractModule;
+
+import oasis.model.accounts.AccountRepository;
+import oasis.model.applications.v2.AppInstanceRepository;
+import oasis.model.authz.AuthorizationRepository;
+import oasis.model.branding.BrandRepository;
+
+/**
+ * Overrides the bindings from {@link oasis.jongo.guice.JongoModule} with repositories memoizing their reads
+ * for the duration of an HTTP request.
+ */
+public class RequestMemoModule extends AbstractModule {
+  @Override
+  protected void configure() {
+    bind(AccountRepository.class).to(MemoizingAccountRepository.class);
+    bind(AppInstanceRepository.class).to(MemoizingAppInstanceRepository.class);
+    bind(AuthorizationRepository.class).to(MemoizingAuthorizationRepository.class);
+    bind(BrandRepository.class).to(MemoizingBrandRepository.class);
+  }
+}
@@ -17,10 +17,17 @@
  */
 package oasis.web.notifications;
 
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DateTimeException;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Pattern;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
@@ -34,6 +41,10 @@ import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.UriInfo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
@@ -53,11 +64,16 @@ import oasis.web.utils.ResponseFactory;
 @Path("/n")
 @Authenticated
 public class NotificationEndpoint {
+  private static final Logger logger = LoggerFactory.getLogger(NotificationEndpoint.class);
+
+  private static final int MAX_LIMIT = 1000;
+  private static final Pattern DECIMAL_TIME_CURSOR = Pattern.compile("-?\\d{1,12}(?:\\.\\d{1,9})?");
 
   @Inject NotificationRepository notificationRepository;
   @Inject ServiceRepository serviceRepository;
 
   @Context SecurityContext securityContext;
+  @Context UriInfo uriInfo;
 
   @POST
   @Path("/publish")
@@ -82,18 +98,30 @@ public class NotificationEndpoint {
     template.setTime(Instant.now());
     template.setStatus(Notification.Status.UNREAD);
 
-    List<Notification> notifications = new ArrayList<>(incomingNotification.user_ids.length);
-    for (String user_id : incomingNotification.user_ids) {
-      Notification notification = new Notification(template);
-      notification.setUser_id(user_id);
-      notifications.add(notification);
+    NotificationRepository.FanOutResult result = notificationRepository.createNotifications(template,
+        Arrays.stream(incomingNotification.user_ids));
+    if (!result.failures.isEmpty()) {
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
+        logger.error("Error publishing notification from {} to {} users", clientId, failure.userIds.size(), failure.cause);
+      }
+      return ResponseFactory.build(Response.Status.INTERNAL_SERVER_ERROR,
+          "Could not notify " + result.getFailedCount() + " out of " + incomingNotification.user_ids.length + " users");
     }
 
-    notificationRepository.createNotifications(notifications);
-
     return ResponseFactory.NO_CONTENT;
   }
 
+  /**
+   * Returns the user's notifications, most recent first (then by descending {@code id} for notifications
+   * with the same {@code time}).
+   *
+   * <p>All notifications are returned unless a {@code limit} is given (it's then capped to {@value #MAX_LIMIT}).
+   * When a page is full, a {@code Link} header with {@code rel="next"} points to the next page: it passes the
+   * {@code time} and {@code id} of the last notification of the current page as the {@code before} and
+   * {@code before_id} parameters. The {@code since} (and {@code since_id}) parameters can similarly be used
+   * to only get notifications that are more recent than the last known one; without an ID, all notifications
+   * with exactly the given time are excluded.
+   */
   @GET
   @Path("/{userId}/messages")
   @Produces(MediaType.APPLICATION_JSON)
@@ -101,37 +129,106 @@ public class NotificationEndpoint {
   public Response get(
       @PathParam("userId") String userId,
       @QueryParam("instance") String instanceId,
-      @QueryParam("status") Notification.Status status
+      @QueryParam("status") Notification.Status status,
+      @QueryParam("since") String sinceParam,
+      @QueryParam("since_id") String sinceId,
+      @QueryParam("before") String beforeParam,
+      @QueryParam("before_id") String beforeId,
+      @QueryParam("limit") @Nullable Integer limitParam
   ) {
     AccessToken accessToken = ((OAuthPrincipal) securityContext.getUserPrincipal()).getAccessToken();
     if (!accessToken.getAccountId().equals(userId)) {
       return ResponseFactory.forbidden("Cannot read notifications for another user");
     }
 
+    NotificationRepository.Cursor since, before;
+    try {
+      since = parseCursor(sinceParam, sinceId);
+      before = parseCursor(beforeParam, beforeId);
+    } catch (DateTimeException e) {
+      return ResponseFactory.build(Response.Status.BAD_REQUEST, "Invalid since or before parameter");
+    }
+    if (since == null && !isNullOrEmpty(sinceId) || before == null && !isNullOrEmpty(beforeId)) {
+      return ResponseFactory.build(Response.Status.BAD_REQUEST, "since_id and before_id require since and before respectively");
+    }
+    if (limitParam != null && limitParam <= 0) {
+      return ResponseFactory.build(Response.Status.BAD_REQUEST, "Invalid limit parameter");
+    }
+    // 0 means no limit
+    int limit = limitParam == null ? 0 : Math.min(limitParam, MAX_LIMIT);
+
+    final Iterable<Notification> notifications;
     // TODO: rework NetworkRepository API wrt filtering
     if (instanceId == null) {
       if (!accessToken.isPortal()) {
         return ResponseFactory.forbidden("Cannot read all notifications for user");
       }
+      notifications = status == null
+          ? notificationRepository.getNotifications(userId, since, before, limit)
+          : notificationRepository.getNotifications(userId, status, since, before, limit);
+    } else {
+      if (!instanceId.equals(accessToken.getServiceProviderId()) && !accessToken.isPortal()) {
+        return ResponseFactory.forbidden("Cannot read notifications for another app-instance");
+      }
+      notifications = status == null
+          ? notificationRepository.getNotifications(userId, instanceId, since, before, limit)
+          : notificationRepository.getNotifications(userId, instanceId, status, since, before, limit);
+    }
+
+    if (limit == 0) {
+      // Stream all the notifications
       return Response.ok()
-          .entity(new GenericEntity<Iterable<Notification>>(
-              status == null
-                  ? notificationRepository.getNotifications(userId)
-                  : notificationRepository.getNotifications(userId, status)
-          ) {})
+          .entity(new GenericEntity<Iterable<Notification>>(notifications) {})
           .build();
     }
 
-    if (!instanceId.equals(accessToken.getServiceProviderId()) && !accessToken.isPortal()) {
-      return ResponseFactory.forbidden("Cannot read notifications for another app-instance");
+    // Pages are bounded by MAX_LIMIT; buffer them to know whether there's a next page.
+    List<Notification> page = ImmutableList.copyOf(notifications);
+    Response.ResponseBuilder rb = Response.ok()
+        .entity(new GenericEntity<List<Notification>>(page) {});
+    if (page.size() == limit) {
+      Notification last = page.get(page.size() - 1);
+      rb.link(uriInfo.getRequestUriBuilder()
+          .replaceQueryParam("before", formatTimeCursor(last.getTime()))
+          .replaceQueryParam("before_id", last.getId())
+          .replaceQueryParam("limit", limit)
+          .build(), "next");
+    }
+    return rb.build();
+  }
+
+  @Nullable
+  private static NotificationRepository.Cursor parseCursor(@Nullable String time, @Nullable String id) {
+    Instant parsedTime = parseTimeCursor(time);
+    if (parsedTime == null) {
+      return null;
+    }
+    return new NotificationRepository.Cursor(parsedTime, isNullOrEmpty(id) ? null : id);
+  }
+
+  /**
+   * Parses a time cursor, either in the format used to serialize {@link Notification#getTime()}
+   * (decimal number of seconds since the epoch), or as an ISO-8601 instant.
+   *
+   * @throws DateTimeException if the value is in neither format, or out of range.
+   */
+  @Nullable
+  private static Instant parseTimeCursor(@Nullable String value) {
+    if (isNullOrEmpty(value)) {
+      return null;
+    }
+    // Bound the input before handing it to BigDecimal: exponents (e.g. 1E999999999) would make setScale very costly.
+    if (!DECIMAL_TIME_CURSOR.matcher(value).matches()) {
+      return Instant.parse(value);
     }
-    return Response.ok()
-        .entity(new GenericEntity<Iterable<Notification>>(
-            status == null
-                ? notificationRepository.getNotifications(userId, instanceId)
-                : notificationRepository.getNotifications(userId, instanceId, status)
-        ) {})
-        .build();
+    BigDecimal seconds = new BigDecimal(value);
+    long epochSecond = seconds.setScale(0, RoundingMode.FLOOR).longValueExact();
+    int nanos = seconds.subtract(BigDecimal.valueOf(epochSecond)).movePointRight(9).intValue();
+    return Instant.ofEpochSecond(epochSecond, nanos);
+  }
+
+  private static String formatTimeCursor(Instant time) {
+    return BigDecimal.valueOf(time.getEpochSecond()).add(BigDecimal.valueOf(time.getNano(), 9)).toPlainString();
   }
 
   @POST
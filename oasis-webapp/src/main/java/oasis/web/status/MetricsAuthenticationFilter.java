@@ -0,0 +1,81 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.status;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+import com.google.common.base.Splitter;
+
+import oasis.http.HttpServerModule;
+
+/**
+ * Only lets requests through that bear the {@link HttpServerModule.Settings#metricsToken metrics token}.
+ *
+ * <p>Metrics expose the activity of the node (and, cluster-wide, of the event bus), so they must not be public; they
+ * are not available at all when no token is configured.
+ */
+@MetricsAuthenticated
+@Provider
+@Priority(Priorities.AUTHENTICATION)
+public class MetricsAuthenticationFilter implements ContainerRequestFilter {
+  private static final String BEARER_SCHEME = "Bearer";
+  private static final String CHALLENGE = BEARER_SCHEME + " realm=\"metrics\"";
+
+  private static final Splitter AUTH_SCHEME_SPLITTER = Splitter.on(' ').omitEmptyStrings();
+
+  @Inject HttpServerModule.Settings settings;
+
+  @Override
+  public void filter(ContainerRequestContext requestContext) {
+    if (settings.metricsToken == null) {
+      requestContext.abortWith(Response.status(Response.Status.NOT_FOUND).build());
+      return;
+    }
+
+    String authorization = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
+    if (authorization == null) {
+      challenge(requestContext);
+      return;
+    }
+    List<String> parts = AUTH_SCHEME_SPLITTER.splitToList(authorization);
+    if (parts.size() != 2 || !BEARER_SCHEME.equalsIgnoreCase(parts.get(0))
+        // constant-time comparison
+        || !MessageDigest.isEqual(parts.get(1).getBytes(StandardCharsets.UTF_8),
+            settings.metricsToken.getBytes(StandardCharsets.UTF_8))) {
+      challenge(requestContext);
+    }
+  }
+
+  private void challenge(ContainerRequestContext requestContext) {
+    requestContext.abortWith(Response
+        .status(Response.Status.UNAUTHORIZED)
+        .header(HttpHeaders.WWW_AUTHENTICATE, CHALLENGE)
+        .build());
+  }
+}
@@ -0,0 +1,183 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.status;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import com.google.common.cache.CacheStats;
+
+import oasis.auditlog.AuditLogService;
+import oasis.auditlog.log4j.Log4JAuditLogService;
+import oasis.eventbus.EventDispatcher;
+import oasis.http.InFlightRequests;
+import oasis.jongo.MongoCommandMetrics;
+import oasis.jongo.applications.v2.ScopeCache;
+import oasis.jongo.authn.JongoTokenRevocationFeed;
+import oasis.jongo.branding.BrandCache;
+import oasis.metrics.MetricsRegistry;
+import oasis.metrics.PrometheusTextWriter;
+import oasis.services.authn.ClientCredentialsCache;
+import oasis.services.authn.TokenCache;
+import oasis.services.authn.login.KdfExecutor;
+
+/**
+ * Exposes the metrics of this node in the Prometheus text format.
+ */
+@Path("/status/metrics")
+@MetricsAuthenticated
+public class MetricsEndpoint {
+  @Inject MetricsRegistry metricsRegistry;
+  @Inject InFlightRequests inFlightRequests;
+  @Inject TokenCache tokenCache;
+  @Inject ClientCredentialsCache clientCredentialsCache;
+  @Inject ScopeCache scopeCache;
+  @Inject BrandCache brandCache;
+  @Inject JongoTokenRevocationFeed tokenRevocationFeed;
+  @Inject AuditLogService auditLogService;
+  @Inject EventDispatcher eventDispatcher;
+  @Inject KdfExecutor kdfExecutor;
+  @Inject MongoCommandMetrics mongoCommandMetrics;
+
+  @GET
+  @Produces(PrometheusTextWriter.CONTENT_TYPE)
+  public String get() {
+    PrometheusTextWriter writer = new PrometheusTextWriter();
+    writeHttpMetrics(writer);
+    writeMongoMetrics(writer);
+    writeCacheMetrics(writer);
+    writer.gauge("oasis_token_revocation_lag_seconds",
+        "Delay between the publication and the local application of the last received token revocation",
+        PrometheusTextWriter.toSeconds(tokenRevocationFeed.getLag()));
+    writeAuditLogMetrics(writer);
+    writeEventBusMetrics(writer);
+    writeKdfMetrics(writer);
+    return writer.toString();
+  }
+
+  private void writeHttpMetrics(PrometheusTextWriter writer) {
+    writer.gauge("oasis_http_server_requests_in_flight", "Requests currently being processed", inFlightRequests.getCount());
+
+    writer.header("oasis_http_request_duration_seconds", "histogram", "Latency of requests, per resource method");
+    for (MetricsRegistry.Endpoint endpoint : metricsRegistry.getEndpoints()) {
+      endpoint.getLatency().writeTo(writer, "oasis_http_request_duration_seconds",
+          "method", endpoint.getMethod(), "resource", endpoint.getResource());
+    }
+    writer.header("oasis_http_responses_total", "counter", "Responses, per resource method and status code");
+    for (MetricsRegistry.Endpoint endpoint : metricsRegistry.getEndpoints()) {
+      for (Map.Entry<Integer, LongAdder> entry : endpoint.getResponses().entrySet()) {
+        writer.sample("oasis_http_responses_total", entry.getValue().sum(),
+            "method", endpoint.getMethod(), "resource", endpoint.getResource(), "status", entry.getKey().toString());
+      }
+    }
+    writer.header("oasis_http_requests_in_flight", "gauge", "Requests currently being processed, per resource method");
+    for (MetricsRegistry.Endpoint endpoint : metricsRegistry.getEndpoints()) {
+      writer.sample("oasis_http_requests_in_flight", endpoint.getInFlight(),
+          "method", endpoint.getMethod(), "resource", endpoint.getResource());
+    }
+  }
+
+  private void writeMongoMetrics(PrometheusTextWriter writer) {
+    writer.header("oasis_mongo_command_duration_seconds", "histogram", "Latency of MongoDB commands, per collection and command");
+    for (MongoCommandMetrics.CommandStats command : mongoCommandMetrics.getCommands()) {
+      command.getLatency().writeTo(writer, "oasis_mongo_command_duration_seconds",
+          "collection", command.getCollection(), "command", command.getCommand());
+    }
+    writer.header("oasis_mongo_slow_commands_by_caller_total", "counter", "Slow MongoDB commands, per calling method");
+    for (MongoCommandMetrics.CallerStats caller : mongoCommandMetrics.getCallers()) {
+      writer.sample("oasis_mongo_slow_commands_by_caller_total", caller.getCount(), "caller", caller.getCaller());
+    }
+    writer.header("oasis_mongo_slow_command_by_caller_seconds_total", "counter", "Time spent in slow MongoDB commands, per calling method");
+    for (MongoCommandMetrics.CallerStats caller : mongoCommandMetrics.getCallers()) {
+      writer.sample("oasis_mongo_slow_command_by_caller_seconds_total", PrometheusTextWriter.toSeconds(caller.getTotalTime()),
+          "caller", caller.getCaller());
+    }
+    writer.counter("oasis_mongo_failed_commands_total", "Failed MongoDB commands", mongoCommandMetrics.getFailedCount());
+    writer.counter("oasis_mongo_slow_commands_total", "MongoDB commands slower than the slow-command threshold",
+        mongoCommandMetrics.getSlowCount());
+  }
+
+  private void writeCacheMetrics(PrometheusTextWriter writer) {
+    CacheStats tokens = tokenCache.stats();
+    CacheStats clientCredentials = clientCredentialsCache.stats();
+    CacheStats scopes = scopeCache.stats();
+    CacheStats brands = brandCache.stats();
+
+    writer.header("oasis_cache_requests_total", "counter", "Cache lookups, per cache and result");
+    writeCacheRequests(writer, "token", tokens);
+    writeCacheRequests(writer, "client_credentials", clientCredentials);
+    writeCacheRequests(writer, "scope", scopes);
+    writeCacheRequests(writer, "brand", brands);
+
+    writer.header("oasis_cache_evictions_total", "counter", "Cache evictions, per cache");
+    writer.sample("oasis_cache_evictions_total", tokens.evictionCount(), "cache", "token");
+    writer.sample("oasis_cache_evictions_total", clientCredentials.evictionCount(), "cache", "client_credentials");
+    writer.sample("oasis_cache_evictions_total", scopes.evictionCount(), "cache", "scope");
+    writer.sample("oasis_cache_evictions_total", brands.evictionCount(), "cache", "brand");
+  }
+
+  private static void writeCacheRequests(PrometheusTextWriter writer, String cache, CacheStats stats) {
+    writer.sample("oasis_cache_requests_total", stats.hitCount(), "cache", cache, "result", "hit");
+    writer.sample("oasis_cache_requests_total", stats.missCount(), "cache", cache, "result", "miss");
+  }
+
+  private void writeAuditLogMetrics(PrometheusTextWriter writer) {
+    if (!(auditLogService instanceof Log4JAuditLogService)) {
+      return;
+    }
+    Log4JAuditLogService log4JAuditLogService = (Log4JAuditLogService) auditLogService;
+    writer.gauge("oasis_auditlog_queue_size", "Audit log events waiting to be written",
+        log4JAuditLogService.getQueueSize());
+    writer.counter("oasis_auditlog_events_written_total", "Audit log events written",
+        log4JAuditLogService.getWrittenCount());
+    writer.counter("oasis_auditlog_events_dropped_total", "Audit log events dropped because the queue was full",
+        log4JAuditLogService.getDroppedCount());
+  }
+
+  private void writeEventBusMetrics(PrometheusTextWriter writer) {
+    writer.gauge("oasis_eventbus_pending_deliveries", "Event deliveries waiting to be (re)attempted, cluster-wide",
+        eventDispatcher.getQueueDepth());
+    writer.gauge("oasis_eventbus_dead_lettered_deliveries", "Event deliveries that have been dead-lettered, cluster-wide",
+        eventDispatcher.getDeadLetteredDepth());
+    writer.gauge("oasis_eventbus_deliveries_in_flight", "Event deliveries currently being attempted",
+        eventDispatcher.getInFlightCount());
+    writer.counter("oasis_eventbus_delivered_total", "Events successfully delivered",
+        eventDispatcher.getDeliveredCount());
+    writer.counter("oasis_eventbus_delivery_latency_seconds_total", "Publication-to-delivery latency of the delivered events",
+        PrometheusTextWriter.toSeconds(eventDispatcher.getDeliveryLatencySum()));
+    writer.counter("oasis_eventbus_failed_attempts_total", "Failed event delivery attempts",
+        eventDispatcher.getFailedAttemptCount());
+    writer.counter("oasis_eventbus_dead_lettered_total", "Event deliveries dead-lettered",
+        eventDispatcher.getDeadLetteredCount());
+  }
+
+  private void writeKdfMetrics(PrometheusTextWriter writer) {
+    writer.gauge("oasis_kdf_queue_depth", "Key derivations waiting for a thread", kdfExecutor.getQueueDepth());
+    writer.gauge("oasis_kdf_active", "Key derivations currently running", kdfExecutor.getActiveCount());
+    writer.counter("oasis_kdf_completed_total", "Key derivations run", kdfExecutor.getCompletedCount());
+    writer.counter("oasis_kdf_rejected_total", "Key derivations rejected because the pool was saturated",
+        kdfExecutor.getRejectedCount());
+    writer.counter("oasis_kdf_wait_seconds_total", "Time spent by key derivations waiting for a thread",
+        PrometheusTextWriter.toSeconds(kdfExecutor.getWaitTimeSum()));
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.status;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import oasis.metrics.MetricsRegistry;
+
+/**
+ * Records the latency, status code and concurrency of requests, per resource method.
+ *
+ * <p>Requests with an entity are only recorded once the entity has been written, so that the latency includes
+ * serializing (or streaming) the response body.
+ *
+ * @see MetricsEndpoint
+ */
+@Provider
+@Priority(Integer.MIN_VALUE)
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+  private static final String ENDPOINT_PROP = MetricsFilter.class.getName() + ".endpoint";
+  private static final String START_TIME_PROP = MetricsFilter.class.getName() + ".startTime";
+  private static final String STATUS_PROP = MetricsFilter.class.getName() + ".status";
+
+  @Inject MetricsRegistry metricsRegistry;
+  @Context ResourceInfo resourceInfo;
+
+  @Override
+  public void filter(ContainerRequestContext requestContext) throws IOException {
+    Method resourceMethod = resourceInfo.getResourceMethod();
+    if (resourceMethod == null) {
+      return;
+    }
+    MetricsRegistry.Endpoint endpoint = metricsRegistry.endpoint(requestContext.getMethod(),
+        resourceInfo.getResourceClass().getSimpleName() + "." + resourceMethod.getName());
+    endpoint.started();
+    requestContext.setProperty(ENDPOINT_PROP, endpoint);
+    requestContext.setProperty(START_TIME_PROP, System.nanoTime());
+  }
+
+  @Override
+  public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+    MetricsRegistry.Endpoint endpoint = (MetricsRegistry.Endpoint) requestContext.getProperty(ENDPOINT_PROP);
+    Long startTimeNanos = (Long) requestContext.getProperty(START_TIME_PROP);
+    if (endpoint == null || startTimeNanos == null) {
+      return;
+    }
+    if (responseContext.hasEntity()) {
+      // Recorded once the entity has been written; see aroundWriteTo
+      requestContext.setProperty(STATUS_PROP, responseContext.getStatus());
+      return;
+    }
+    requestContext.removeProperty(ENDPOINT_PROP);
+    endpoint.completed(responseContext.getStatus(), System.nanoTime() - startTimeNanos);
+  }
+
+  @Override
+  public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+    try {
+      context.proceed();
+    } finally {
+      MetricsRegistry.Endpoint endpoint = (MetricsRegistry.Endpoint) context.getProperty(ENDPOINT_PROP);
+      Long startTimeNanos = (Long) context.getProperty(START_TIME_PROP);
+      Integer status = (Integer) context.getProperty(STATUS_PROP);
+      if (endpoint != null && startTimeNanos != null && status != null) {
+        context.removeProperty(ENDPOINT_PROP);
+        endpoint.completed(status, System.nanoTime() - startTimeNanos);
+      }
+    }
+  }
+}
@@ -44,6 +44,7 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Streams;
 import com.google.template.soy.data.SanitizedContent;
 import com.ibm.icu.util.ULocale;
 
@@ -204,16 +205,18 @@ public class MembershipEndpoint {
     notificationPrototype.setTime(Instant.now());
     notificationPrototype.setStatus(Notification.Status.UNREAD);
 
-    for (OrganizationMembership admin : admins) {
-      try {
-        Notification notification = new Notification(notificationPrototype);
-        notification.setUser_id(admin.getAccountId());
-        notificationRepository.createNotification(notification);
-      } catch (Exception e) {
+    try {
+      NotificationRepository.FanOutResult result = notificationRepository.createNotifications(notificationPrototype,
+          Streams.stream(admins).map(OrganizationMembership::getAccountId));
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
         // Don't fail if we can't notify
-        logger.error("Error notifying admin {} after the user (accountId = {}) has left the organization {}",
-            admin.getId(), userAccount.getId(), organizationId, e);
+        logger.error("Error notifying admins {} after the user (accountId = {}) has left the organization {}",
+            failure.userIds, userAccount.getId(), organizationId, failure.cause);
       }
+    } catch (Exception e) {
+      // Don't fail if we can't notify
+      logger.error("Error notifying admins after the user (accountId = {}) has left the organization {}",
+          userAccount.getId(), organizationId, e);
     }
   }
 
@@ -21,6 +21,7 @@ import java.net.URI;
 import java.time.Instant;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -388,19 +389,18 @@ public class MembershipInvitationPage {
     }
 
     Iterable<OrganizationMembership> admins = organizationMembershipRepository.getAdminsOfOrganization(organization.getId());
-    for (OrganizationMembership admin : admins) {
-      if (admin.getAccountId().equals(requester.getId())) {
-        continue;
-      }
-
-      try {
-        Notification notification = new Notification(notificationPrototype);
-        notification.setUser_id(admin.getAccountId());
-        notificationRepository.createNotification(notification);
-      } catch (Exception e) {
+    try {
+      NotificationRepository.FanOutResult result = notificationRepository.createNotifications(notificationPrototype,
+          Streams.stream(admins)
+              .map(OrganizationMembership::getAccountId)
+              .filter(Predicate.isEqual(requester.getId()).negate()));
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
         // Don't fail if we can't notify
-        logger.error("Error notifying admin {} for accepted or refused organization membership invitation.", admin.getAccountId(), e);
+        logger.error("Error notifying admins {} for accepted or refused organization membership invitation.", failure.userIds, failure.cause);
       }
+    } catch (Exception e) {
+      // Don't fail if we can't notify
+      logger.error("Error notifying admins for accepted or refused organization membership invitation.", e);
     }
   }
 
@@ -19,6 +19,11 @@ package oasis.web.userdirectory;
 
 import java.net.URI;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -42,6 +47,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Streams;
 import com.google.template.soy.data.SanitizedContent;
@@ -127,8 +133,13 @@ public class OrganizationMembershipEndpoint {
   }
 
   private Response toResponse(Iterable<OrganizationMembership> memberships) {
+    List<OrganizationMembership> membershipsList = ImmutableList.copyOf(memberships);
+    // Load all accounts at once
+    Map<String, UserAccount> accountsById = Streams.stream(accountRepository.getUserAccountsByIds(
+        membershipsList.stream().map(OrganizationMembership::getAccountId).collect(Collectors.toSet())))
+        .collect(Collectors.toMap(UserAccount::getId, Function.identity()));
     return Response.ok()
-        .entity(new GenericEntity<Stream<OrgMembership>>(Streams.stream(memberships).map(
+        .entity(new GenericEntity<Stream<OrgMembership>>(membershipsList.stream().map(
             input -> {
               OrgMembership membership = new OrgMembership();
               membership.id = input.getId();
@@ -136,7 +147,7 @@ public class OrganizationMembershipEndpoint {
               membership.membership_etag = etagService.getEtag(input).toString();
               membership.account_id = input.getAccountId();
               // TODO: check access rights to the user name
-              final UserAccount account = accountRepository.getUserAccountById(input.getAccountId());
+              final UserAccount account = accountsById.get(input.getAccountId());
               membership.account_name = account == null ? null : account.getDisplayName();
               membership.admin = input.isAdmin();
               return membership;
@@ -250,19 +261,18 @@ public class OrganizationMembershipEndpoint {
     }
 
     Iterable<OrganizationMembership> admins = organizationMembershipRepository.getAdminsOfOrganization(organization.getId());
-    for (OrganizationMembership admin : admins) {
-      if (admin.getAccountId().equals(requester.getId())) {
-        continue;
-      }
-
-      try {
-        Notification notification = new Notification(notificationPrototype);
-        notification.setUser_id(admin.getAccountId());
-        notificationRepository.createNotification(notification);
-      } catch (Exception e) {
+    try {
+      NotificationRepository.FanOutResult result = notificationRepository.createNotifications(notificationPrototype,
+          Streams.stream(admins)
+              .map(OrganizationMembership::getAccountId)
+              .filter(Predicate.isEqual(requester.getId()).negate()));
+      for (NotificationRepository.ChunkFailure failure : result.failures) {
         // Don't fail if we can't notify
-        logger.error("Error notifying admin {} for accepted or refused organization membership invitation.", admin.getAccountId(), e);
+        logger.error("Error notifying admins {} for accepted or refused organization membership invitation.", failure.userIds, failure.cause);
       }
+    } catch (Exception e) {
+      // Don't fail if we can't notify
+      logger.error("Error notifying admins for accepted or refused organization membership invitation.", e);
     }
   }
 
@@ -17,7 +17,11 @@
  */
 package oasis.web.userdirectory;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -35,6 +39,7 @@ import javax.ws.rs.core.SecurityContext;
 import javax.ws.rs.core.UriInfo;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Streams;
 
 import oasis.model.directory.DirectoryRepository;
@@ -67,16 +72,21 @@ public class UserMembershipEndpoint {
     if (!Objects.equals(userId, ((OAuthPrincipal) securityContext.getUserPrincipal()).getAccessToken().getAccountId())) {
       return Response.status(Response.Status.FORBIDDEN).build();
     }
-    Iterable<OrganizationMembership> memberships = organizationMembershipRepository.getOrganizationsForUser(userId, start, limit);
+    List<OrganizationMembership> memberships = ImmutableList.copyOf(
+        organizationMembershipRepository.getOrganizationsForUser(userId, start, limit));
+    // Load all organizations at once
+    Map<String, Organization> organizationsById = Streams.stream(directoryRepository.getOrganizations(
+        memberships.stream().map(OrganizationMembership::getOrganizationId).collect(Collectors.toSet())))
+        .collect(Collectors.toMap(Organization::getId, Function.identity()));
     return Response.ok()
-        .entity(new GenericEntity<Stream<UserMembership>>(Streams.stream(memberships).map(
+        .entity(new GenericEntity<Stream<UserMembership>>(memberships.stream().map(
             input -> {
               UserMembership membership = new UserMembership();
               membership.id = input.getId();
               membership.membership_uri = uriInfo.getBaseUriBuilder().path(MembershipEndpoint.class).build(input.getId()).toString();
               membership.membership_etag = etagService.getEtag(input).toString();
               membership.organization_id = input.getOrganizationId();
-              final Organization organization = directoryRepository.getOrganization(input.getOrganizationId());
+              final Organization organization = organizationsById.get(input.getOrganizationId());
               membership.organization_name = organization == null ? null : organization.getName();
               membership.admin = input.isAdmin();
               return membership;
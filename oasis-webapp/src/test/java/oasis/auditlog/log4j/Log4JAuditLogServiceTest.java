@@ -0,0 +1,83 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.auditlog.log4j;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+
+import oasis.auditlog.HttpAuditLogEvent;
+
+public class Log4JAuditLogServiceTest {
+  private Log4JAuditLogService service;
+
+  @After public void tearDown() {
+    if (service != null) {
+      service.stop();
+    }
+  }
+
+  @Test public void testWritesSynchronouslyWhenNotStarted() {
+    service = create(0);
+
+    log(1);
+
+    assertThat(service.getWrittenCount()).isEqualTo(1);
+    assertThat(service.getDroppedCount()).isZero();
+  }
+
+  @Test public void testWritesPendingEventsOnStop() {
+    service = create(10_000);
+    service.start();
+
+    log(1_000);
+    service.stop();
+
+    assertThat(service.getWrittenCount()).isEqualTo(1_000);
+    assertThat(service.getDroppedCount()).isZero();
+    assertThat(service.getQueueSize()).isZero();
+  }
+
+  @Test public void testDropsWhenQueueIsFull() {
+    service = create(0);
+    service.start();
+
+    log(10);
+    service.stop();
+
+    assertThat(service.getWrittenCount()).isZero();
+    assertThat(service.getDroppedCount()).isEqualTo(10);
+  }
+
+  private static Log4JAuditLogService create(int queueSize) {
+    return new Log4JAuditLogService(ImmutableLog4JAuditLogModule.Settings.builder()
+        .queueSize(queueSize)
+        .batchSize(16)
+        .build());
+  }
+
+  private void log(int count) {
+    for (int i = 0; i < count; i++) {
+      service.event(HttpAuditLogEvent.class)
+          .setUrl("http://localhost/" + i)
+          .setMethod("GET")
+          .log();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.ibm.icu.text.Collator;
+import com.ibm.icu.util.ULocale;
+
+import oasis.model.i18n.LocalizableString;
+
+public class CatalogEntrySortKeysTest {
+  @Test
+  public void testGetSortField() {
+    assertThat(CatalogEntrySortKeys.getSortField(null)).isEqualTo("name_sort.und");
+    assertThat(CatalogEntrySortKeys.getSortField(ULocale.FRANCE)).isEqualTo("name_sort.fr-FR");
+    assertThat(CatalogEntrySortKeys.getSortField(ULocale.FRENCH)).isEqualTo("name_sort.fr-FR");
+    assertThat(CatalogEntrySortKeys.getSortField(ULocale.CANADA_FRENCH)).isEqualTo("name_sort.fr-FR");
+    assertThat(CatalogEntrySortKeys.getSortField(ULocale.GERMANY)).isEqualTo("name_sort.und");
+  }
+
+  @Test
+  public void testSortKeysFollowCollationOrder() {
+    List<String> names = Stream.of("z\u00e8bre", "\u00c9ducation", "ecole", "\u00c9cole", "finance", "Ecole")
+        .collect(Collectors.toList());
+
+    Comparator<String> collator = Collator.getInstance(ULocale.FRANCE)::compare;
+    List<String> expected = names.stream().sorted(collator).collect(Collectors.toList());
+
+    // Sort keys are compared as binary strings by Elasticsearch
+    List<String> actual = names.stream()
+        .sorted(Comparator.comparing(name -> CatalogEntrySortKeys.computeSortKeysByLocale(new LocalizableString(name))
+            .get("fr-FR")))
+        .collect(Collectors.toList());
+
+    assertThat(actual).containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  public void testSortKeysUseLocalizedNames() {
+    LocalizableString name = new LocalizableString("Zebra");
+    name.set(ULocale.FRENCH, "Abeille");
+
+    String rootKey = CatalogEntrySortKeys.computeSortKeysByLocale(name).get("und");
+    String frenchKey = CatalogEntrySortKeys.computeSortKeysByLocale(name).get("fr-FR");
+    String otherFrenchKey = CatalogEntrySortKeys.computeSortKeysByLocale(new LocalizableString("Abeille"))
+        .get("fr-FR");
+
+    assertThat(frenchKey).isEqualTo(otherFrenchKey);
+    assertThat(rootKey).isGreaterThan(frenchKey);
+  }
+}
@@ -0,0 +1,187 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.eventbus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.client.Client;
+
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpServer;
+
+import net.ltgt.resteasy.client.okhttp3.OkHttpClientEngine;
+import oasis.http.WebhookSignatures;
+import oasis.model.eventbus.Event;
+import oasis.model.eventbus.EventDelivery;
+import oasis.model.eventbus.EventDeliveryRepository;
+import oasis.model.eventbus.Subscription;
+import oasis.model.eventbus.SubscriptionRepository;
+import oasis.web.providers.JacksonJsonProvider;
+import okhttp3.OkHttpClient;
+
+public class EventDispatcherTest {
+  private static final Instant NOW = Instant.parse("2018-10-01T12:00:00Z");
+
+  private HttpServer server;
+  private final AtomicInteger responseStatus = new AtomicInteger(204);
+  private final AtomicInteger requestCount = new AtomicInteger();
+  private final AtomicReference<String> requestBody = new AtomicReference<>();
+  private final AtomicReference<String> requestSignature = new AtomicReference<>();
+
+  private Client client;
+  private EventDeliveryRepository eventDeliveryRepository;
+  private SubscriptionRepository subscriptionRepository;
+  private EventDispatcher dispatcher;
+
+  @Before public void setUp() throws IOException {
+    // A local stub standing for the subscriber's webhook
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/webhook", exchange -> {
+      requestCount.incrementAndGet();
+      requestSignature.set(exchange.getRequestHeaders().getFirst("X-Hub-Signature"));
+      try (InputStream is = exchange.getRequestBody()) {
+        requestBody.set(new String(ByteStreams.toByteArray(is), StandardCharsets.UTF_8));
+      }
+      exchange.sendResponseHeaders(responseStatus.get(), -1);
+      exchange.close();
+    });
+    server.start();
+
+    client = new ResteasyClientBuilder()
+        .httpEngine(new OkHttpClientEngine(new OkHttpClient()))
+        .register(JacksonJsonProvider.class)
+        .register(WebhookSignatures.class)
+        .build();
+    eventDeliveryRepository = mock(EventDeliveryRepository.class);
+    subscriptionRepository = mock(SubscriptionRepository.class);
+    dispatcher = new EventDispatcher(() -> eventDeliveryRepository, () -> subscriptionRepository, client,
+        ImmutableEventBusModule.Settings.builder()
+            .workers(2)
+            .maxConcurrentDeliveriesPerWebHook(1)
+            .maxAttempts(3)
+            .initialBackoff(Duration.ofSeconds(10))
+            .maxBackoff(Duration.ofMinutes(1))
+            .deliveryLease(Duration.ofMinutes(5))
+            .pollInterval(Duration.ofSeconds(1))
+            .build(),
+        Clock.fixed(NOW, ZoneOffset.UTC));
+
+    Subscription subscription = new Subscription();
+    subscription.setId("subscription");
+    subscription.setInstance_id("instance");
+    subscription.setEventType("event-type");
+    subscription.setWebHook("http://localhost:" + server.getAddress().getPort() + "/webhook");
+    subscription.setSecret("secret");
+    when(subscriptionRepository.getSubscription("subscription")).thenReturn(subscription);
+  }
+
+  @After public void tearDown() {
+    client.close();
+    server.stop(0);
+  }
+
+  @Test public void testDeliver_success() {
+    dispatcher.deliver(delivery(1));
+
+    assertThat(requestCount).hasValue(1);
+    assertThat(requestBody.get()).contains("\"eventType\":\"event-type\"");
+    assertThat(requestSignature.get()).startsWith("sha1=");
+    verify(eventDeliveryRepository).deleteDelivery("delivery");
+    verify(eventDeliveryRepository, never()).scheduleRetry(anyString(), any(), anyString());
+    assertThat(dispatcher.getDeliveredCount()).isEqualTo(1);
+    assertThat(dispatcher.getDeliveryLatencySum()).isEqualTo(Duration.ofSeconds(30));
+  }
+
+  @Test public void testDeliver_failureIsRetried() {
+    responseStatus.set(503);
+
+    dispatcher.deliver(delivery(2));
+
+    assertThat(requestCount).hasValue(1);
+    verify(eventDeliveryRepository).scheduleRetry("delivery", NOW.plusSeconds(20), "HTTP 503");
+    verify(eventDeliveryRepository, never()).deleteDelivery(anyString());
+    assertThat(dispatcher.getFailedAttemptCount()).isEqualTo(1);
+  }
+
+  @Test public void testDeliver_deadLetteredAfterMaxAttempts() {
+    responseStatus.set(500);
+
+    dispatcher.deliver(delivery(3));
+
+    verify(eventDeliveryRepository).deadLetter("delivery", "HTTP 500");
+    verify(eventDeliveryRepository, never()).scheduleRetry(anyString(), any(), anyString());
+    assertThat(dispatcher.getDeadLetteredCount()).isEqualTo(1);
+  }
+
+  @Test public void testDeliver_unsubscribed() {
+    when(subscriptionRepository.getSubscription("subscription")).thenReturn(null);
+
+    dispatcher.deliver(delivery(1));
+
+    assertThat(requestCount).hasValue(0);
+    verify(eventDeliveryRepository).deleteDelivery("delivery");
+  }
+
+  @Test public void testBackoff() {
+    assertThat(dispatcher.getBackoff(1)).isEqualTo(Duration.ofSeconds(10));
+    assertThat(dispatcher.getBackoff(2)).isEqualTo(Duration.ofSeconds(20));
+    assertThat(dispatcher.getBackoff(3)).isEqualTo(Duration.ofSeconds(40));
+    assertThat(dispatcher.getBackoff(4)).isEqualTo(Duration.ofMinutes(1));
+    assertThat(dispatcher.getBackoff(100)).isEqualTo(Duration.ofMinutes(1));
+  }
+
+  private static EventDelivery delivery(int attempts) {
+    Event event = new Event();
+    event.setEventType("event-type");
+    event.setMessage("message");
+    event.setData("data");
+
+    EventDelivery delivery = new EventDelivery();
+    delivery.setId("delivery");
+    delivery.setSubscriptionId("subscription");
+    delivery.setInstance_id("instance");
+    delivery.setWebHook("http://example.com/webhook");
+    delivery.setEvent(event);
+    delivery.setCreated(NOW.minusSeconds(30));
+    delivery.setNextAttempt(NOW.plus(Duration.ofMinutes(5)));
+    delivery.setAttempts(attempts);
+    return delivery;
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.http;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CompletableFuture;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.AsyncInvoker;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.Response;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class AsyncInvocationsTest {
+  private AsyncInvoker invoker;
+  private ArgumentCaptor<InvocationCallback<Response>> callback;
+
+  @SuppressWarnings("unchecked")
+  @Before public void setUp() {
+    invoker = mock(AsyncInvoker.class);
+    callback = ArgumentCaptor.forClass(InvocationCallback.class);
+  }
+
+  @Test public void testPost_completesFromCallback() {
+    CompletableFuture<Response> future = AsyncInvocations.post(invoker, Entity.json("{}"));
+    verify(invoker).post(any(Entity.class), callback.capture());
+    assertThat(future).isNotDone();
+
+    Response response = Response.ok().build();
+    callback.getValue().completed(response);
+
+    assertThat(future).isCompletedWithValue(response);
+  }
+
+  @Test public void testPost_failsFromCallback() {
+    CompletableFuture<Response> future = AsyncInvocations.post(invoker, Entity.json("{}"));
+    verify(invoker).post(any(Entity.class), callback.capture());
+
+    callback.getValue().failed(new ProcessingException("boom"));
+
+    assertThat(future).hasFailedWithThrowableThat().isInstanceOf(ProcessingException.class);
+  }
+
+  @Test public void testPost_closesLateResponse() {
+    CompletableFuture<Response> future = AsyncInvocations.post(invoker, Entity.json("{}"));
+    verify(invoker).post(any(Entity.class), callback.capture());
+    future.cancel(false);
+
+    Response response = mock(Response.class);
+    callback.getValue().completed(response);
+
+    verify(response).close();
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.After;
+import org.junit.Test;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+public class InFlightRequestsHandlerTest {
+  private final InFlightRequests inFlightRequests = new InFlightRequests();
+  private final EmbeddedChannel channel = new EmbeddedChannel(new InFlightRequestsHandler(inFlightRequests));
+
+  @After public void tearDown() {
+    channel.finishAndReleaseAll();
+  }
+
+  @Test public void testFullResponse() {
+    channel.writeInbound(request());
+    assertThat(inFlightRequests.getCount()).isEqualTo(1);
+    ReferenceCountUtil.release(channel.readInbound());
+
+    channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+    assertThat(inFlightRequests.getCount()).isZero();
+  }
+
+  /** Responses written by RESTEasy without going through response filters, e.g. for unmapped exceptions. */
+  @Test public void testChunkedResponse() {
+    channel.writeInbound(request());
+    ReferenceCountUtil.release(channel.readInbound());
+
+    channel.writeOutbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.INTERNAL_SERVER_ERROR));
+    assertThat(inFlightRequests.getCount()).isEqualTo(1);
+    channel.writeOutbound(LastHttpContent.EMPTY_LAST_CONTENT);
+    assertThat(inFlightRequests.getCount()).isZero();
+  }
+
+  @Test public void testInterimResponse() {
+    channel.writeInbound(request());
+    ReferenceCountUtil.release(channel.readInbound());
+
+    channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
+    assertThat(inFlightRequests.getCount()).isEqualTo(1);
+    channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+    assertThat(inFlightRequests.getCount()).isZero();
+  }
+
+  @Test public void testDraining_rejectsNewRequests() throws Exception {
+    assertThat(inFlightRequests.drain(Duration.ZERO)).isTrue();
+
+    channel.writeInbound(request());
+    assertThat((Object) channel.readInbound()).isNull();
+    FullHttpResponse rejection = channel.readOutbound();
+    assertThat(rejection.status()).isEqualTo(HttpResponseStatus.SERVICE_UNAVAILABLE);
+    assertThat(rejection.headers().get(HttpHeaderNames.RETRY_AFTER)).isEqualTo("1");
+    assertThat(rejection.headers().get(HttpHeaderNames.CONNECTION)).isEqualTo(HttpHeaderValues.CLOSE.toString());
+    rejection.release();
+    assertThat(inFlightRequests.getCount()).isZero();
+    channel.runPendingTasks();
+    assertThat(channel.isOpen()).isFalse();
+  }
+
+  @Test public void testDraining_completesInFlightRequests() throws Exception {
+    channel.writeInbound(request());
+    ReferenceCountUtil.release(channel.readInbound());
+    assertThat(inFlightRequests.drain(Duration.ZERO)).isFalse();
+
+    channel.writeOutbound(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+    HttpResponse response = channel.readOutbound();
+    // Have the client reconnect, to another node
+    assertThat(response.headers().get(HttpHeaderNames.CONNECTION)).isEqualTo(HttpHeaderValues.CLOSE.toString());
+    ReferenceCountUtil.release(response);
+    assertThat(inFlightRequests.getCount()).isZero();
+    channel.runPendingTasks();
+    assertThat(channel.isOpen()).isFalse();
+  }
+
+  private static FullHttpRequest request() {
+    return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+  }
+}
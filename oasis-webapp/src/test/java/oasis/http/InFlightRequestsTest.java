@@ -0,0 +1,58 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class InFlightRequestsTest {
+  private final InFlightRequests inFlightRequests = new InFlightRequests();
+
+  @Test public void testDrainWaitsForInFlightRequests() throws Exception {
+    assertThat(inFlightRequests.tryEnter()).isTrue();
+
+    CompletableFuture<Boolean> drained = CompletableFuture.supplyAsync(() -> {
+      try {
+        return inFlightRequests.drain(Duration.ofSeconds(10));
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    });
+    while (!inFlightRequests.isDraining()) {
+      Thread.sleep(10);
+    }
+    assertThat(inFlightRequests.tryEnter()).isFalse();
+    assertThat(drained).isNotDone();
+
+    inFlightRequests.exit();
+    assertThat(drained.get(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(inFlightRequests.getCount()).isZero();
+  }
+
+  @Test public void testDrainGivesUpAfterTimeout() throws Exception {
+    assertThat(inFlightRequests.tryEnter()).isTrue();
+
+    assertThat(inFlightRequests.drain(Duration.ofMillis(50))).isFalse();
+    assertThat(inFlightRequests.getCount()).isEqualTo(1);
+  }
+}
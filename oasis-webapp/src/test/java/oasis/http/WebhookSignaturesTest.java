@@ -0,0 +1,133 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.Response;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpServer;
+
+import okhttp3.logging.HttpLoggingInterceptor;
+
+public class WebhookSignaturesTest {
+  private HttpServer server;
+  private URI webhook;
+  private final AtomicReference<byte[]> requestBody = new AtomicReference<>();
+  private final AtomicReference<String> requestSignature = new AtomicReference<>();
+
+  private Client client;
+
+  @Before public void setUp() throws IOException {
+    // A local stub standing for the webhook
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/webhook", exchange -> {
+      try (InputStream is = exchange.getRequestBody()) {
+        requestBody.set(ByteStreams.toByteArray(is));
+      }
+      requestSignature.set(exchange.getRequestHeaders().getFirst(WebhookSignatures.SIGNATURE_HEADER));
+      exchange.sendResponseHeaders(204, -1);
+      exchange.close();
+    });
+    server.start();
+    webhook = URI.create("http://localhost:" + server.getAddress().getPort() + "/webhook");
+
+    HttpClientModule module = new HttpClientModule(ImmutableHttpClientModule.Settings.builder()
+        .loggingLevel(HttpLoggingInterceptor.Level.NONE)
+        .webhookTimeout(Duration.ofMinutes(1))
+        .build());
+    client = module.provideClient(module.provideOkHttpClient());
+  }
+
+  @After public void tearDown() {
+    client.close();
+    server.stop(0);
+  }
+
+  @Test public void testSignedRequest() {
+    try (Response response = WebhookSignatures.sign(client.target(webhook).request(), "secret")
+        .post(Entity.json(ImmutableMap.of("instance_id", "instance")))) {
+      assertThat(response.getStatus()).isEqualTo(204);
+    }
+
+    assertThat(requestBody.get()).isNotEmpty();
+    assertThat(requestSignature.get())
+        .startsWith("sha1=")
+        .isEqualTo(WebhookSignatures.computeSignature("secret", requestBody.get()));
+  }
+
+  /** Checks the signature against the one computed by the former jaxrs-webhook implementation. */
+  @Test public void testSignedRequest_knownAnswer() {
+    try (Response response = WebhookSignatures.sign(client.target(webhook).request(), "secret")
+        .post(Entity.json("{\"instance_id\":\"instance\"}"))) {
+      assertThat(response.getStatus()).isEqualTo(204);
+    }
+
+    assertThat(requestBody.get()).isEqualTo("{\"instance_id\":\"instance\"}".getBytes(StandardCharsets.UTF_8));
+    assertThat(requestSignature.get()).isEqualTo("sha1=49d1f2f89a44c9b4310c7b964d5a6a7df05f6b8c");
+  }
+
+  @Test public void testUnsignedRequest() {
+    try (Response response = client.target(webhook).request()
+        .post(Entity.json(ImmutableMap.of("instance_id", "instance")))) {
+      assertThat(response.getStatus()).isEqualTo(204);
+    }
+
+    assertThat(requestBody.get()).isNotEmpty();
+    assertThat(requestSignature.get()).isNull();
+  }
+
+  @Test public void testClientConfigurationIsNotModified() {
+    Configuration configuration = client.getConfiguration();
+    Set<Class<?>> classes = new HashSet<>(configuration.getClasses());
+    Set<Object> instances = new HashSet<>(configuration.getInstances());
+    Set<String> properties = new HashSet<>(configuration.getPropertyNames());
+
+    for (int i = 0; i < 10_000; i++) {
+      try (Response response = WebhookSignatures.sign(client.target(webhook).request(), "secret-" + i)
+          .post(Entity.json(ImmutableMap.of("instance_id", "instance-" + i)))) {
+        assertThat(response.getStatus()).isEqualTo(204);
+      }
+      assertThat(requestSignature.get())
+          .isEqualTo(WebhookSignatures.computeSignature("secret-" + i, requestBody.get()));
+    }
+
+    assertThat(configuration.getClasses()).isEqualTo(classes);
+    assertThat(configuration.getInstances()).isEqualTo(instances);
+    assertThat(configuration.getPropertyNames()).isEqualTo(properties);
+  }
+}
@@ -0,0 +1,250 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jest.applications.v2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Streams;
+import com.google.gson.Gson;
+import com.ibm.icu.text.Collator;
+import com.ibm.icu.util.ULocale;
+
+import io.searchbox.client.JestClient;
+import io.searchbox.core.Index;
+import oasis.catalog.CatalogEntrySortKeys;
+import oasis.elasticsearch.ImmutableElasticsearchModule;
+import oasis.model.applications.v2.CatalogEntry;
+import oasis.model.applications.v2.ImmutableCatalogEntryRepository;
+import oasis.model.applications.v2.SimpleCatalogEntry;
+import oasis.model.i18n.LocalizableString;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+public class JestCatalogEntryRepositoryTest {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private static final String SEARCH_RESPONSE = "{"
+      + "\"took\":2,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},"
+      + "\"hits\":{\"total\":2,\"max_score\":null,\"hits\":["
+      + "{\"_index\":\"catalog-entry\",\"_type\":\"APPLICATION\",\"_id\":\"app\",\"_score\":null,"
+      + "\"_source\":{\"name\":\"Application\",\"name#fr\":\"Appli\",\"description\":\"Some application\","
+      + "\"portals\":[\"portal\"],\"visible\":true},\"sort\":[\"0123\"]},"
+      + "{\"_index\":\"catalog-entry\",\"_type\":\"SERVICE\",\"_id\":\"service\",\"_score\":null,"
+      + "\"_source\":{\"name\":\"Service\",\"service_uri\":\"https://example.com\",\"visible\":true},"
+      + "\"sort\":[\"4567\"]}"
+      + "]}}";
+
+  private JestClient jestClient;
+  private List<Request> searchRequests;
+  private JestCatalogEntryRepository repository;
+
+  @Before
+  public void setUp() throws Exception {
+    jestClient = mock(JestClient.class);
+
+    searchRequests = new ArrayList<>();
+    OkHttpClient httpClient = new OkHttpClient.Builder()
+        .addInterceptor(chain -> {
+          searchRequests.add(chain.request());
+          return new Response.Builder()
+              .request(chain.request())
+              .protocol(Protocol.HTTP_1_1)
+              .code(200)
+              .message("OK")
+              .body(ResponseBody.create(MediaType.parse("application/json; charset=utf-8"), SEARCH_RESPONSE))
+              .build();
+        })
+        .build();
+
+    repository = new JestCatalogEntryRepository(jestClient, httpClient, ImmutableElasticsearchModule.Settings.builder()
+        .url(URI.create("http://elasticsearch:9200"))
+        .timeout(Duration.ofSeconds(3))
+        .build());
+  }
+
+  @Test
+  public void testSearch() throws Exception {
+    Iterable<SimpleCatalogEntry> results = repository.search(ImmutableCatalogEntryRepository.SearchRequest.builder()
+        .displayLocale(ULocale.FRANCE)
+        .start(0)
+        .limit(20)
+        .build());
+
+    assertThat(searchRequests).hasSize(1);
+    assertThat(searchRequests.get(0).url().toString()).isEqualTo("http://elasticsearch:9200/catalog-entry/_search");
+    assertThat(results).hasSize(2);
+    assertThat(results).extracting(SimpleCatalogEntry::getId).containsExactly("app", "service");
+    assertThat(results).extracting(SimpleCatalogEntry::getType)
+        .containsExactly(CatalogEntry.EntryType.APPLICATION, CatalogEntry.EntryType.SERVICE);
+    SimpleCatalogEntry application = results.iterator().next();
+    // restricted to the display locale
+    assertThat(application.getName().get(ULocale.ROOT)).isEqualTo("Appli");
+    assertThat(application.getPortals()).containsExactly("portal");
+  }
+
+  @Test
+  public void testSearchWithoutQuery_sortsOnNameSortKeys() throws Exception {
+    repository.search(ImmutableCatalogEntryRepository.SearchRequest.builder()
+        .displayLocale(ULocale.FRANCE)
+        .start(0)
+        .limit(20)
+        .build());
+
+    JsonNode sort = getSearchSource().path("sort");
+    assertThat(sort.isArray()).isTrue();
+    assertThat(sort.size()).isEqualTo(1);
+    JsonNode sortField = sort.get(0).path("name_sort.fr-FR");
+    assertThat(sortField.path("order").asText()).isEqualTo("asc");
+    assertThat(sortField.path("missing").asText()).isEqualTo("_first");
+  }
+
+  @Test
+  public void testSearchWithoutQueryNorLocale_sortsOnRootSortKeys() throws Exception {
+    repository.search(ImmutableCatalogEntryRepository.SearchRequest.builder()
+        .start(0)
+        .limit(20)
+        .build());
+
+    assertThat(getSearchSource().path("sort").get(0).has("name_sort.und")).isTrue();
+  }
+
+  @Test
+  public void testSearchWithQuery_sortsOnScore() throws Exception {
+    repository.search(ImmutableCatalogEntryRepository.SearchRequest.builder()
+        .displayLocale(ULocale.FRANCE)
+        .start(0)
+        .limit(20)
+        .query("citizen")
+        .build());
+
+    assertThat(getSearchSource().has("sort")).isFalse();
+  }
+
+  /**
+   * Checks that entries indexed in Elasticsearch sort in the same order as the former MongoDB listing sorted
+   * them in memory (i.e. comparing the localized names with an ICU collator for the display locale), and that
+   * filtering on a supported locale lists the same entries (i.e. also those supporting one of its fallbacks).
+   */
+  @Test
+  public void testIndexedSortKeysFollowCollationOrder() throws Exception {
+    String[] names = { "zèbre", "Éducation", "ecole", "École", "finance", "Ecole", "œuvre", "Zoo" };
+    ULocale[][] supportedLocales = {
+        { ULocale.FRENCH },
+        { ULocale.FRANCE },
+        { ULocale.ENGLISH },
+        {},
+        { ULocale.ENGLISH, ULocale.FRENCH },
+        { ULocale.FRANCE, ULocale.ITALIAN },
+        { ULocale.ITALIAN },
+        { ULocale.GERMANY },
+    };
+
+    Map<String, JsonNode> documentsByName = new LinkedHashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      SimpleCatalogEntry catalogEntry = new SimpleCatalogEntry();
+      catalogEntry.setId("entry" + i);
+      catalogEntry.setType(CatalogEntry.EntryType.APPLICATION);
+      catalogEntry.setVisible(true);
+      LocalizableString name = new LocalizableString(names[i]);
+      name.set(ULocale.ITALIAN, "Voce " + i);
+      catalogEntry.setName(name);
+      catalogEntry.setSupported_locales(Arrays.asList(supportedLocales[i]));
+
+      documentsByName.put(names[i], index(catalogEntry));
+    }
+
+    for (ULocale locale : new ULocale[] { ULocale.FRANCE, ULocale.ROOT }) {
+      String sortKeyName = CatalogEntrySortKeys.getSortField(locale).substring(CatalogEntrySortKeys.FIELD.length() + 1);
+      Collator collator = Collator.getInstance(locale);
+
+      List<String> expected = documentsByName.keySet().stream()
+          .sorted(collator::compare)
+          .collect(Collectors.toList());
+      List<String> actual = documentsByName.entrySet().stream()
+          // not_analyzed strings are sorted as binary by Elasticsearch
+          .sorted(Comparator.comparing(e -> e.getValue().path(CatalogEntrySortKeys.FIELD).path(sortKeyName).asText()))
+          .map(Map.Entry::getKey)
+          .collect(Collectors.toList());
+
+      assertThat(actual).containsExactlyElementsOf(expected);
+      // Sanity check: this is not the binary order
+      assertThat(actual).startsWith("ecole");
+    }
+
+    repository.search(ImmutableCatalogEntryRepository.SearchRequest.builder()
+        .displayLocale(ULocale.FRANCE)
+        .addSupported_locale(ULocale.FRANCE)
+        .start(0)
+        .limit(20)
+        .build());
+    Set<String> filteredLocales = new HashSet<>();
+    getSearchSource().findValue("terms").path("supported_locales").forEach(locale -> filteredLocales.add(locale.asText()));
+    String sortKeyName = CatalogEntrySortKeys.getSortField(ULocale.FRANCE).substring(CatalogEntrySortKeys.FIELD.length() + 1);
+
+    List<String> actual = documentsByName.entrySet().stream()
+        .filter(e -> Streams.stream(e.getValue().path("supported_locales")).anyMatch(locale -> filteredLocales.contains(locale.asText())))
+        .sorted(Comparator.comparing(e -> e.getValue().path(CatalogEntrySortKeys.FIELD).path(sortKeyName).asText()))
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList());
+
+    // Entries supporting fr-FR, or its fr fallback; not those without supported locales.
+    assertThat(actual).containsExactly("Ecole", "Éducation", "finance", "zèbre");
+  }
+
+  private JsonNode index(SimpleCatalogEntry catalogEntry) throws Exception {
+    repository.asyncIndex(catalogEntry);
+    ArgumentCaptor<Index> indexCaptor = ArgumentCaptor.forClass(Index.class);
+    verify(jestClient).executeAsync(indexCaptor.capture(), any());
+    clearInvocations(jestClient);
+    return OBJECT_MAPPER.readTree(indexCaptor.getValue().getData(new Gson()));
+  }
+
+  private JsonNode getSearchSource() throws Exception {
+    assertThat(searchRequests).hasSize(1);
+    Buffer buffer = new Buffer();
+    searchRequests.get(0).body().writeTo(buffer);
+    return OBJECT_MAPPER.readTree(buffer.readUtf8());
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jongo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.bson.BsonDocument;
+import org.junit.Test;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import oasis.jongo.guice.JongoModule;
+import oasis.metrics.RoundTripCounter;
+
+public class MongoCommandMetricsTest {
+  @Test public void testFindFilterShape() {
+    BsonDocument command = BsonDocument.parse("{ find: 'tokens', filter: { id: 'abc', exp: { $gt: 42 }, scopes: { $in: ['a', 'b'] } }, limit: 1 }");
+
+    assertThat(MongoCommandMetrics.getFilterShape("find", command))
+        .isEqualTo("{id: ?, exp: {$gt: ?}, scopes: {$in: [?]}}");
+  }
+
+  @Test public void testUpdateFilterShape() {
+    BsonDocument command = BsonDocument.parse("{ update: 'account', updates: [ { q: { $or: [ { id: 'a' }, { email: 'b' } ] }, u: { $set: { name: 'c' } } } ] }");
+
+    assertThat(MongoCommandMetrics.getFilterShape("update", command))
+        .isEqualTo("{$or: [{id: ?}, {email: ?}]}");
+  }
+
+  @Test public void testCommandWithoutFilter() {
+    assertThat(MongoCommandMetrics.getFilterShape("ping", BsonDocument.parse("{ ping: 1 }"))).isNull();
+  }
+
+  @Test public void testOnlySlowCommandsAreTaggedWithTheirCaller() {
+    MongoCommandMetrics metrics = new MongoCommandMetrics(JongoModule.Settings.builder()
+        .setSlowCommandThreshold(Duration.ofMillis(100))
+        .build());
+
+    RoundTripCounter roundTrips = RoundTripCounter.start();
+    try {
+      runCommand(metrics, 1, Duration.ofMillis(5));
+      runCommand(metrics, 2, Duration.ofMillis(500));
+    } finally {
+      RoundTripCounter.stop(roundTrips);
+    }
+
+    assertThat(roundTrips.get()).isEqualTo(2);
+    assertThat(metrics.getCommands()).hasSize(1);
+    assertThat(metrics.getSlowCount()).isEqualTo(1);
+    assertThat(metrics.getCallers()).hasSize(1);
+    MongoCommandMetrics.CallerStats caller = metrics.getCallers().iterator().next();
+    assertThat(caller.getCaller()).isEqualTo("MongoCommandMetricsTest.runCommand");
+    assertThat(caller.getCount()).isEqualTo(1);
+    assertThat(caller.getTotalTime()).isEqualTo(Duration.ofMillis(500));
+  }
+
+  @Test public void testAwaitDataGetMoreIsNotSlow() {
+    MongoCommandMetrics metrics = new MongoCommandMetrics(JongoModule.Settings.builder()
+        .setSlowCommandThreshold(Duration.ofMillis(100))
+        .build());
+    ConnectionDescription connection = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    metrics.commandStarted(new CommandStartedEvent(1, connection, "test", "find",
+        BsonDocument.parse("{ find: 'token_revocations', filter: { time: { $gte: 1 } }, tailable: true, awaitData: true }")));
+    metrics.commandSucceeded(new CommandSucceededEvent(1, connection, "find",
+        BsonDocument.parse("{ cursor: { id: NumberLong(42), ns: 'test.token_revocations', firstBatch: [] }, ok: 1 }"),
+        Duration.ofMillis(5).toNanos()));
+    metrics.commandStarted(new CommandStartedEvent(2, connection, "test", "getMore",
+        BsonDocument.parse("{ getMore: NumberLong(42), collection: 'token_revocations' }")));
+    metrics.commandSucceeded(new CommandSucceededEvent(2, connection, "getMore",
+        BsonDocument.parse("{ cursor: { id: NumberLong(42), ns: 'test.token_revocations', nextBatch: [] }, ok: 1 }"),
+        Duration.ofSeconds(1).toNanos()));
+
+    assertThat(metrics.getSlowCount()).isZero();
+    assertThat(metrics.getCallers()).isEmpty();
+    assertThat(metrics.getCommands()).hasSize(2);
+  }
+
+  private static void runCommand(MongoCommandMetrics metrics, int requestId, Duration elapsed) {
+    ConnectionDescription connection = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+    metrics.commandStarted(new CommandStartedEvent(requestId, connection, "test", "find",
+        BsonDocument.parse("{ find: 'tokens', filter: { id: 'abc' } }")));
+    metrics.commandSucceeded(new CommandSucceededEvent(requestId, connection, "find",
+        BsonDocument.parse("{ ok: 1 }"), elapsed.toNanos()));
+  }
+}
@@ -0,0 +1,133 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jongo.applications.v2;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.jongo.Find;
+import org.jongo.Jongo;
+import org.jongo.MongoCollection;
+import org.jongo.MongoCursor;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.google.common.collect.ImmutableList;
+import com.mongodb.WriteResult;
+
+import oasis.jongo.guice.JongoModule;
+import oasis.model.applications.v2.Scope;
+
+public class JongoScopeRepositoryTest {
+  private MongoCollection scopesCollection;
+
+  private JongoScopeRepository scopeRepository;
+
+  @Before public void setUp() {
+    Jongo jongo = mock(Jongo.class);
+    scopesCollection = mock(MongoCollection.class);
+    when(jongo.getCollection("scopes")).thenReturn(scopesCollection);
+
+    ScopeCache scopeCache = new ScopeCache(JongoModule.Settings.builder()
+        .setScopeCacheSize(100)
+        .setScopeCacheMaxStaleness(Duration.ofMinutes(5))
+        .build());
+    scopeRepository = new JongoScopeRepository(jongo, scopeCache);
+  }
+
+  @Test public void testGetScopes_singleRoundTrip() {
+    Scope openid = scope("openid");
+    Scope profile = scope("profile");
+    Scope email = scope("email");
+    stubFind(openid, profile, email);
+
+    assertThat(scopeRepository.getScopes(ImmutableList.of("profile", "email", "openid")))
+        .containsExactly(profile, email, openid);
+
+    assertThat(captureFindIds()).containsOnly("openid", "profile", "email");
+  }
+
+  @Test public void testGetScopes_missingScope() {
+    stubFind(scope("openid"));
+
+    assertThatThrownBy(() -> scopeRepository.getScopes(ImmutableList.of("openid", "unknown")))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("unknown");
+  }
+
+  @Test public void testGetScopes_readThroughCache() {
+    Scope openid = scope("openid");
+    Scope profile = scope("profile");
+    stubFind(openid);
+    scopeRepository.getScopes(ImmutableList.of("openid"));
+
+    stubFind(profile);
+    assertThat(scopeRepository.getScopes(ImmutableList.of("openid", "profile")))
+        .containsExactly(openid, profile);
+    // second query only loads the scope that wasn't cached yet
+    verify(scopesCollection, times(2)).find(eq("{ id: { $in: # } }"), any());
+    assertThat(captureFindIds()).containsExactly("profile");
+
+    clearInvocations(scopesCollection);
+    assertThat(scopeRepository.getScopes(ImmutableList.of("profile", "openid")))
+        .containsExactly(profile, openid);
+    verify(scopesCollection, never()).find(anyString(), any());
+  }
+
+  @Test public void testDeleteScopesOfAppInstance_invalidatesCache() {
+    Scope scope = scope("instance:scope");
+    scope.setInstance_id("instance");
+    stubFind(scope);
+    scopeRepository.getScopes(ImmutableList.of("instance:scope"));
+    when(scopesCollection.remove("{ instance_id: # }", "instance")).thenReturn(new WriteResult(1, false, null));
+
+    scopeRepository.deleteScopesOfAppInstance("instance");
+
+    stubFind();
+    assertThatThrownBy(() -> scopeRepository.getScopes(ImmutableList.of("instance:scope")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static Scope scope(String id) {
+    Scope scope = new Scope();
+    scope.setId(id);
+    return scope;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void stubFind(Scope... scopes) {
+    MongoCursor<Scope> cursor = mock(MongoCursor.class);
+    when(cursor.iterator()).thenReturn(Arrays.asList(scopes).iterator());
+    Find find = mock(Find.class);
+    when(find.as(Scope.class)).thenReturn(cursor);
+    when(scopesCollection.find(eq("{ id: { $in: # } }"), any())).thenReturn(find);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Collection<String> captureFindIds() {
+    ArgumentCaptor<Object> ids = ArgumentCaptor.forClass(Object.class);
+    verify(scopesCollection, atLeastOnce()).find(eq("{ id: { $in: # } }"), ids.capture());
+    return (Collection<String>) ids.getValue();
+  }
+}
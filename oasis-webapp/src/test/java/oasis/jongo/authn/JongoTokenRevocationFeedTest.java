@@ -0,0 +1,173 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jongo.authn;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import org.jongo.Find;
+import org.jongo.Jongo;
+import org.jongo.MongoCollection;
+import org.jongo.MongoCursor;
+import org.jongo.QueryModifier;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.google.common.collect.ImmutableSet;
+import com.mongodb.MongoException;
+import com.mongodb.WriteResult;
+
+import oasis.auth.AuthModule;
+import oasis.services.authn.TokenCache;
+
+public class JongoTokenRevocationFeedTest {
+  private Jongo jongo;
+  private MongoCollection tokensCollection;
+  private MongoCollection revocationsCollection;
+  private TokenCache tokenCache;
+
+  private JongoTokenRevocationFeed feed;
+  private JongoTokenRepository tokenRepository;
+
+  @Before public void setUp() {
+    jongo = mock(Jongo.class);
+    tokensCollection = mock(MongoCollection.class);
+    revocationsCollection = mock(MongoCollection.class);
+    when(jongo.getCollection("tokens")).thenReturn(tokensCollection);
+    when(jongo.getCollection(JongoTokenRevocationFeed.COLLECTION_NAME)).thenReturn(revocationsCollection);
+    tokenCache = mock(TokenCache.class);
+
+    feed = new JongoTokenRevocationFeed(() -> jongo, tokenCache);
+    tokenRepository = new JongoTokenRepository(jongo, AuthModule.Settings.builder().build(), tokenCache, feed);
+  }
+
+  @Test public void testRevokeToken_publishesRevocation() {
+    when(tokensCollection.remove("{ $or: [ { id: # }, { ancestorIds: # } ] }", "token", "token"))
+        .thenReturn(new WriteResult(1, false, null));
+
+    Instant before = Instant.now();
+    assertThat(tokenRepository.revokeToken("token")).isTrue();
+
+    JongoTokenRevocationFeed.TokenRevocation revocation = capturePublishedRevocation();
+    assertThat(revocation.tokenId).isEqualTo("token");
+    assertThat(revocation.accountId).isNull();
+    assertThat(revocation.clientId).isNull();
+    assertThat(revocation.scopeIds).isNull();
+    assertThat(revocation.time).isBetween(before, Instant.now());
+    verify(tokenCache).invalidateTokenAndDescendants("token");
+  }
+
+  @Test public void testRevokeTokensForClient_publishesRevocation() {
+    when(tokensCollection.remove("{ serviceProviderId: # }", "client"))
+        .thenReturn(new WriteResult(3, false, null));
+
+    assertThat(tokenRepository.revokeTokensForClient("client")).isEqualTo(3);
+
+    JongoTokenRevocationFeed.TokenRevocation revocation = capturePublishedRevocation();
+    assertThat(revocation.clientId).isEqualTo("client");
+    assertThat(revocation.tokenId).isNull();
+    verify(tokenCache).invalidateTokensForClient("client");
+  }
+
+  @Test public void testPublish_doesNotFailRevocation() {
+    when(tokensCollection.remove("{ accountId: # }", "account"))
+        .thenReturn(new WriteResult(2, false, null));
+    when(revocationsCollection.insert(any(Object.class))).thenThrow(new IllegalStateException("Mongo is down"));
+
+    assertThat(tokenRepository.revokeTokensForAccount("account")).isEqualTo(2);
+    verify(tokenCache).invalidateTokensForAccount("account");
+  }
+
+  @Test public void testApply() {
+    JongoTokenRevocationFeed.TokenRevocation revocation = JongoTokenRevocationFeed.TokenRevocation.forScopes(
+        ImmutableSet.of("scope1", "scope2"));
+    revocation.time = Instant.now().minus(Duration.ofSeconds(2));
+
+    feed.apply(revocation);
+
+    verify(tokenCache).invalidateTokensForScopes(ImmutableSet.of("scope1", "scope2"));
+    verifyNoMoreInteractions(tokenCache);
+    assertThat(feed.getLag()).isBetween(Duration.ofSeconds(2), Duration.ofSeconds(10));
+  }
+
+  @Test public void testTail_resumesAfterCursorDeath() throws Exception {
+    Instant start = Instant.now();
+    Instant t1 = start.plusSeconds(1);
+    Instant t2 = t1.plusSeconds(1);
+    Instant t3 = t2.plusSeconds(1);
+    JongoTokenRevocationFeed.TokenRevocation revocation1 = JongoTokenRevocationFeed.TokenRevocation.forToken("token");
+    revocation1.time = t1;
+    JongoTokenRevocationFeed.TokenRevocation revocation2 = JongoTokenRevocationFeed.TokenRevocation.forAccount("account");
+    revocation2.time = t2;
+    JongoTokenRevocationFeed.TokenRevocation revocation3 = JongoTokenRevocationFeed.TokenRevocation.forClient("client");
+    revocation3.time = t3;
+    // Returns two revocations then dies (e.g. the cursor fell off the capped collection)
+    MongoCursor<JongoTokenRevocationFeed.TokenRevocation> cursor1 = cursor();
+    when(cursor1.hasNext()).thenReturn(true, true, false);
+    when(cursor1.next()).thenReturn(revocation1, revocation2);
+    // Fails (e.g. the server is unreachable)
+    MongoCursor<JongoTokenRevocationFeed.TokenRevocation> cursor2 = cursor();
+    when(cursor2.hasNext()).thenThrow(new MongoException("Connection refused"));
+    // Returns a revocation then dies; subsequent queries will return that same cursor, that is dead from now on.
+    MongoCursor<JongoTokenRevocationFeed.TokenRevocation> cursor3 = cursor();
+    when(cursor3.hasNext()).thenReturn(true, false);
+    when(cursor3.next()).thenReturn(revocation3);
+    Find find = mock(Find.class);
+    when(find.with(any(QueryModifier.class))).thenReturn(find);
+    doReturn(cursor1, cursor2, cursor3).when(find).as(JongoTokenRevocationFeed.TokenRevocation.class);
+    when(revocationsCollection.find(eq("{ time: { $gte: # } }"), any(Date.class))).thenReturn(find);
+    feed.retryDelayInMillis = 10;
+
+    feed.start();
+    try {
+      verify(tokenCache, timeout(5000)).invalidateTokensForClient("client");
+      verify(revocationsCollection, timeout(5000).atLeast(4)).find(eq("{ time: { $gte: # } }"), any(Date.class));
+    } finally {
+      feed.stop();
+    }
+
+    verify(tokenCache).invalidateTokenAndDescendants("token");
+    verify(tokenCache).invalidateTokensForAccount("account");
+    verify(cursor1).close();
+    verify(cursor2).close();
+    ArgumentCaptor<Date> since = ArgumentCaptor.forClass(Date.class);
+    verify(revocationsCollection, atLeast(4)).find(eq("{ time: { $gte: # } }"), since.capture());
+    List<Date> sinces = since.getAllValues();
+    // Starts from the time the feed was started, then resumes from the last received revocation
+    assertThat(sinces.get(0)).isBetween(Date.from(start), Date.from(t1));
+    assertThat(sinces.subList(1, 4)).containsExactly(Date.from(t2), Date.from(t2), Date.from(t3));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static MongoCursor<JongoTokenRevocationFeed.TokenRevocation> cursor() {
+    return mock(MongoCursor.class);
+  }
+
+  private JongoTokenRevocationFeed.TokenRevocation capturePublishedRevocation() {
+    ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+    verify(revocationsCollection).insert(captor.capture());
+    assertThat(captor.getValue()).isInstanceOf(JongoTokenRevocationFeed.TokenRevocation.class);
+    return (JongoTokenRevocationFeed.TokenRevocation) captor.getValue();
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.jongo.notification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.jongo.Jongo;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.BulkWriteResult;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+
+import oasis.jongo.JongoService;
+import oasis.jongo.guice.JongoModule;
+import oasis.model.i18n.LocalizableString;
+import oasis.model.notification.Notification;
+import oasis.model.notification.NotificationRepository;
+
+public class JongoNotificationRepositoryTest {
+  private BulkWriteOperation bulk;
+
+  private JongoNotificationRepository notificationRepository;
+
+  @Before public void setUp() {
+    bulk = mock(BulkWriteOperation.class);
+    BulkWriteResult bulkWriteResult = mock(BulkWriteResult.class);
+    when(bulkWriteResult.getInsertedCount()).thenReturn(3);
+    when(bulk.execute()).thenReturn(bulkWriteResult);
+    DBCollection collection = mock(DBCollection.class);
+    when(collection.initializeUnorderedBulkOperation()).thenReturn(bulk);
+    DB db = mock(DB.class);
+    when(db.getCollection(anyString())).thenReturn(collection);
+    Jongo jongo = mock(Jongo.class);
+    when(jongo.getDatabase()).thenReturn(db);
+    when(jongo.getMapper()).thenReturn(JongoService.createMapper());
+
+    notificationRepository = new JongoNotificationRepository(jongo, JongoModule.Settings.builder().build());
+  }
+
+  @Test public void testCreateNotifications_distinctIds() {
+    Notification prototype = new Notification();
+    prototype.setMessage(new LocalizableString("message"));
+    prototype.setTime(Instant.now());
+
+    NotificationRepository.FanOutResult result = notificationRepository.createNotifications(prototype,
+        Stream.of("user1", "user2", "user3"));
+
+    assertThat(result.created).isEqualTo(3);
+    assertThat(result.failures).isEmpty();
+    ArgumentCaptor<DBObject> inserted = ArgumentCaptor.forClass(DBObject.class);
+    verify(bulk, atLeastOnce()).insert(inserted.capture());
+    List<DBObject> documents = inserted.getAllValues();
+    assertThat(documents).hasSize(3);
+    Set<Object> ids = documents.stream().map(document -> document.get("id")).collect(Collectors.toSet());
+    assertThat(ids).hasSize(3).doesNotContainNull();
+    assertThat(documents.stream().map(document -> document.get("user_id")).collect(Collectors.toSet()))
+        .containsOnly("user1", "user2", "user3");
+  }
+}
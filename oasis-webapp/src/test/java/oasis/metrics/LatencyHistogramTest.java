@@ -0,0 +1,49 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+  @Test public void testWriteTo() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(30));
+    histogram.record(TimeUnit.SECONDS.toNanos(60));
+
+    PrometheusTextWriter writer = new PrometheusTextWriter()
+        .header("latency_seconds", "histogram", "Some \"latency\"\nhelp");
+    histogram.writeTo(writer, "latency_seconds", "resource", "Some\"Resource\\");
+
+    assertThat(writer.toString())
+        .startsWith("# HELP latency_seconds Some \"latency\"\\nhelp\n# TYPE latency_seconds histogram\n")
+        .contains("latency_seconds_bucket{resource=\"Some\\\"Resource\\\\\",le=\"5.0E-4\"} 1\n")
+        .contains("latency_seconds_bucket{resource=\"Some\\\"Resource\\\\\",le=\"0.001\"} 2\n")
+        .contains("latency_seconds_bucket{resource=\"Some\\\"Resource\\\\\",le=\"0.025\"} 2\n")
+        .contains("latency_seconds_bucket{resource=\"Some\\\"Resource\\\\\",le=\"0.05\"} 3\n")
+        .contains("latency_seconds_bucket{resource=\"Some\\\"Resource\\\\\",le=\"10.0\"} 3\n")
+        .contains("latency_seconds_bucket{resource=\"Some\\\"Resource\\\\\",le=\"+Inf\"} 4\n")
+        .contains("latency_seconds_sum{resource=\"Some\\\"Resource\\\\\"} 60.0311\n")
+        .endsWith("latency_seconds_count{resource=\"Some\\\"Resource\\\\\"} 4\n");
+  }
+}
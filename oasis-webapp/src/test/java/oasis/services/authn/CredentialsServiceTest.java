@@ -0,0 +1,112 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.services.authn;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import oasis.auth.AuthModule;
+import oasis.model.authn.ClientType;
+import oasis.model.authn.Credentials;
+import oasis.model.authn.CredentialsRepository;
+import oasis.services.authn.login.KdfExecutor;
+import oasis.services.authn.login.SCryptPasswordHasher;
+
+public class CredentialsServiceTest {
+  private static final byte[] HASH = { 1, 2, 3 };
+  private static final byte[] SALT = { 4, 5, 6 };
+
+  private CredentialsRepository credentialsRepository;
+  private SCryptPasswordHasher passwordHasher;
+  private CredentialsService credentialsService;
+
+  @Before public void setUp() {
+    Credentials credentials = new Credentials();
+    credentials.setHash(HASH);
+    credentials.setSalt(SALT);
+
+    credentialsRepository = mock(CredentialsRepository.class);
+    when(credentialsRepository.getCredentials(any(), anyString())).thenReturn(credentials);
+    passwordHasher = mock(SCryptPasswordHasher.class);
+    when(passwordHasher.checkPassword(anyString(), any(), any())).thenReturn(false);
+    when(passwordHasher.checkPassword("secret", HASH, SALT)).thenReturn(true);
+    when(passwordHasher.createSalt()).thenReturn(SALT);
+    when(passwordHasher.hashPassword(anyString(), any())).thenReturn(HASH);
+
+    AuthModule.Settings settings = AuthModule.Settings.builder()
+        .setClientCredentialsCacheSize(10)
+        .setClientCredentialsCacheMaxStaleness(Duration.ofMinutes(1))
+        .build();
+    ClientCredentialsCache cache = new ClientCredentialsCache(settings, new SecureRandom());
+    credentialsService = new CredentialsService(credentialsRepository, passwordHasher, cache, new KdfExecutor(settings));
+  }
+
+  @Test public void testClientSecretIsOnlyHashedOnce() {
+    assertThat(credentialsService.checkPassword(ClientType.PROVIDER, "client", "secret")).isTrue();
+    assertThat(credentialsService.checkPassword(ClientType.PROVIDER, "client", "secret")).isTrue();
+    assertThat(credentialsService.checkPassword(ClientType.PROVIDER, "client", "secret")).isTrue();
+
+    verify(passwordHasher, times(1)).checkPassword("secret", HASH, SALT);
+  }
+
+  @Test public void testWrongClientSecretIsAlwaysChecked() {
+    assertThat(credentialsService.checkPassword(ClientType.PROVIDER, "client", "secret")).isTrue();
+
+    assertThat(credentialsService.checkPassword(ClientType.PROVIDER, "client", "wrong")).isFalse();
+    assertThat(credentialsService.checkPassword(ClientType.PROVIDER, "client", "wrong")).isFalse();
+
+    verify(passwordHasher, times(2)).checkPassword("wrong", HASH, SALT);
+  }
+
+  @Test public void testUserPasswordsAreNotCached() {
+    assertThat(credentialsService.checkPassword(ClientType.USER, "user", "secret")).isTrue();
+    assertThat(credentialsService.checkPassword(ClientType.USER, "user", "secret")).isTrue();
+
+    verify(passwordHasher, times(2)).checkPassword("secret", HASH, SALT);
+  }
+
+  @Test public void testSetPasswordInvalidatesCache() {
+    assertThat(credentialsService.checkPassword(ClientType.PROVIDER, "client", "secret")).isTrue();
+
+    credentialsService.setPassword(ClientType.PROVIDER, "client", "other");
+    when(credentialsRepository.getCredentials(any(), anyString())).thenReturn(null);
+
+    assertThat(credentialsService.checkPassword(ClientType.PROVIDER, "client", "secret")).isFalse();
+  }
+
+  @Test public void testDeleteCredentialsInvalidatesCache() {
+    assertThat(credentialsService.checkPassword(ClientType.PROVIDER, "client", "secret")).isTrue();
+
+    credentialsService.deleteCredentials(ClientType.PROVIDER, "client");
+    when(credentialsRepository.getCredentials(any(), anyString())).thenReturn(null);
+
+    assertThat(credentialsService.checkPassword(ClientType.PROVIDER, "client", "secret")).isFalse();
+    verify(credentialsRepository).deleteCredentials(ClientType.PROVIDER, "client");
+  }
+}
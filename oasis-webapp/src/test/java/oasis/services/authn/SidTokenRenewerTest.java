@@ -0,0 +1,84 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.services.authn;
+
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+
+import oasis.auth.AuthModule;
+import oasis.model.authn.SidToken;
+import oasis.model.authn.TokenRepository;
+
+public class SidTokenRenewerTest {
+  static final Instant now = Instant.parse("2018-10-17T14:30:00Z");
+  static final Duration sidTokenDuration = Duration.ofHours(6);
+  static final Duration renewalInterval = Duration.ofMinutes(5);
+
+  private TokenRepository tokenRepository;
+  private SidTokenRenewer sut;
+
+  @Before public void setUp() {
+    tokenRepository = mock(TokenRepository.class);
+    sut = new SidTokenRenewer(() -> tokenRepository,
+        AuthModule.Settings.builder()
+            .setSidTokenDuration(sidTokenDuration)
+            .setSidTokenRenewalInterval(renewalInterval)
+            .build(),
+        Clock.fixed(now, ZoneOffset.UTC));
+  }
+
+  @Test public void testRenew_recentlyRenewed() {
+    sut.renew(sidToken("recent", now.minus(Duration.ofMinutes(2)).plus(sidTokenDuration).plus(renewalInterval)));
+    sut.flush();
+
+    verifyZeroInteractions(tokenRepository);
+  }
+
+  @Test public void testRenew_batched() {
+    sut.renew(sidToken("new", now.minus(Duration.ofMinutes(1)).plus(sidTokenDuration)));
+    sut.renew(sidToken("old", now.minus(Duration.ofMinutes(10)).plus(sidTokenDuration).plus(renewalInterval)));
+    sut.renew(sidToken("old", now.minus(Duration.ofMinutes(10)).plus(sidTokenDuration).plus(renewalInterval)));
+    sut.flush();
+
+    ArgumentMatcher<Collection<String>> newAndOld = ids -> ids.size() == 2 && ids.containsAll(Arrays.asList("new", "old"));
+    verify(tokenRepository).renewSidTokens(argThat(newAndOld), eq(now.plus(sidTokenDuration).plus(renewalInterval)));
+    verifyNoMoreInteractions(tokenRepository);
+
+    // Nothing left to flush
+    sut.flush();
+    verifyNoMoreInteractions(tokenRepository);
+  }
+
+  private static SidToken sidToken(String id, Instant expirationTime) {
+    SidToken sidToken = new SidToken();
+    sidToken.setId(id);
+    sidToken.setAccountId("account");
+    sidToken.setExpirationTime(expirationTime);
+    return sidToken;
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.services.authn;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import oasis.auth.AuthModule;
+import oasis.model.authn.AccessToken;
+import oasis.model.authn.RefreshToken;
+
+public class TokenCacheTest {
+  private TokenCache tokenCache;
+  private RefreshToken refreshToken;
+  private AccessToken accessToken;
+  private AccessToken otherAccessToken;
+
+  @Before public void setUp() {
+    tokenCache = new TokenCache(AuthModule.Settings.builder()
+        .setTokenCacheSize(100)
+        .setTokenCacheMaxStaleness(Duration.ofMinutes(1))
+        .build());
+
+    refreshToken = new RefreshToken();
+    refreshToken.setId("refresh");
+    refreshToken.setAccountId("account");
+    refreshToken.setServiceProviderId("client");
+    refreshToken.setScopeIds(ImmutableSet.of("openid", "profile"));
+    tokenCache.put("refresh-serial", refreshToken);
+
+    accessToken = new AccessToken();
+    accessToken.setId("access");
+    accessToken.setAccountId("account");
+    accessToken.setServiceProviderId("client");
+    accessToken.setScopeIds(ImmutableSet.of("openid"));
+    accessToken.setAncestorIds(ImmutableList.of("refresh"));
+    tokenCache.put("access-serial", accessToken);
+
+    otherAccessToken = new AccessToken();
+    otherAccessToken.setId("other");
+    otherAccessToken.setAccountId("other-account");
+    otherAccessToken.setServiceProviderId("other-client");
+    otherAccessToken.setScopeIds(ImmutableSet.of("other-scope"));
+    tokenCache.put("other-serial", otherAccessToken);
+  }
+
+  @Test public void testInvalidateToken() {
+    tokenCache.invalidateToken("refresh");
+
+    assertThat(tokenCache.getIfPresent("refresh-serial")).isNull();
+    assertThat(tokenCache.getIfPresent("access-serial")).isSameAs(accessToken);
+    assertThat(tokenCache.getIfPresent("other-serial")).isSameAs(otherAccessToken);
+  }
+
+  @Test public void testInvalidateTokenAndDescendants() {
+    tokenCache.invalidateTokenAndDescendants("refresh");
+
+    assertThat(tokenCache.getIfPresent("refresh-serial")).isNull();
+    assertThat(tokenCache.getIfPresent("access-serial")).isNull();
+    assertThat(tokenCache.getIfPresent("other-serial")).isSameAs(otherAccessToken);
+  }
+
+  @Test public void testInvalidateTokensForAccount() {
+    tokenCache.invalidateTokensForAccount("account");
+
+    assertThat(tokenCache.getIfPresent("refresh-serial")).isNull();
+    assertThat(tokenCache.getIfPresent("access-serial")).isNull();
+    assertThat(tokenCache.getIfPresent("other-serial")).isSameAs(otherAccessToken);
+  }
+
+  @Test public void testInvalidateTokensForClient() {
+    tokenCache.invalidateTokensForClient("other-client");
+
+    assertThat(tokenCache.getIfPresent("refresh-serial")).isSameAs(refreshToken);
+    assertThat(tokenCache.getIfPresent("access-serial")).isSameAs(accessToken);
+    assertThat(tokenCache.getIfPresent("other-serial")).isNull();
+  }
+
+  @Test public void testInvalidateTokensForScopes() {
+    tokenCache.invalidateTokensForScopes(ImmutableSet.of("profile", "other-scope"));
+
+    assertThat(tokenCache.getIfPresent("refresh-serial")).isNull();
+    assertThat(tokenCache.getIfPresent("access-serial")).isSameAs(accessToken);
+    assertThat(tokenCache.getIfPresent("other-serial")).isNull();
+  }
+
+  @Test public void testIndexIsCleanedUpOnRemoval() {
+    tokenCache.invalidate("refresh-serial");
+    tokenCache.invalidateToken("access");
+    tokenCache.invalidateAll();
+
+    assertThat(tokenCache.indexSize()).isZero();
+  }
+
+  @Test public void testDisabledCacheDoesNotIndex() {
+    TokenCache disabledCache = new TokenCache(AuthModule.Settings.builder()
+        .setTokenCacheSize(0)
+        .build());
+
+    disabledCache.put("access-serial", accessToken);
+
+    assertThat(disabledCache.getIfPresent("access-serial")).isNull();
+    assertThat(disabledCache.indexSize()).isZero();
+  }
+}
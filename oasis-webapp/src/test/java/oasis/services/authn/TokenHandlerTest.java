@@ -36,9 +36,11 @@ import org.junit.runner.RunWith;
 import com.google.inject.Inject;
 
 import de.thetaphi.forbiddenapis.SuppressForbidden;
+import oasis.auth.AuthModule;
 import oasis.model.authn.AccessToken;
 import oasis.model.authn.Token;
 import oasis.model.authn.TokenRepository;
+import oasis.services.authn.login.HmacSha256PasswordHasher;
 import oasis.services.authn.login.PasswordHasher;
 
 @RunWith(JukitoRunner.class)
@@ -47,10 +49,16 @@ public class TokenHandlerTest {
     @Override
     protected void configureTest() {
       bind(Clock.class).toInstance(Clock.fixed(now, zone));
+      bind(AuthModule.Settings.class).toInstance(AuthModule.Settings.builder()
+          .setTokenCacheSize(100)
+          .setTokenCacheMaxStaleness(Duration.ofMinutes(1))
+          .build());
     }
   }
 
   @Inject TokenHandler sut;
+  @Inject HmacSha256PasswordHasher hmacSha256PasswordHasher;
+  @Inject TokenCache tokenCache;
 
   private static final ZoneId zone = ZoneId.of("Europe/Paris");
 
@@ -136,5 +144,59 @@ public class TokenHandlerTest {
     assertThat(token).isNull();
   }
 
+  @Test public void testGetCheckedToken_hmacToken(TokenRepository tokenRepository, PasswordHasher passwordHasher) {
+    // given
+    byte[] salt = hmacSha256PasswordHasher.createSalt();
+    AccessToken hmacToken = new AccessToken();
+    hmacToken.setId("hmacToken");
+    hmacToken.setCreationTime(now.minus(Duration.ofMinutes(10)));
+    hmacToken.expiresIn(Duration.ofHours(1));
+    hmacToken.setHash(hmacSha256PasswordHasher.hashPassword("valid", salt));
+    hmacToken.setSalt(salt);
+    hmacToken.setHashAlgorithm(Token.HashAlgorithm.HMAC_SHA256);
+    when(tokenRepository.getToken(hmacToken.getId())).thenReturn(hmacToken);
+
+    // when
+    AccessToken valid = sut.getCheckedToken(TokenSerializer.serialize(hmacToken, "valid"), AccessToken.class);
+    AccessToken counterfeit = sut.getCheckedToken(TokenSerializer.serialize(hmacToken, "counterfeit"), AccessToken.class);
+
+    // then
+    assertThat(valid).isSameAs(hmacToken);
+    assertThat(counterfeit).isNull();
+    verify(passwordHasher, never()).checkPassword(anyString(), any(byte[].class), any(byte[].class));
+  }
+
+  @Test public void testGetCheckedToken_cachedAccessToken(TokenRepository tokenRepository) {
+    // given
+    AccessToken accessToken = new AccessToken();
+    accessToken.setId("cachedToken");
+    accessToken.setAccountId("account");
+    accessToken.setCreationTime(now.minus(Duration.ofMinutes(10)));
+    accessToken.expiresIn(Duration.ofHours(1));
+    accessToken.setHash("valid".getBytes(StandardCharsets.UTF_8));
+    accessToken.setSalt("salt".getBytes(StandardCharsets.UTF_8));
+    when(tokenRepository.getToken(accessToken.getId())).thenReturn(accessToken);
+    String serializedToken = TokenSerializer.serialize(accessToken, "valid");
+
+    // when
+    AccessToken first = sut.getCheckedToken(serializedToken, AccessToken.class);
+    AccessToken second = sut.getCheckedToken(serializedToken, AccessToken.class);
+    AccessToken counterfeit = sut.getCheckedToken(TokenSerializer.serialize(accessToken, "counterfeit"), AccessToken.class);
+
+    // then
+    assertThat(first).isSameAs(accessToken);
+    assertThat(second).isSameAs(accessToken);
+    assertThat(counterfeit).isNull();
+    verify(tokenRepository, times(2)).getToken(accessToken.getId());
+
+    // when
+    tokenCache.invalidateTokensForAccount("account");
+    AccessToken afterRevocation = sut.getCheckedToken(serializedToken, AccessToken.class);
+
+    // then
+    assertThat(afterRevocation).isSameAs(accessToken);
+    verify(tokenRepository, times(3)).getToken(accessToken.getId());
+  }
+
   // TODO: create* methods.
 }
@@ -0,0 +1,145 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.services.authn.login;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import oasis.auth.AuthModule;
+
+public class KdfExecutorTest {
+  private final CountDownLatch started = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private KdfExecutor kdfExecutor;
+  private CompletableFuture<String> blocked;
+
+  @Before public void setUp() throws Exception {
+    kdfExecutor = new KdfExecutor(AuthModule.Settings.builder()
+        .setKdfThreads(1)
+        .setKdfQueueSize(1)
+        .setKdfMaxPerCaller(1)
+        .build());
+
+    // Occupy the only thread
+    blocked = CompletableFuture.supplyAsync(() -> kdfExecutor.execute("blocked", () -> {
+      started.countDown();
+      Uninterruptibles.awaitUninterruptibly(release);
+      return "done";
+    }));
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @After public void tearDown() {
+    release.countDown();
+  }
+
+  @Test public void testRejectsCallerOverItsShare() {
+    assertThatThrownBy(() -> kdfExecutor.execute("blocked", () -> "rejected"))
+        .isInstanceOfSatisfying(KdfExecutor.SaturatedException.class, e -> {
+          assertThat(e.getResponse().getStatus()).isEqualTo(Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+          assertThat(e.getResponse().getHeaderString(HttpHeaders.RETRY_AFTER)).isNotNull();
+        });
+    assertThat(kdfExecutor.getRejectedCount()).isEqualTo(1);
+  }
+
+  @Test public void testRejectsWhenQueueIsFull() throws Exception {
+    // Fill the queue
+    CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> kdfExecutor.execute("queued", () -> "queued"));
+    while (kdfExecutor.getQueueDepth() == 0) {
+      assertThat(queued).isNotDone();
+      Thread.sleep(10);
+    }
+
+    assertThatThrownBy(() -> kdfExecutor.execute("other", () -> "rejected"))
+        .isInstanceOf(KdfExecutor.SaturatedException.class);
+    assertThat(kdfExecutor.getRejectedCount()).isEqualTo(1);
+
+    release.countDown();
+    assertThat(blocked.get(10, TimeUnit.SECONDS)).isEqualTo("done");
+    assertThat(queued.get(10, TimeUnit.SECONDS)).isEqualTo("queued");
+    assertThat(kdfExecutor.getCompletedCount()).isEqualTo(2);
+    assertThat(kdfExecutor.getWaitTimeSum()).isGreaterThan(Duration.ZERO);
+
+    // Capacity is given back once derivations complete
+    assertThat(kdfExecutor.execute("blocked", () -> "again")).isEqualTo("again");
+  }
+
+  @Test public void testCheapRequestsGetThroughWhileSaturated() throws Exception {
+    // Simulates the request threads, with logins flooding them
+    ExecutorService requestThreads = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> logins = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        String caller = "caller" + i;
+        logins.add(requestThreads.submit(() -> kdfExecutor.execute(caller, () -> "login")));
+      }
+      // At most one login waits in the queue (the only KDF thread is blocked); all others are rejected right away,
+      // freeing their request thread.
+      Future<String> cheap = requestThreads.submit(() -> "cheap");
+      assertThat(cheap.get(10, TimeUnit.SECONDS)).isEqualTo("cheap");
+
+      release.countDown();
+      int completed = 0;
+      for (Future<String> login : logins) {
+        try {
+          assertThat(login.get(10, TimeUnit.SECONDS)).isEqualTo("login");
+          completed++;
+        } catch (ExecutionException e) {
+          assertThat(e).hasCauseInstanceOf(KdfExecutor.SaturatedException.class);
+        }
+      }
+      assertThat(completed).isLessThanOrEqualTo(1);
+    } finally {
+      release.countDown();
+      requestThreads.shutdown();
+    }
+  }
+
+  @Test public void testCheckCapacity() {
+    kdfExecutor.checkCapacity(3);
+    assertThatThrownBy(() -> kdfExecutor.checkCapacity(2))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test public void testRunsInlineWithoutThreads() {
+    KdfExecutor inline = new KdfExecutor(AuthModule.Settings.builder().build());
+
+    assertThat(inline.execute("caller", () -> Thread.currentThread())).isSameAs(Thread.currentThread());
+  }
+}
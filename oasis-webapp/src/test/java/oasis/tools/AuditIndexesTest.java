@@ -0,0 +1,89 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.tools;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jongo.Jongo;
+import org.jongo.MongoCollection;
+import org.junit.Test;
+import org.mockito.invocation.Invocation;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.util.Modules;
+import com.mongodb.DB;
+
+import oasis.auth.AuthModule;
+import oasis.jongo.JongoBootstrapper;
+import oasis.jongo.JongoService;
+import oasis.jongo.guice.JongoModule;
+
+/**
+ * Checks {@link AuditIndexes#QUERY_SHAPES} against the indexes created by all the {@link JongoBootstrapper}s, so
+ * queries without an index are caught without having to run the tool against a database.
+ */
+public class AuditIndexesTest {
+  @Test
+  public void testAllQueryShapesAreIndexed() {
+    Map<String, MongoCollection> collections = new HashMap<>();
+    Jongo jongo = mock(Jongo.class, RETURNS_DEEP_STUBS);
+    when(jongo.getCollection(anyString())).thenAnswer(invocation -> collections.computeIfAbsent(
+        invocation.getArgument(0), name -> mock(MongoCollection.class, RETURNS_DEEP_STUBS)));
+
+    Injector injector = Guice.createInjector(Modules.override(new JongoModule(JongoModule.Settings.builder().build()))
+        .with(new AbstractModule() {
+          @Override
+          protected void configure() {
+            bind(Jongo.class).toInstance(jongo);
+            bind(AuthModule.Settings.class).toInstance(AuthModule.Settings.builder().build());
+          }
+        }));
+    for (JongoBootstrapper bootstrapper : injector.getInstance(Key.get(new TypeLiteral<Set<JongoBootstrapper>>() {}))) {
+      bootstrapper.bootstrap();
+    }
+
+    Multimap<String, String> indexes = HashMultimap.create();
+    collections.forEach((name, collection) -> {
+      for (Invocation invocation : mockingDetails(collection).getInvocations()) {
+        if (invocation.getMethod().getName().equals("ensureIndex")) {
+          indexes.put(name, invocation.getArgument(0));
+        }
+      }
+    });
+    // Sanity check
+    assertThat(indexes.get("tokens")).contains("{ id: 1 }");
+
+    Jongo queryParser = new Jongo(mock(DB.class), JongoService.createMapper());
+    assertThat(AuditIndexes.findUnindexedShapes(queryParser, indexes)).isEmpty();
+  }
+}
@@ -0,0 +1,131 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.usecases;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.AsyncInvoker;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import oasis.model.applications.v2.AppInstance;
+import oasis.model.applications.v2.AppInstanceRepository;
+import oasis.model.applications.v2.Application;
+import oasis.model.applications.v2.ApplicationRepository;
+import oasis.services.authn.CredentialsService;
+
+public class DeleteAppInstanceTest {
+  private static final DeleteAppInstance.Request request = ImmutableDeleteAppInstance.Request.builder()
+      .instanceId("instance")
+      .callProvider(true)
+      .checkStatus(AppInstance.InstantiationStatus.PENDING)
+      .checkVersions(null)
+      .notifyAdmins(false)
+      .build();
+
+  private DeleteAppInstance deleteAppInstance;
+  private AppInstanceRepository appInstanceRepository;
+  private AsyncInvoker invoker;
+  private ArgumentCaptor<InvocationCallback<Response>> callback;
+
+  @SuppressWarnings("unchecked")
+  @Before public void setUp() {
+    AppInstance appInstance = new AppInstance();
+    appInstance.setId("instance");
+    appInstance.setApplication_id("application");
+    appInstance.setStatus(AppInstance.InstantiationStatus.PENDING);
+    appInstanceRepository = mock(AppInstanceRepository.class);
+    when(appInstanceRepository.getAppInstance("instance")).thenReturn(appInstance);
+    when(appInstanceRepository.deleteInstance("instance")).thenReturn(true);
+
+    Application application = new Application();
+    application.setCancellation_uri("https://factory.example.com/cancel");
+    application.setCancellation_secret("secret");
+    ApplicationRepository applicationRepository = mock(ApplicationRepository.class);
+    when(applicationRepository.getApplication("application")).thenReturn(application);
+
+    invoker = mock(AsyncInvoker.class);
+    Invocation.Builder builder = mock(Invocation.Builder.class);
+    when(builder.property(anyString(), any())).thenReturn(builder);
+    when(builder.async()).thenReturn(invoker);
+    WebTarget target = mock(WebTarget.class);
+    when(target.request()).thenReturn(builder);
+    Client client = mock(Client.class);
+    when(client.target(application.getCancellation_uri())).thenReturn(target);
+    callback = ArgumentCaptor.forClass(InvocationCallback.class);
+
+    deleteAppInstance = new DeleteAppInstance();
+    deleteAppInstance.clientProvider = () -> client;
+    deleteAppInstance.appInstanceRepository = appInstanceRepository;
+    deleteAppInstance.applicationRepository = applicationRepository;
+    deleteAppInstance.credentialsService = mock(CredentialsService.class);
+    deleteAppInstance.cleanupAppInstance = mock(CleanupAppInstance.class);
+  }
+
+  @Test public void testDeleteInstanceAsync_waitsForProvider() {
+    CompletableFuture<DeleteAppInstance.Status> future = deleteAppInstance
+        .deleteInstanceAsync(request, new DeleteAppInstance.Stats())
+        .toCompletableFuture();
+    verify(invoker).post(any(Entity.class), callback.capture());
+    assertThat(future).isNotDone();
+    verify(appInstanceRepository, never()).deleteInstance(anyString());
+
+    callback.getValue().completed(Response.noContent().build());
+
+    assertThat(future).isCompletedWithValue(DeleteAppInstance.Status.DELETED_INSTANCE);
+    verify(appInstanceRepository).deleteInstance("instance");
+  }
+
+  @Test public void testDeleteInstanceAsync_deletesWhenProviderTimesOut() {
+    CompletableFuture<DeleteAppInstance.Status> future = deleteAppInstance
+        .deleteInstanceAsync(request, new DeleteAppInstance.Stats())
+        .toCompletableFuture();
+    verify(invoker).post(any(Entity.class), callback.capture());
+
+    callback.getValue().failed(new ProcessingException(new SocketTimeoutException("Read timed out")));
+
+    assertThat(future).isCompletedWithValue(DeleteAppInstance.Status.DELETED_INSTANCE);
+    verify(appInstanceRepository).deleteInstance("instance");
+  }
+
+  @Test public void testDeleteInstanceAsync_providerError() {
+    CompletableFuture<DeleteAppInstance.Status> future = deleteAppInstance
+        .deleteInstanceAsync(request, new DeleteAppInstance.Stats())
+        .toCompletableFuture();
+    verify(invoker).post(any(Entity.class), callback.capture());
+
+    callback.getValue().completed(Response.serverError().build());
+
+    assertThat(future).isCompletedWithValue(DeleteAppInstance.Status.PROVIDER_STATUS_ERROR);
+    verify(appInstanceRepository, never()).deleteInstance(anyString());
+  }
+}
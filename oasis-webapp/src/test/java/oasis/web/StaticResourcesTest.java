@@ -0,0 +1,118 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import org.jukito.JukitoModule;
+import org.jukito.JukitoRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.google.inject.Inject;
+
+import oasis.http.testing.InProcessResteasy;
+
+@RunWith(JukitoRunner.class)
+public class StaticResourcesTest {
+  public static class Module extends JukitoModule {
+    @Override
+    protected void configureTest() {
+      bind(StaticResources.class);
+    }
+  }
+
+  private static final String SVG_PATH = "/images/franceconnect.svg";
+
+  @Inject @Rule public InProcessResteasy resteasy;
+
+  @Before public void setUp() {
+    resteasy.getDeployment().getRegistry().addPerRequestResource(StaticResources.class);
+  }
+
+  @Test public void testIdentity() {
+    Response response = resteasy.getClient().target(resteasy.getBaseUri()).path(SVG_PATH)
+        .request().get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.OK);
+    assertThat(response.getHeaderString(HttpHeaders.CONTENT_ENCODING)).isNull();
+    assertThat(response.getHeaderString(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+    assertThat(response.getHeaderString(HttpHeaders.CACHE_CONTROL)).contains("max-age=86400");
+    assertThat(response.getEntityTag()).isNotNull();
+    assertThat(response.getLastModified()).isNotNull();
+  }
+
+  @Test public void testGzip() {
+    Response identity = resteasy.getClient().target(resteasy.getBaseUri()).path(SVG_PATH)
+        .request().get();
+    Response gzipped = resteasy.getClient().target(resteasy.getBaseUri()).path(SVG_PATH)
+        .request()
+        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+        .get();
+
+    assertThat(gzipped.getStatusInfo()).isEqualTo(Response.Status.OK);
+    assertThat(gzipped.getHeaderString(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+    assertThat(gzipped.getEntityTag()).isNotEqualTo(identity.getEntityTag());
+    assertThat(gzipped.readEntity(byte[].class).length).isLessThan(identity.readEntity(byte[].class).length);
+  }
+
+  @Test public void testNotModified() {
+    EntityTag etag = resteasy.getClient().target(resteasy.getBaseUri()).path(SVG_PATH)
+        .request().get()
+        .getEntityTag();
+
+    Response response = resteasy.getClient().target(resteasy.getBaseUri()).path(SVG_PATH)
+        .request()
+        .header(HttpHeaders.IF_NONE_MATCH, etag)
+        .get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.NOT_MODIFIED);
+    assertThat(response.getEntityTag()).isEqualTo(etag);
+  }
+
+  @Test public void testNotFound() {
+    Response response = resteasy.getClient().target(resteasy.getBaseUri()).path("/images/unknown.svg")
+        .request().get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.NOT_FOUND);
+  }
+
+  @Test public void testAcceptsGzip() {
+    assertThat(StaticAssets.acceptsGzip(null)).isFalse();
+    assertThat(StaticAssets.acceptsGzip(Collections.singletonList("identity"))).isFalse();
+    assertThat(StaticAssets.acceptsGzip(Collections.singletonList("gzip, deflate, br"))).isTrue();
+    assertThat(StaticAssets.acceptsGzip(Collections.singletonList("GZIP;q=0.5"))).isTrue();
+    assertThat(StaticAssets.acceptsGzip(Collections.singletonList("gzip;q=0.0"))).isFalse();
+    assertThat(StaticAssets.acceptsGzip(Collections.singletonList("gzip;q=0"))).isFalse();
+    assertThat(StaticAssets.acceptsGzip(Arrays.asList("br", "*;q=1"))).isTrue();
+    // An explicit gzip entry takes precedence over *
+    assertThat(StaticAssets.acceptsGzip(Collections.singletonList("gzip;q=0, *"))).isFalse();
+    assertThat(StaticAssets.acceptsGzip(Arrays.asList("*", "gzip;q=0"))).isFalse();
+    assertThat(StaticAssets.acceptsGzip(Collections.singletonList("*;q=0, gzip"))).isTrue();
+    assertThat(StaticAssets.acceptsGzip(Collections.singletonList("*;q=0"))).isFalse();
+  }
+}
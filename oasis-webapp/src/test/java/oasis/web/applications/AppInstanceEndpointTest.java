@@ -0,0 +1,119 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.applications;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Response;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.google.common.collect.ImmutableList;
+
+import oasis.http.HttpClientModule;
+import oasis.http.ImmutableHttpClientModule;
+import oasis.services.etag.EtagService;
+import oasis.usecases.DeleteAppInstance;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+/**
+ * Checks that {@link AppInstanceEndpoint#deleteInstance} doesn't block on the provider, and resumes the request
+ * once the deletion completes.
+ */
+public class AppInstanceEndpointTest {
+  private static final HttpClientModule.Settings httpClientSettings = ImmutableHttpClientModule.Settings.builder()
+      .loggingLevel(HttpLoggingInterceptor.Level.NONE)
+      .webhookTimeout(Duration.ofSeconds(30))
+      .build();
+
+  private AppInstanceEndpoint endpoint;
+  private CompletableFuture<DeleteAppInstance.Status> deletion;
+  private AsyncResponse asyncResponse;
+
+  @Before public void setUp() {
+    deletion = new CompletableFuture<>();
+    DeleteAppInstance deleteAppInstance = mock(DeleteAppInstance.class);
+    when(deleteAppInstance.deleteInstanceAsync(any(), any())).thenReturn(deletion);
+
+    endpoint = new AppInstanceEndpoint();
+    endpoint.deleteAppInstance = () -> deleteAppInstance;
+    endpoint.etagService = mock(EtagService.class);
+    endpoint.httpClientSettings = httpClientSettings;
+    endpoint.instanceId = "instance";
+
+    asyncResponse = mock(AsyncResponse.class);
+  }
+
+  @Test public void testDeleteInstance_resumesOnceDeleted() {
+    endpoint.deleteInstance(asyncResponse, ImmutableList.of(new EntityTag("etag")));
+
+    verify(asyncResponse, never()).resume(any(Object.class));
+    verify(asyncResponse, never()).resume(any(Throwable.class));
+
+    deletion.complete(DeleteAppInstance.Status.DELETED_INSTANCE);
+
+    ArgumentCaptor<Object> response = ArgumentCaptor.forClass(Object.class);
+    verify(asyncResponse).resume(response.capture());
+    assertThat(((Response) response.getValue()).getStatusInfo()).isEqualTo(Response.Status.NO_CONTENT);
+  }
+
+  @Test public void testDeleteInstance_resumesWithProviderError() {
+    endpoint.deleteInstance(asyncResponse, ImmutableList.of(new EntityTag("etag")));
+
+    deletion.complete(DeleteAppInstance.Status.PROVIDER_CALL_ERROR);
+
+    ArgumentCaptor<Object> response = ArgumentCaptor.forClass(Object.class);
+    verify(asyncResponse).resume(response.capture());
+    assertThat(((Response) response.getValue()).getStatusInfo()).isEqualTo(Response.Status.BAD_GATEWAY);
+  }
+
+  @Test public void testDeleteInstance_resumesWithFailure() {
+    endpoint.deleteInstance(asyncResponse, ImmutableList.of(new EntityTag("etag")));
+
+    RuntimeException failure = new RuntimeException("boom");
+    deletion.completeExceptionally(failure);
+
+    verify(asyncResponse).resume(failure);
+  }
+
+  @Test public void testDeleteInstance_outlivesProviderCall() {
+    endpoint.deleteInstance(asyncResponse, ImmutableList.of(new EntityTag("etag")));
+
+    // The provider call times out first, and the instance is deleted anyway (see DeleteAppInstanceTest)
+    verify(asyncResponse).setTimeout(httpClientSettings.suspendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    assertThat(httpClientSettings.suspendTimeout()).isGreaterThan(httpClientSettings.webhookTimeout().multipliedBy(3));
+  }
+
+  @Test public void testDeleteInstance_requiresIfMatch() {
+    endpoint.deleteInstance(asyncResponse, ImmutableList.of());
+
+    ArgumentCaptor<Object> response = ArgumentCaptor.forClass(Object.class);
+    verify(asyncResponse).resume(response.capture());
+    assertThat(((Response) response.getValue()).getStatus()).isEqualTo(428);
+  }
+}
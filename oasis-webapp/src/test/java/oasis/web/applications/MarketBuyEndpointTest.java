@@ -0,0 +1,188 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.applications;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.AsyncInvoker;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.google.common.collect.ImmutableList;
+
+import oasis.auth.AuthModule;
+import oasis.http.HttpClientModule;
+import oasis.http.ImmutableHttpClientModule;
+import oasis.model.accounts.AccountRepository;
+import oasis.model.accounts.UserAccount;
+import oasis.model.applications.v2.AppInstance;
+import oasis.model.applications.v2.AppInstanceRepository;
+import oasis.model.applications.v2.Application;
+import oasis.model.applications.v2.ApplicationRepository;
+import oasis.model.applications.v2.CatalogEntry;
+import oasis.model.authn.AccessToken;
+import oasis.security.KeyPairLoader;
+import oasis.services.authn.CredentialsService;
+import oasis.services.authn.PasswordGenerator;
+import oasis.urls.ImmutableBaseUrls;
+import oasis.usecases.DeleteAppInstance;
+import oasis.web.authn.OAuthPrincipal;
+import okhttp3.logging.HttpLoggingInterceptor;
+
+/**
+ * Checks that {@link MarketBuyEndpoint#instantiate} doesn't block on the application factory, and resumes the
+ * request once the factory responds.
+ */
+public class MarketBuyEndpointTest {
+  private static final HttpClientModule.Settings httpClientSettings = ImmutableHttpClientModule.Settings.builder()
+      .loggingLevel(HttpLoggingInterceptor.Level.NONE)
+      .webhookTimeout(Duration.ofSeconds(30))
+      .build();
+
+  private static final AuthModule.Settings settings = AuthModule.Settings.builder()
+      .setKeyPair(KeyPairLoader.generateRandomKeyPair())
+      .setJwtBearerDuration(Duration.ofMinutes(1))
+      .build();
+
+  private MarketBuyEndpoint endpoint;
+  private AsyncInvoker invoker;
+  private ArgumentCaptor<InvocationCallback<Response>> callback;
+  private AsyncResponse asyncResponse;
+
+  @SuppressWarnings("unchecked")
+  @Before public void setUp() {
+    Application application = new Application();
+    application.setId("application");
+    application.setTarget_audience(ImmutableList.of(CatalogEntry.TargetAudience.CITIZENS));
+    application.setInstantiation_uri("https://factory.example.com/instantiate");
+    application.setInstantiation_secret("secret");
+    ApplicationRepository applicationRepository = mock(ApplicationRepository.class);
+    when(applicationRepository.getApplication("application")).thenReturn(application);
+
+    AppInstanceRepository appInstanceRepository = mock(AppInstanceRepository.class);
+    when(appInstanceRepository.createAppInstance(any())).thenAnswer(invocation -> {
+      AppInstance instance = invocation.getArgument(0);
+      instance.setId("instance");
+      return instance;
+    });
+    when(appInstanceRepository.getAppInstance("instance")).thenReturn(new AppInstance());
+
+    AccountRepository accountRepository = mock(AccountRepository.class);
+    when(accountRepository.getUserAccountById("user")).thenReturn(new UserAccount());
+
+    PasswordGenerator passwordGenerator = mock(PasswordGenerator.class);
+    when(passwordGenerator.generate()).thenReturn("password");
+
+    invoker = mock(AsyncInvoker.class);
+    Invocation.Builder builder = mock(Invocation.Builder.class);
+    when(builder.property(anyString(), any())).thenReturn(builder);
+    when(builder.async()).thenReturn(invoker);
+    WebTarget target = mock(WebTarget.class);
+    when(target.request()).thenReturn(builder);
+    Client client = mock(Client.class);
+    when(client.target(application.getInstantiation_uri())).thenReturn(target);
+    callback = ArgumentCaptor.forClass(InvocationCallback.class);
+
+    AccessToken accessToken = new AccessToken();
+    accessToken.setAccountId("user");
+    accessToken.setServiceProviderId("portal");
+    accessToken.setPortal(true);
+    SecurityContext securityContext = mock(SecurityContext.class);
+    when(securityContext.getUserPrincipal()).thenReturn(new OAuthPrincipal(accessToken));
+
+    UriInfo uriInfo = mock(UriInfo.class);
+    when(uriInfo.getBaseUriBuilder()).thenAnswer(invocation -> UriBuilder.fromUri("https://kernel.example.com/"));
+
+    endpoint = new MarketBuyEndpoint();
+    endpoint.applicationRepository = applicationRepository;
+    endpoint.appInstanceRepository = appInstanceRepository;
+    endpoint.accountRepository = accountRepository;
+    endpoint.passwordGenerator = passwordGenerator;
+    endpoint.credentialsService = mock(CredentialsService.class);
+    endpoint.deleteAppInstance = mock(DeleteAppInstance.class);
+    endpoint.client = client;
+    endpoint.settings = settings;
+    endpoint.httpClientSettings = httpClientSettings;
+    endpoint.baseUrls = ImmutableBaseUrls.builder().canonicalBaseUri(URI.create("https://kernel.example.com/")).build();
+    endpoint.clock = Clock.systemUTC();
+    endpoint.uriInfo = uriInfo;
+    endpoint.securityContext = securityContext;
+    endpoint.applicationId = "application";
+
+    asyncResponse = mock(AsyncResponse.class);
+  }
+
+  @Test public void testInstantiate_resumesOnceFactoryResponded() {
+    endpoint.instantiate(asyncResponse, new AppInstance());
+
+    verify(invoker).post(any(Entity.class), callback.capture());
+    verify(asyncResponse).setTimeout(httpClientSettings.suspendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    verify(asyncResponse, never()).resume(any(Object.class));
+    verify(asyncResponse, never()).resume(any(Throwable.class));
+
+    callback.getValue().completed(Response.ok().build());
+
+    assertThat(getResponse().getStatusInfo()).isEqualTo(Response.Status.OK);
+  }
+
+  @Test public void testInstantiate_factoryTimesOut() {
+    endpoint.instantiate(asyncResponse, new AppInstance());
+    verify(invoker).post(any(Entity.class), callback.capture());
+
+    callback.getValue().failed(new ProcessingException(new SocketTimeoutException("Read timed out")));
+
+    assertThat(getResponse().getStatusInfo()).isEqualTo(Response.Status.GATEWAY_TIMEOUT);
+  }
+
+  @Test public void testInstantiate_factoryFails() {
+    endpoint.instantiate(asyncResponse, new AppInstance());
+    verify(invoker).post(any(Entity.class), callback.capture());
+
+    callback.getValue().failed(new ProcessingException(new ConnectException("Connection refused")));
+
+    assertThat(getResponse().getStatusInfo()).isEqualTo(Response.Status.BAD_GATEWAY);
+  }
+
+  private Response getResponse() {
+    ArgumentCaptor<Object> response = ArgumentCaptor.forClass(Object.class);
+    verify(asyncResponse).resume(response.capture());
+    return (Response) response.getValue();
+  }
+}
@@ -51,6 +51,7 @@ import oasis.model.authn.ClientCertificate;
 import oasis.model.authn.ClientType;
 import oasis.model.authn.SidToken;
 import oasis.model.authn.TokenRepository;
+import oasis.services.authn.SidTokenRenewer;
 import oasis.services.authn.TokenHandler;
 import oasis.services.cookies.CookieFactory;
 import oasis.web.utils.UserAgentFingerprinter;
@@ -64,6 +65,7 @@ public class UserFilterTest {
       bind(UserFilter.class);
 
       bindMock(TokenHandler.class).in(TestSingleton.class);
+      bindMock(SidTokenRenewer.class).in(TestSingleton.class);
       bindMock(UserAgentFingerprinter.class).in(TestSingleton.class);
       bindMock(SessionManagementHelper.class).in(TestSingleton.class);
       bindMock(ClientCertificateHelper.class).in(TestSingleton.class);
@@ -116,6 +118,7 @@ public class UserFilterTest {
   @Inject UserAgentFingerprinter fingerprinter;
   @Inject TokenRepository tokenRepository;
   @Inject SessionManagementHelper sessionManagementHelper;
+  @Inject SidTokenRenewer sidTokenRenewer;
 
   @Before public void setUpMocks(TokenHandler tokenHandler) {
     when(tokenHandler.getCheckedToken("valid", SidToken.class)).thenReturn(validSidToken);
@@ -149,7 +152,7 @@ public class UserFilterTest {
         SessionManagementHelper.createBrowserStateCookie(true, "browser-state"));
     assertThat(response.readEntity(SidToken.class)).isNull();
 
-    verifyNoMoreInteractions(tokenHandler, tokenRepository);
+    verifyNoMoreInteractions(tokenHandler, tokenRepository, sidTokenRenewer);
   }
 
   @SuppressWarnings("unchecked")
@@ -168,7 +171,7 @@ public class UserFilterTest {
         SessionManagementHelper.createBrowserStateCookie(true, "browser-state"));
     assertThat(response.readEntity(SidToken.class)).isNull();
 
-    verifyNoMoreInteractions(tokenHandler, tokenRepository);
+    verifyNoMoreInteractions(tokenHandler, tokenRepository, sidTokenRenewer);
   }
 
   @Test public void testBrowserStateOnly(TokenHandler tokenHandler) {
@@ -181,7 +184,7 @@ public class UserFilterTest {
     assertThat(response.getCookies()).doesNotContainKeys(cookieName, browserStateCookieName);
     assertThat(response.readEntity(SidToken.class)).isNull();
 
-    verifyNoMoreInteractions(tokenHandler, tokenRepository);
+    verifyNoMoreInteractions(tokenHandler, tokenRepository, sidTokenRenewer);
   }
 
   @Test public void testAuthenticated() {
@@ -197,7 +200,8 @@ public class UserFilterTest {
     assertThat(response.getCookies()).doesNotContainKeys(cookieName, browserStateCookieName);
     assertThat(response.readEntity(SidToken.class)).isEqualToComparingFieldByField(validSidToken);
 
-    verify(tokenRepository).renewSidToken(validSidToken.getId(), false);
+    verify(sidTokenRenewer).renew(validSidToken);
+    verify(tokenRepository, never()).renewSidToken(anyString(), anyBoolean());
   }
 
   @SuppressWarnings("unchecked")
@@ -220,6 +224,7 @@ public class UserFilterTest {
     assertThat(response.readEntity(SidToken.class)).isEqualToComparingFieldByField(validSidTokenUsingCertificate);
 
     verify(tokenRepository).renewSidToken(validSidToken.getId(), true);
+    verify(sidTokenRenewer, never()).renew(any(SidToken.class));
     verify(sessionManagementHelper).generateBrowserState();
   }
 
@@ -242,6 +247,7 @@ public class UserFilterTest {
     assertThat(response.readEntity(SidToken.class)).isEqualToComparingFieldByField(validSidToken);
 
     verify(tokenRepository).renewSidToken(validSidToken.getId(), false);
+    verify(sidTokenRenewer, never()).renew(any(SidToken.class));
     verify(sessionManagementHelper).generateBrowserState();
   }
 
@@ -260,7 +266,8 @@ public class UserFilterTest {
     assertThat(response.getCookies()).doesNotContainKeys(cookieName, browserStateCookieName);
     assertThat(response.readEntity(SidToken.class)).isEqualToComparingFieldByField(validSidToken);
 
-    verify(tokenRepository).renewSidToken(validSidToken.getId(), false);
+    verify(sidTokenRenewer).renew(validSidToken);
+    verify(tokenRepository, never()).renewSidToken(anyString(), anyBoolean());
   }
 
   @SuppressWarnings("unchecked")
@@ -278,7 +285,8 @@ public class UserFilterTest {
     assertThat(response.getCookies()).doesNotContainKeys(cookieName, browserStateCookieName);
     assertThat(response.readEntity(SidToken.class)).isEqualToComparingFieldByField(validSidToken);
 
-    verify(tokenRepository).renewSidToken(validSidToken.getId(), false);
+    verify(sidTokenRenewer).renew(validSidToken);
+    verify(tokenRepository, never()).renewSidToken(anyString(), anyBoolean());
   }
 
   @Test public void testAuthenticatedNoBrowserState() {
@@ -297,7 +305,8 @@ public class UserFilterTest {
         SessionManagementHelper.createBrowserStateCookie(true, "browser-state"));
     assertThat(response.readEntity(SidToken.class)).isEqualToComparingFieldByField(validSidToken);
 
-    verify(tokenRepository).renewSidToken(validSidToken.getId(), false);
+    verify(sidTokenRenewer).renew(validSidToken);
+    verify(tokenRepository, never()).renewSidToken(anyString(), anyBoolean());
   }
 
   @Test public void testWithInvalidCookie() {
@@ -312,6 +321,7 @@ public class UserFilterTest {
     assertThat(response.readEntity(SidToken.class)).isNull();
 
     verify(tokenRepository, never()).renewSidToken(eq(validSidToken.getId()), anyBoolean());
+    verify(sidTokenRenewer, never()).renew(any(SidToken.class));
   }
 
   @Test public void testWithInvalidFingerprint() {
@@ -328,6 +338,7 @@ public class UserFilterTest {
     assertThat(response.readEntity(SidToken.class)).isNull();
 
     verify(tokenRepository, never()).renewSidToken(eq(validSidToken.getId()), anyBoolean());
+    verify(sidTokenRenewer, never()).renew(any(SidToken.class));
   }
 
   private void commonAssertions(Response response) {
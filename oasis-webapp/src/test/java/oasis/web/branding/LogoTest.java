@@ -0,0 +1,94 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.branding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import org.jukito.JukitoModule;
+import org.jukito.JukitoRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.google.inject.Inject;
+
+import oasis.http.testing.InProcessResteasy;
+import oasis.model.branding.BrandLogo;
+import oasis.model.branding.BrandRepository;
+
+@RunWith(JukitoRunner.class)
+public class LogoTest {
+  public static class Module extends JukitoModule {
+    @Override
+    protected void configureTest() {
+      bind(Logo.class);
+    }
+  }
+
+  private static final byte[] LOGO = { (byte) 0x89, 'P', 'N', 'G' };
+
+  @Inject @Rule public InProcessResteasy resteasy;
+
+  @Before public void setUp(BrandRepository brandRepository) {
+    resteasy.getDeployment().getRegistry().addPerRequestResource(Logo.class);
+
+    when(brandRepository.getSmallLogo("brand")).thenReturn(new BrandLogo(LOGO));
+  }
+
+  @Test public void testSmallLogo() {
+    Response response = resteasy.getClient().target(resteasy.getBaseUri())
+        .path("/images/logo/small_brand.png")
+        .request().get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.OK);
+    assertThat(response.readEntity(byte[].class)).isEqualTo(LOGO);
+    assertThat(response.getEntityTag()).isNotNull();
+    assertThat(response.getEntityTag().isWeak()).isFalse();
+    assertThat(response.getHeaderString(HttpHeaders.CACHE_CONTROL)).contains("max-age=86400");
+  }
+
+  @Test public void testSmallLogo_notModified() {
+    EntityTag etag = resteasy.getClient().target(resteasy.getBaseUri())
+        .path("/images/logo/small_brand.png")
+        .request().get()
+        .getEntityTag();
+
+    Response response = resteasy.getClient().target(resteasy.getBaseUri())
+        .path("/images/logo/small_brand.png")
+        .request()
+        .header(HttpHeaders.IF_NONE_MATCH, etag)
+        .get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.NOT_MODIFIED);
+    assertThat(response.getEntityTag()).isEqualTo(etag);
+  }
+
+  @Test public void testSmallLogo_notFound() {
+    Response response = resteasy.getClient().target(resteasy.getBaseUri())
+        .path("/images/logo/small_unknown.png")
+        .request().get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.NOT_FOUND);
+  }
+}
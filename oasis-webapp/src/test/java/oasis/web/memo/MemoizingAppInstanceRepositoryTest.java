@@ -0,0 +1,83 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.memo;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import oasis.jongo.applications.v2.JongoAppInstanceRepository;
+import oasis.model.applications.v2.AppInstance;
+
+public class MemoizingAppInstanceRepositoryTest {
+  private JongoAppInstanceRepository jongoAppInstanceRepository;
+  private MemoizingAppInstanceRepository appInstanceRepository;
+
+  @Before public void setUp() {
+    jongoAppInstanceRepository = mock(JongoAppInstanceRepository.class);
+    appInstanceRepository = new MemoizingAppInstanceRepository(jongoAppInstanceRepository);
+  }
+
+  @After public void tearDown() {
+    ResteasyProviderFactory.clearContextData();
+  }
+
+  @Test public void testGetAppInstance_memoizedWithinRequest() {
+    RequestMemo memo = new RequestMemo();
+    ResteasyProviderFactory.pushContext(RequestMemo.class, memo);
+    AppInstance appInstance = new AppInstance();
+    when(jongoAppInstanceRepository.getAppInstance("instance")).thenReturn(appInstance);
+
+    assertThat(appInstanceRepository.getAppInstance("instance")).isSameAs(appInstance);
+    assertThat(appInstanceRepository.getAppInstance("instance")).isSameAs(appInstance);
+    assertThat(appInstanceRepository.getAppInstance("unknown")).isNull();
+    assertThat(appInstanceRepository.getAppInstance("unknown")).isNull();
+
+    verify(jongoAppInstanceRepository).getAppInstance("instance");
+    verify(jongoAppInstanceRepository).getAppInstance("unknown");
+    assertThat(memo.getQueries()).isEqualTo(2);
+    assertThat(memo.getHits()).isEqualTo(2);
+  }
+
+  @Test public void testGetAppInstance_invalidatedOnWrite() {
+    ResteasyProviderFactory.pushContext(RequestMemo.class, new RequestMemo());
+    AppInstance pending = new AppInstance();
+    AppInstance running = new AppInstance();
+    when(jongoAppInstanceRepository.getAppInstance("instance")).thenReturn(pending, running);
+
+    assertThat(appInstanceRepository.getAppInstance("instance")).isSameAs(pending);
+    appInstanceRepository.updateStatus("instance", AppInstance.InstantiationStatus.RUNNING, "user");
+    assertThat(appInstanceRepository.getAppInstance("instance")).isSameAs(running);
+
+    verify(jongoAppInstanceRepository, times(2)).getAppInstance("instance");
+  }
+
+  @Test public void testGetAppInstance_outsideRequest() {
+    AppInstance appInstance = new AppInstance();
+    when(jongoAppInstanceRepository.getAppInstance("instance")).thenReturn(appInstance);
+
+    appInstanceRepository.getAppInstance("instance");
+    appInstanceRepository.getAppInstance("instance");
+
+    verify(jongoAppInstanceRepository, times(2)).getAppInstance("instance");
+  }
+}
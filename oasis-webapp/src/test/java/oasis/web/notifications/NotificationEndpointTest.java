@@ -0,0 +1,234 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.notifications;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.Response;
+
+import org.jukito.JukitoModule;
+import org.jukito.JukitoRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.google.inject.Inject;
+import com.ibm.icu.util.ULocale;
+
+import oasis.http.testing.InProcessResteasy;
+import oasis.model.applications.v2.Service;
+import oasis.model.applications.v2.ServiceRepository;
+import oasis.model.authn.AccessToken;
+import oasis.model.bootstrap.ClientIds;
+import oasis.model.notification.Notification;
+import oasis.model.notification.NotificationRepository;
+import oasis.web.authn.testing.TestClientAuthenticationFilter;
+import oasis.web.authn.testing.TestOAuthFilter;
+
+@RunWith(JukitoRunner.class)
+public class NotificationEndpointTest {
+  public static class Module extends JukitoModule {
+    @Override
+    protected void configureTest() {
+      bind(NotificationEndpoint.class);
+    }
+  }
+
+  private static final Instant NOW = Instant.ofEpochSecond(1500000000, 500_000_000);
+
+  @Inject @Rule public InProcessResteasy resteasy;
+
+  @Before public void setUp() {
+    resteasy.getDeployment().getRegistry().addPerRequestResource(NotificationEndpoint.class);
+    resteasy.getDeployment().getProviderFactory().register(new TestOAuthFilter(new AccessToken() {{
+      setAccountId("user");
+      setServiceProviderId(ClientIds.PORTAL);
+    }}));
+  }
+
+  @Test public void testGet_fullPage(NotificationRepository notificationRepository) {
+    List<Notification> notifications = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      Notification notification = new Notification();
+      notification.setId("notification" + i);
+      notification.setUser_id("user");
+      notification.setTime(NOW.minusSeconds(i));
+      notifications.add(notification);
+    }
+    when(notificationRepository.getNotifications(eq("user"), isNull(), any(), anyInt())).thenReturn(notifications);
+
+    Response response = resteasy.getClient()
+        .target(resteasy.getBaseUriBuilder().path(NotificationEndpoint.class).path(NotificationEndpoint.class, "get").build("user"))
+        .queryParam("before", "1500000001.25")
+        .queryParam("limit", 2)
+        .request()
+        .get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.OK);
+    verify(notificationRepository).getNotifications("user", null,
+        new NotificationRepository.Cursor(Instant.ofEpochSecond(1500000001, 250_000_000), null), 2);
+    Link next = response.getLink("next");
+    assertThat(next).isNotNull();
+    assertThat(next.getUri().getQuery())
+        .contains("before=1499999999.500000000")
+        .contains("before_id=notification1")
+        .contains("limit=2");
+  }
+
+  @Test public void testGet_nextPage(NotificationRepository notificationRepository) {
+    when(notificationRepository.getNotifications(anyString(), any(), any(), anyInt())).thenReturn(Collections.emptyList());
+
+    Response response = resteasy.getClient()
+        .target(resteasy.getBaseUriBuilder().path(NotificationEndpoint.class).path(NotificationEndpoint.class, "get").build("user"))
+        .queryParam("before", "1499999999.5")
+        .queryParam("before_id", "notification1")
+        .queryParam("limit", 2)
+        .request()
+        .get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.OK);
+    verify(notificationRepository).getNotifications("user", null,
+        new NotificationRepository.Cursor(Instant.ofEpochSecond(1499999999, 500_000_000), "notification1"), 2);
+    assertThat(response.getLink("next")).isNull();
+  }
+
+  @Test public void testGet_lastPage(NotificationRepository notificationRepository) {
+    Notification notification = new Notification();
+    notification.setId("notification");
+    notification.setUser_id("user");
+    notification.setTime(NOW);
+    when(notificationRepository.getNotifications(anyString(), anyString(), any(), any(), anyInt()))
+        .thenReturn(Collections.singletonList(notification));
+
+    Response response = resteasy.getClient()
+        .target(resteasy.getBaseUriBuilder().path(NotificationEndpoint.class).path(NotificationEndpoint.class, "get").build("user"))
+        .queryParam("instance", "instance")
+        .queryParam("since", "2017-07-14T02:40:00Z")
+        .request()
+        .get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.OK);
+    // no limit
+    verify(notificationRepository).getNotifications("user", "instance",
+        new NotificationRepository.Cursor(Instant.parse("2017-07-14T02:40:00Z"), null), null, 0);
+    assertThat(response.getLink("next")).isNull();
+  }
+
+  @Test public void testGet_invalidCursor(NotificationRepository notificationRepository) {
+    Response response = resteasy.getClient()
+        .target(resteasy.getBaseUriBuilder().path(NotificationEndpoint.class).path(NotificationEndpoint.class, "get").build("user"))
+        .queryParam("before", "yesterday")
+        .request()
+        .get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.BAD_REQUEST);
+    verifyZeroInteractions(notificationRepository);
+  }
+
+  @Test public void testGet_hugeExponentCursor(NotificationRepository notificationRepository) {
+    Response response = resteasy.getClient()
+        .target(resteasy.getBaseUriBuilder().path(NotificationEndpoint.class).path(NotificationEndpoint.class, "get").build("user"))
+        .queryParam("since", "1E999999999")
+        .request()
+        .get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.BAD_REQUEST);
+    verifyZeroInteractions(notificationRepository);
+  }
+
+  @Test public void testGet_idWithoutTime(NotificationRepository notificationRepository) {
+    Response response = resteasy.getClient()
+        .target(resteasy.getBaseUriBuilder().path(NotificationEndpoint.class).path(NotificationEndpoint.class, "get").build("user"))
+        .queryParam("before_id", "notification1")
+        .request()
+        .get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.BAD_REQUEST);
+    verifyZeroInteractions(notificationRepository);
+  }
+
+  @Test public void testPublish(NotificationRepository notificationRepository, ServiceRepository serviceRepository) {
+    resteasy.getDeployment().getProviderFactory().register(new TestClientAuthenticationFilter("instance"));
+    Service service = new Service();
+    service.setId("service");
+    service.setInstance_id("instance");
+    when(serviceRepository.getService("service")).thenReturn(service);
+    List<String> userIds = new ArrayList<>();
+    when(notificationRepository.createNotifications(any(Notification.class), any())).thenAnswer(invocation -> {
+      Notification prototype = invocation.getArgument(0);
+      assertThat(prototype.getInstance_id()).isEqualTo("instance");
+      assertThat(prototype.getService_id()).isEqualTo("service");
+      assertThat(prototype.getUser_id()).isNull();
+      Stream<String> recipients = invocation.getArgument(1);
+      recipients.forEach(userIds::add);
+      NotificationRepository.FanOutResult result = new NotificationRepository.FanOutResult();
+      result.created = userIds.size();
+      return result;
+    });
+
+    IncomingNotification incomingNotification = new IncomingNotification();
+    incomingNotification.service_id = "service";
+    incomingNotification.user_ids = new String[] { "user1", "user2", "user3" };
+    incomingNotification.message.set(ULocale.ROOT, "message");
+    Response response = resteasy.getClient()
+        .target(resteasy.getBaseUriBuilder().path(NotificationEndpoint.class).path(NotificationEndpoint.class, "publish"))
+        .request()
+        .post(Entity.json(incomingNotification));
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.NO_CONTENT);
+    assertThat(userIds).containsExactly("user1", "user2", "user3");
+  }
+
+  @Test public void testPublish_partialFailure(NotificationRepository notificationRepository, ServiceRepository serviceRepository) {
+    resteasy.getDeployment().getProviderFactory().register(new TestClientAuthenticationFilter("instance"));
+    Service service = new Service();
+    service.setId("service");
+    service.setInstance_id("instance");
+    when(serviceRepository.getService("service")).thenReturn(service);
+    NotificationRepository.FanOutResult result = new NotificationRepository.FanOutResult();
+    result.created = 2;
+    result.failures.add(new NotificationRepository.ChunkFailure(Collections.singletonList("user3"), new Exception()));
+    when(notificationRepository.createNotifications(any(Notification.class), any())).thenReturn(result);
+
+    IncomingNotification incomingNotification = new IncomingNotification();
+    incomingNotification.service_id = "service";
+    incomingNotification.user_ids = new String[] { "user1", "user2", "user3" };
+    incomingNotification.message.set(ULocale.ROOT, "message");
+    Response response = resteasy.getClient()
+        .target(resteasy.getBaseUriBuilder().path(NotificationEndpoint.class).path(NotificationEndpoint.class, "publish"))
+        .request()
+        .post(Entity.json(incomingNotification));
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.INTERNAL_SERVER_ERROR);
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+import oasis.http.HttpServerModule;
+import oasis.http.testing.InProcessResteasy;
+
+public class MetricsAuthenticationFilterTest {
+  private static final String TOKEN = "s3cr3t";
+
+  @Rule public InProcessResteasy resteasy = new InProcessResteasy(Guice.createInjector(new AbstractModule() {
+    @Override
+    protected void configure() {
+      bind(HttpServerModule.Settings.class).toInstance(HttpServerModule.Settings.builder()
+          .setMetricsToken(TOKEN)
+          .build());
+    }
+  }));
+
+  @Before public void setUp() {
+    resteasy.getDeployment().getProviderFactory().register(MetricsAuthenticationFilter.class);
+    resteasy.getDeployment().getRegistry().addPerRequestResource(DummyResource.class);
+  }
+
+  @Test public void testValidToken() {
+    Response response = get("Bearer " + TOKEN);
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.OK);
+  }
+
+  @Test public void testInvalidToken() {
+    Response response = get("Bearer " + TOKEN + "x");
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.UNAUTHORIZED);
+    assertThat(response.getHeaderString(HttpHeaders.WWW_AUTHENTICATE)).startsWith("Bearer ");
+  }
+
+  @Test public void testBasicAuth() {
+    Response response = get("Basic " + TOKEN);
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.UNAUTHORIZED);
+  }
+
+  @Test public void testMissingToken() {
+    Response response = get(null);
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.UNAUTHORIZED);
+  }
+
+  @Test public void testDisabled() {
+    MetricsAuthenticationFilter filter = new MetricsAuthenticationFilter();
+    filter.settings = HttpServerModule.Settings.builder().build();
+    ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
+
+    filter.filter(requestContext);
+
+    ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+    verify(requestContext).abortWith(response.capture());
+    assertThat(response.getValue().getStatusInfo()).isEqualTo(Response.Status.NOT_FOUND);
+  }
+
+  private Response get(@Nullable String authorization) {
+    return resteasy.getClient()
+        .target(resteasy.getBaseUriBuilder().path(DummyResource.class))
+        .request()
+        .header(HttpHeaders.AUTHORIZATION, authorization)
+        .get();
+  }
+
+  @Path("/metrics")
+  @MetricsAuthenticated
+  public static class DummyResource {
+    @GET
+    public String get() {
+      return "metrics";
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+import oasis.http.testing.InProcessResteasy;
+import oasis.metrics.MetricsRegistry;
+
+public class MetricsFilterTest {
+  private static final long STREAMING_TIME_IN_MILLIS = 100;
+
+  private final MetricsRegistry metricsRegistry = mock(MetricsRegistry.class);
+  private final MetricsRegistry.Endpoint endpoint = mock(MetricsRegistry.Endpoint.class);
+
+  @Rule public InProcessResteasy resteasy = new InProcessResteasy(Guice.createInjector(new AbstractModule() {
+    @Override
+    protected void configure() {
+      bind(MetricsRegistry.class).toInstance(metricsRegistry);
+    }
+  }));
+
+  @Before public void setUp() {
+    when(metricsRegistry.endpoint("GET", "DummyResource.stream")).thenReturn(endpoint);
+    when(metricsRegistry.endpoint("GET", "DummyResource.noContent")).thenReturn(endpoint);
+
+    resteasy.getDeployment().getProviderFactory().register(MetricsFilter.class);
+    resteasy.getDeployment().getRegistry().addPerRequestResource(DummyResource.class);
+  }
+
+  @Test public void testStreamedEntity() {
+    Response response = get("stream");
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.OK);
+    assertThat(response.readEntity(String.class)).isEqualTo("streamed");
+    verify(endpoint).started();
+    // The latency includes the time spent writing the entity
+    verify(endpoint).completed(eq(200), longThat(elapsed -> elapsed >= TimeUnit.MILLISECONDS.toNanos(STREAMING_TIME_IN_MILLIS)));
+  }
+
+  @Test public void testNoEntity() {
+    Response response = get("no-content");
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.NO_CONTENT);
+    verify(endpoint).started();
+    verify(endpoint).completed(eq(204), anyLong());
+  }
+
+  @Test public void testUnmatchedRequest() {
+    Response response = get("unknown");
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.NOT_FOUND);
+    verify(endpoint, never()).started();
+    verify(endpoint, never()).completed(anyInt(), anyLong());
+  }
+
+  private Response get(String path) {
+    return resteasy.getClient()
+        .target(resteasy.getBaseUriBuilder().path(DummyResource.class).path(path))
+        .request()
+        .get();
+  }
+
+  @Path("/dummy")
+  public static class DummyResource {
+    @GET
+    @Path("stream")
+    public StreamingOutput stream() {
+      return output -> {
+        output.write("stream".getBytes(StandardCharsets.UTF_8));
+        output.flush();
+        Uninterruptibles.sleepUninterruptibly(STREAMING_TIME_IN_MILLIS, TimeUnit.MILLISECONDS);
+        output.write("ed".getBytes(StandardCharsets.UTF_8));
+      };
+    }
+
+    @GET
+    @Path("no-content")
+    public void noContent() {
+    }
+  }
+}
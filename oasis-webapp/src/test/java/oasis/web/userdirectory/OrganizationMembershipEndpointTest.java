@@ -0,0 +1,128 @@
+/**
+ * Ozwillo Kernel
+ * Copyright (C) 2018  The Ozwillo Kernel Authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package oasis.web.userdirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+
+import org.jukito.JukitoModule;
+import org.jukito.JukitoRunner;
+import org.jukito.TestSingleton;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import com.google.inject.Inject;
+
+import oasis.http.testing.InProcessResteasy;
+import oasis.mail.MailSender;
+import oasis.model.accounts.AccountRepository;
+import oasis.model.accounts.UserAccount;
+import oasis.model.authn.AccessToken;
+import oasis.model.bootstrap.ClientIds;
+import oasis.model.directory.OrganizationMembership;
+import oasis.model.directory.OrganizationMembershipRepository;
+import oasis.services.authn.TokenHandler;
+import oasis.services.etag.EtagService;
+import oasis.soy.SoyTemplateRenderer;
+import oasis.web.authn.testing.TestOAuthFilter;
+
+@RunWith(JukitoRunner.class)
+public class OrganizationMembershipEndpointTest {
+  public static class Module extends JukitoModule {
+    @Override
+    protected void configureTest() {
+      bind(OrganizationMembershipEndpoint.class);
+
+      bindMock(MailSender.class).in(TestSingleton.class);
+      bindMock(SoyTemplateRenderer.class).in(TestSingleton.class);
+      bindMock(TokenHandler.class).in(TestSingleton.class);
+    }
+  }
+
+  private static final int MEMBERS = 200;
+
+  @Inject @Rule public InProcessResteasy resteasy;
+
+  @Before public void setUp(EtagService etagService, OrganizationMembershipRepository organizationMembershipRepository) {
+    resteasy.getDeployment().getRegistry().addPerRequestResource(OrganizationMembershipEndpoint.class);
+    resteasy.getDeployment().getProviderFactory().register(new TestOAuthFilter(new AccessToken() {{
+      setAccountId("admin");
+      setServiceProviderId(ClientIds.PORTAL);
+    }}));
+
+    when(etagService.getEtag(any())).thenReturn(new EntityTag("etag"));
+    OrganizationMembership adminMembership = new OrganizationMembership();
+    adminMembership.setId("admin-membership");
+    adminMembership.setAccountId("admin");
+    adminMembership.setOrganizationId("organization");
+    adminMembership.setAdmin(true);
+    when(organizationMembershipRepository.getOrganizationMembership("admin", "organization")).thenReturn(adminMembership);
+  }
+
+  @Test public void testGetMembers_loadsAccountsAtOnce(OrganizationMembershipRepository organizationMembershipRepository,
+      AccountRepository accountRepository) {
+    List<OrganizationMembership> memberships = new ArrayList<>();
+    List<UserAccount> accounts = new ArrayList<>();
+    for (int i = 0; i < MEMBERS; i++) {
+      OrganizationMembership membership = new OrganizationMembership();
+      membership.setId("membership" + i);
+      membership.setAccountId("user" + i);
+      membership.setOrganizationId("organization");
+      memberships.add(membership);
+
+      UserAccount account = new UserAccount();
+      account.setId("user" + i);
+      account.setNickname("User " + i);
+      accounts.add(account);
+    }
+    when(organizationMembershipRepository.getMembersOfOrganization("organization", 0, 0)).thenReturn(memberships);
+    when(accountRepository.getUserAccountsByIds(any())).thenReturn(accounts);
+
+    Response response = resteasy.getClient()
+        .target(resteasy.getBaseUriBuilder().path(OrganizationMembershipEndpoint.class).build("organization"))
+        .request()
+        .get();
+
+    assertThat(response.getStatusInfo()).isEqualTo(Response.Status.OK);
+    List<OrganizationMembershipEndpoint.OrgMembership> result =
+        response.readEntity(new GenericType<List<OrganizationMembershipEndpoint.OrgMembership>>() {});
+    assertThat(result).hasSize(MEMBERS);
+    assertThat(result.get(42).account_id).isEqualTo("user42");
+    assertThat(result.get(42).account_name).isEqualTo("User 42");
+
+    // One round trip for all accounts of the page
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Collection<String>> ids = ArgumentCaptor.forClass(Collection.class);
+    verify(accountRepository).getUserAccountsByIds(ids.capture());
+    assertThat(ids.getValue()).hasSize(MEMBERS);
+    verify(accountRepository, never()).getUserAccountById(anyString());
+  }
+}